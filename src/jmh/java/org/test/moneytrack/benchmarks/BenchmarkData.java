@@ -0,0 +1,171 @@
+package org.test.moneytrack.benchmarks;
+
+import org.test.moneytrack.domain.model.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Генератор тестовых кошельков для бенчмарков.
+ *
+ * Данные детерминированы (фиксированное зерно), чтобы результаты разных запусков были сравнимы.
+ * Распределение категорий приближено к реальному: несколько частых категорий расходов
+ * (Еда, Транспорт, ...) и длинный хвост редких; доходы - около 10% операций.
+ */
+public final class BenchmarkData {
+
+    /**
+     * Как распределяются расходы по категориям.
+     */
+    public enum Distribution {
+        /** Частые категории + длинный хвост редких (по весам ниже). */
+        REALISTIC,
+        /** Все категории расходов встречаются одинаково часто. */
+        UNIFORM
+    }
+
+    private static final String[] EXPENSE_CATEGORIES = {
+            "Еда", "Транспорт", "Коммунальные услуги", "Развлечения", "Кафе",
+            "Одежда", "Здоровье", "Такси", "Подарки", "Связь"
+    };
+    private static final int[] EXPENSE_WEIGHTS = {30, 14, 9, 8, 7, 6, 5, 4, 3, 2};
+    // Остаток веса (12%) размазан по редким категориям
+    private static final int RARE_CATEGORIES = 40;
+    private static final int RARE_WEIGHT = 12;
+
+    private static final String[] INCOME_CATEGORIES = {"Зарплата", "Подработка", "Кэшбэк"};
+    private static final int[] INCOME_WEIGHTS = {70, 20, 10};
+    private static final int INCOME_PERCENT = 10;
+
+    private static final String[] DESCRIPTIONS = {"Перекус", "Поездка", "Оплата", "Покупка", null};
+
+    private final Random random;
+    private final Distribution distribution;
+    private final Category[] expenseCategories;
+    private final int[] expenseCumulative;
+    private final Category[] incomeCategories;
+    private final int[] incomeCumulative;
+    private LocalDateTime clock = LocalDateTime.of(2024, 1, 1, 9, 0);
+
+    public BenchmarkData(long seed, Distribution distribution) {
+        this.random = new Random(seed);
+        this.distribution = distribution;
+
+        this.expenseCategories = new Category[EXPENSE_CATEGORIES.length + RARE_CATEGORIES];
+        int[] weights = new int[expenseCategories.length];
+        for (int i = 0; i < EXPENSE_CATEGORIES.length; i++) {
+            expenseCategories[i] = Category.of(EXPENSE_CATEGORIES[i]);
+            weights[i] = EXPENSE_WEIGHTS[i] * RARE_CATEGORIES;
+        }
+        for (int i = 0; i < RARE_CATEGORIES; i++) {
+            expenseCategories[EXPENSE_CATEGORIES.length + i] = Category.of("Прочее " + (i + 1));
+            weights[EXPENSE_CATEGORIES.length + i] = RARE_WEIGHT;
+        }
+        this.expenseCumulative = cumulative(weights);
+
+        this.incomeCategories = new Category[INCOME_CATEGORIES.length];
+        for (int i = 0; i < INCOME_CATEGORIES.length; i++) {
+            incomeCategories[i] = Category.of(INCOME_CATEGORIES[i]);
+        }
+        this.incomeCumulative = cumulative(INCOME_WEIGHTS);
+    }
+
+    /**
+     * Самая частая категория расходов (для запросов по "горячей" категории).
+     */
+    public Category hotCategory() {
+        return expenseCategories[0];
+    }
+
+    /**
+     * Одна из редких категорий расходов.
+     */
+    public Category rareCategory() {
+        return expenseCategories[expenseCategories.length - 1];
+    }
+
+    /**
+     * Следующая случайная транзакция; время операций монотонно растёт.
+     */
+    public Transaction nextTransaction() {
+        clock = clock.plusMinutes(1 + random.nextInt(120));
+        String description = DESCRIPTIONS[random.nextInt(DESCRIPTIONS.length)];
+        if (random.nextInt(100) < INCOME_PERCENT) {
+            // Доходы крупнее и реже; часть - без категории
+            Category category = (random.nextInt(10) == 0) ? null : pick(incomeCategories, incomeCumulative);
+            return new Transaction(new UUID(random.nextLong(), random.nextLong()), TransactionType.INCOME,
+                    category, amount(5_000_00L, 150_000_00L), clock, description);
+        }
+        Category category = (distribution == Distribution.UNIFORM)
+                ? expenseCategories[random.nextInt(expenseCategories.length)]
+                : pick(expenseCategories, expenseCumulative);
+        return new Transaction(new UUID(random.nextLong(), random.nextLong()), TransactionType.EXPENSE,
+                category, amount(50_00L, 5_000_00L), clock, description);
+    }
+
+    public List<Transaction> transactions(int count) {
+        List<Transaction> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            list.add(nextTransaction());
+        }
+        return list;
+    }
+
+    /**
+     * Кошелёк с историей из count операций, согласованным балансом
+     * и бюджетами на частые категории расходов.
+     */
+    public Wallet wallet(int count) {
+        List<Transaction> history = transactions(count);
+        Money balance = Money.ZERO;
+        for (Transaction t : history) {
+            balance = (t.getType() == TransactionType.INCOME)
+                    ? balance.add(t.getAmount())
+                    : balance.subtract(t.getAmount());
+        }
+        Map<Category, Budget> budgets = new LinkedHashMap<>();
+        for (int i = 0; i < 5; i++) {
+            Category category = expenseCategories[i];
+            budgets.put(category, new Budget(category, Money.ofUnits(50_000_00L * (i + 1), 2)));
+        }
+        return new Wallet(balance, history, budgets);
+    }
+
+    public User user(String login, int count) {
+        return new User(login, "password", wallet(count));
+    }
+
+    private Money amount(long minUnits, long maxUnits) {
+        // Сумма в копейках; примерно треть сумм - целые рубли (scale 0), как при ручном вводе
+        long units = minUnits + (long) (random.nextDouble() * (maxUnits - minUnits));
+        if (random.nextInt(3) == 0) {
+            return Money.ofUnits(units / 100, 0);
+        }
+        return Money.ofUnits(units, 2);
+    }
+
+    private Category pick(Category[] categories, int[] cumulative) {
+        int r = random.nextInt(cumulative[cumulative.length - 1]);
+        for (int i = 0; i < cumulative.length; i++) {
+            if (r < cumulative[i]) {
+                return categories[i];
+            }
+        }
+        return categories[categories.length - 1];
+    }
+
+    private static int[] cumulative(int[] weights) {
+        int[] result = new int[weights.length];
+        int sum = 0;
+        for (int i = 0; i < weights.length; i++) {
+            sum += weights[i];
+            result[i] = sum;
+        }
+        return result;
+    }
+}
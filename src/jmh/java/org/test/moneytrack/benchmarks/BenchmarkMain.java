@@ -0,0 +1,27 @@
+package org.test.moneytrack.benchmarks;
+
+import org.openjdk.jmh.Main;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Точка входа benchmarks.jar: тот же JMH Main, но по умолчанию включён GC-профилировщик,
+ * чтобы вместе со временем в отчёт попадала скорость выделения памяти (gc.alloc.rate.norm).
+ * Если профилировщик указан явно (-prof ...), аргументы передаются как есть.
+ */
+public final class BenchmarkMain {
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> arguments = new ArrayList<>(Arrays.asList(args));
+        if (!arguments.contains("-prof") && !arguments.contains("-h") && !arguments.contains("-l")) {
+            arguments.add(0, "gc");
+            arguments.add(0, "-prof");
+        }
+        Main.main(arguments.toArray(new String[0]));
+    }
+}
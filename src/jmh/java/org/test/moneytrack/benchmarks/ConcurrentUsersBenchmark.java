@@ -0,0 +1,102 @@
+package org.test.moneytrack.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.test.moneytrack.application.usecase.AddExpenseUseCase;
+import org.test.moneytrack.application.usecase.GetSummaryUseCase;
+import org.test.moneytrack.domain.model.Category;
+import org.test.moneytrack.domain.model.User;
+import org.test.moneytrack.domain.service.WalletDomainService;
+import org.test.moneytrack.infrastructure.repository.InMemoryUserRepository;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Нагрузочный бенчмарк многопоточной работы с InMemoryUserRepository и блокировками по логину.
+ *
+ * Масштабирование смотрится запуском с разным числом потоков:
+ * java -jar target/benchmarks.jar ConcurrentUsers -t 1 ... -t 8 (или -t max).
+ * Для ownUser пропускная способность должна расти почти линейно (у каждого потока свой
+ * пользователь), для sharedUser - упираться в блокировку одного пользователя.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConcurrentUsersBenchmark {
+
+    private static final BigDecimal AMOUNT = new BigDecimal("99.90");
+
+    @Param({"1000"})
+    public int transactions;
+
+    private InMemoryUserRepository repository;
+    private AddExpenseUseCase addExpenseUseCase;
+    private GetSummaryUseCase getSummaryUseCase;
+    private User sharedUser;
+
+    /**
+     * Пользователь конкретного потока (у каждого потока свой).
+     */
+    @State(Scope.Thread)
+    public static class ThreadUser {
+        User user;
+        Category category;
+
+        @Setup(Level.Iteration)
+        public void setUp(ConcurrentUsersBenchmark benchmark, ThreadParams params) {
+            user = benchmark.createUser("user" + params.getThreadIndex());
+            category = new BenchmarkData(params.getThreadIndex(), BenchmarkData.Distribution.REALISTIC).hotCategory();
+        }
+    }
+
+    /**
+     * Истории пользователей растут от addExpense, поэтому всё пересоздаётся на каждой итерации.
+     */
+    @Setup(Level.Iteration)
+    public void setUp() {
+        repository = new InMemoryUserRepository();
+        WalletDomainService walletDomainService = new WalletDomainService();
+        addExpenseUseCase = new AddExpenseUseCase(repository, walletDomainService);
+        getSummaryUseCase = new GetSummaryUseCase(repository, walletDomainService,
+                (directory, filename, content) -> { });
+        sharedUser = createUser("shared");
+    }
+
+    User createUser(String login) {
+        User user = new BenchmarkData(login.hashCode(), BenchmarkData.Distribution.REALISTIC).user(login, transactions);
+        repository.save(user);
+        return user;
+    }
+
+    @Benchmark
+    public String ownUser(ThreadUser threadUser) {
+        return addExpenseUseCase.addExpense(threadUser.user, AMOUNT, threadUser.category, "нагрузка");
+    }
+
+    @Benchmark
+    public String sharedUser(ThreadUser threadUser) {
+        return addExpenseUseCase.addExpense(sharedUser, AMOUNT, threadUser.category, "нагрузка");
+    }
+
+    /**
+     * Отчёты по одному пользователю при записи другим потоком в того же пользователя:
+     * читатели ждут только писателя, но не друг друга.
+     */
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(3)
+    public String readSummary() {
+        return getSummaryUseCase.getSummary(sharedUser, null);
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(1)
+    public String writeExpense(ThreadUser threadUser) {
+        return addExpenseUseCase.addExpense(sharedUser, AMOUNT, threadUser.category, "нагрузка");
+    }
+}
@@ -0,0 +1,58 @@
+package org.test.moneytrack.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.test.moneytrack.application.usecase.GetSummaryUseCase;
+import org.test.moneytrack.domain.model.DateRange;
+import org.test.moneytrack.domain.model.Transaction;
+import org.test.moneytrack.domain.model.User;
+import org.test.moneytrack.domain.service.WalletDomainService;
+import org.test.moneytrack.infrastructure.repository.InMemoryUserRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Построение общего отчёта (show_summary) без записи в файл.
+ * getSummaryLastMonth - отчёт за последние 30 дней истории (--from/--to): складывается
+ * из дневных и месячных сумм кошелька, поэтому не зависит от длины всей истории.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GetSummaryBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int transactions;
+
+    @Param({"REALISTIC", "UNIFORM"})
+    public BenchmarkData.Distribution distribution;
+
+    private GetSummaryUseCase getSummaryUseCase;
+    private User user;
+    private DateRange lastMonth;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Отчёт в файл не пишется (outputFile == null), поэтому вывод - заглушка
+        getSummaryUseCase = new GetSummaryUseCase(new InMemoryUserRepository(), new WalletDomainService(),
+                (directory, filename, content) -> { });
+        user = new BenchmarkData(42L, distribution).user("bench", transactions);
+        List<Transaction> history = user.getWallet().getTransactions();
+        LocalDate last = history.get(history.size() - 1).getDateTime().toLocalDate();
+        lastMonth = DateRange.of(last.minusDays(29), last);
+    }
+
+    @Benchmark
+    public String getSummary() {
+        return getSummaryUseCase.getSummary(user, null);
+    }
+
+    @Benchmark
+    public String getSummaryLastMonth() {
+        return getSummaryUseCase.getSummary(user, lastMonth, null);
+    }
+}
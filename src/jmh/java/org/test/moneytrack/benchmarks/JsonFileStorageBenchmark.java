@@ -0,0 +1,63 @@
+package org.test.moneytrack.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.test.moneytrack.domain.model.User;
+import org.test.moneytrack.infrastructure.storage.JsonFileStorage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Сохранение и загрузка пользователя через JsonFileStorage.
+ * Файл 1 000 000 операций весит порядка 200 МБ, поэтому по умолчанию он не входит в набор;
+ * включается явно: -p transactions=1000000.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonFileStorageBenchmark {
+
+    private static final String LOGIN = "bench";
+
+    @Param({"1000", "100000"})
+    public int transactions;
+
+    @Param({"REALISTIC"})
+    public BenchmarkData.Distribution distribution;
+
+    private Path directory;
+    private JsonFileStorage storage;
+    private User user;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("moneytrack-bench");
+        storage = new JsonFileStorage(directory.toString());
+        user = new BenchmarkData(42L, distribution).user(LOGIN, transactions);
+        storage.saveUser(user);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public void saveUser() throws IOException {
+        storage.saveUser(user);
+    }
+
+    @Benchmark
+    public User loadUser() {
+        return storage.loadUser(LOGIN);
+    }
+}
@@ -0,0 +1,46 @@
+package org.test.moneytrack.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.test.moneytrack.diagnostics.metrics.Metrics;
+import org.test.moneytrack.diagnostics.metrics.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Накладные расходы таймера метрик на один вызов: два System.nanoTime и запись в гистограмму.
+ * recordContended - то же из 4 потоков в один таймер (как при параллельных HTTP-запросах),
+ * recordOnly - только запись в гистограмму, nanoTime - стоимость одного System.nanoTime
+ * для сравнения (зависит от источника времени ОС).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetricsBenchmark {
+
+    private final Timer timer = Metrics.timer("benchmark.metrics");
+    private long latency = 12_345;
+
+    @Benchmark
+    public long nanoTime() {
+        return System.nanoTime();
+    }
+
+    @Benchmark
+    public void recordOnly() {
+        timer.record(latency);
+    }
+
+    @Benchmark
+    public void record() {
+        timer.stop(timer.start());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void recordContended() {
+        timer.stop(timer.start());
+    }
+}
@@ -0,0 +1,58 @@
+package org.test.moneytrack.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.test.moneytrack.application.port.TransactionImportReader;
+import org.test.moneytrack.application.usecase.ExportTransactionsUseCase;
+import org.test.moneytrack.domain.model.DateRange;
+import org.test.moneytrack.domain.model.User;
+import org.test.moneytrack.domain.service.WalletDomainService;
+import org.test.moneytrack.infrastructure.exporter.ChannelTransactionExportWriter;
+import org.test.moneytrack.infrastructure.repository.InMemoryUserRepository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Выгрузка всей истории (export) в файл CSV или JSON Lines.
+ * Результат - строки в секунду: один вызов выгружает transactions строк.
+ * gc.alloc.rate.norm (профилировщик gc по умолчанию) показывает, что память на строку постоянна
+ * и не растёт с длиной истории.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionExportBenchmark {
+
+    public static final int TRANSACTIONS = 1_000_000;
+
+    @Param({"CSV", "JSONL"})
+    public TransactionImportReader.Format format;
+
+    private ExportTransactionsUseCase exportUseCase;
+    private User user;
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        exportUseCase = new ExportTransactionsUseCase(new InMemoryUserRepository(), new WalletDomainService(),
+                new ChannelTransactionExportWriter());
+        user = new BenchmarkData(42L, BenchmarkData.Distribution.REALISTIC).user("bench", TRANSACTIONS);
+        file = Files.createTempFile("moneytrack-export", "." + format.name().toLowerCase());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TRANSACTIONS)
+    public String export() throws IOException {
+        return exportUseCase.exportTransactions(user, file.toString(), format, DateRange.ALL, null, null);
+    }
+}
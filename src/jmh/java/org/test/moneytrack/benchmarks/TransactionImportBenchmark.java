@@ -0,0 +1,63 @@
+package org.test.moneytrack.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.test.moneytrack.application.port.TransactionImportReader;
+import org.test.moneytrack.domain.model.Transaction;
+import org.test.moneytrack.domain.model.TransactionType;
+import org.test.moneytrack.infrastructure.importer.ParallelTransactionImportReader;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Разбор файла импорта (CSV) ParallelTransactionImportReader.
+ * chunkSize задаёт размер куска: при одном куске файл разбирается в один поток,
+ * при мелких кусках - всеми ядрами общего ForkJoinPool.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionImportBenchmark {
+
+    @Param({"100000"})
+    public int transactions;
+
+    // 1 ГБ - заведомо один кусок на весь файл
+    @Param({"1073741824", "1048576"})
+    public int chunkSize;
+
+    private Path file;
+    private ParallelTransactionImportReader reader;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = Files.createTempFile("moneytrack-import", ".csv");
+        BenchmarkData data = new BenchmarkData(42L, BenchmarkData.Distribution.REALISTIC);
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("date,type,category,amount,description\n");
+            for (Transaction t : data.transactions(transactions)) {
+                writer.write(t.getDateTime() + "," + t.getType() + ","
+                        + (t.getCategory() != null ? t.getCategory().getName() : "") + ","
+                        + t.getAmount() + "," + (t.getType() == TransactionType.EXPENSE ? "покупка" : "") + "\n");
+            }
+        }
+        reader = new ParallelTransactionImportReader(chunkSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public TransactionImportReader.Result parseCsv() throws IOException {
+        return reader.read(file.toString(), TransactionImportReader.Format.CSV);
+    }
+}
@@ -0,0 +1,147 @@
+package org.test.moneytrack.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.test.moneytrack.application.usecase.TransferFundsUseCase;
+import org.test.moneytrack.domain.model.User;
+import org.test.moneytrack.domain.repository.UserRepository;
+import org.test.moneytrack.domain.service.TransferDomainService;
+import org.test.moneytrack.domain.service.WalletDomainService;
+import org.test.moneytrack.infrastructure.repository.CachingUserRepository;
+import org.test.moneytrack.infrastructure.repository.FileUserRepository;
+import org.test.moneytrack.infrastructure.repository.InMemoryUserRepository;
+import org.test.moneytrack.infrastructure.repository.WriteBehindFlusher;
+import org.test.moneytrack.infrastructure.storage.JsonFileStorage;
+import org.test.moneytrack.infrastructure.storage.journal.FileTransferLog;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Конкурентные переводы через TransferFundsUseCase.
+ *
+ * randomPairs - все потоки переводят между случайными пользователями из общего набора
+ * в обе стороны (A->B и B->A одновременно): проверка на взаимоблокировки.
+ * disjointPairs - у каждого потока своя пара пользователей: пропускная способность
+ * должна расти почти линейно с числом потоков (-t 1, 2, 4 ...).
+ * durable=true - как в приложении: журнал переводов (data/transfers.log во временной папке),
+ * кэш пользователей и фоновая запись JSON-файлов.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransferContentionBenchmark {
+
+    private static final BigDecimal AMOUNT = new BigDecimal("10.00");
+
+    // Размер общего набора для randomPairs: чем меньше, тем выше конкуренция
+    @Param({"4", "64"})
+    public int sharedUsers;
+
+    @Param({"1000"})
+    public int transactions;
+
+    @Param({"false", "true"})
+    public boolean durable;
+
+    private TransferFundsUseCase transferFundsUseCase;
+    private UserRepository repository;
+    private User[] shared;
+    private Path directory;
+    private FileTransferLog transferLog;
+    private WriteBehindFlusher flusher;
+
+    /**
+     * Своя пара пользователей для каждого потока.
+     */
+    @State(Scope.Thread)
+    public static class ThreadPair {
+        User left;
+        User right;
+        boolean forward;
+
+        @Setup(Level.Iteration)
+        public void setUp(TransferContentionBenchmark benchmark, ThreadParams params) {
+            left = benchmark.createUser("left" + params.getThreadIndex());
+            right = benchmark.createUser("right" + params.getThreadIndex());
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+        TransferDomainService transferDomainService = new TransferDomainService(new WalletDomainService());
+        if (durable) {
+            directory = Files.createTempDirectory("moneytrack-transfer-bench");
+            FileUserRepository files = new FileUserRepository(new JsonFileStorage(directory.toString()));
+            CachingUserRepository cache = new CachingUserRepository(files, Long.MAX_VALUE);
+            transferLog = new FileTransferLog(directory.resolve("transfers.log"));
+            transferFundsUseCase = new TransferFundsUseCase(cache, files, transferDomainService, transferLog);
+            cache.setPersistedListener(transferFundsUseCase::usersPersisted);
+            flusher = new WriteBehindFlusher(cache, Duration.ofSeconds(5), 64);
+            flusher.start();
+            repository = cache;
+        } else {
+            repository = new InMemoryUserRepository();
+            transferFundsUseCase = new TransferFundsUseCase(repository, transferDomainService);
+        }
+        shared = new User[sharedUsers];
+        for (int i = 0; i < sharedUsers; i++) {
+            shared[i] = createUser("shared" + i);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        if (!durable) {
+            return;
+        }
+        flusher.close();
+        transferLog.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    User createUser(String login) {
+        User user = new BenchmarkData(login.hashCode(), BenchmarkData.Distribution.REALISTIC).user(login, transactions);
+        repository.save(user);
+        return user;
+    }
+
+    @Benchmark
+    public String randomPairs() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int from = random.nextInt(shared.length);
+        int to = random.nextInt(shared.length - 1);
+        if (to >= from) {
+            to++;
+        }
+        return transferFundsUseCase.transfer(shared[from], shared[to], AMOUNT);
+    }
+
+    @Benchmark
+    public String disjointPairs(ThreadPair pair) {
+        pair.forward = !pair.forward;
+        return pair.forward
+                ? transferFundsUseCase.transfer(pair.left, pair.right, AMOUNT)
+                : transferFundsUseCase.transfer(pair.right, pair.left, AMOUNT);
+    }
+
+    /**
+     * Повтор перевода с уже выполненным ключом: должен стоить как поиск в кэше.
+     */
+    @Benchmark
+    public String idempotentRetry(ThreadPair pair) {
+        return transferFundsUseCase.transfer(pair.left, pair.right, AMOUNT, "retry-key");
+    }
+}
@@ -0,0 +1,63 @@
+package org.test.moneytrack.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.test.moneytrack.application.usecase.TransferFundsUseCase;
+import org.test.moneytrack.domain.model.User;
+import org.test.moneytrack.domain.repository.UserRepository;
+import org.test.moneytrack.domain.service.TransferDomainService;
+import org.test.moneytrack.domain.service.WalletDomainService;
+import org.test.moneytrack.infrastructure.repository.InMemoryUserRepository;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Перевод между двумя пользователями через TransferFundsUseCase (репозиторий в памяти,
+ * чтобы измерялась доменная часть, а не диск).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransferFundsBenchmark {
+
+    private static final BigDecimal AMOUNT = new BigDecimal("125.50");
+
+    @Param({"1000", "100000"})
+    public int transactions;
+
+    @Param({"REALISTIC"})
+    public BenchmarkData.Distribution distribution;
+
+    private TransferFundsUseCase transferFundsUseCase;
+    private User alice;
+    private User bob;
+    private boolean forward;
+
+    /**
+     * Пользователи пересоздаются на каждой итерации, так как каждый перевод
+     * добавляет по транзакции в оба кошелька.
+     */
+    @Setup(Level.Iteration)
+    public void setUp() {
+        UserRepository userRepository = new InMemoryUserRepository();
+        transferFundsUseCase = new TransferFundsUseCase(userRepository,
+                new TransferDomainService(new WalletDomainService()));
+        BenchmarkData data = new BenchmarkData(42L, distribution);
+        alice = data.user("alice", transactions);
+        bob = data.user("bob", transactions);
+        userRepository.save(alice);
+        userRepository.save(bob);
+    }
+
+    @Benchmark
+    public String transfer() {
+        // Переводим туда и обратно, чтобы балансы не уходили в одну сторону
+        forward = !forward;
+        return forward
+                ? transferFundsUseCase.transfer(alice, bob, AMOUNT)
+                : transferFundsUseCase.transfer(bob, alice, AMOUNT);
+    }
+}
@@ -0,0 +1,80 @@
+package org.test.moneytrack.benchmarks;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.*;
+import org.test.moneytrack.domain.model.User;
+import org.test.moneytrack.infrastructure.storage.StreamingUserReader;
+import org.test.moneytrack.infrastructure.storage.StreamingUserWriter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Разбор и запись файла пользователя: привязка данных Jackson (ObjectMapper с JavaTimeModule,
+ * как JsonFileStorage работал раньше) против StreamingUserReader/StreamingUserWriter.
+ * Запись - в пустой поток (OutputStream.nullOutputStream()), чтобы мерить только сериализацию;
+ * чтение - из файла, который после первого прохода лежит в кэше ОС.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserSerializationBenchmark {
+
+    @Param({"1000", "100000"})
+    public int transactions;
+
+    private ObjectMapper objectMapper;
+    private StreamingUserReader streamingReader;
+    private StreamingUserWriter streamingWriter;
+    private User user;
+    private File file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        objectMapper.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
+        objectMapper.enable(SerializationFeature.INDENT_OUTPUT);
+        JsonFactory jsonFactory = new JsonFactory();
+        streamingReader = new StreamingUserReader(jsonFactory);
+        streamingWriter = new StreamingUserWriter(jsonFactory);
+
+        user = new BenchmarkData(42L, BenchmarkData.Distribution.REALISTIC).user("bench", transactions);
+        file = Files.createTempFile("moneytrack-user", ".json").toFile();
+        streamingWriter.write(user, file);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Benchmark
+    public void writeJackson() throws IOException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), user);
+    }
+
+    @Benchmark
+    public void writeStreaming() throws IOException {
+        streamingWriter.write(user, OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public User readJackson() throws IOException {
+        return objectMapper.readValue(file, User.class);
+    }
+
+    @Benchmark
+    public User readStreaming() throws IOException {
+        return streamingReader.read(file);
+    }
+}
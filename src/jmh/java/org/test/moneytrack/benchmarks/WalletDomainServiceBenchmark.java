@@ -0,0 +1,126 @@
+package org.test.moneytrack.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.test.moneytrack.domain.event.DomainEvent;
+import org.test.moneytrack.domain.model.Category;
+import org.test.moneytrack.domain.model.Money;
+import org.test.moneytrack.domain.model.Transaction;
+import org.test.moneytrack.domain.model.TransactionType;
+import org.test.moneytrack.domain.model.User;
+import org.test.moneytrack.domain.model.Wallet;
+import org.test.moneytrack.domain.service.WalletDomainService;
+import org.test.moneytrack.infrastructure.event.RingBufferEventBus;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Операции WalletDomainService на кошельках разного размера.
+ * findTransactionById ищет по индексу id кошелька, поэтому не должен зависеть от длины истории.
+ * addTransactionWithEvents - то же добавление с публикацией доменных событий в RingBufferEventBus
+ * (подписчик ничего не делает): разница с addTransaction - цена публикации на пути записи.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WalletDomainServiceBenchmark {
+
+    // Сколько новых транзакций заготовлено для addTransaction (по кругу)
+    private static final int PENDING = 4096;
+
+    @Param({"1000", "100000", "1000000"})
+    public int transactions;
+
+    @Param({"REALISTIC", "UNIFORM"})
+    public BenchmarkData.Distribution distribution;
+
+    private final WalletDomainService walletDomainService = new WalletDomainService();
+    private RingBufferEventBus eventBus;
+    private WalletDomainService publishingService;
+    private BenchmarkData data;
+    private Wallet wallet;
+    private User user;
+    private List<Transaction> pending;
+    private int next;
+    private UUID[] lookupIds;
+    private int nextLookup;
+    private Category hot;
+    private Category rare;
+
+    @Setup(Level.Trial)
+    public void setUpData() {
+        data = new BenchmarkData(42L, distribution);
+        hot = data.hotCategory();
+        rare = data.rareCategory();
+        pending = data.transactions(PENDING);
+        eventBus = new RingBufferEventBus(8192);
+        eventBus.subscribe(DomainEvent.class, event -> {
+        });
+        eventBus.start();
+        publishingService = new WalletDomainService(false, eventBus, WalletDomainService.DEFAULT_ALERT_THRESHOLDS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        eventBus.close();
+    }
+
+    /**
+     * Кошелёк пересоздаётся на каждой итерации: addTransaction дописывает историю,
+     * и без этого размер кошелька уходил бы от заданного параметра.
+     */
+    @Setup(Level.Iteration)
+    public void setUpWallet() {
+        wallet = new BenchmarkData(7L, distribution).wallet(transactions);
+        user = new User("bench", "bench", wallet);
+        next = 0;
+        // Идентификаторы, равномерно разбросанные по истории
+        List<Transaction> history = wallet.getTransactions();
+        lookupIds = new UUID[PENDING];
+        for (int i = 0; i < PENDING; i++) {
+            lookupIds[i] = history.get((int) ((long) i * history.size() / PENDING)).getTransactionId();
+        }
+        nextLookup = 0;
+    }
+
+    @Benchmark
+    public String addTransaction() {
+        Transaction t = pending.get(next);
+        next = (next + 1) & (PENDING - 1);
+        return walletDomainService.addTransaction(user, t);
+    }
+
+    @Benchmark
+    public String addTransactionWithEvents() {
+        Transaction t = pending.get(next);
+        next = (next + 1) & (PENDING - 1);
+        return publishingService.addTransaction(user, t);
+    }
+
+    @Benchmark
+    public Money calculateTotal() {
+        return walletDomainService.calculateTotal(wallet, TransactionType.EXPENSE);
+    }
+
+    @Benchmark
+    public Money calculateTotalByHotCategory() {
+        return walletDomainService.calculateTotalByCategory(wallet, hot, TransactionType.EXPENSE);
+    }
+
+    @Benchmark
+    public Money calculateTotalByRareCategory() {
+        return walletDomainService.calculateTotalByCategory(wallet, rare, TransactionType.EXPENSE);
+    }
+
+    @Benchmark
+    public Optional<Transaction> findTransactionById() {
+        UUID id = lookupIds[nextLookup];
+        nextLookup = (nextLookup + 1) & (PENDING - 1);
+        return walletDomainService.findTransactionById(wallet, id);
+    }
+}
@@ -1,22 +1,63 @@
 package org.test.moneytrack;
 
 import org.test.moneytrack.config.ApplicationConfig;
+import org.test.moneytrack.diagnostics.jfr.JfrRecorder;
 import org.test.moneytrack.interfaces.cli.CliRunner;
 
 /**
  * Точка входа (main) для приложения "MoneyTrack".
+ *
+ * Опция --jfr[=файл] включает запись JDK Flight Recorder на всё время сессии
+ * (по умолчанию в moneytrack.jfr).
+ *
+ * Опция --script файл (или --script=файл) выполняет команды из файла без интерактивного
+ * режима; "-" вместо файла - команды из стандартного ввода (например, из конвейера).
+ * Код завершения 1, если хотя бы одна команда скрипта завершилась ошибкой.
  */
 public class App {
     public static void main(String[] args) {
         System.out.println("Запуск MoneyTrack...");
 
+        // Запись JFR запускаем до конфигурации, чтобы в неё попала и загрузка данных
+        JfrRecorder recorder = JfrRecorder.fromArgs(args);
+
         // Создаём конфигурацию приложения
         ApplicationConfig config = new ApplicationConfig();
 
+        // При любом завершении процесса дописываем несохранённые изменения,
+        // и только потом закрываем запись JFR
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            config.shutdown();
+            if (recorder != null) {
+                recorder.close();
+            }
+        }));
+
         // Передаём конфигурацию в CLI Runner
         CliRunner cli = new CliRunner(config);
 
+        String script = scriptSource(args);
+        if (script != null) {
+            int errors = cli.runScript(script);
+            System.exit(errors == 0 ? 0 : 1);
+        }
+
         // Запускаем цикл чтения команд
         cli.startCliLoop();
     }
+
+    /**
+     * Источник команд из опции --script или null, если опции нет.
+     */
+    private static String scriptSource(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--script")) {
+                return (i + 1 < args.length) ? args[i + 1] : "-";
+            }
+            if (args[i].startsWith("--script=")) {
+                return args[i].substring("--script=".length());
+            }
+        }
+        return null;
+    }
 }
@@ -0,0 +1,49 @@
+package org.test.moneytrack;
+
+import org.test.moneytrack.config.ApplicationConfig;
+import org.test.moneytrack.diagnostics.jfr.JfrRecorder;
+import org.test.moneytrack.interfaces.http.HttpServerRunner;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+
+/**
+ * Точка входа (main) для серверного режима "MoneyTrack": те же команды по HTTP,
+ * много пользователей в одном процессе.
+ *
+ * Параметры: -Dmoneytrack.http.port (по умолчанию 8080),
+ * -Dmoneytrack.http.sessionTimeoutMinutes (по умолчанию 30).
+ * Сервер слушает только локальный адрес (127.0.0.1).
+ * Опция --jfr[=файл] включает запись JDK Flight Recorder (по умолчанию в moneytrack.jfr).
+ */
+public class ServerApp {
+    public static void main(String[] args) throws IOException {
+        System.out.println("Запуск MoneyTrack (HTTP)...");
+
+        JfrRecorder recorder = JfrRecorder.fromArgs(args);
+
+        // Создаём конфигурацию приложения
+        ApplicationConfig config = new ApplicationConfig();
+
+        int port = Integer.getInteger("moneytrack.http.port", 8080);
+        Duration sessionTimeout = Duration.ofMinutes(Long.getLong("moneytrack.http.sessionTimeoutMinutes", 30L));
+        HttpServerRunner server = new HttpServerRunner(config,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), port), sessionTimeout);
+
+        // При остановке процесса сохраняем данные открытых сессий
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            System.out.println("Завершение работы...");
+            server.stop();
+            config.shutdown();
+            if (recorder != null) {
+                recorder.close();
+            }
+        }));
+
+        server.start();
+        System.out.println("Сервер слушает http://" + server.getAddress().getHostString() + ":"
+                + server.getAddress().getPort() + "/api/");
+    }
+}
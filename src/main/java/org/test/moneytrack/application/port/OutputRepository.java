@@ -1,5 +1,9 @@
 package org.test.moneytrack.application.port;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+
 /**
  * Абстракция вывода информации в файл (или другой внешний ресурс).
  */
@@ -9,4 +13,20 @@ public interface OutputRepository {
      * Записывает содержимое `content` в указанный `filename`.
      */
     void writeToFile(String directory,String filename, String content);
+
+    /**
+     * Открывает `filename` для потоковой записи: отчёт пишется в него по частям,
+     * без сборки всего текста в одну строку. Содержимое окончательно записано после close().
+     *
+     * По умолчанию текст копится в памяти и при close() передаётся в writeToFile;
+     * реализации, пишущие в файлы, отдают данные на диск по мере заполнения буфера.
+     */
+    default Writer openWriter(String directory, String filename) throws IOException {
+        return new StringWriter() {
+            @Override
+            public void close() {
+                writeToFile(directory, filename, toString());
+            }
+        };
+    }
 }
@@ -0,0 +1,32 @@
+package org.test.moneytrack.application.port;
+
+import org.test.moneytrack.domain.model.Transaction;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Абстракция выгрузки истории операций во внешний файл.
+ * Форматы те же, что у импорта (TransactionImportReader.Format): выгрузку можно загрузить обратно.
+ */
+public interface TransactionExportWriter {
+
+    /**
+     * Открытый файл выгрузки: операции пишутся по одной, в памяти ничего не накапливается.
+     * Файл дописан полностью после close().
+     */
+    interface Sink extends Closeable {
+
+        void write(Transaction transaction) throws IOException;
+
+        /**
+         * Сколько операций записано.
+         */
+        long getCount();
+    }
+
+    /**
+     * Создаёт (или перезаписывает) файл и пишет в него заголовок формата.
+     */
+    Sink open(String fileName, TransactionImportReader.Format format) throws IOException;
+}
@@ -0,0 +1,62 @@
+package org.test.moneytrack.application.port;
+
+import org.test.moneytrack.domain.model.Transaction;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Абстракция чтения истории операций из внешнего файла (выгрузки банка и т.п.).
+ */
+public interface TransactionImportReader {
+
+    /**
+     * Формат файла импорта.
+     */
+    enum Format {
+        CSV, JSONL;
+
+        /**
+         * Формат по явному значению (--format=csv|jsonl) или, если оно не задано, по расширению файла.
+         *
+         * @return формат или null, если определить не удалось
+         */
+        public static Format detect(String explicit, String fileName) {
+            String name = (explicit != null) ? explicit : fileName.substring(fileName.lastIndexOf('.') + 1);
+            return switch (name.toLowerCase()) {
+                case "csv" -> CSV;
+                case "jsonl", "ndjson" -> JSONL;
+                default -> null;
+            };
+        }
+    }
+
+    /**
+     * Результат разбора: корректные операции (в порядке строк файла) и ошибки по отдельным строкам.
+     */
+    final class Result {
+        private final List<Transaction> transactions;
+        private final List<String> errors;
+
+        public Result(List<Transaction> transactions, List<String> errors) {
+            this.transactions = transactions;
+            this.errors = errors;
+        }
+
+        public List<Transaction> getTransactions() {
+            return transactions;
+        }
+
+        public List<String> getErrors() {
+            return errors;
+        }
+    }
+
+    /**
+     * Читает и проверяет все строки файла.
+     * Ошибка в отдельной строке не прерывает разбор: строка попадает в Result.getErrors().
+     *
+     * @throws IOException если файл не удалось прочитать целиком (нет файла, нет заголовка CSV и т.п.)
+     */
+    Result read(String fileName, Format format) throws IOException;
+}
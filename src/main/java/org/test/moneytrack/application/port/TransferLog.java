@@ -0,0 +1,118 @@
+package org.test.moneytrack.application.port;
+
+import org.test.moneytrack.domain.model.Transaction;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Абстракция надёжного журнала переводов (write-ahead).
+ *
+ * Перевод записывается сюда одной записью до того, как сохраняются кошельки сторон.
+ * Если процесс упадёт между сохранением отправителя и получателя, при запуске
+ * незавершённые переводы доигрываются по этой записи: недостающая транзакция
+ * добавляется той стороне, у которой её нет (по идентификатору транзакции).
+ *
+ * В той же записи хранится ключ идемпотентности перевода, поэтому повтор запроса
+ * после перезапуска не выполнит перевод второй раз.
+ */
+public interface TransferLog {
+
+    /**
+     * Перевод: стороны и обе его транзакции (расход отправителя, доход получателя),
+     * ключ идемпотентности с "отпечатком" параметров и, после завершения, его результат.
+     */
+    final class Entry {
+        private final UUID id;
+        private final String fromLogin;
+        private final String toLogin;
+        private final Transaction expense;
+        private final Transaction income;
+        private final String idempotencyKey;
+        private final String fingerprint;
+        private final String result;
+
+        public Entry(UUID id, String fromLogin, String toLogin, Transaction expense, Transaction income) {
+            this(id, fromLogin, toLogin, expense, income, null, null, null);
+        }
+
+        /**
+         * @param idempotencyKey ключ (null - перевод без ключа)
+         * @param fingerprint    параметры перевода для проверки повторов ключа
+         * @param result         ответ клиенту или null, пока перевод не завершён (или ответ потерян)
+         */
+        public Entry(UUID id, String fromLogin, String toLogin, Transaction expense, Transaction income,
+                     String idempotencyKey, String fingerprint, String result) {
+            this.id = id;
+            this.fromLogin = fromLogin;
+            this.toLogin = toLogin;
+            this.expense = expense;
+            this.income = income;
+            this.idempotencyKey = idempotencyKey;
+            this.fingerprint = fingerprint;
+            this.result = result;
+        }
+
+        public Entry withResult(String result) {
+            return new Entry(id, fromLogin, toLogin, expense, income, idempotencyKey, fingerprint, result);
+        }
+
+        public UUID getId() {
+            return id;
+        }
+
+        public String getFromLogin() {
+            return fromLogin;
+        }
+
+        public String getToLogin() {
+            return toLogin;
+        }
+
+        public Transaction getExpense() {
+            return expense;
+        }
+
+        public Transaction getIncome() {
+            return income;
+        }
+
+        public String getIdempotencyKey() {
+            return idempotencyKey;
+        }
+
+        public String getFingerprint() {
+            return fingerprint;
+        }
+
+        public String getResult() {
+            return result;
+        }
+    }
+
+    /**
+     * Надёжно (со сбросом на диск) записывает перевод. После возврата перевод считается
+     * совершённым, даже если кошельки сторон сохранить не успеют.
+     */
+    void begin(Entry entry) throws IOException;
+
+    /**
+     * Отмечает, что обе стороны перевода сохранены. Отметка может потеряться при сбое:
+     * тогда перевод будет доигран повторно, что ничего не изменит.
+     *
+     * @param result ответ клиенту (его вернёт повтор ключа после перезапуска) или null
+     */
+    void complete(Entry entry, String result) throws IOException;
+
+    /**
+     * Записанные, но не отмеченные завершёнными переводы (в порядке записи).
+     */
+    List<Entry> pending() throws IOException;
+
+    /**
+     * Последние завершённые переводы с ключами идемпотентности (от старых к новым),
+     * вместе с результатами. Читаются из файла в pending().
+     */
+    List<Entry> completedWithKeys();
+}
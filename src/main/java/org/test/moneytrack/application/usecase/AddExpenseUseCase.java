@@ -1,17 +1,22 @@
 package org.test.moneytrack.application.usecase;
 
+import org.test.moneytrack.diagnostics.metrics.Metrics;
+import org.test.moneytrack.diagnostics.metrics.Timer;
 import org.test.moneytrack.domain.model.*;
 import org.test.moneytrack.domain.repository.UserRepository;
 import org.test.moneytrack.domain.service.WalletDomainService;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.concurrent.locks.Lock;
 
 /**
  * Сценарий (Use Case) добавления расхода.
  */
 public class AddExpenseUseCase {
 
+    private static final Timer TIMER = Metrics.timer("usecase.add_expense");
+
     private final UserRepository userRepository;
     private final WalletDomainService walletDomainService;
 
@@ -34,26 +39,39 @@ public class AddExpenseUseCase {
                              BigDecimal amount,
                              Category category,
                              String description) {
-        if (category == null) {
-            return "Ошибка: необходимо указать категорию для расхода.";
-        }
+        long start = TIMER.start();
+        try {
+            if (category == null) {
+                return "Ошибка: необходимо указать категорию для расхода.";
+            }
 
-        Transaction transaction = new Transaction(
-                TransactionType.EXPENSE,
-                category,
-                amount,
-                LocalDateTime.now(),
-                description
-        );
+            Transaction transaction = new Transaction(
+                    TransactionType.EXPENSE,
+                    category,
+                    Money.of(amount),
+                    LocalDateTime.now(),
+                    description
+            );
 
-        // Используем доменный сервис для добавления транзакции
-        String warning = walletDomainService.addTransaction(user.getWallet(), transaction);
+            String warning;
+            Lock lock = userRepository.lockFor(user.getLogin()).writeLock();
+            lock.lock();
+            try {
+                // Используем доменный сервис для добавления транзакции
+                // (проверка лимита идёт под той же блокировкой, что и добавление)
+                warning = walletDomainService.addTransaction(user, transaction);
 
-        // Сохраняем изменения
-        userRepository.update(user);
+                // Сохраняем изменения
+                userRepository.update(user);
+            } finally {
+                lock.unlock();
+            }
 
-        return warning.isEmpty()
-                ? "Расход успешно добавлен."
-                : "Расход добавлен, предупреждение: " + warning;
+            return warning.isEmpty()
+                    ? "Расход успешно добавлен."
+                    : "Расход добавлен, предупреждение: " + warning;
+        } finally {
+            TIMER.stop(start);
+        }
     }
 }
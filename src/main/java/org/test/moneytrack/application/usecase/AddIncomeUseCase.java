@@ -1,17 +1,22 @@
 package org.test.moneytrack.application.usecase;
 
+import org.test.moneytrack.diagnostics.metrics.Metrics;
+import org.test.moneytrack.diagnostics.metrics.Timer;
 import org.test.moneytrack.domain.model.*;
 import org.test.moneytrack.domain.repository.UserRepository;
 import org.test.moneytrack.domain.service.WalletDomainService;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.concurrent.locks.Lock;
 
 /**
  * Сценарий (Use Case) добавления дохода пользователю.
  */
 public class AddIncomeUseCase {
 
+    private static final Timer TIMER = Metrics.timer("usecase.add_income");
+
     private final UserRepository userRepository;
     private final WalletDomainService walletDomainService;
 
@@ -34,24 +39,37 @@ public class AddIncomeUseCase {
                             BigDecimal amount,
                             Category category,
                             String description) {
+        long start = TIMER.start();
+        try {
+            // Создаём транзакцию типа INCOME
+            Transaction transaction = new Transaction(
+                    TransactionType.INCOME,
+                    category,   // можно передавать null или dummy категорию
+                    Money.of(amount),
+                    LocalDateTime.now(),
+                    description
+            );
 
-        // Создаём транзакцию типа INCOME
-        Transaction transaction = new Transaction(
-                TransactionType.INCOME,
-                category,   // можно передавать null или dummy категорию
-                amount,
-                LocalDateTime.now(),
-                description
-        );
-
-        // Добавляем транзакцию через доменный сервис
-        String warning = walletDomainService.addTransaction(user.getWallet(), transaction);
+            // Кошелёк меняем под блокировкой пользователя: команды этого же пользователя
+            // ждут друг друга, а команды других пользователей идут параллельно
+            String warning;
+            Lock lock = userRepository.lockFor(user.getLogin()).writeLock();
+            lock.lock();
+            try {
+                // Добавляем транзакцию через доменный сервис
+                warning = walletDomainService.addTransaction(user, transaction);
 
-        // Сохраняем изменения в репозитории
-        userRepository.update(user);
+                // Сохраняем изменения в репозитории
+                userRepository.update(user);
+            } finally {
+                lock.unlock();
+            }
 
-        return warning.isEmpty()
-                ? "Доход успешно добавлен."
-                : "Доход добавлен, предупреждение: " + warning;
+            return warning.isEmpty()
+                    ? "Доход успешно добавлен."
+                    : "Доход добавлен, предупреждение: " + warning;
+        } finally {
+            TIMER.stop(start);
+        }
     }
 }
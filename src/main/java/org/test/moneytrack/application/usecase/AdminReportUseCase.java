@@ -0,0 +1,158 @@
+package org.test.moneytrack.application.usecase;
+
+import org.test.moneytrack.application.port.OutputRepository;
+import org.test.moneytrack.diagnostics.jfr.ReportEvent;
+import org.test.moneytrack.diagnostics.metrics.Metrics;
+import org.test.moneytrack.diagnostics.metrics.Timer;
+import org.test.moneytrack.domain.model.Category;
+import org.test.moneytrack.domain.model.CategoryMap;
+import org.test.moneytrack.domain.model.Money;
+import org.test.moneytrack.domain.model.MoneyAccumulator;
+import org.test.moneytrack.domain.model.TransactionType;
+import org.test.moneytrack.domain.model.User;
+import org.test.moneytrack.domain.model.Wallet;
+import org.test.moneytrack.domain.repository.UserRepository;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.stream.Stream;
+
+/**
+ * Use Case: общий отчёт по всем пользователям (admin_report) -
+ * суммарные доходы, расходы, баланс и расходы по категориям.
+ *
+ * Пользователи, которые сейчас в памяти (авторизованы), берутся оттуда - у них самые свежие данные.
+ * Остальные читаются с диска параллельно и по одному: от каждого в отчёт попадают только
+ * накопительные суммы кошелька, сам пользователь сразу отпускается, поэтому все кошельки
+ * одновременно в памяти не держатся.
+ */
+public class AdminReportUseCase {
+
+    private static final Timer TIMER = Metrics.timer("usecase.admin_report");
+
+    private final UserRepository fileRepository;
+    private final UserRepository inMemoryRepository;
+    private final OutputRepository outputRepository;
+
+    public AdminReportUseCase(UserRepository fileRepository,
+                              UserRepository inMemoryRepository,
+                              OutputRepository outputRepository) {
+        this.fileRepository = fileRepository;
+        this.inMemoryRepository = inMemoryRepository;
+        this.outputRepository = outputRepository;
+    }
+
+    /**
+     * Возвращает отчёт и/или пишет его в файл (если outputFile != null).
+     *
+     * @param login кто запросил отчёт: файл пишется в его папку отчётов
+     */
+    public String getReport(String login, String outputFile) {
+        long start = TIMER.start();
+        ReportEvent event = ReportEvent.start("admin_report");
+        try {
+            GlobalTotals totals = new GlobalTotals();
+            Set<String> inMemory = new HashSet<>();
+            for (User user : inMemoryRepository.findAll()) {
+                inMemory.add(user.getLogin());
+                Lock lock = inMemoryRepository.lockFor(user.getLogin()).readLock();
+                lock.lock();
+                try {
+                    totals.add(user.getWallet());
+                } finally {
+                    lock.unlock();
+                }
+            }
+
+            // Пользователи из памяти отсеиваются по логину, до чтения их файлов
+            try (Stream<User> users = fileRepository.streamAll(true, other -> !inMemory.contains(other))) {
+                totals.merge(users
+                        .collect(GlobalTotals::new, AdminReportUseCase::addAndRelease, GlobalTotals::merge));
+            }
+
+            String result = totals.format();
+            return ReportOutput.write(outputRepository, ReportOutput.userDirectory(login), outputFile,
+                    out -> out.append(result), "Данные записаны в " + outputFile);
+        } finally {
+            TIMER.stop(start);
+            event.finish(null, 0, outputFile);
+        }
+    }
+
+    /**
+     * Пользователь с диска нужен только для отчёта: после подсчёта его история
+     * (например, отображённые в память колонки) сразу освобождается.
+     */
+    private static void addAndRelease(GlobalTotals totals, User user) {
+        try {
+            totals.add(user.getWallet());
+        } finally {
+            user.getWallet().close();
+        }
+    }
+
+    /**
+     * Частичные итоги по группе пользователей; части из разных потоков складываются через merge.
+     */
+    private static final class GlobalTotals {
+        private int users;
+        private final MoneyAccumulator income = new MoneyAccumulator();
+        private final MoneyAccumulator expense = new MoneyAccumulator();
+        private final MoneyAccumulator balance = new MoneyAccumulator();
+        private final CategoryMap<MoneyAccumulator> expenseByCategory = new CategoryMap<>();
+
+        void add(Wallet wallet) {
+            users++;
+            income.add(wallet.getTotal(TransactionType.INCOME));
+            expense.add(wallet.getTotal(TransactionType.EXPENSE));
+            balance.add(wallet.getBalance());
+            wallet.getTotalsByCategory(TransactionType.EXPENSE).forEach(this::addExpense);
+        }
+
+        void merge(GlobalTotals other) {
+            users += other.users;
+            income.add(other.income.toMoney());
+            expense.add(other.expense.toMoney());
+            balance.add(other.balance.toMoney());
+            other.expenseByCategory.forEach((category, sum) -> addExpense(category, sum.toMoney()));
+        }
+
+        private void addExpense(Category category, Money amount) {
+            MoneyAccumulator sum = expenseByCategory.get(category);
+            if (sum == null) {
+                sum = new MoneyAccumulator();
+                expenseByCategory.put(category, sum);
+            }
+            sum.add(amount);
+        }
+
+        /**
+         * Категории - по убыванию суммы расходов, при равенстве - по названию.
+         */
+        String format() {
+            if (users == 0) {
+                return "Нет данных пользователей.";
+            }
+            StringBuilder sb = new StringBuilder("Общий отчёт по пользователям (" + users + "):\n");
+            sb.append("Общий доход: ").append(income.toMoney()).append("\n");
+            sb.append("Общие расходы: ").append(expense.toMoney()).append("\n");
+            sb.append("Суммарный баланс: ").append(balance.toMoney()).append("\n");
+
+            List<Map.Entry<Category, Money>> categories = new ArrayList<>(MoneyAccumulator.toMoney(expenseByCategory).entrySet());
+            if (!categories.isEmpty()) {
+                categories.sort(Map.Entry.<Category, Money>comparingByValue().reversed()
+                        .thenComparing(entry -> entry.getKey() == null ? "" : entry.getKey().getName()));
+                sb.append("Расходы по категориям:\n");
+                for (Map.Entry<Category, Money> entry : categories) {
+                    sb.append(entry.getKey() == null ? "Без категории" : entry.getKey().getName())
+                            .append(": ").append(entry.getValue()).append("\n");
+                }
+            }
+            return sb.toString().trim();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package org.test.moneytrack.application.usecase;
+
+import org.test.moneytrack.diagnostics.metrics.Metrics;
+import org.test.moneytrack.diagnostics.metrics.Timer;
+import org.test.moneytrack.domain.model.Transaction;
+import org.test.moneytrack.domain.model.User;
+import org.test.moneytrack.domain.repository.UserRepository;
+import org.test.moneytrack.domain.service.WalletDomainService;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Use Case: удаление операции по её идентификатору (delete_transaction).
+ * Баланс и суммы для отчётов корректируются сразу, без пересчёта истории.
+ */
+public class DeleteTransactionUseCase {
+
+    private static final Timer TIMER = Metrics.timer("usecase.delete_transaction");
+
+    private final UserRepository userRepository;
+    private final WalletDomainService walletDomainService;
+
+    public DeleteTransactionUseCase(UserRepository userRepository,
+                                    WalletDomainService walletDomainService) {
+        this.userRepository = userRepository;
+        this.walletDomainService = walletDomainService;
+    }
+
+    /**
+     * Удаляет операцию из кошелька пользователя.
+     *
+     * @param user          объект пользователя (авторизованный)
+     * @param transactionId идентификатор операции
+     * @return сообщение о результате (с предупреждением, если баланс стал отрицательным)
+     */
+    public String deleteTransaction(User user, UUID transactionId) {
+        long start = TIMER.start();
+        try {
+            Optional<Transaction> deleted;
+            boolean negativeBalance;
+            Lock lock = userRepository.lockFor(user.getLogin()).writeLock();
+            lock.lock();
+            try {
+                deleted = walletDomainService.deleteTransaction(user.getWallet(), transactionId);
+                negativeBalance = user.getWallet().getBalance().isNegative();
+                if (deleted.isPresent()) {
+                    userRepository.update(user);
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (deleted.isEmpty()) {
+                return "Ошибка: операция " + transactionId + " не найдена.";
+            }
+            String result = "Операция " + transactionId + " удалена:\n" + ShowTransactionUseCase.describe(deleted.get());
+            return negativeBalance
+                    ? result + "\nВнимание! Баланс кошелька стал отрицательным!"
+                    : result;
+        } finally {
+            TIMER.stop(start);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package org.test.moneytrack.application.usecase;
+
+import org.test.moneytrack.application.port.TransactionExportWriter;
+import org.test.moneytrack.application.port.TransactionImportReader;
+import org.test.moneytrack.diagnostics.jfr.ReportEvent;
+import org.test.moneytrack.diagnostics.metrics.Metrics;
+import org.test.moneytrack.diagnostics.metrics.Timer;
+import org.test.moneytrack.domain.model.Category;
+import org.test.moneytrack.domain.model.DateRange;
+import org.test.moneytrack.domain.model.TransactionType;
+import org.test.moneytrack.domain.model.User;
+import org.test.moneytrack.domain.repository.UserRepository;
+import org.test.moneytrack.domain.service.WalletDomainService;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Use Case: выгрузка истории операций в файл (CSV или JSON Lines) с отбором
+ * по периоду, типу и категориям.
+ *
+ * Операции идут из кошелька в файл по одной, без промежуточного списка, поэтому память
+ * не зависит от длины истории. Выгрузка идёт под блокировкой чтения пользователя:
+ * файл получается согласованным снимком, а изменения этого пользователя ждут её окончания.
+ */
+public class ExportTransactionsUseCase {
+
+    private static final Timer TIMER = Metrics.timer("usecase.export");
+
+    private final UserRepository userRepository;
+    private final WalletDomainService walletDomainService;
+    private final TransactionExportWriter exportWriter;
+
+    public ExportTransactionsUseCase(UserRepository userRepository,
+                                     WalletDomainService walletDomainService,
+                                     TransactionExportWriter exportWriter) {
+        this.userRepository = userRepository;
+        this.walletDomainService = walletDomainService;
+        this.exportWriter = exportWriter;
+    }
+
+    /**
+     * @param type       тип операций или null - все
+     * @param categories категории или null - все (пустое множество не отбирает ничего)
+     * @return сколько операций выгружено
+     * @throws IOException если файл не удалось записать
+     */
+    public String exportTransactions(User user, String fileName, TransactionImportReader.Format format,
+                                     DateRange period, TransactionType type, Set<Category> categories)
+            throws IOException {
+        long start = TIMER.start();
+        ReportEvent event = ReportEvent.start("export");
+        try {
+            long count;
+            try (TransactionExportWriter.Sink sink = exportWriter.open(fileName, format)) {
+                Lock lock = userRepository.lockFor(user.getLogin()).readLock();
+                lock.lock();
+                try {
+                    walletDomainService.forEachTransaction(user.getWallet(), period, type, categories, t -> {
+                        try {
+                            sink.write(t);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                } finally {
+                    lock.unlock();
+                }
+                count = sink.getCount();
+            }
+            return "Выгружено операций: " + count + " в " + fileName;
+        } finally {
+            TIMER.stop(start);
+            event.finish(user.getLogin(), user.getWallet().getAppendedCount(), fileName);
+        }
+    }
+}
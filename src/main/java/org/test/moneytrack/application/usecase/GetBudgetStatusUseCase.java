@@ -1,21 +1,34 @@
 package org.test.moneytrack.application.usecase;
 
 import org.test.moneytrack.application.port.OutputRepository;
+import org.test.moneytrack.diagnostics.jfr.ReportEvent;
+import org.test.moneytrack.diagnostics.metrics.Metrics;
+import org.test.moneytrack.diagnostics.metrics.Timer;
 import org.test.moneytrack.domain.model.*;
+import org.test.moneytrack.domain.repository.UserRepository;
 import org.test.moneytrack.domain.service.WalletDomainService;
 
-import java.math.BigDecimal;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.locks.Lock;
 
 /**
  * Сценарий (Use Case) получения информации по текущим бюджетам.
  */
 public class GetBudgetStatusUseCase {
 
+    private static final Timer TIMER = Metrics.timer("usecase.show_budget");
+
+    private final UserRepository userRepository;
     private final WalletDomainService walletDomainService;
     private final OutputRepository outputRepository;
 
-    public GetBudgetStatusUseCase(WalletDomainService walletDomainService, OutputRepository outputRepository) {
+    public GetBudgetStatusUseCase(UserRepository userRepository,
+                                  WalletDomainService walletDomainService,
+                                  OutputRepository outputRepository) {
+        this.userRepository = userRepository;
         this.walletDomainService = walletDomainService;
         this.outputRepository = outputRepository;
     }
@@ -25,36 +38,59 @@ public class GetBudgetStatusUseCase {
      * Показывает лимит, потрачено и остаток (или превышение).
      */
     public String getBudgetStatus(User user, String outputFile) {
-        Map<Category, Budget> budgets = user.getWallet().getBudgets();
+        return getBudgetStatus(user, DateRange.ALL, outputFile);
+    }
 
-        if (budgets.isEmpty()) {
-            return "Бюджеты не установлены.";
-        }
+    /**
+     * Состояние бюджетов с учётом только расходов за указанный период.
+     */
+    public String getBudgetStatus(User user, DateRange period, String outputFile) {
+        long start = TIMER.start();
+        ReportEvent event = ReportEvent.start("show_budget");
+        try {
+            List<Budget> budgets;
+            Map<Category, Money> spentByCategory;
+            Lock lock = userRepository.lockFor(user.getLogin()).readLock();
+            lock.lock();
+            try {
+                Wallet wallet = user.getWallet();
+                budgets = new ArrayList<>(wallet.getBudgets().values());
+                spentByCategory = budgets.isEmpty()
+                        ? Map.of()
+                        : walletDomainService.calculateTotalsByCategory(wallet, TransactionType.EXPENSE, period);
+            } finally {
+                lock.unlock();
+            }
+            if (budgets.isEmpty()) {
+                return "Бюджеты не установлены.";
+            }
 
-        StringBuilder sb = new StringBuilder("Состояние бюджетов:\n");
-        for (Map.Entry<Category, Budget> entry : budgets.entrySet()) {
-            Category category = entry.getKey();
-            Budget budget = entry.getValue();
-            BigDecimal spent = walletDomainService
-                    .calculateTotalByCategory(user.getWallet(), category, TransactionType.EXPENSE);
-            BigDecimal remaining = budget.getLimitAmount().subtract(spent);
-
-            sb.append("Категория: ").append(category.getName())
-                    .append(", Лимит: ").append(budget.getLimitAmount())
-                    .append(", Потрачено: ").append(spent)
-                    .append(", Остаток: ").append(remaining)
-                    .append("\n");
+            // Если outputFile задан -> пишем в файл по мере формирования строк
+            return ReportOutput.write(outputRepository, ReportOutput.userDirectory(user.getLogin()), outputFile,
+                    out -> writeStatus(out, budgets, spentByCategory, period),
+                    "Данные записаны в " + outputFile);
+        } finally {
+            TIMER.stop(start);
+            event.finish(user.getLogin(), user.getWallet().getAppendedCount(), outputFile);
         }
+    }
 
-        String result = sb.toString();
-
-        if (outputFile == null) {
-            return result;
+    private static void writeStatus(Appendable out, List<Budget> budgets,
+                                    Map<Category, Money> spentByCategory, DateRange period) throws IOException {
+        out.append("Состояние бюджетов");
+        if (!period.isAll()) {
+            out.append(" (").append(period.describe()).append(")");
         }
+        out.append(":\n");
+        for (Budget budget : budgets) {
+            Money spent = spentByCategory.getOrDefault(budget.getCategory(), Money.ZERO);
+            Money remaining = budget.getLimitAmount().subtract(spent);
 
-        // Если outputFile задан -> пишем в файл
-        outputRepository.writeToFile("reports", outputFile, result);
-
-        return "Данные записаны в " + outputFile;
+            out.append("Категория: ").append(budget.getCategory().getName())
+                    .append(", Лимит: ").append(budget.getLimitAmount().toString())
+                    .append(", Потрачено: ").append(spent.toString())
+                    .append(", Остаток: ").append(remaining.toString())
+                    .append("\n");
+        }
     }
 }
@@ -1,26 +1,41 @@
 package org.test.moneytrack.application.usecase;
 
 import org.test.moneytrack.application.port.OutputRepository;
-import org.test.moneytrack.domain.model.Transaction;
+import org.test.moneytrack.diagnostics.jfr.ReportEvent;
+import org.test.moneytrack.diagnostics.metrics.Metrics;
+import org.test.moneytrack.diagnostics.metrics.Timer;
+import org.test.moneytrack.domain.model.Budget;
+import org.test.moneytrack.domain.model.Category;
+import org.test.moneytrack.domain.model.DateRange;
+import org.test.moneytrack.domain.model.Money;
 import org.test.moneytrack.domain.model.TransactionType;
 import org.test.moneytrack.domain.model.User;
 import org.test.moneytrack.domain.model.Wallet;
+import org.test.moneytrack.domain.repository.UserRepository;
 import org.test.moneytrack.domain.service.WalletDomainService;
 
-import java.math.BigDecimal;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.locks.Lock;
 
 /**
  * Сценарий (Use Case) получения общей статистики (доход, расход, баланс).
  */
 public class GetSummaryUseCase {
 
+    private static final Timer TIMER = Metrics.timer("usecase.show_summary");
+
+    private final UserRepository userRepository;
     private final WalletDomainService walletDomainService;
     private final OutputRepository outputRepository;
 
-    public GetSummaryUseCase(WalletDomainService walletDomainService,
+    public GetSummaryUseCase(UserRepository userRepository,
+                             WalletDomainService walletDomainService,
                              OutputRepository outputRepository) {
+        this.userRepository = userRepository;
         this.walletDomainService = walletDomainService;
         this.outputRepository = outputRepository;
     }
@@ -29,74 +44,106 @@ public class GetSummaryUseCase {
      * Возвращает строку отчёта и/или пишет её в файл (если outputFile != null).
      */
     public String getSummary(User user, String outputFile) {
+        return getSummary(user, DateRange.ALL, outputFile);
+    }
 
-        Wallet wallet = user.getWallet();
-
-        // 1) Общий доход / расход
-        BigDecimal totalIncome = walletDomainService.calculateTotal(wallet, TransactionType.INCOME);
-        BigDecimal totalExpense = walletDomainService.calculateTotal(wallet, TransactionType.EXPENSE);
-
-        // 2) Доходы по категориям (если доходы имеют категории)
-        // Соберём все INCOME-транзакции, сгруппируем по category.name и суммируем
-        Map<String, BigDecimal> incomeByCategory = wallet.getTransactions().stream()
-                .filter(t -> t.getType() == TransactionType.INCOME)
-                .collect(Collectors.groupingBy(
-                        t -> (t.getCategory() == null)
-                                ? "Без категории"
-                                : t.getCategory().getName(),
-                        Collectors.reducing(
-                                BigDecimal.ZERO,
-                                Transaction::getAmount,
-                                BigDecimal::add
-                        )
-                ));
-
-        // 3) Бюджеты по категориям:
-        //    - для каждой категории из wallet.getBudgets()
-        //    - считаем потраченное = calculateTotalByCategory(..., EXPENSE)
-        //    - считаем остаток = budgetLimit - потрачено
-        StringBuilder budgetsInfo = new StringBuilder();
-        wallet.getBudgets().forEach((cat, budget) -> {
-            BigDecimal spent = walletDomainService.calculateTotalByCategory(wallet, cat, TransactionType.EXPENSE);
-            BigDecimal leftover = budget.getLimitAmount().subtract(spent);
-            budgetsInfo.append(cat.getName())
-                    .append(": ")
-                    .append(budget.getLimitAmount())
-                    .append(", Оставшийся бюджет: ")
-                    .append(leftover)
-                    .append("\n");
-        });
-
-        // Сформируем итоговую строку для вывода:
-        StringBuilder sb = new StringBuilder();
-        // Пример вывода:
-        sb.append("Общий доход: ").append(totalIncome).append("\n");
-
-        sb.append("Доходы по категориям:\n");
-        // Пробежимся по карте incomeByCategory
-        for (Map.Entry<String, BigDecimal> entry : incomeByCategory.entrySet()) {
-            sb.append(entry.getKey())
-                    .append(": ")
-                    .append(entry.getValue())
-                    .append("\n");
+    /**
+     * Отчёт за период: доходы и расходы считаются только по операциям периода.
+     */
+    public String getSummary(User user, DateRange period, String outputFile) {
+        long start = TIMER.start();
+        ReportEvent event = ReportEvent.start("show_summary");
+        try {
+            // Суммы считаем под блокировкой чтения: ждём только запись этого же пользователя,
+            // а текст пишем (в строку или потоком в файл) уже после её снятия
+            Summary summary;
+            Lock lock = userRepository.lockFor(user.getLogin()).readLock();
+            lock.lock();
+            try {
+                summary = collectSummary(user.getWallet(), period);
+            } finally {
+                lock.unlock();
+            }
+
+            // Без файла возвращаем строку (для вывода в консоль), иначе пишем в reports/outputFile
+            // и возвращаем короткое сообщение
+            return ReportOutput.write(outputRepository, ReportOutput.userDirectory(user.getLogin()), outputFile, summary::writeTo,
+                    "Данные записаны в " + outputFile + ": \n");
+        } finally {
+            TIMER.stop(start);
+            event.finish(user.getLogin(), user.getWallet().getAppendedCount(), outputFile);
         }
+    }
 
-        sb.append("Общие расходы: ").append(totalExpense).append("\n");
+    private Summary collectSummary(Wallet wallet, DateRange period) {
+        Summary summary = new Summary(period);
 
-        sb.append("Бюджет по категориям:\n");
-        sb.append(budgetsInfo);
+        // 1) Общий доход / расход
+        summary.totalIncome = walletDomainService.calculateTotal(wallet, TransactionType.INCOME, period);
+        summary.totalExpense = walletDomainService.calculateTotal(wallet, TransactionType.EXPENSE, period);
 
-        String result = sb.toString().trim();
+        // 2) Доходы по категориям (если доходы имеют категории)
+        // Берём накопительные суммы кошелька и сводим их по category.name
+        walletDomainService.calculateTotalsByCategory(wallet, TransactionType.INCOME, period)
+                .forEach((category, amount) -> summary.incomeByCategory.merge(
+                        (category == null) ? "Без категории" : category.getName(),
+                        amount,
+                        Money::add));
+
+        // 3) Бюджеты по категориям: потраченное за период (суммы по категориям считаются один раз);
+        //    остаток = budgetLimit - потрачено считается при выводе
+        summary.spentByCategory =
+                walletDomainService.calculateTotalsByCategory(wallet, TransactionType.EXPENSE, period);
+        summary.budgets = new ArrayList<>(wallet.getBudgets().values());
+        return summary;
+    }
 
-        // Если не задан файл, возвращаем строку (для вывода в консоль)
-        if (outputFile == null) {
-            return result;
+    /**
+     * Посчитанные под блокировкой суммы отчёта; размер зависит от числа категорий, а не от истории.
+     */
+    private static final class Summary {
+        final DateRange period;
+        Money totalIncome;
+        Money totalExpense;
+        final Map<String, Money> incomeByCategory = new HashMap<>();
+        Map<Category, Money> spentByCategory;
+        List<Budget> budgets;
+
+        Summary(DateRange period) {
+            this.period = period;
         }
 
-        // Иначе записываем в файл (папка "reports", файл outputFile)
-        outputRepository.writeToFile("reports", outputFile, result);
-
-        // Возвращаем короткое сообщение
-        return "Данные записаны в " + outputFile + ": \n";
+        /**
+         * Пишет отчёт без завершающего перевода строки.
+         */
+        void writeTo(Appendable out) throws IOException {
+            if (!period.isAll()) {
+                out.append("Период: ").append(period.describe()).append("\n");
+            }
+            // Пример вывода:
+            out.append("Общий доход: ").append(totalIncome.toString()).append("\n");
+
+            out.append("Доходы по категориям:\n");
+            for (Map.Entry<String, Money> entry : incomeByCategory.entrySet()) {
+                out.append(entry.getKey())
+                        .append(": ")
+                        .append(entry.getValue().toString())
+                        .append("\n");
+            }
+
+            out.append("Общие расходы: ").append(totalExpense.toString()).append("\n");
+
+            out.append("Бюджет по категориям:");
+            for (Budget budget : budgets) {
+                Money spent = spentByCategory.getOrDefault(budget.getCategory(), Money.ZERO);
+                Money leftover = budget.getLimitAmount().subtract(spent);
+                out.append("\n")
+                        .append(budget.getCategory().getName())
+                        .append(": ")
+                        .append(budget.getLimitAmount().toString())
+                        .append(", Оставшийся бюджет: ")
+                        .append(leftover.toString());
+            }
+        }
     }
 }
@@ -0,0 +1,88 @@
+package org.test.moneytrack.application.usecase;
+
+import org.test.moneytrack.application.port.OutputRepository;
+import org.test.moneytrack.diagnostics.jfr.ReportEvent;
+import org.test.moneytrack.diagnostics.metrics.Metrics;
+import org.test.moneytrack.diagnostics.metrics.Timer;
+import org.test.moneytrack.domain.model.*;
+import org.test.moneytrack.domain.repository.UserRepository;
+import org.test.moneytrack.domain.service.WalletDomainService;
+
+import java.time.YearMonth;
+import java.util.SortedMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Use Case: помесячная динамика доходов и расходов (show_trends).
+ * Считается по месячным суммам кошелька, без прохода по транзакциям.
+ */
+public class GetTrendsUseCase {
+
+    private static final Timer TIMER = Metrics.timer("usecase.show_trends");
+
+    private final UserRepository userRepository;
+    private final WalletDomainService walletDomainService;
+    private final OutputRepository outputRepository;
+
+    public GetTrendsUseCase(UserRepository userRepository,
+                            WalletDomainService walletDomainService,
+                            OutputRepository outputRepository) {
+        this.userRepository = userRepository;
+        this.walletDomainService = walletDomainService;
+        this.outputRepository = outputRepository;
+    }
+
+    /**
+     * Возвращает таблицу "месяц - доходы - расходы - итог" и/или пишет её в файл (если outputFile != null).
+     */
+    public String getTrends(User user, DateRange period, String outputFile) {
+        long start = TIMER.start();
+        ReportEvent event = ReportEvent.start("show_trends");
+        try {
+            String result;
+            Lock lock = userRepository.lockFor(user.getLogin()).readLock();
+            lock.lock();
+            try {
+                result = buildTrends(user.getWallet(), period);
+            } finally {
+                lock.unlock();
+            }
+
+            return ReportOutput.write(outputRepository, ReportOutput.userDirectory(user.getLogin()), outputFile,
+                    out -> out.append(result), "Данные записаны в " + outputFile);
+        } finally {
+            TIMER.stop(start);
+            event.finish(user.getLogin(), user.getWallet().getAppendedCount(), outputFile);
+        }
+    }
+
+    private String buildTrends(Wallet wallet, DateRange period) {
+        SortedMap<YearMonth, Money> income =
+                walletDomainService.calculateMonthlyTotals(wallet, TransactionType.INCOME, period);
+        SortedMap<YearMonth, Money> expense =
+                walletDomainService.calculateMonthlyTotals(wallet, TransactionType.EXPENSE, period);
+
+        TreeSet<YearMonth> months = new TreeSet<>(income.keySet());
+        months.addAll(expense.keySet());
+        if (months.isEmpty()) {
+            return "Нет операций за период.";
+        }
+
+        StringBuilder sb = new StringBuilder("Динамика по месяцам");
+        if (!period.isAll()) {
+            sb.append(" (").append(period.describe()).append(")");
+        }
+        sb.append(":\n");
+        for (YearMonth month : months) {
+            Money monthIncome = income.getOrDefault(month, Money.ZERO);
+            Money monthExpense = expense.getOrDefault(month, Money.ZERO);
+            sb.append("Месяц: ").append(month)
+                    .append(", Доходы: ").append(monthIncome)
+                    .append(", Расходы: ").append(monthExpense)
+                    .append(", Итог: ").append(monthIncome.subtract(monthExpense))
+                    .append("\n");
+        }
+        return sb.toString().trim();
+    }
+}
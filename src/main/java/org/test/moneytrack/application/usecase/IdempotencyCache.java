@@ -0,0 +1,120 @@
+package org.test.moneytrack.application.usecase;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Результаты операций по ключам идемпотентности (ключ передаёт клиент).
+ *
+ * Повтор с тем же ключом не выполняет операцию заново, а возвращает сохранённый результат.
+ * Если операция с этим ключом ещё выполняется, повтор ждёт её завершения.
+ * Хранится ограниченное число последних ключей. Чтобы ключи пережили перезапуск,
+ * владелец кэша сохраняет их вместе с операцией и при запуске возвращает через remember().
+ */
+class IdempotencyCache {
+
+    static final String KEY_CONFLICT = "Ошибка: ключ уже использован для другой операции.";
+
+    /**
+     * Результат операции и "отпечаток" её параметров (чтобы ловить повтор ключа с другими данными).
+     */
+    private static final class Entry {
+        final String fingerprint;
+        final CompletableFuture<String> result = new CompletableFuture<>();
+
+        Entry(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    private final Map<String, Entry> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Entry> completed;
+
+    /**
+     * @param capacity сколько последних выполненных ключей помнить
+     */
+    IdempotencyCache(int capacity) {
+        this.completed = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Выполняет action один раз на ключ.
+     *
+     * @param key         ключ идемпотентности
+     * @param fingerprint параметры операции; повтор ключа с другими параметрами - ошибка
+     * @param action      сама операция
+     * @return результат операции (первого выполнения для этого ключа)
+     */
+    String execute(String key, String fingerprint, Supplier<String> action) {
+        Entry done = findCompleted(key);
+        if (done != null) {
+            return resultOf(done, fingerprint);
+        }
+
+        Entry entry = new Entry(fingerprint);
+        Entry running = inFlight.putIfAbsent(key, entry);
+        if (running != null) {
+            // Тот же ключ сейчас выполняется в другом потоке - ждём его результат
+            return resultOf(running, fingerprint);
+        }
+        try {
+            // Между проверкой completed и putIfAbsent операция могла успеть завершиться
+            done = findCompleted(key);
+            if (done != null) {
+                entry.result.complete(done.result.join());
+                return resultOf(done, fingerprint);
+            }
+            String result = action.get();
+            entry.result.complete(result);
+            synchronized (completed) {
+                completed.put(key, entry);
+            }
+            return result;
+        } catch (RuntimeException e) {
+            // Неудачная попытка не запоминается: повтор с тем же ключом выполнит операцию снова
+            entry.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key);
+        }
+    }
+
+    /**
+     * Запоминает результат операции, выполненной раньше (например, до перезапуска).
+     */
+    void remember(String key, String fingerprint, String result) {
+        Entry entry = new Entry(fingerprint);
+        entry.result.complete(result);
+        synchronized (completed) {
+            completed.put(key, entry);
+        }
+    }
+
+    private Entry findCompleted(String key) {
+        synchronized (completed) {
+            return completed.get(key);
+        }
+    }
+
+    private static String resultOf(Entry entry, String fingerprint) {
+        if (!entry.fingerprint.equals(fingerprint)) {
+            return KEY_CONFLICT;
+        }
+        try {
+            return entry.result.join();
+        } catch (CompletionException e) {
+            throw (e.getCause() instanceof RuntimeException)
+                    ? (RuntimeException) e.getCause()
+                    : e;
+        }
+    }
+}
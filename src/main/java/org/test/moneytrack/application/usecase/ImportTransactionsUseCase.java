@@ -0,0 +1,111 @@
+package org.test.moneytrack.application.usecase;
+
+import org.test.moneytrack.application.port.TransactionImportReader;
+import org.test.moneytrack.diagnostics.metrics.Metrics;
+import org.test.moneytrack.diagnostics.metrics.Timer;
+import org.test.moneytrack.domain.model.Transaction;
+import org.test.moneytrack.domain.model.TransactionType;
+import org.test.moneytrack.domain.model.User;
+import org.test.moneytrack.domain.repository.UserRepository;
+import org.test.moneytrack.domain.service.WalletDomainService;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Use Case: импорт истории операций из файла (CSV или JSON Lines).
+ *
+ * Файл разбирается без блокировки пользователя; все корректные строки добавляются
+ * в кошелёк одним пакетом, лимиты проверяются один раз на пакет, и пользователь
+ * сохраняется один раз (а не на каждую строку, как при add_income/add_expense).
+ */
+public class ImportTransactionsUseCase {
+
+    private static final Timer TIMER = Metrics.timer("usecase.import");
+
+    private static final int MAX_REPORTED_ERRORS = 10;
+
+    private final UserRepository userRepository;
+    private final UserRepository durableRepository;
+    private final WalletDomainService walletDomainService;
+    private final TransactionImportReader importReader;
+
+    /**
+     * @param userRepository    рабочий репозиторий (в памяти)
+     * @param durableRepository файловый репозиторий: после импорта пользователь сразу сохраняется и туда
+     *                          (может быть null)
+     */
+    public ImportTransactionsUseCase(UserRepository userRepository,
+                                     UserRepository durableRepository,
+                                     WalletDomainService walletDomainService,
+                                     TransactionImportReader importReader) {
+        this.userRepository = userRepository;
+        this.durableRepository = durableRepository;
+        this.walletDomainService = walletDomainService;
+        this.importReader = importReader;
+    }
+
+    /**
+     * Импортирует операции из файла в кошелёк пользователя.
+     *
+     * @param user     авторизованный пользователь
+     * @param fileName путь к файлу
+     * @param format   формат файла
+     * @return отчёт: сколько операций добавлено, какие строки пропущены, предупреждения по лимитам
+     * @throws IOException если файл не удалось прочитать
+     */
+    public String importTransactions(User user, String fileName, TransactionImportReader.Format format)
+            throws IOException {
+        long start = TIMER.start();
+        try {
+            TransactionImportReader.Result result = importReader.read(fileName, format);
+            List<Transaction> transactions = result.getTransactions();
+            List<String> errors = result.getErrors();
+
+            List<String> warnings = List.of();
+            String saveError = null;
+            if (!transactions.isEmpty()) {
+                Lock lock = userRepository.lockFor(user.getLogin()).writeLock();
+                lock.lock();
+                try {
+                    warnings = walletDomainService.addTransactions(user, transactions);
+                    userRepository.update(user);
+                    if (durableRepository != null) {
+                        try {
+                            durableRepository.update(user);
+                        } catch (RuntimeException e) {
+                            // Операции уже в кошельке и помечены к записи: повтор импорта задвоил бы их
+                            saveError = e.getMessage();
+                        }
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+
+            long incomes = transactions.stream().filter(t -> t.getType() == TransactionType.INCOME).count();
+            StringBuilder sb = new StringBuilder();
+            sb.append("Импортировано операций: ").append(transactions.size())
+                    .append(" (доходов: ").append(incomes)
+                    .append(", расходов: ").append(transactions.size() - incomes).append(")\n");
+            if (!errors.isEmpty()) {
+                sb.append("Пропущено строк с ошибками: ").append(errors.size()).append("\n");
+                errors.stream().limit(MAX_REPORTED_ERRORS).forEach(e -> sb.append("  ").append(e).append("\n"));
+                if (errors.size() > MAX_REPORTED_ERRORS) {
+                    sb.append("  ... и ещё ").append(errors.size() - MAX_REPORTED_ERRORS).append("\n");
+                }
+            }
+            for (String warning : warnings) {
+                sb.append("Предупреждение: ").append(warning).append("\n");
+            }
+            if (saveError != null) {
+                sb.append("Предупреждение: операции пока не записаны в файл (").append(saveError)
+                        .append("), запись будет повторена в фоне\n");
+            }
+            return sb.toString().trim();
+        } finally {
+            TIMER.stop(start);
+        }
+    }
+}
@@ -1,9 +1,12 @@
 package org.test.moneytrack.application.usecase;
 
+import org.test.moneytrack.diagnostics.metrics.Metrics;
+import org.test.moneytrack.diagnostics.metrics.Timer;
 import org.test.moneytrack.domain.model.User;
 import org.test.moneytrack.domain.repository.UserRepository;
 
 import java.util.Optional;
+import java.util.concurrent.locks.Lock;
 
 /**
  * Use Case: загрузить данные пользователя из файла (fileRepository)
@@ -14,6 +17,8 @@ import java.util.Optional;
  */
 public class LoadUserDataUseCase {
 
+    private static final Timer TIMER = Metrics.timer("usecase.load_user");
+
     private final UserRepository fileRepository;
     private final UserRepository inMemoryRepository;
 
@@ -25,17 +30,38 @@ public class LoadUserDataUseCase {
     /**
      * Загружает пользователя из fileRepository (по логину),
      * при успехе сохраняет в inMemoryRepository.
+     * Если пользователь уже в памяти, повторно из файла он не читается: с ним может
+     * работать другая сессия, и её несохранённые изменения не должны теряться.
      *
      * @param login логин пользователя
-     * @return true, если пользователь найден в файле и успешно загружен в память, иначе false
+     * @return true, если пользователь есть в памяти или найден в файле и загружен, иначе false
      */
     public boolean loadUserToMemory(String login) {
-        Optional<User> maybeUser = fileRepository.findByLogin(login);
-        if (maybeUser.isPresent()) {
-            User user = maybeUser.get();
-            inMemoryRepository.save(user);
-            return true;
+        long start = TIMER.start();
+        try {
+            if (inMemoryRepository.findByLogin(login).isPresent()) {
+                return true;
+            }
+            // Повторная проверка под блокировкой: два параллельных login одного пользователя
+            // не должны создать в памяти два разных объекта User
+            Lock lock = inMemoryRepository.lockFor(login).writeLock();
+            lock.lock();
+            try {
+                if (inMemoryRepository.findByLogin(login).isPresent()) {
+                    return true;
+                }
+                Optional<User> maybeUser = fileRepository.findByLogin(login);
+                if (maybeUser.isPresent()) {
+                    User user = maybeUser.get();
+                    inMemoryRepository.save(user);
+                    return true;
+                }
+                return false;
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            TIMER.stop(start);
         }
-        return false;
     }
 }
@@ -1,5 +1,7 @@
 package org.test.moneytrack.application.usecase;
 
+import org.test.moneytrack.diagnostics.metrics.Metrics;
+import org.test.moneytrack.diagnostics.metrics.Timer;
 import org.test.moneytrack.domain.model.User;
 import org.test.moneytrack.domain.repository.UserRepository;
 
@@ -10,6 +12,8 @@ import java.util.Optional;
  */
 public class LoginUserUseCase {
 
+    private static final Timer TIMER = Metrics.timer("usecase.login");
+
     private final UserRepository userRepository;
 
     public LoginUserUseCase(UserRepository userRepository) {
@@ -21,21 +25,25 @@ public class LoginUserUseCase {
      * Возвращает объект User или null, если авторизация не удалась.
      */
     public User login(String login, String password) {
-
-        Optional<User> userOpt = userRepository.findByLogin(login);
-        if (userOpt.isEmpty()) {
-            return null; // Пользователь не найден
-        }
-
-        User user = userOpt.get();
-        // Простейшая проверка пароля (в учебном проекте пароль хранится в открытом виде)
-        if (!user.getPassword().equals(password)) {
-            return null; // Неверный пароль
+        long start = TIMER.start();
+        try {
+            Optional<User> userOpt = userRepository.findByLogin(login);
+            if (userOpt.isEmpty()) {
+                return null; // Пользователь не найден
+            }
+
+            User user = userOpt.get();
+            // Простейшая проверка пароля (в учебном проекте пароль хранится в открытом виде)
+            if (!user.getPassword().equals(password)) {
+                return null; // Неверный пароль
+            }
+
+            // Если в реальном проекте - тут бы происходила загрузка кошелька из файла
+            // или что-то подобное.
+
+            return user;
+        } finally {
+            TIMER.stop(start);
         }
-
-        // Если в реальном проекте - тут бы происходила загрузка кошелька из файла
-        // или что-то подобное.
-
-        return user;
     }
 }
@@ -1,15 +1,20 @@
 package org.test.moneytrack.application.usecase;
 
+import org.test.moneytrack.diagnostics.metrics.Metrics;
+import org.test.moneytrack.diagnostics.metrics.Timer;
 import org.test.moneytrack.domain.model.User;
 import org.test.moneytrack.domain.repository.UserRepository;
 
 import java.util.Optional;
+import java.util.concurrent.locks.Lock;
 
 /**
  * Сценарий (Use Case) регистрации нового пользователя.
  */
 public class RegisterUserUseCase {
 
+    private static final Timer TIMER = Metrics.timer("usecase.register");
+
     private final UserRepository userRepository;
 
     public RegisterUserUseCase(UserRepository userRepository) {
@@ -21,16 +26,29 @@ public class RegisterUserUseCase {
      * Возвращает текстовое сообщение об успехе или ошибке (если логин уже существует).
      */
     public String register(String login, String password) {
-        // Проверяем, не занят ли логин
-        Optional<User> existingUser = userRepository.findByLogin(login);
-        if (existingUser.isPresent()) {
-            return "Ошибка: такой логин уже существует.";
+        long start = TIMER.start();
+        try {
+            // Проверка и сохранение - под блокировкой логина, иначе два одновременных
+            // запроса могли бы оба пройти проверку и зарегистрировать один логин дважды
+            Lock lock = userRepository.lockFor(login).writeLock();
+            lock.lock();
+            try {
+                // Проверяем, не занят ли логин
+                Optional<User> existingUser = userRepository.findByLogin(login);
+                if (existingUser.isPresent()) {
+                    return "Ошибка: такой логин уже существует.";
+                }
+
+                // Создаём нового пользователя и сохраняем
+                User newUser = new User(login, password);
+                userRepository.save(newUser);
+            } finally {
+                lock.unlock();
+            }
+
+            return "Пользователь " + login + " успешно зарегистрирован.";
+        } finally {
+            TIMER.stop(start);
         }
-
-        // Создаём нового пользователя и сохраняем
-        User newUser = new User(login, password);
-        userRepository.save(newUser);
-
-        return "Пользователь " + login + " успешно зарегистрирован.";
     }
 }
@@ -0,0 +1,63 @@
+package org.test.moneytrack.application.usecase;
+
+import org.test.moneytrack.application.port.OutputRepository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+/**
+ * Вывод текстового отчёта: в строку для консоли или потоком в файл папки пользователя
+ * "reports/{login}" (--output=). Отчёт пишется одним и тем же кодом в оба места
+ * и в файл не собирается целиком в памяти.
+ *
+ * Имя файла приходит от клиента (в том числе по HTTP), поэтому OutputRepository
+ * принимает только пути внутри переданной папки.
+ */
+final class ReportOutput {
+
+    static final String REPORTS_DIRECTORY = "reports";
+
+    /**
+     * Текст отчёта, который пишется по частям.
+     */
+    @FunctionalInterface
+    interface Body {
+        void writeTo(Appendable out) throws IOException;
+    }
+
+    private ReportOutput() {
+    }
+
+    /**
+     * Папка отчётов пользователя.
+     */
+    static String userDirectory(String login) {
+        return REPORTS_DIRECTORY + "/" + login;
+    }
+
+    /**
+     * @param directory  папка, внутри которой должен оказаться файл
+     * @param outputFile имя файла или null - тогда отчёт возвращается строкой
+     * @param written    что вернуть после записи в файл
+     */
+    static String write(OutputRepository outputRepository, String directory, String outputFile,
+                        Body body, String written) {
+        if (outputFile == null) {
+            StringBuilder sb = new StringBuilder();
+            try {
+                body.writeTo(sb);
+            } catch (IOException e) {
+                // StringBuilder не бросает IOException
+                throw new UncheckedIOException(e);
+            }
+            return sb.toString();
+        }
+        try (Writer out = outputRepository.openWriter(directory, outputFile)) {
+            body.writeTo(out);
+        } catch (IOException e) {
+            return "Ошибка записи в файл " + outputFile + ": " + e.getMessage();
+        }
+        return written;
+    }
+}
@@ -1,17 +1,26 @@
 package org.test.moneytrack.application.usecase;
 
+import org.test.moneytrack.diagnostics.metrics.Metrics;
+import org.test.moneytrack.diagnostics.metrics.Timer;
 import org.test.moneytrack.domain.model.User;
 import org.test.moneytrack.domain.repository.UserRepository;
 
+import java.util.concurrent.locks.Lock;
+
 /**
  * Use Case: сохранить (обновить) данные пользователя (который есть в памяти) в файл.
  */
 public class SaveUserDataUseCase {
 
+    private static final Timer SAVE_TIMER = Metrics.timer("usecase.save_user");
+    private static final Timer FLUSH_TIMER = Metrics.timer("usecase.save_changes");
+
     private final UserRepository fileRepository;
+    private final UserRepository inMemoryRepository;
 
-    public SaveUserDataUseCase(UserRepository fileRepository) {
+    public SaveUserDataUseCase(UserRepository fileRepository, UserRepository inMemoryRepository) {
         this.fileRepository = fileRepository;
+        this.inMemoryRepository = inMemoryRepository;
     }
 
     /**
@@ -20,6 +29,30 @@ public class SaveUserDataUseCase {
      * @param user пользователь (со всеми изменениями), который надо сохранить
      */
     public void saveUserToFile(User user) {
-        fileRepository.update(user);
+        long start = SAVE_TIMER.start();
+        try {
+            // Пока кошелёк сериализуется, его не должны менять другие потоки
+            Lock lock = inMemoryRepository.lockFor(user.getLogin()).readLock();
+            lock.lock();
+            try {
+                fileRepository.update(user);
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            SAVE_TIMER.stop(start);
+        }
+    }
+
+    /**
+     * Записывает в файлы только изменённых пользователей из памяти (быстро, если изменений нет).
+     */
+    public void saveChanges() {
+        long start = FLUSH_TIMER.start();
+        try {
+            inMemoryRepository.flush();
+        } finally {
+            FLUSH_TIMER.stop(start);
+        }
     }
 }
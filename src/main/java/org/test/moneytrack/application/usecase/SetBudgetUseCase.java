@@ -1,18 +1,24 @@
 package org.test.moneytrack.application.usecase;
 
+import org.test.moneytrack.diagnostics.metrics.Metrics;
+import org.test.moneytrack.diagnostics.metrics.Timer;
 import org.test.moneytrack.domain.model.Budget;
 import org.test.moneytrack.domain.model.Category;
+import org.test.moneytrack.domain.model.Money;
 import org.test.moneytrack.domain.model.User;
 import org.test.moneytrack.domain.repository.UserRepository;
 import org.test.moneytrack.domain.service.BudgetDomainService;
 
 import java.math.BigDecimal;
+import java.util.concurrent.locks.Lock;
 
 /**
  * Сценарий (Use Case) установки лимита (бюджета) для категории.
  */
 public class SetBudgetUseCase {
 
+    private static final Timer TIMER = Metrics.timer("usecase.set_budget");
+
     private final UserRepository userRepository;
     private final BudgetDomainService budgetDomainService;
 
@@ -31,14 +37,26 @@ public class SetBudgetUseCase {
      * @return сообщение о результате
      */
     public String setBudget(User user, Category category, BigDecimal limitValue) {
-        Budget budget = budgetDomainService.setBudget(user.getWallet(), category, limitValue);
-
-        // Сохраняем изменения
-        userRepository.update(user);
-
-        return "Категория: "
-                + category.getName()
-                + " бюджет: "
-                + budget.getLimitAmount();
+        long start = TIMER.start();
+        try {
+            Budget budget;
+            Lock lock = userRepository.lockFor(user.getLogin()).writeLock();
+            lock.lock();
+            try {
+                budget = budgetDomainService.setBudget(user.getWallet(), category, Money.of(limitValue));
+
+                // Сохраняем изменения
+                userRepository.update(user);
+            } finally {
+                lock.unlock();
+            }
+
+            return "Категория: "
+                    + category.getName()
+                    + " бюджет: "
+                    + budget.getLimitAmount();
+        } finally {
+            TIMER.stop(start);
+        }
     }
 }
@@ -1,14 +1,24 @@
 package org.test.moneytrack.application.usecase;
 
 import org.test.moneytrack.application.port.OutputRepository;
+import org.test.moneytrack.diagnostics.jfr.ReportEvent;
+import org.test.moneytrack.diagnostics.metrics.Metrics;
+import org.test.moneytrack.diagnostics.metrics.Timer;
 import org.test.moneytrack.domain.model.Category;
+import org.test.moneytrack.domain.model.CategoryRegistry;
+import org.test.moneytrack.domain.model.DateRange;
+import org.test.moneytrack.domain.model.Money;
+import org.test.moneytrack.domain.model.MoneyAccumulator;
 import org.test.moneytrack.domain.model.TransactionType;
 import org.test.moneytrack.domain.model.User;
+import org.test.moneytrack.domain.repository.UserRepository;
 import org.test.moneytrack.domain.service.WalletDomainService;
 
-import java.math.BigDecimal;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
 
 /**
  * Use Case: показать (посчитать) сумму расходов по нескольким категориям.
@@ -16,11 +26,16 @@ import java.util.List;
  */
 public class ShowExpensesUseCase {
 
+    private static final Timer TIMER = Metrics.timer("usecase.show_expenses");
+
+    private final UserRepository userRepository;
     private final WalletDomainService walletDomainService;
     private final OutputRepository outputRepository;
 
-    public ShowExpensesUseCase(WalletDomainService walletDomainService,
+    public ShowExpensesUseCase(UserRepository userRepository,
+                               WalletDomainService walletDomainService,
                                OutputRepository outputRepository) {
+        this.userRepository = userRepository;
         this.walletDomainService = walletDomainService;
         this.outputRepository = outputRepository;
     }
@@ -34,46 +49,87 @@ public class ShowExpensesUseCase {
     public String execute(User user,
                           List<String> categoryNames,
                           String outputFile) {
-        // 1) Преобразуем названия в объекты Category
-        List<Category> categories = new ArrayList<>();
-        for (String catName : categoryNames) {
-            categories.add(new Category(catName));
-        }
+        return execute(user, categoryNames, DateRange.ALL, outputFile);
+    }
+
+    /**
+     * То же, но учитываются только расходы за период.
+     */
+    public String execute(User user,
+                          List<String> categoryNames,
+                          DateRange period,
+                          String outputFile) {
+        long start = TIMER.start();
+        ReportEvent event = ReportEvent.start("show_expenses");
+        try {
+            // 1) Ищем категории по названиям (без пополнения словаря: запрос ничего не сохраняет);
+            //    null - такой категории нет ни у кого, расходов по ней тоже нет
+            List<Category> categories = new ArrayList<>();
+            for (String catName : categoryNames) {
+                categories.add(CategoryRegistry.getInstance().find(catName));
+            }
 
-        // 2) Посчитаем для каждой категории индивидуально + общий итог
-        StringBuilder sb = new StringBuilder("Расходы по категориям:\n");
-        BigDecimal grandTotal = BigDecimal.ZERO;
+            // 2) Посчитаем для каждой категории индивидуально
+            //    (под блокировкой чтения пользователя; текст пишем после её снятия)
+            List<Money> sums = new ArrayList<>(categories.size());
+            Lock lock = userRepository.lockFor(user.getLogin()).readLock();
+            lock.lock();
+            try {
+                // Для всей истории - накопительные суммы, для периода - один проход по его транзакциям
+                Map<Category, Money> totals = period.isAll()
+                        ? null
+                        : walletDomainService.calculateTotalsByCategory(user.getWallet(), TransactionType.EXPENSE, period);
+                for (Category cat : categories) {
+                    // Подсчёт по одной категории
+                    if (cat == null) {
+                        sums.add(Money.ZERO);
+                    } else {
+                        sums.add((totals == null)
+                                ? walletDomainService.calculateTotalByCategory(user.getWallet(), cat, TransactionType.EXPENSE)
+                                : totals.getOrDefault(cat, Money.ZERO));
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
 
-        for (Category cat : categories) {
-            // Подсчёт по одной категории
-            BigDecimal catSum = walletDomainService.calculateTotalByCategory(
-                    user.getWallet(), cat, TransactionType.EXPENSE);
+            // 3) Вывод в консоль или (если задан файл) потоком в файл
+            return ReportOutput.write(outputRepository, ReportOutput.userDirectory(user.getLogin()), outputFile,
+                    out -> writeExpenses(out, categoryNames, sums, period),
+                    "Данные записаны в " + outputFile);
+        } finally {
+            TIMER.stop(start);
+            event.finish(user.getLogin(), user.getWallet().getAppendedCount(), outputFile);
+        }
+    }
 
-            if (catSum.compareTo(BigDecimal.ZERO) == 0) {
+    private static void writeExpenses(Appendable out, List<String> categoryNames, List<Money> sums,
+                                      DateRange period) throws IOException {
+        out.append("Расходы по категориям");
+        if (!period.isAll()) {
+            out.append(" (").append(period.describe()).append(")");
+        }
+        out.append(":\n");
+        MoneyAccumulator grandTotal = new MoneyAccumulator();
+        for (int i = 0; i < categoryNames.size(); i++) {
+            String catName = categoryNames.get(i);
+            Money catSum = sums.get(i);
+            if (catSum.signum() == 0) {
                 // Уведомляем, что по этой категории нет расходов
                 // (по логике ТЗ - "Если категория не найдена, уведомлять")
-                sb.append(" - Категория '")
-                        .append(cat.getName())
+                out.append(" - Категория '")
+                        .append(catName)
                         .append("' не найдена или нет расходов.\n");
             } else {
-                sb.append(" - ")
-                        .append(cat.getName())
+                out.append(" - ")
+                        .append(catName)
                         .append(": ")
-                        .append(catSum)
+                        .append(catSum.toString())
                         .append("\n");
-                grandTotal = grandTotal.add(catSum);
+                grandTotal.add(catSum);
             }
         }
 
-        sb.append("\nИтого по выбранным категориям: ").append(grandTotal);
-
-        // 3) Если нужен вывод в файл
-        if (outputFile != null) {
-            outputRepository.writeToFile("reports", outputFile, sb.toString());
-            return "Данные записаны в " + outputFile;
-        } else {
-            // Иначе вернём как строку
-            return sb.toString();
-        }
+        out.append("\nИтого по выбранным категориям: ").append(grandTotal.toMoney().toString());
     }
 }
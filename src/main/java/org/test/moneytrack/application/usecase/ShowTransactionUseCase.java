@@ -0,0 +1,72 @@
+package org.test.moneytrack.application.usecase;
+
+import org.test.moneytrack.diagnostics.metrics.Metrics;
+import org.test.moneytrack.diagnostics.metrics.Timer;
+import org.test.moneytrack.domain.model.Transaction;
+import org.test.moneytrack.domain.model.TransactionType;
+import org.test.moneytrack.domain.model.User;
+import org.test.moneytrack.domain.repository.UserRepository;
+import org.test.moneytrack.domain.service.WalletDomainService;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Use Case: просмотр одной операции по её идентификатору (show_transaction).
+ * Поиск идёт по индексу id кошелька, без прохода по истории.
+ */
+public class ShowTransactionUseCase {
+
+    private static final Timer TIMER = Metrics.timer("usecase.show_transaction");
+
+    private final UserRepository userRepository;
+    private final WalletDomainService walletDomainService;
+
+    public ShowTransactionUseCase(UserRepository userRepository,
+                                  WalletDomainService walletDomainService) {
+        this.userRepository = userRepository;
+        this.walletDomainService = walletDomainService;
+    }
+
+    /**
+     * Возвращает описание операции или сообщение, что её нет.
+     */
+    public String showTransaction(User user, UUID transactionId) {
+        long start = TIMER.start();
+        try {
+            Optional<Transaction> transaction;
+            Lock lock = userRepository.lockFor(user.getLogin()).readLock();
+            lock.lock();
+            try {
+                transaction = walletDomainService.findTransactionById(user.getWallet(), transactionId);
+            } finally {
+                lock.unlock();
+            }
+            return transaction
+                    .map(t -> "Операция " + t.getTransactionId() + ":\n" + describe(t))
+                    .orElse("Ошибка: операция " + transactionId + " не найдена.");
+        } finally {
+            TIMER.stop(start);
+        }
+    }
+
+    /**
+     * Поля операции по одному на строку (общий вид для просмотра и удаления).
+     */
+    static String describe(Transaction t) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Тип: ").append(t.getType() == TransactionType.INCOME ? "Доход" : "Расход").append("\n");
+        if (t.getCategory() != null) {
+            sb.append("Категория: ").append(t.getCategory().getName()).append("\n");
+        }
+        sb.append("Сумма: ").append(t.getAmount()).append("\n");
+        if (t.getDateTime() != null) {
+            sb.append("Дата: ").append(t.getDateTime()).append("\n");
+        }
+        if (t.getDescription() != null && !t.getDescription().isEmpty()) {
+            sb.append("Описание: ").append(t.getDescription()).append("\n");
+        }
+        return sb.toString().trim();
+    }
+}
@@ -1,23 +1,95 @@
 package org.test.moneytrack.application.usecase;
 
+import org.test.moneytrack.application.port.TransferLog;
+import org.test.moneytrack.diagnostics.metrics.Metrics;
+import org.test.moneytrack.diagnostics.metrics.Timer;
+import org.test.moneytrack.domain.model.Money;
+import org.test.moneytrack.domain.model.Transaction;
 import org.test.moneytrack.domain.model.User;
 import org.test.moneytrack.domain.repository.UserRepository;
 import org.test.moneytrack.domain.service.TransferDomainService;
 
+import org.test.moneytrack.domain.model.Wallet;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
 
 /**
  * Сценарий (Use Case) перевода средств между пользователями.
+ *
+ * Оба кошелька блокируются в едином порядке (по логину), обе части перевода
+ * применяются под этими блокировками и сохраняются одним вызовом updateAll.
+ * Надёжность даёт журнал переводов (TransferLog): перевод записывается в него до того,
+ * как меняются кошельки, а файлы пользователей пишет в фоне userRepository (write-behind).
+ * Когда обе стороны записаны (usersPersisted), перевод отмечается в журнале завершённым;
+ * незавершённые переводы доигрываются при запуске (recover).
+ * Перевод с ключом идемпотентности выполняется один раз: повтор с тем же ключом
+ * возвращает результат первого выполнения. Ключ пишется в журнал переводов в той же
+ * записи, что и перевод, и при запуске (recover) возвращается в кэш ключей.
  */
 public class TransferFundsUseCase {
 
+    private static final Timer TIMER = Metrics.timer("usecase.transfer");
+
+    // Сколько последних ключей идемпотентности помнить
+    private static final int IDEMPOTENCY_KEYS = 10_000;
+    // Ответ на повтор ключа, если результат первого выполнения не успел записаться
+    private static final String DONE = "Перевод успешно выполнен.";
+
     private final UserRepository userRepository;
+    private final UserRepository durableRepository;
     private final TransferDomainService transferDomainService;
+    private final TransferLog transferLog;
+    private final IdempotencyCache idempotencyCache = new IdempotencyCache(IDEMPOTENCY_KEYS);
+
+    /**
+     * Перевод из журнала, ждущий записи файлов своих сторон.
+     */
+    private static final class Unpersisted {
+        final TransferLog.Entry entry;
+        final AtomicInteger parties;
+
+        Unpersisted(TransferLog.Entry entry, int parties) {
+            this.entry = entry;
+            this.parties = new AtomicInteger(parties);
+        }
+    }
+
+    // Логин -> переводы, которые ждут записи его файла. Список логина меняется только
+    // под блокировкой этого логина (запись - при переводе, чтение - в usersPersisted)
+    private final Map<String, List<Unpersisted>> unpersisted = new ConcurrentHashMap<>();
 
     public TransferFundsUseCase(UserRepository userRepository,
                                 TransferDomainService transferDomainService) {
+        this(userRepository, null, transferDomainService, null);
+    }
+
+    /**
+     * @param userRepository    репозиторий, в котором живут пользователи (и их блокировки)
+     * @param durableRepository файлы, в которые userRepository пишет пользователей в фоне;
+     *                          по ним recover() доигрывает переводы. null - без журнала
+     * @param transferLog       журнал переводов; null - без журнала. Чтобы переводы
+     *                          отмечались завершёнными, userRepository должен сообщать
+     *                          о записанных пользователях в usersPersisted()
+     */
+    public TransferFundsUseCase(UserRepository userRepository,
+                                UserRepository durableRepository,
+                                TransferDomainService transferDomainService,
+                                TransferLog transferLog) {
         this.userRepository = userRepository;
+        this.durableRepository = durableRepository;
         this.transferDomainService = transferDomainService;
+        this.transferLog = (durableRepository != null) ? transferLog : null;
     }
 
     /**
@@ -25,15 +97,168 @@ public class TransferFundsUseCase {
      * Возвращает предупреждения, если они возникли.
      */
     public String transfer(User fromUser, User toUser, BigDecimal amount) {
-        // Вызываем доменный сервис перевода
-        String warning = transferDomainService.transfer(fromUser.getWallet(), toUser.getWallet(), amount);
+        return transfer(fromUser, toUser, amount, null);
+    }
+
+    /**
+     * Переводит сумму с ключом идемпотентности.
+     *
+     * @param idempotencyKey ключ клиента (уникален в пределах отправителя) или null
+     * @return результат перевода; для повторного ключа - результат первого выполнения
+     * @throws UncheckedIOException перевод не выполнен (не записался журнал переводов);
+     *                              повтор с тем же ключом выполнит его заново
+     */
+    public String transfer(User fromUser, User toUser, BigDecimal amount, String idempotencyKey) {
+        long start = TIMER.start();
+        try {
+            if (idempotencyKey == null) {
+                return doTransfer(fromUser, toUser, amount, null, null);
+            }
+            String key = fromUser.getLogin() + "|" + idempotencyKey;
+            String fingerprint = toUser.getLogin() + "|" + amount.stripTrailingZeros().toPlainString();
+            return idempotencyCache.execute(key, fingerprint,
+                    () -> doTransfer(fromUser, toUser, amount, key, fingerprint));
+        } finally {
+            TIMER.stop(start);
+        }
+    }
+
+    private String doTransfer(User fromUser, User toUser, BigDecimal amount, String key, String fingerprint) {
+        Money money = Money.of(amount);
+        TransferLog.Entry entry = new TransferLog.Entry(UUID.randomUUID(), fromUser.getLogin(), toUser.getLogin(),
+                transferDomainService.newExpense(money), transferDomainService.newIncome(money), key, fingerprint, null);
+        if (transferLog != null) {
+            try {
+                transferLog.begin(entry);
+            } catch (IOException e) {
+                // Исключение, а не строка-ответ: неудачная попытка не должна запомниться под ключом
+                throw new UncheckedIOException("не удалось записать журнал переводов: " + e.getMessage(), e);
+            }
+        }
 
-        // Сохраняем изменения в репозитории
-        userRepository.update(fromUser);
-        userRepository.update(toUser);
+        // Блокируем оба кошелька всегда в одном порядке (по логину),
+        // чтобы встречные переводы A->B и B->A не ждали друг друга вечно
+        boolean fromFirst = fromUser.getLogin().compareTo(toUser.getLogin()) <= 0;
+        Lock first = userRepository.lockFor((fromFirst ? fromUser : toUser).getLogin()).writeLock();
+        Lock second = userRepository.lockFor((fromFirst ? toUser : fromUser).getLogin()).writeLock();
+        String result;
+        first.lock();
+        try {
+            second.lock();
+            try {
+                // Вызываем доменный сервис перевода
+                String warning = transferDomainService.transfer(fromUser, toUser, entry.getExpense(), entry.getIncome());
+                result = warning.isEmpty()
+                        ? DONE
+                        : "Перевод выполнен, предупреждение: " + warning;
+
+                // Обе стороны помечаются изменёнными одним шагом; в файлы их запишет userRepository
+                userRepository.updateAll(List.of(fromUser, toUser));
+                if (transferLog != null) {
+                    // Под блокировками сторон: запись файла, начатая до этого, перевод не содержит
+                    awaitPersisted(entry.withResult(result));
+                }
+            } finally {
+                second.unlock();
+            }
+        } finally {
+            first.unlock();
+        }
+        return result;
+    }
+
+    private void awaitPersisted(TransferLog.Entry entry) {
+        boolean self = entry.getFromLogin().equals(entry.getToLogin());
+        Unpersisted transfer = new Unpersisted(entry, self ? 1 : 2);
+        unpersisted.computeIfAbsent(entry.getFromLogin(), login -> new ArrayList<>()).add(transfer);
+        if (!self) {
+            unpersisted.computeIfAbsent(entry.getToLogin(), login -> new ArrayList<>()).add(transfer);
+        }
+    }
+
+    /**
+     * Сообщает, что файлы пользователей записаны. Вызывается репозиторием под блокировками
+     * чтения этих пользователей, после записи и до их снятия. Переводы, у которых записаны
+     * обе стороны, отмечаются в журнале завершёнными.
+     */
+    public void usersPersisted(Collection<String> logins) {
+        for (String login : logins) {
+            List<Unpersisted> transfers = unpersisted.remove(login);
+            if (transfers == null) {
+                continue;
+            }
+            for (Unpersisted transfer : transfers) {
+                if (transfer.parties.decrementAndGet() == 0) {
+                    complete(transfer.entry, transfer.entry.getResult());
+                }
+            }
+        }
+    }
+
+    /**
+     * Доигрывает переводы из журнала, которые могли не дойти до файлов обеих сторон
+     * (процесс упал между сохранением отправителя и получателя). Транзакция перевода
+     * добавляется только той стороне, у которой её нет, поэтому повтор ничего не меняет.
+     * Заодно возвращает в кэш ключи идемпотентности завершённых переводов.
+     * Вызывается при запуске, до входа пользователей.
+     *
+     * @return сколько переводов пришлось доиграть
+     */
+    public int recover() {
+        if (transferLog == null) {
+            return 0;
+        }
+        List<TransferLog.Entry> pending;
+        try {
+            pending = transferLog.pending();
+        } catch (IOException e) {
+            System.err.println("Ошибка чтения журнала переводов: " + e.getMessage());
+            return 0;
+        }
+        int repaired = 0;
+        for (TransferLog.Entry entry : pending) {
+            Optional<User> fromUser = durableRepository.findByLogin(entry.getFromLogin());
+            // Перевод самому себе: обе транзакции в одном кошельке
+            Optional<User> toUser = entry.getToLogin().equals(entry.getFromLogin())
+                    ? fromUser
+                    : durableRepository.findByLogin(entry.getToLogin());
+            if (fromUser.isEmpty() || toUser.isEmpty()) {
+                System.err.println("Перевод " + entry.getId() + " не доигран: нет пользователя "
+                        + (fromUser.isEmpty() ? entry.getFromLogin() : entry.getToLogin()));
+                continue;
+            }
+            boolean changed = addIfMissing(fromUser.get().getWallet(), entry.getExpense());
+            changed |= addIfMissing(toUser.get().getWallet(), entry.getIncome());
+            if (changed) {
+                durableRepository.updateAll(List.of(fromUser.get(), toUser.get()));
+                repaired++;
+            }
+            complete(entry, null);
+        }
+        for (TransferLog.Entry entry : transferLog.completedWithKeys()) {
+            idempotencyCache.remember(entry.getIdempotencyKey(), entry.getFingerprint(),
+                    entry.getResult() != null ? entry.getResult() : DONE);
+        }
+        return repaired;
+    }
+
+    private static boolean addIfMissing(Wallet wallet, Transaction transaction) {
+        if (wallet.containsTransaction(transaction.getTransactionId())) {
+            return false;
+        }
+        wallet.addTransaction(transaction);
+        return true;
+    }
 
-        return warning.isEmpty()
-                ? "Перевод успешно выполнен."
-                : "Перевод выполнен, предупреждение: " + warning;
+    private void complete(TransferLog.Entry entry, String result) {
+        if (transferLog == null) {
+            return;
+        }
+        try {
+            transferLog.complete(entry, result);
+        } catch (IOException e) {
+            // Без отметки перевод будет проверен при следующем запуске - это безопасно
+            System.err.println("Ошибка записи журнала переводов: " + e.getMessage());
+        }
     }
 }
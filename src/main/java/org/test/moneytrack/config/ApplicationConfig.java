@@ -1,19 +1,49 @@
 package org.test.moneytrack.config;
 
 import org.test.moneytrack.application.port.OutputRepository;
+import org.test.moneytrack.diagnostics.metrics.JmxMetricsExporter;
+import org.test.moneytrack.diagnostics.metrics.MetricsFileDumper;
+import org.test.moneytrack.infrastructure.event.AlertLogSubscriber;
+import org.test.moneytrack.infrastructure.event.RingBufferEventBus;
+import org.test.moneytrack.infrastructure.exporter.ChannelTransactionExportWriter;
+import org.test.moneytrack.infrastructure.importer.ParallelTransactionImportReader;
 import org.test.moneytrack.infrastructure.output.FileOutputRepository;
 import org.test.moneytrack.infrastructure.repository.FileUserRepository;
-import org.test.moneytrack.infrastructure.repository.InMemoryUserRepository;
+import org.test.moneytrack.infrastructure.repository.WriteBehindFlusher;
+import org.test.moneytrack.infrastructure.repository.CachingUserRepository;
 import org.test.moneytrack.infrastructure.storage.JsonFileStorage;
+import org.test.moneytrack.infrastructure.storage.UserStorage;
+import org.test.moneytrack.infrastructure.storage.binary.BinaryFileStorage;
+import org.test.moneytrack.infrastructure.storage.columnar.ColumnarUserStorage;
+import org.test.moneytrack.infrastructure.storage.journal.FileTransferLog;
+import org.test.moneytrack.infrastructure.storage.journal.GroupCommitWriter;
+import org.test.moneytrack.infrastructure.storage.journal.JournaledFileStorage;
 import org.test.moneytrack.domain.service.*;
 import org.test.moneytrack.application.usecase.*;
 
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
 public class ApplicationConfig {
 
     // Репозитории
-    private final InMemoryUserRepository inMemoryRepository;
+    private final CachingUserRepository inMemoryRepository;
     private final FileUserRepository fileRepository;
     private final OutputRepository outputRepository;
+    private final WriteBehindFlusher flusher;
+    private final MetricsFileDumper metricsDumper;
+    private final FileTransferLog transferLog;
+
+    // Логины с доступом к общему отчёту (-Dmoneytrack.admins, через запятую; по умолчанию никто)
+    private final Set<String> admins = admins();
+
+    // Доменные события
+    private final RingBufferEventBus eventBus;
+    private final AlertLogSubscriber alertLog;
 
     // Доменные сервисы
     private final WalletDomainService walletDomainService;
@@ -29,20 +59,59 @@ public class ApplicationConfig {
     private final GetSummaryUseCase getSummaryUseCase;
     private final GetBudgetStatusUseCase getBudgetStatusUseCase;
     private final ShowExpensesUseCase getShowExpensesUseCase;
+    private final GetTrendsUseCase getTrendsUseCase;
+    private final ShowTransactionUseCase showTransactionUseCase;
+    private final DeleteTransactionUseCase deleteTransactionUseCase;
+    private final AdminReportUseCase adminReportUseCase;
     private final TransferFundsUseCase transferFundsUseCase;
+    private final ImportTransactionsUseCase importTransactionsUseCase;
+    private final ExportTransactionsUseCase exportTransactionsUseCase;
     private final LoadUserDataUseCase loadUserDataUseCase;
     private final SaveUserDataUseCase saveUserDataUseCase;
 
     public ApplicationConfig() {
-        JsonFileStorage storage = new JsonFileStorage("data");
-        this.fileRepository = new FileUserRepository(storage);
-        this.inMemoryRepository = new InMemoryUserRepository();
+        // Метрики: MBean в JMX (-Dmoneytrack.metrics.jmx=false отключает) и, если задан
+        // -Dmoneytrack.metrics.file, периодическая запись в файл раз в -Dmoneytrack.metrics.intervalSeconds (60 с)
+        if (!"false".equals(System.getProperty("moneytrack.metrics.jmx"))) {
+            JmxMetricsExporter.register();
+        }
+        String metricsFile = System.getProperty("moneytrack.metrics.file");
+        if (metricsFile != null) {
+            this.metricsDumper = new MetricsFileDumper(Paths.get(metricsFile),
+                    Duration.ofSeconds(Long.getLong("moneytrack.metrics.intervalSeconds", 60L)));
+            this.metricsDumper.start();
+        } else {
+            this.metricsDumper = null;
+        }
+
+        JsonFileStorage jsonStorage = new JsonFileStorage("data");
+        this.fileRepository = new FileUserRepository(createStorage(jsonStorage));
+        this.transferLog = new FileTransferLog(Paths.get("data", "transfers.log"));
+        // Пользователи в памяти - ограниченный по оценке памяти кэш перед файлами
+        // (-Dmoneytrack.cache.maxWeightMb, по умолчанию 256 МБ)
+        long cacheWeight = Long.getLong("moneytrack.cache.maxWeightMb", 256L) * 1024 * 1024;
+        this.inMemoryRepository = new CachingUserRepository(fileRepository, cacheWeight);
+        // Изменённые пользователи записываются в фоне: раз в -Dmoneytrack.flush.intervalSeconds (5 с)
+        // или сразу, когда их набралось -Dmoneytrack.flush.dirtyThreshold (64)
+        this.flusher = new WriteBehindFlusher(inMemoryRepository,
+                Duration.ofSeconds(Long.getLong("moneytrack.flush.intervalSeconds", 5L)),
+                Integer.getInteger("moneytrack.flush.dirtyThreshold", 64));
+        this.flusher.start();
         this.outputRepository = new FileOutputRepository();
 
+        // Шина доменных событий: буфер на -Dmoneytrack.events.capacity (8192) событий;
+        // если задан -Dmoneytrack.alerts.file, оповещения дописываются в этот файл
+        this.eventBus = new RingBufferEventBus(Integer.getInteger("moneytrack.events.capacity", 8192));
+        this.alertLog = createAlertLog(eventBus);
+        this.eventBus.start();
+
         // Доменные сервисы
-        this.walletDomainService = new WalletDomainService();
+        // -Dmoneytrack.verifyAggregates=true включает сверку агрегатов с полным проходом,
+        // -Dmoneytrack.alerts.thresholds - пороги бюджета в процентах (80,100,120)
+        this.walletDomainService = new WalletDomainService(Boolean.getBoolean("moneytrack.verifyAggregates"),
+                eventBus, alertThresholds());
         this.budgetDomainService = new BudgetDomainService();
-        this.transferDomainService = new TransferDomainService(walletDomainService);
+        this.transferDomainService = new TransferDomainService(walletDomainService, eventBus);
 
         // Use Cases (работают с inMemory)
         this.registerUserUseCase = new RegisterUserUseCase(inMemoryRepository);
@@ -50,18 +119,112 @@ public class ApplicationConfig {
         this.addIncomeUseCase = new AddIncomeUseCase(inMemoryRepository, walletDomainService);
         this.addExpenseUseCase = new AddExpenseUseCase(inMemoryRepository, walletDomainService);
         this.setBudgetUseCase = new SetBudgetUseCase(inMemoryRepository, budgetDomainService);
-        this.getSummaryUseCase = new GetSummaryUseCase(walletDomainService, outputRepository);
-        this.getBudgetStatusUseCase = new GetBudgetStatusUseCase(walletDomainService, outputRepository);
-        this.getShowExpensesUseCase = new ShowExpensesUseCase(walletDomainService, outputRepository);
-        this.transferFundsUseCase = new TransferFundsUseCase(inMemoryRepository, transferDomainService);
+        this.getSummaryUseCase = new GetSummaryUseCase(inMemoryRepository, walletDomainService, outputRepository);
+        this.getBudgetStatusUseCase = new GetBudgetStatusUseCase(inMemoryRepository, walletDomainService, outputRepository);
+        this.getShowExpensesUseCase = new ShowExpensesUseCase(inMemoryRepository, walletDomainService, outputRepository);
+        this.getTrendsUseCase = new GetTrendsUseCase(inMemoryRepository, walletDomainService, outputRepository);
+        this.showTransactionUseCase = new ShowTransactionUseCase(inMemoryRepository, walletDomainService);
+        this.deleteTransactionUseCase = new DeleteTransactionUseCase(inMemoryRepository, walletDomainService);
+        this.adminReportUseCase = new AdminReportUseCase(fileRepository, inMemoryRepository, outputRepository);
+        // Перевод сначала записывается в журнал переводов, файлы сторон пишет flusher;
+        // перевод, не дошедший до файлов обеих сторон, доигрывается при запуске
+        this.transferFundsUseCase = new TransferFundsUseCase(inMemoryRepository, fileRepository,
+                transferDomainService, transferLog);
+        inMemoryRepository.setPersistedListener(transferFundsUseCase::usersPersisted);
+        int repaired = transferFundsUseCase.recover();
+        if (repaired > 0) {
+            System.err.println("Доиграно переводов, прерванных сбоем: " + repaired);
+        }
+        // Импорт добавляет операции одним пакетом и один раз сохраняет пользователя в файл
+        this.importTransactionsUseCase = new ImportTransactionsUseCase(inMemoryRepository, fileRepository,
+                walletDomainService, new ParallelTransactionImportReader());
+        this.exportTransactionsUseCase = new ExportTransactionsUseCase(inMemoryRepository,
+                walletDomainService, new ChannelTransactionExportWriter());
 
         // для загрузки и сохранения данных
         this.loadUserDataUseCase = new LoadUserDataUseCase(fileRepository, inMemoryRepository);
-        this.saveUserDataUseCase = new SaveUserDataUseCase(fileRepository);
+        this.saveUserDataUseCase = new SaveUserDataUseCase(fileRepository, inMemoryRepository);
+    }
+
+    /**
+     * Выбирает формат файлового хранилища по -Dmoneytrack.storage:
+     * json (по умолчанию) - полный файл на каждое сохранение,
+     * journal - снимок + журнал изменений (-Dmoneytrack.journal.compactEvery=N записей),
+     * binary - компактный двоичный формат data_{login}.mtb (старые JSON-файлы читаются).
+     * Для json можно включить -Dmoneytrack.columnar=true: история файлов крупнее
+     * -Dmoneytrack.columnar.minFileSizeMb (16 МБ) держится в отображённых в память колонках.
+     */
+    private static UserStorage createStorage(JsonFileStorage jsonStorage) {
+        String mode = System.getProperty("moneytrack.storage", "json");
+        if ("journal".equals(mode)) {
+            int compactEvery = Integer.getInteger("moneytrack.journal.compactEvery", 1000);
+            return new JournaledFileStorage(jsonStorage, "data", compactEvery, new GroupCommitWriter());
+        }
+        if ("binary".equals(mode)) {
+            return new BinaryFileStorage(jsonStorage, "data");
+        }
+        if (Boolean.getBoolean("moneytrack.columnar")) {
+            long minFileSize = Long.getLong("moneytrack.columnar.minFileSizeMb", 16L) * 1024 * 1024;
+            return new ColumnarUserStorage(jsonStorage, "data", minFileSize);
+        }
+        return jsonStorage;
+    }
+
+    private static Set<String> admins() {
+        String value = System.getProperty("moneytrack.admins", "");
+        return Arrays.stream(value.split(","))
+                .map(String::trim)
+                .filter(login -> !login.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    private static int[] alertThresholds() {
+        String value = System.getProperty("moneytrack.alerts.thresholds");
+        if (value == null || value.isBlank()) {
+            return WalletDomainService.DEFAULT_ALERT_THRESHOLDS;
+        }
+        String[] parts = value.split(",");
+        int[] thresholds = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            thresholds[i] = Integer.parseInt(parts[i].trim());
+        }
+        return thresholds;
+    }
+
+    private static AlertLogSubscriber createAlertLog(RingBufferEventBus eventBus) {
+        String alertsFile = System.getProperty("moneytrack.alerts.file");
+        if (alertsFile == null) {
+            return null;
+        }
+        try {
+            AlertLogSubscriber subscriber = new AlertLogSubscriber(Paths.get(alertsFile));
+            subscriber.subscribeTo(eventBus);
+            return subscriber;
+        } catch (IOException e) {
+            // Без файла оповещений приложение работает как обычно
+            System.err.println("Не удалось открыть файл оповещений " + alertsFile + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Останавливает фоновую запись и сохраняет оставшиеся изменения (вызывается из shutdown hook).
+     * Затем раздаёт подписчикам оставшиеся события.
+     */
+    public void shutdown() {
+        flusher.close();
+        transferLog.close();
+        eventBus.close();
+        if (alertLog != null) {
+            alertLog.close();
+        }
+        if (metricsDumper != null) {
+            metricsDumper.close();
+        }
     }
 
     // Геттеры для репозиториев
-    public InMemoryUserRepository getInMemoryRepository() {
+    public CachingUserRepository getInMemoryRepository() {
         return inMemoryRepository;
     }
 
@@ -69,6 +232,14 @@ public class ApplicationConfig {
         return fileRepository;
     }
 
+    public WriteBehindFlusher getFlusher() {
+        return flusher;
+    }
+
+    public RingBufferEventBus getEventBus() {
+        return eventBus;
+    }
+
     // Геттеры для Use Cases
     public RegisterUserUseCase getRegisterUserUseCase() {
         return registerUserUseCase;
@@ -102,10 +273,41 @@ public class ApplicationConfig {
         return getShowExpensesUseCase;
     }
 
+    public GetTrendsUseCase getGetTrendsUseCase() {
+        return getTrendsUseCase;
+    }
+
+    public ShowTransactionUseCase getShowTransactionUseCase() {
+        return showTransactionUseCase;
+    }
+
+    public DeleteTransactionUseCase getDeleteTransactionUseCase() {
+        return deleteTransactionUseCase;
+    }
+
+    /**
+     * Может ли пользователь смотреть данные всех пользователей (admin_report).
+     */
+    public boolean isAdmin(String login) {
+        return admins.contains(login);
+    }
+
+    public AdminReportUseCase getAdminReportUseCase() {
+        return adminReportUseCase;
+    }
+
     public TransferFundsUseCase getTransferFundsUseCase() {
         return transferFundsUseCase;
     }
 
+    public ImportTransactionsUseCase getImportTransactionsUseCase() {
+        return importTransactionsUseCase;
+    }
+
+    public ExportTransactionsUseCase getExportTransactionsUseCase() {
+        return exportTransactionsUseCase;
+    }
+
     public LoadUserDataUseCase getLoadUserDataUseCase() {
         return loadUserDataUseCase;
     }
@@ -0,0 +1,36 @@
+package org.test.moneytrack.diagnostics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Событие JFR: проверка лимита бюджета после добавления расхода
+ * (WalletDomainService.addTransaction / addTransactions).
+ */
+@Name("org.test.moneytrack.BudgetCheck")
+@Label("Проверка бюджета")
+@Category({"MoneyTrack", "Домен"})
+@Description("Подсчёт расходов по категории и сравнение с лимитом")
+@StackTrace(false)
+public class BudgetCheckEvent extends Event {
+
+    @Label("Категория")
+    public String category;
+
+    @Label("Потрачено")
+    public String spent;
+
+    @Label("Лимит")
+    public String limit;
+
+    @Label("Превышен")
+    public boolean exceeded;
+
+    @Label("Операций в пачке")
+    @Description("1 для одной операции, размер пачки при импорте")
+    public int batchSize;
+}
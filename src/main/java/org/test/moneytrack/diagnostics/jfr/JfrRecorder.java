@@ -0,0 +1,103 @@
+package org.test.moneytrack.diagnostics.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.util.List;
+
+/**
+ * Запись JDK Flight Recorder на всё время работы процесса (опция запуска --jfr[=файл]),
+ * без внешних агентов и флагов JVM.
+ *
+ * Пишутся стандартные события JDK (настройки "default": GC, блокировки, выборки стеков,
+ * файловый ввод-вывод) и события MoneyTrack: StorageLoad, StorageSave, BudgetCheck, Report.
+ * Файл записывается при close() - из shutdown hook, после сохранения данных,
+ * чтобы в запись попала и последняя запись на диск.
+ */
+public class JfrRecorder implements AutoCloseable {
+
+    static final String DEFAULT_FILE = "moneytrack.jfr";
+
+    private static final List<Class<? extends jdk.jfr.Event>> EVENTS = List.of(
+            StorageLoadEvent.class, StorageSaveEvent.class, BudgetCheckEvent.class, ReportEvent.class);
+
+    private final Recording recording;
+    private final Path file;
+
+    private JfrRecorder(Recording recording, Path file) {
+        this.recording = recording;
+        this.file = file;
+    }
+
+    /**
+     * Запускает запись, если среди аргументов есть --jfr (файл moneytrack.jfr) или --jfr=файл.
+     *
+     * @return запущенная запись или null, если опции нет или JFR недоступен
+     */
+    public static JfrRecorder fromArgs(String[] args) {
+        for (String arg : args) {
+            if (arg.equals("--jfr")) {
+                return start(Paths.get(DEFAULT_FILE));
+            }
+            if (arg.startsWith("--jfr=")) {
+                return start(Paths.get(arg.substring("--jfr=".length())));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Запускает запись в файл; при ошибке пишет причину в stderr и возвращает null -
+     * приложение работает и без записи.
+     */
+    public static JfrRecorder start(Path file) {
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Recording recording = new Recording(Configuration.getConfiguration("default"));
+            recording.setName("moneytrack");
+            recording.setToDisk(true);
+            recording.setDestination(file);
+            // На случай выхода без shutdown hook (например, System.exit из другого хука)
+            recording.setDumpOnExit(true);
+            for (Class<? extends jdk.jfr.Event> event : EVENTS) {
+                recording.enable(event).withoutStackTrace();
+            }
+            recording.start();
+            System.out.println("Запись JFR: " + file.toAbsolutePath());
+            return new JfrRecorder(recording, file);
+        } catch (IOException | ParseException | IllegalStateException | SecurityException e) {
+            System.err.println("Не удалось запустить запись JFR в " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Останавливает запись и сохраняет её в файл.
+     */
+    @Override
+    public void close() {
+        try {
+            // JFR мог уже остановить запись своим shutdown hook (dumpOnExit)
+            if (recording.getState() == RecordingState.RUNNING) {
+                recording.stop();
+            }
+        } catch (IllegalStateException e) {
+            // Остановлена параллельно - файл уже записан
+        } finally {
+            recording.close();
+        }
+    }
+}
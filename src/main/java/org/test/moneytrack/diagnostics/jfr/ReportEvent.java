@@ -0,0 +1,57 @@
+package org.test.moneytrack.diagnostics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Событие JFR: построение отчёта (show_summary, show_budget, show_expenses, show_trends,
+ * admin_report, export). Длительность включает подсчёт и запись в файл, если он указан.
+ */
+@Name("org.test.moneytrack.Report")
+@Label("Отчёт")
+@Category({"MoneyTrack", "Отчёты"})
+@Description("Построение отчёта use case'ом")
+@StackTrace(false)
+public class ReportEvent extends Event {
+
+    @Label("Отчёт")
+    public String report;
+
+    @Label("Логин")
+    @Description("Пусто для общего отчёта по всем пользователям")
+    public String login;
+
+    @Label("Транзакций в истории")
+    public int transactions;
+
+    @Label("Файл")
+    @Description("Файл, в который записан отчёт, или пусто")
+    public String outputFile;
+
+    /**
+     * Создаёт событие и отмечает начало построения отчёта.
+     */
+    public static ReportEvent start(String report) {
+        ReportEvent event = new ReportEvent();
+        event.report = report;
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Отмечает конец построения отчёта и фиксирует событие, если идёт запись JFR.
+     */
+    public void finish(String login, int transactions, String outputFile) {
+        end();
+        if (shouldCommit()) {
+            this.login = login;
+            this.transactions = transactions;
+            this.outputFile = outputFile;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package org.test.moneytrack.diagnostics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Событие JFR: чтение файла пользователя (JsonFileStorage.loadUser).
+ * Длительность события - разбор файла целиком, от открытия до последней транзакции.
+ */
+@Name("org.test.moneytrack.StorageLoad")
+@Label("Загрузка пользователя")
+@Category({"MoneyTrack", "Хранилище"})
+@Description("Чтение и разбор файла data_{login}.json")
+@StackTrace(false)
+public class StorageLoadEvent extends Event {
+
+    @Label("Логин")
+    public String login;
+
+    @Label("Размер файла")
+    @DataAmount
+    public long bytes;
+
+    @Label("Транзакций")
+    public int transactions;
+
+    @Label("Успешно")
+    public boolean success;
+}
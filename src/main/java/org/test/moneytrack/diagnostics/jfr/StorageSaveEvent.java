@@ -0,0 +1,35 @@
+package org.test.moneytrack.diagnostics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Событие JFR: запись файла пользователя (JsonFileStorage.saveUser / saveUserDurably / saveUsers).
+ * При пакетной записи событие создаётся на каждого пользователя пачки.
+ */
+@Name("org.test.moneytrack.StorageSave")
+@Label("Сохранение пользователя")
+@Category({"MoneyTrack", "Хранилище"})
+@Description("Сериализация пользователя в JSON и запись файла")
+@StackTrace(false)
+public class StorageSaveEvent extends Event {
+
+    @Label("Логин")
+    public String login;
+
+    @Label("Записано")
+    @DataAmount
+    public long bytes;
+
+    @Label("Транзакций")
+    public int transactions;
+
+    @Label("С fsync")
+    @Description("Запись через временный файл со сбросом на диск")
+    public boolean durable;
+}
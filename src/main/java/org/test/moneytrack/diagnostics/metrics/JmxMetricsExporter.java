@@ -0,0 +1,118 @@
+package org.test.moneytrack.diagnostics.metrics;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanParameterInfo;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Таймеры в JMX (jconsole, VisualVM и т.п.) под именем org.test.moneytrack:type=Metrics.
+ *
+ * Набор атрибутов строится по текущим таймерам: для каждого - {имя}.count, {имя}.meanMicros,
+ * {имя}.p50Micros, {имя}.p99Micros, {имя}.p999Micros, {имя}.maxMicros.
+ * Операция report() возвращает ту же таблицу, что и команда stats.
+ */
+public final class JmxMetricsExporter implements DynamicMBean {
+
+    public static final String OBJECT_NAME = "org.test.moneytrack:type=Metrics";
+
+    private static final String[] SUFFIXES = {"count", "meanMicros", "p50Micros", "p99Micros", "p999Micros", "maxMicros"};
+
+    /**
+     * Регистрирует MBean в платформенном MBeanServer (повторная регистрация ничего не делает).
+     */
+    public static void register() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new JmxMetricsExporter(), new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            // Уже зарегистрирован (несколько конфигураций в одном процессе)
+        } catch (JMException e) {
+            System.err.println("Не удалось зарегистрировать MBean метрик: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        int dot = attribute.lastIndexOf('.');
+        if (dot > 0) {
+            String name = attribute.substring(0, dot);
+            for (Timer timer : Metrics.timers()) {
+                if (timer.getName().equals(name)) {
+                    return value(timer.snapshot(), attribute.substring(dot + 1), attribute);
+                }
+            }
+        }
+        throw new AttributeNotFoundException(attribute);
+    }
+
+    private static Object value(LatencyHistogram.Snapshot s, String suffix, String attribute)
+            throws AttributeNotFoundException {
+        return switch (suffix) {
+            case "count" -> s.getCount();
+            case "meanMicros" -> s.getMeanNanos() / 1e3;
+            case "p50Micros" -> s.getPercentileNanos(0.50) / 1e3;
+            case "p99Micros" -> s.getPercentileNanos(0.99) / 1e3;
+            case "p999Micros" -> s.getPercentileNanos(0.999) / 1e3;
+            case "maxMicros" -> s.getMaxNanos() / 1e3;
+            default -> throw new AttributeNotFoundException(attribute);
+        };
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+        AttributeList list = new AttributeList();
+        for (String attribute : attributes) {
+            try {
+                list.add(new Attribute(attribute, getAttribute(attribute)));
+            } catch (AttributeNotFoundException e) {
+                // Неизвестные атрибуты пропускаются, как принято для getAttributes
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException("Метрики только для чтения: " + attribute.getName());
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) {
+        if ("report".equals(actionName)) {
+            return Metrics.report();
+        }
+        throw new UnsupportedOperationException(actionName);
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        List<MBeanAttributeInfo> attributes = new ArrayList<>();
+        for (Timer timer : Metrics.timers()) {
+            for (String suffix : SUFFIXES) {
+                String type = suffix.equals("count") ? long.class.getName() : double.class.getName();
+                attributes.add(new MBeanAttributeInfo(timer.getName() + "." + suffix, type,
+                        suffix, true, false, false));
+            }
+        }
+        MBeanOperationInfo report = new MBeanOperationInfo("report", "Таблица метрик",
+                new MBeanParameterInfo[0], String.class.getName(), MBeanOperationInfo.INFO);
+        return new MBeanInfo(getClass().getName(), "Метрики MoneyTrack",
+                attributes.toArray(new MBeanAttributeInfo[0]), null,
+                new MBeanOperationInfo[]{report}, null);
+    }
+}
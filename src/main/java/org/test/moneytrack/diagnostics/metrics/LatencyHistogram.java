@@ -0,0 +1,127 @@
+package org.test.moneytrack.diagnostics.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Гистограмма длительностей (в наносекундах) без блокировок.
+ *
+ * Корзины log-linear, как в HdrHistogram: значения до 32 нс - по одной корзине на наносекунду,
+ * дальше каждый интервал [2^k, 2^(k+1)) делится на 16 равных корзин. Относительная погрешность
+ * перцентилей - не больше 1/16 (~6%), а весь диапазон long умещается в 976 счётчиков.
+ *
+ * Запись - одно атомарное увеличение счётчика корзины плюс сумма и максимум,
+ * без выделения памяти. Счётчики разбиты на полосы по потокам (по числу ядер, не больше 8),
+ * чтобы параллельные записи в одну корзину не боролись за одну кэш-линию; снимок их складывает.
+ * Снимок читает счётчики без остановки записи, поэтому при
+ * одновременной записи он может не учесть последние значения - для статистики это допустимо.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // 0..31 - линейно, затем по 16 корзин на каждую степень двойки от 2^5 до 2^63
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS - 1) * SUB_BUCKETS + 2 * SUB_BUCKETS;
+
+    private static final int STRIPES =
+            Math.min(8, Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 2 - 1));
+
+    private final AtomicLongArray counts = new AtomicLongArray(STRIPES * BUCKETS);
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0L);
+
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0L);
+        counts.incrementAndGet(stripe() * BUCKETS + bucketOf(value));
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            long n = counts.get(i);
+            copy[i % BUCKETS] += n;
+            count += n;
+        }
+        return new Snapshot(copy, count, sum.sum(), max.get());
+    }
+
+    private static int stripe() {
+        long id = Thread.currentThread().getId();
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> 40) & (STRIPES - 1);
+    }
+
+    static int bucketOf(long value) {
+        if (value < 2 * SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        return shift * SUB_BUCKETS + (int) (value >>> shift);
+    }
+
+    /**
+     * Наибольшее значение, попадающее в корзину.
+     */
+    static long upperBoundOf(int bucket) {
+        if (bucket < 2 * SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long mantissa = bucket % SUB_BUCKETS + SUB_BUCKETS;
+        long next = (mantissa + 1) << shift;
+        // Последняя корзина доходит до Long.MAX_VALUE (следующая граница переполняет long)
+        return (next <= 0) ? Long.MAX_VALUE : next - 1;
+    }
+
+    /**
+     * Неизменяемый снимок гистограммы.
+     */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        Snapshot(long[] counts, long count, long sum, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getMaxNanos() {
+            return max;
+        }
+
+        public double getMeanNanos() {
+            return (count == 0) ? 0 : (double) sum / count;
+        }
+
+        /**
+         * Перцентиль (quantile от 0 до 1) в наносекундах: верхняя граница корзины,
+         * но не больше наблюдавшегося максимума.
+         */
+        public long getPercentileNanos(double quantile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(quantile * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(upperBoundOf(i), max);
+                }
+            }
+            return max;
+        }
+    }
+}
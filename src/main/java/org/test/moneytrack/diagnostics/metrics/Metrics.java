@@ -0,0 +1,77 @@
+package org.test.moneytrack.diagnostics.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Реестр таймеров процесса. Таймер берётся один раз (обычно в static final поле класса)
+ * и дальше только записывает длительности.
+ *
+ * Имена: usecase.* - сценарии приложения, storage.* - чтение и запись файлов.
+ */
+public final class Metrics {
+
+    private static final ConcurrentMap<String, Timer> TIMERS = new ConcurrentHashMap<>();
+    private static final long STARTED_NANOS = System.nanoTime();
+
+    private Metrics() {
+    }
+
+    /**
+     * Таймер с указанным именем (создаётся при первом запросе).
+     */
+    public static Timer timer(String name) {
+        return TIMERS.computeIfAbsent(name, Timer::new);
+    }
+
+    /**
+     * Все таймеры, по имени.
+     */
+    public static List<Timer> timers() {
+        List<Timer> timers = new ArrayList<>(TIMERS.values());
+        timers.sort(Comparator.comparing(Timer::getName));
+        return timers;
+    }
+
+    /**
+     * Сколько секунд прошло с запуска (для пропускной способности).
+     */
+    public static double uptimeSeconds() {
+        return (System.nanoTime() - STARTED_NANOS) / 1e9;
+    }
+
+    /**
+     * Таблица по всем таймерам, которые уже вызывались: число вызовов, вызовов в секунду
+     * (в среднем с запуска) и длительности в микросекундах.
+     */
+    public static String report() {
+        double uptime = uptimeSeconds();
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "Метрики за %.0f с:%n", uptime));
+        sb.append(String.format(Locale.ROOT, "%-28s %9s %9s %10s %10s %10s %10s %10s%n",
+                "операция", "вызовов", "в сек", "сред.мкс", "p50 мкс", "p99 мкс", "p99.9 мкс", "макс мкс"));
+        int reported = 0;
+        for (Timer timer : timers()) {
+            LatencyHistogram.Snapshot s = timer.snapshot();
+            if (s.getCount() == 0) {
+                continue;
+            }
+            reported++;
+            sb.append(String.format(Locale.ROOT, "%-28s %9d %9.2f %10.1f %10.1f %10.1f %10.1f %10.1f%n",
+                    timer.getName(), s.getCount(), s.getCount() / uptime,
+                    s.getMeanNanos() / 1e3,
+                    s.getPercentileNanos(0.50) / 1e3,
+                    s.getPercentileNanos(0.99) / 1e3,
+                    s.getPercentileNanos(0.999) / 1e3,
+                    s.getMaxNanos() / 1e3));
+        }
+        if (reported == 0) {
+            sb.append("(операций ещё не было)\n");
+        }
+        return sb.toString().trim();
+    }
+}
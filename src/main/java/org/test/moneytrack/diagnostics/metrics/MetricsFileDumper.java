@@ -0,0 +1,66 @@
+package org.test.moneytrack.diagnostics.metrics;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Периодически дописывает таблицу метрик (Metrics.report()) в файл - с отметкой времени,
+ * чтобы по файлу было видно, как менялись задержки.
+ */
+public class MetricsFileDumper implements AutoCloseable {
+
+    private final Path file;
+    private final Duration interval;
+    private final ScheduledExecutorService scheduler;
+
+    public MetricsFileDumper(Path file, Duration interval) {
+        this.file = file;
+        this.interval = interval;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "moneytrack-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void start() {
+        long millis = interval.toMillis();
+        scheduler.scheduleAtFixedRate(this::dump, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Останавливает запись и дописывает последний снимок.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        dump();
+    }
+
+    private void dump() {
+        String text = "=== " + LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS) + " ===\n"
+                + Metrics.report() + "\n\n";
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Files.writeString(file, text, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            System.err.println("Ошибка записи метрик в " + file + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package org.test.moneytrack.diagnostics.metrics;
+
+/**
+ * Счётчик вызовов и гистограмма длительности одной операции.
+ *
+ * <pre>
+ * long start = TIMER.start();
+ * try {
+ *     ...
+ * } finally {
+ *     TIMER.stop(start);
+ * }
+ * </pre>
+ */
+public final class Timer {
+
+    private final String name;
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    Timer(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Записывает длительность с момента start().
+     */
+    public void stop(long startNanos) {
+        histogram.record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Записывает уже измеренную длительность.
+     */
+    public void record(long nanos) {
+        histogram.record(nanos);
+    }
+
+    public LatencyHistogram.Snapshot snapshot() {
+        return histogram.snapshot();
+    }
+}
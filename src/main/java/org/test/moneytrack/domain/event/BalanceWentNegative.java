@@ -0,0 +1,23 @@
+package org.test.moneytrack.domain.event;
+
+import org.test.moneytrack.domain.model.Money;
+
+/**
+ * Баланс кошелька стал отрицательным (до операции был не меньше нуля).
+ */
+public final class BalanceWentNegative extends DomainEvent {
+
+    private final Money balance;
+
+    public BalanceWentNegative(String login, Money balance) {
+        super(login);
+        this.balance = balance;
+    }
+
+    /**
+     * Баланс после операции.
+     */
+    public Money getBalance() {
+        return balance;
+    }
+}
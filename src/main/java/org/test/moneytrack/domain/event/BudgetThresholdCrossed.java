@@ -0,0 +1,46 @@
+package org.test.moneytrack.domain.event;
+
+import org.test.moneytrack.domain.model.Category;
+import org.test.moneytrack.domain.model.Money;
+
+/**
+ * Расходы по категории перешли порог бюджета: до операции были не больше
+ * percent% лимита, после - больше. На каждый пройденный порог - отдельное событие.
+ */
+public final class BudgetThresholdCrossed extends DomainEvent {
+
+    private final Category category;
+    private final int percent;
+    private final Money limit;
+    private final Money spent;
+
+    public BudgetThresholdCrossed(String login, Category category, int percent, Money limit, Money spent) {
+        super(login);
+        this.category = category;
+        this.percent = percent;
+        this.limit = limit;
+        this.spent = spent;
+    }
+
+    public Category getCategory() {
+        return category;
+    }
+
+    /**
+     * Порог в процентах от лимита (например, 80, 100, 120).
+     */
+    public int getPercent() {
+        return percent;
+    }
+
+    public Money getLimit() {
+        return limit;
+    }
+
+    /**
+     * Потрачено по категории после операции.
+     */
+    public Money getSpent() {
+        return spent;
+    }
+}
@@ -0,0 +1,31 @@
+package org.test.moneytrack.domain.event;
+
+import java.time.Instant;
+
+/**
+ * Доменное событие: что-то уже произошло с кошельком пользователя.
+ *
+ * События неизменяемы и публикуются через DomainEventPublisher под блокировкой пользователя;
+ * подписчики получают их позже, в другом потоке, и не должны менять доменные объекты.
+ */
+public abstract class DomainEvent {
+
+    private final String login;
+    private final Instant occurredAt;
+
+    protected DomainEvent(String login) {
+        this.login = login;
+        this.occurredAt = Instant.now();
+    }
+
+    /**
+     * Пользователь, с кошельком которого произошло событие.
+     */
+    public String getLogin() {
+        return login;
+    }
+
+    public Instant getOccurredAt() {
+        return occurredAt;
+    }
+}
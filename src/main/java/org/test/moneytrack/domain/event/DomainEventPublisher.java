@@ -0,0 +1,17 @@
+package org.test.moneytrack.domain.event;
+
+/**
+ * Публикация доменных событий. Домен только сообщает о событии и не ждёт его обработки:
+ * реализация должна возвращаться сразу (поставить событие в очередь или отбросить его).
+ */
+@FunctionalInterface
+public interface DomainEventPublisher {
+
+    /**
+     * Публикатор, который ничего не делает (события никому не нужны).
+     */
+    DomainEventPublisher NONE = event -> {
+    };
+
+    void publish(DomainEvent event);
+}
@@ -0,0 +1,26 @@
+package org.test.moneytrack.domain.event;
+
+import org.test.moneytrack.domain.model.Transaction;
+
+import java.util.List;
+
+/**
+ * В кошелёк добавлены операции: одна (add_income, add_expense, перевод)
+ * или пачка при импорте - тогда одно событие на всю пачку.
+ */
+public final class TransactionAdded extends DomainEvent {
+
+    private final List<Transaction> transactions;
+
+    public TransactionAdded(String login, List<Transaction> transactions) {
+        super(login);
+        this.transactions = transactions;
+    }
+
+    /**
+     * Добавленные операции в порядке добавления (список не копируется и не должен меняться).
+     */
+    public List<Transaction> getTransactions() {
+        return transactions;
+    }
+}
@@ -0,0 +1,30 @@
+package org.test.moneytrack.domain.event;
+
+import org.test.moneytrack.domain.model.Money;
+
+/**
+ * Перевод выполнен: обе операции добавлены в кошельки. Логин события - отправитель.
+ */
+public final class TransferCompleted extends DomainEvent {
+
+    private final String toLogin;
+    private final Money amount;
+
+    public TransferCompleted(String fromLogin, String toLogin, Money amount) {
+        super(fromLogin);
+        this.toLogin = toLogin;
+        this.amount = amount;
+    }
+
+    public String getFromLogin() {
+        return getLogin();
+    }
+
+    public String getToLogin() {
+        return toLogin;
+    }
+
+    public Money getAmount() {
+        return amount;
+    }
+}
@@ -1,6 +1,5 @@
 package org.test.moneytrack.domain.model;
 
-import java.math.BigDecimal;
 import java.util.Objects;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
@@ -12,12 +11,12 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 public class Budget {
 
     private final Category category;
-    private final BigDecimal limitAmount;
+    private final Money limitAmount;
 
 
     @JsonCreator
     public Budget(@JsonProperty("category") Category category,
-                  @JsonProperty("limitAmount") BigDecimal limitAmount) {
+                  @JsonProperty("limitAmount") Money limitAmount) {
         this.category = category;
         this.limitAmount = limitAmount;
     }
@@ -26,7 +25,7 @@ public class Budget {
         return category;
     }
 
-    public BigDecimal getLimitAmount() {
+    public Money getLimitAmount() {
         return limitAmount;
     }
 
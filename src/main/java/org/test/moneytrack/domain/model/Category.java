@@ -1,38 +1,58 @@
 package org.test.moneytrack.domain.model;
 
-import java.util.Objects;
-
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 /**
  * Domain entity representing a financial Category (e.g. "Food", "Entertainment").
+ *
+ * Экземпляры выдаются только через {@link #of(String)} и канонические:
+ * одному названию соответствует один объект с плотным числовым id (см. CategoryRegistry).
  */
 public final class Category {
 
     private final String name;
+    private final int id;
+    private final int hash;
 
-    @JsonCreator
-    public Category(@JsonProperty("name") String name) {
+    Category(String name, int id) {
         this.name = name;
+        this.id = id;
+        this.hash = (name != null) ? name.hashCode() : 0;
+    }
+
+    /**
+     * Возвращает канонический экземпляр категории с указанным названием.
+     */
+    @JsonCreator
+    public static Category of(@JsonProperty("name") String name) {
+        return CategoryRegistry.getInstance().intern(name);
     }
 
     public String getName() {
         return name;
     }
 
+    /**
+     * Плотный номер категории в пределах процесса (0, 1, 2, ...),
+     * пригоден как индекс массива.
+     */
+    @JsonIgnore
+    public int getId() {
+        return id;
+    }
+
     // equals and hashCode are important for using Category as a key in Maps
     @Override
     public boolean equals(Object o) {
-        if (this == o) return true;
-        if (!(o instanceof Category)) return false;
-        Category category = (Category) o;
-        return Objects.equals(name, category.name);
+        // Экземпляры канонические, поэтому достаточно сравнения ссылок
+        return this == o;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(name);
+        return hash;
     }
 
     @Override
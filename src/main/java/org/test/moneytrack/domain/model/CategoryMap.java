@@ -0,0 +1,238 @@
+package org.test.moneytrack.domain.model;
+
+import java.util.*;
+
+/**
+ * Карта Category -> значение с открытой адресацией по Category.getId():
+ * ключ - само число id, без вызова hashCode/equals и без объектов-узлов.
+ * Память зависит только от числа ключей в этой карте, а не от того,
+ * сколько категорий зарегистрировано в процессе (id растут у всех пользователей общими).
+ * Перебор идёт в порядке добавления ключей; ключ null (транзакции без категории) допускается.
+ */
+public class CategoryMap<V> extends AbstractMap<Category, V> {
+
+    private static final int NULL_SLOT = -1;
+    private static final int INITIAL_CAPACITY = 8;
+    // Пустая ячейка; в keys хранится id + 1
+    private static final int EMPTY = 0;
+
+    // Размер таблицы - степень двойки, заполнение не больше половины
+    private int[] keys = new int[INITIAL_CAPACITY];
+    private Object[] values = new Object[INITIAL_CAPACITY];
+    private V nullValue;
+    private boolean hasNull;
+    // Порядок добавления: id категорий, NULL_SLOT - ключ null
+    private int[] order = new int[INITIAL_CAPACITY];
+    private int size;
+
+    public CategoryMap() {
+    }
+
+    public CategoryMap(Map<Category, ? extends V> source) {
+        source.forEach(this::put);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null || (key == null && hasNull);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        if (key == null) {
+            return nullValue;
+        }
+        if (!(key instanceof Category)) {
+            return null;
+        }
+        int index = indexOf(((Category) key).getId());
+        return (index < 0) ? null : (V) values[index];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V put(Category key, V value) {
+        Objects.requireNonNull(value, "CategoryMap не хранит null-значения");
+        if (key == null) {
+            V previous = nullValue;
+            nullValue = value;
+            if (!hasNull) {
+                hasNull = true;
+                appendOrder(NULL_SLOT);
+            }
+            return previous;
+        }
+        int id = key.getId();
+        int index = indexOf(id);
+        if (index >= 0) {
+            V previous = (V) values[index];
+            values[index] = value;
+            return previous;
+        }
+        if ((size + 1) * 2 > keys.length) {
+            resize(keys.length * 2);
+        }
+        insert(id, value);
+        appendOrder(id);
+        return null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(Object key) {
+        V previous = get(key);
+        if (previous == null && !(key == null && hasNull)) {
+            return null;
+        }
+        int slot;
+        if (key == null) {
+            nullValue = null;
+            hasNull = false;
+            slot = NULL_SLOT;
+        } else {
+            slot = ((Category) key).getId();
+            delete(indexOf(slot));
+        }
+        for (int i = 0; i < size; i++) {
+            if (order[i] == slot) {
+                System.arraycopy(order, i + 1, order, i, size - i - 1);
+                break;
+            }
+        }
+        size--;
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        Arrays.fill(values, null);
+        nullValue = null;
+        hasNull = false;
+        size = 0;
+    }
+
+    @Override
+    public Set<Entry<Category, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public Iterator<Entry<Category, V>> iterator() {
+                return new Iterator<>() {
+                    private int next;
+                    private int current = -1;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < size;
+                    }
+
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public Entry<Category, V> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        current = next++;
+                        int slot = order[current];
+                        if (slot == NULL_SLOT) {
+                            return new SimpleEntry<>(null, nullValue);
+                        }
+                        return new SimpleEntry<>(CategoryRegistry.getInstance().byId(slot), (V) values[indexOf(slot)]);
+                    }
+
+                    @Override
+                    public void remove() {
+                        if (current < 0) {
+                            throw new IllegalStateException();
+                        }
+                        int slot = order[current];
+                        CategoryMap.this.remove(slot == NULL_SLOT ? null : CategoryRegistry.getInstance().byId(slot));
+                        next = current;
+                        current = -1;
+                    }
+                };
+            }
+        };
+    }
+
+    // ---------------- Открытая адресация ----------------
+
+    private int home(int id) {
+        int h = id * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & (keys.length - 1);
+    }
+
+    /**
+     * Ячейка таблицы с ключом id или -1.
+     */
+    private int indexOf(int id) {
+        int mask = keys.length - 1;
+        for (int i = home(id); keys[i] != EMPTY; i = (i + 1) & mask) {
+            if (keys[i] == id + 1) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void insert(int id, Object value) {
+        int mask = keys.length - 1;
+        int i = home(id);
+        while (keys[i] != EMPTY) {
+            i = (i + 1) & mask;
+        }
+        keys[i] = id + 1;
+        values[i] = value;
+    }
+
+    /**
+     * Освобождает ячейку и сдвигает назад следующие за ней ключи той же цепочки,
+     * чтобы поиск не обрывался на образовавшейся дыре (без "надгробий").
+     */
+    private void delete(int index) {
+        int mask = keys.length - 1;
+        int hole = index;
+        for (int i = (hole + 1) & mask; keys[i] != EMPTY; i = (i + 1) & mask) {
+            int home = home(keys[i] - 1);
+            // Ключ можно перенести в дыру, если его исходная ячейка не лежит между дырой и им
+            boolean movable = (hole <= i) ? (home <= hole || home > i) : (home <= hole && home > i);
+            if (movable) {
+                keys[hole] = keys[i];
+                values[hole] = values[i];
+                hole = i;
+            }
+        }
+        keys[hole] = EMPTY;
+        values[hole] = null;
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new int[capacity];
+        values = new Object[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                insert(oldKeys[i] - 1, oldValues[i]);
+            }
+        }
+    }
+
+    private void appendOrder(int slot) {
+        if (size == order.length) {
+            order = Arrays.copyOf(order, size * 2);
+        }
+        order[size++] = slot;
+    }
+}
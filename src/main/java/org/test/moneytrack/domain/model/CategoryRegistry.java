@@ -0,0 +1,78 @@
+package org.test.moneytrack.domain.model;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Общий для процесса словарь категорий.
+ * Выдаёт канонические экземпляры Category и присваивает им плотные id,
+ * по которым CategoryMap ищет значения без hashCode/equals.
+ */
+public final class CategoryRegistry {
+
+    private static final CategoryRegistry INSTANCE = new CategoryRegistry();
+
+    private final ConcurrentHashMap<String, Category> byName = new ConcurrentHashMap<>();
+    private volatile Category[] byId = new Category[64];
+    private volatile Category unnamed;
+    private int size;
+
+    private CategoryRegistry() {
+    }
+
+    public static CategoryRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Канонический экземпляр для названия (создаётся при первом обращении).
+     */
+    public Category intern(String name) {
+        Category category = (name != null) ? byName.get(name) : unnamed;
+        return (category != null) ? category : register(name);
+    }
+
+    /**
+     * Уже выданный экземпляр для названия или null, если такой категории ещё не было.
+     * В отличие от intern, словарь не пополняет - для фильтров и запросов, которые
+     * ничего не сохраняют (иначе произвольные названия из запросов оставались бы в нём навсегда).
+     */
+    public Category find(String name) {
+        return (name != null) ? byName.get(name) : unnamed;
+    }
+
+    /**
+     * Категория по id или null, если такого id нет.
+     */
+    public Category byId(int id) {
+        Category[] categories = byId;
+        return (id >= 0 && id < categories.length) ? categories[id] : null;
+    }
+
+    /**
+     * Количество выданных id (все id меньше этого числа).
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    private synchronized Category register(String name) {
+        Category existing = (name != null) ? byName.get(name) : unnamed;
+        if (existing != null) {
+            return existing;
+        }
+        Category category = new Category(name, size);
+        Category[] categories = byId;
+        if (size == categories.length) {
+            categories = Arrays.copyOf(categories, size * 2);
+        }
+        categories[size++] = category;
+        byId = categories;
+        if (name != null) {
+            byName.put(name, category);
+        } else {
+            unnamed = category;
+        }
+        return category;
+    }
+}
@@ -0,0 +1,105 @@
+package org.test.moneytrack.domain.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Период отчёта по датам: с from по to включительно. Любая из границ может отсутствовать (null).
+ */
+public final class DateRange {
+
+    /**
+     * Вся история, без ограничений.
+     */
+    public static final DateRange ALL = new DateRange(null, null);
+
+    private final LocalDate from;
+    private final LocalDate to;
+
+    private DateRange(LocalDate from, LocalDate to) {
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * @param from первый день периода (null - с начала истории)
+     * @param to   последний день периода включительно (null - до конца истории)
+     * @throws IllegalArgumentException если from позже to
+     */
+    public static DateRange of(LocalDate from, LocalDate to) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("Начало периода позже его конца: " + from + " > " + to);
+        }
+        return (from == null && to == null) ? ALL : new DateRange(from, to);
+    }
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public boolean isAll() {
+        return from == null && to == null;
+    }
+
+    /**
+     * Начало периода (включительно) или null.
+     */
+    public LocalDateTime start() {
+        return (from == null) ? null : from.atStartOfDay();
+    }
+
+    /**
+     * Момент сразу после конца периода (не включительно) или null.
+     */
+    public LocalDateTime endExclusive() {
+        return (to == null) ? null : to.plusDays(1).atStartOfDay();
+    }
+
+    public boolean contains(LocalDateTime dateTime) {
+        if (dateTime == null) {
+            return from == null;
+        }
+        return (from == null || !dateTime.isBefore(start()))
+                && (to == null || dateTime.isBefore(endExclusive()));
+    }
+
+    /**
+     * Подпись для отчётов: "с 2024-01-01 по 2024-01-31", "с 2024-01-01", "по 2024-01-31" или "за всё время".
+     */
+    public String describe() {
+        if (isAll()) {
+            return "за всё время";
+        }
+        StringBuilder sb = new StringBuilder();
+        if (from != null) {
+            sb.append("с ").append(from);
+        }
+        if (to != null) {
+            sb.append(sb.length() > 0 ? " " : "").append("по ").append(to);
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof DateRange)) return false;
+        DateRange that = (DateRange) o;
+        return Objects.equals(from, that.from) && Objects.equals(to, that.to);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(from, to);
+    }
+
+    @Override
+    public String toString() {
+        return describe();
+    }
+}
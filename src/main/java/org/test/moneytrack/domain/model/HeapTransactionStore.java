@@ -0,0 +1,82 @@
+package org.test.moneytrack.domain.model;
+
+import java.util.*;
+
+/**
+ * Хранилище истории транзакций в обычном списке в куче (вариант по умолчанию).
+ */
+public class HeapTransactionStore implements TransactionStore {
+
+    private final List<Transaction> transactions;
+    private final BitSet deleted = new BitSet();
+    private int deletedCount;
+
+    public HeapTransactionStore() {
+        this.transactions = new ArrayList<>();
+    }
+
+    public HeapTransactionStore(List<Transaction> transactions) {
+        this.transactions = transactions;
+    }
+
+    @Override
+    public void add(Transaction transaction) {
+        transactions.add(transaction);
+    }
+
+    @Override
+    public void addAll(List<Transaction> batch) {
+        transactions.addAll(batch);
+    }
+
+    @Override
+    public int size() {
+        return transactions.size();
+    }
+
+    @Override
+    public Transaction get(int index) {
+        return transactions.get(index);
+    }
+
+    @Override
+    public void markDeleted(int index) {
+        Objects.checkIndex(index, transactions.size());
+        if (!deleted.get(index)) {
+            deleted.set(index);
+            deletedCount++;
+        }
+    }
+
+    @Override
+    public boolean isDeleted(int index) {
+        return deleted.get(index);
+    }
+
+    @Override
+    public int deletedCount() {
+        return deletedCount;
+    }
+
+    @Override
+    public Map<Category, MoneyAccumulator> sumsByCategory(TransactionType type) {
+        CategoryMap<MoneyAccumulator> sums = new CategoryMap<>();
+        for (int i = 0; i < transactions.size(); i++) {
+            Transaction t = transactions.get(i);
+            if (t.getType() == type && t.getAmount() != null && !deleted.get(i)) {
+                MoneyAccumulator sum = sums.get(t.getCategory());
+                if (sum == null) {
+                    sum = new MoneyAccumulator();
+                    sums.put(t.getCategory(), sum);
+                }
+                sum.add(t.getAmount());
+            }
+        }
+        return sums;
+    }
+
+    @Override
+    public List<Transaction> asList() {
+        return Collections.unmodifiableList(transactions);
+    }
+}
@@ -0,0 +1,196 @@
+package org.test.moneytrack.domain.model;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+/**
+ * Денежная сумма с фиксированной точкой: количество минимальных единиц (long) и scale,
+ * то есть значение = units * 10^-scale (как BigDecimal.valueOf(units, scale)).
+ *
+ * Арифметика выполняется на long с точной проверкой переполнения; если результат
+ * не помещается в long, сумма переходит в представление через BigDecimal.
+ * Семантика сложения и вычитания (включая scale результата) совпадает с BigDecimal.
+ * В JSON записывается обычным числом, как раньше записывался BigDecimal.
+ */
+public final class Money implements Comparable<Money> {
+
+    public static final Money ZERO = new Money(0L, 0, null);
+
+    static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L,
+            1_000_000_000L, 10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L,
+            10_000_000_000_000L, 100_000_000_000_000L, 1_000_000_000_000_000L,
+            10_000_000_000_000_000L, 100_000_000_000_000_000L, 1_000_000_000_000_000_000L
+    };
+
+    private final long units;
+    private final int scale;
+    // Не null только если значение не помещается в long
+    private final BigDecimal big;
+
+    private Money(long units, int scale, BigDecimal big) {
+        this.units = units;
+        this.scale = scale;
+        this.big = big;
+    }
+
+    /**
+     * Сумма из количества минимальных единиц и scale (например, 12050 и 2 -> 120.50).
+     */
+    public static Money ofUnits(long units, int scale) {
+        return (units == 0 && scale == 0) ? ZERO : new Money(units, scale, null);
+    }
+
+    @JsonCreator
+    public static Money of(BigDecimal value) {
+        if (value == null) {
+            return null;
+        }
+        BigInteger unscaled = value.unscaledValue();
+        if (unscaled.bitLength() < 64) {
+            return ofUnits(unscaled.longValue(), value.scale());
+        }
+        return new Money(0L, value.scale(), value);
+    }
+
+    public static Money of(String value) {
+        return of(new BigDecimal(value));
+    }
+
+    /**
+     * true, если значение хранится в long (без BigDecimal).
+     */
+    public boolean isCompact() {
+        return big == null;
+    }
+
+    /**
+     * Количество минимальных единиц; имеет смысл только при isCompact().
+     */
+    public long getUnits() {
+        return units;
+    }
+
+    public int getScale() {
+        return scale;
+    }
+
+    @JsonValue
+    public BigDecimal toBigDecimal() {
+        return (big != null) ? big : BigDecimal.valueOf(units, scale);
+    }
+
+    public Money add(Money other) {
+        if (big == null && other.big == null) {
+            try {
+                if (scale == other.scale) {
+                    return ofUnits(Math.addExact(units, other.units), scale);
+                }
+                if (scale > other.scale) {
+                    return ofUnits(Math.addExact(units, rescale(other.units, scale - other.scale)), scale);
+                }
+                return ofUnits(Math.addExact(rescale(units, other.scale - scale), other.units), other.scale);
+            } catch (ArithmeticException overflow) {
+                // Переполнение long - считаем через BigDecimal
+            }
+        }
+        return of(toBigDecimal().add(other.toBigDecimal()));
+    }
+
+    public Money subtract(Money other) {
+        return add(other.negate());
+    }
+
+    public Money negate() {
+        if (big == null && units != Long.MIN_VALUE) {
+            return ofUnits(-units, scale);
+        }
+        return of(toBigDecimal().negate());
+    }
+
+    /**
+     * Та же сумма с меньшим scale (70.00 -> 70 при targetScale = 0), если это возможно без потери точности;
+     * иначе (или если scale и так не больше targetScale) - эта же сумма.
+     */
+    Money reduceScale(int targetScale) {
+        if (targetScale < 0 || scale <= targetScale) {
+            return this;
+        }
+        int diff = scale - targetScale;
+        if (big == null && diff < POWERS_OF_TEN.length) {
+            long divisor = POWERS_OF_TEN[diff];
+            return (units % divisor == 0) ? ofUnits(units / divisor, targetScale) : this;
+        }
+        try {
+            return of(toBigDecimal().setScale(targetScale));
+        } catch (ArithmeticException inexact) {
+            return this;
+        }
+    }
+
+    public int signum() {
+        return (big != null) ? big.signum() : Long.signum(units);
+    }
+
+    public boolean isNegative() {
+        return signum() < 0;
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        if (big == null && other.big == null) {
+            if (scale == other.scale) {
+                return Long.compare(units, other.units);
+            }
+            try {
+                if (scale > other.scale) {
+                    return Long.compare(units, rescale(other.units, scale - other.scale));
+                }
+                return Long.compare(rescale(units, other.scale - scale), other.units);
+            } catch (ArithmeticException overflow) {
+                // Сравним через BigDecimal
+            }
+        }
+        return toBigDecimal().compareTo(other.toBigDecimal());
+    }
+
+    /**
+     * Умножает количество единиц на 10^diff с проверкой переполнения.
+     */
+    static long rescale(long units, int diff) {
+        if (diff >= POWERS_OF_TEN.length) {
+            if (units == 0) {
+                return 0;
+            }
+            throw new ArithmeticException("scale overflow");
+        }
+        return Math.multiplyExact(units, POWERS_OF_TEN[diff]);
+    }
+
+    /**
+     * Равенство как у BigDecimal: учитывается и значение, и scale (1.0 != 1.00).
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Money)) return false;
+        Money money = (Money) o;
+        if (big == null && money.big == null) {
+            return units == money.units && scale == money.scale;
+        }
+        return toBigDecimal().equals(money.toBigDecimal());
+    }
+
+    @Override
+    public int hashCode() {
+        return (big != null) ? big.hashCode() : 31 * Long.hashCode(units) + scale;
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toString();
+    }
+}
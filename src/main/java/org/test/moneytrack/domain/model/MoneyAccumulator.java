@@ -0,0 +1,195 @@
+package org.test.moneytrack.domain.model;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Изменяемый сумматор денежных сумм для горячих путей агрегации.
+ * Пока сумма помещается в long, сложение не создаёт объектов;
+ * при переполнении сумматор переходит на BigDecimal.
+ *
+ * Scale суммы, как у BigDecimal, - наибольший scale слагаемых. Чтобы remove() возвращал
+ * его к тому, что дал бы пересчёт оставшихся слагаемых (70 + 5.25 - 5.25 = 70, а не 70.00),
+ * сумматор считает, сколько слагаемых каждого scale в нём сейчас.
+ */
+public final class MoneyAccumulator {
+
+    // Слагаемые с большим (или отрицательным) scale не считаются - тогда remove() scale не уменьшает
+    private static final int MAX_COUNTED_SCALE = Money.POWERS_OF_TEN.length - 1;
+
+    private long units;
+    private int scale;
+    private BigDecimal big;
+    // scaleCounts[s] - сколько слагаемых со scale s; растёт по мере надобности
+    private int[] scaleCounts;
+    private boolean uncounted;
+    // Сколько слагаемых сейчас в сумме (добавленных минус исключённые через remove)
+    private int terms;
+
+    public void add(Money amount) {
+        if (amount.isCompact()) {
+            add(amount.getUnits(), amount.getScale());
+        } else {
+            big = current().add(amount.toBigDecimal());
+            count(amount.getScale(), 1);
+            terms++;
+        }
+    }
+
+    public void subtract(Money amount) {
+        add(amount.negate());
+    }
+
+    /**
+     * Прибавляет units * 10^-amountScale.
+     */
+    public void add(long amountUnits, int amountScale) {
+        addValue(amountUnits, amountScale);
+        count(amountScale, 1);
+        terms++;
+    }
+
+    /**
+     * Исключает слагаемое, добавленное раньше через add(amount): вычитает его и, если других
+     * слагаемых с таким же наибольшим scale не осталось, уменьшает scale суммы.
+     */
+    public void remove(Money amount) {
+        Money negated = amount.negate();
+        if (negated.isCompact()) {
+            addValue(negated.getUnits(), negated.getScale());
+        } else {
+            big = current().add(negated.toBigDecimal());
+        }
+        count(amount.getScale(), -1);
+        terms--;
+        restoreScale();
+    }
+
+    /**
+     * Прибавляет готовую сумму, слагаемые которой неизвестны (например, сохранённую сумму корзины).
+     * После этого remove() scale не уменьшает: неизвестно, какие слагаемые его дали.
+     */
+    public void addPrecomputed(Money sum) {
+        add(sum);
+        uncounted = true;
+    }
+
+    /**
+     * Прибавляет другой сумматор вместе со счётом его слагаемых.
+     */
+    public void add(MoneyAccumulator other) {
+        if (other.big == null) {
+            addValue(other.units, other.scale);
+        } else {
+            big = current().add(other.big);
+        }
+        uncounted |= other.uncounted;
+        terms += other.terms;
+        if (other.scaleCounts != null) {
+            for (int s = 0; s < other.scaleCounts.length; s++) {
+                if (other.scaleCounts[s] != 0) {
+                    count(s, other.scaleCounts[s]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Сколько слагаемых сейчас в сумме: 0 значит, что все добавленные слагаемые исключены,
+     * а не просто что сумма равна нулю.
+     */
+    public int terms() {
+        return terms;
+    }
+
+    public int signum() {
+        return (big != null) ? big.signum() : Long.signum(units);
+    }
+
+    /**
+     * Scale текущей суммы.
+     */
+    public int scale() {
+        return (big != null) ? big.scale() : scale;
+    }
+
+    public Money toMoney() {
+        return (big != null) ? Money.of(big) : Money.ofUnits(units, scale);
+    }
+
+    /**
+     * Переводит карту сумматоров по категориям в карту итоговых сумм.
+     */
+    public static Map<Category, Money> toMoney(Map<Category, MoneyAccumulator> sums) {
+        CategoryMap<Money> result = new CategoryMap<>();
+        sums.forEach((category, sum) -> result.put(category, sum.toMoney()));
+        return result;
+    }
+
+    private void addValue(long amountUnits, int amountScale) {
+        if (big == null) {
+            try {
+                if (amountScale == scale) {
+                    units = Math.addExact(units, amountUnits);
+                } else if (amountScale < scale) {
+                    units = Math.addExact(units, Money.rescale(amountUnits, scale - amountScale));
+                } else {
+                    units = Math.addExact(Money.rescale(units, amountScale - scale), amountUnits);
+                    scale = amountScale;
+                }
+                return;
+            } catch (ArithmeticException overflow) {
+                // Не помещается в long - дальше считаем через BigDecimal
+            }
+        }
+        big = current().add(BigDecimal.valueOf(amountUnits, amountScale));
+    }
+
+    private void count(int amountScale, int delta) {
+        if (amountScale < 0 || amountScale > MAX_COUNTED_SCALE) {
+            uncounted = true;
+            return;
+        }
+        if (scaleCounts == null) {
+            scaleCounts = new int[amountScale + 1];
+        } else if (scaleCounts.length <= amountScale) {
+            scaleCounts = Arrays.copyOf(scaleCounts, amountScale + 1);
+        }
+        scaleCounts[amountScale] += delta;
+    }
+
+    /**
+     * Уменьшает scale до наибольшего scale оставшихся слагаемых (0, если их нет).
+     */
+    private void restoreScale() {
+        if (uncounted || scaleCounts == null) {
+            return;
+        }
+        int target = scaleCounts.length - 1;
+        while (target > 0 && scaleCounts[target] <= 0) {
+            target--;
+        }
+        int current = scale();
+        if (target >= current) {
+            return;
+        }
+        if (big == null) {
+            long divisor = Money.POWERS_OF_TEN[current - target];
+            if (units % divisor == 0) {
+                units /= divisor;
+                scale = target;
+            }
+        } else {
+            try {
+                big = big.setScale(target);
+            } catch (ArithmeticException inexact) {
+                // Сумма не делится нацело - значит, счёт слагаемых не соответствует ей; scale не трогаем
+            }
+        }
+    }
+
+    private BigDecimal current() {
+        return (big != null) ? big : BigDecimal.valueOf(units, scale);
+    }
+}
@@ -1,6 +1,5 @@
 package org.test.moneytrack.domain.model;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Objects;
 import java.util.UUID;
@@ -16,7 +15,7 @@ public class Transaction {
     private final UUID transactionId;
     private final TransactionType type;
     private final Category category; // can be null or a "dummy category" for incomes if desired
-    private final BigDecimal amount;
+    private final Money amount;
     private final LocalDateTime dateTime;
     private final String description;
 
@@ -25,7 +24,7 @@ public class Transaction {
     public Transaction(@JsonProperty("transactionId") UUID transactionId,
                        @JsonProperty("type") TransactionType type,
                        @JsonProperty("category") Category category,
-                       @JsonProperty("amount") BigDecimal amount,
+                       @JsonProperty("amount") Money amount,
                        @JsonProperty("dateTime") LocalDateTime dateTime,
                        @JsonProperty("description") String description) {
         this.transactionId = (transactionId != null) ? transactionId : UUID.randomUUID();
@@ -38,7 +37,7 @@ public class Transaction {
 
     public Transaction(TransactionType type,
                        Category category,
-                       BigDecimal amount,
+                       Money amount,
                        LocalDateTime dateTime,
                        String description) {
         this.transactionId = UUID.randomUUID();
@@ -61,7 +60,7 @@ public class Transaction {
         return category;
     }
 
-    public BigDecimal getAmount() {
+    public Money getAmount() {
         return amount;
     }
 
@@ -0,0 +1,126 @@
+package org.test.moneytrack.domain.model;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Индекс истории кошелька по идентификатору транзакции: id -> номер в TransactionStore.
+ *
+ * Хеш-таблица с открытой адресацией и линейным пробированием поверх примитивных массивов:
+ * ключ - две половины UUID, значение - номер транзакции. Поиск - O(1) без создания объектов,
+ * что важно для истории в миллионы операций (в том числе отображённой в память).
+ *
+ * Удалённые транзакции остаются в индексе (номера в хранилище не сдвигаются),
+ * проверка на удаление делается по хранилищу.
+ */
+final class TransactionIdIndex {
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int EMPTY = -1;
+
+    private long[] highs;
+    private long[] lows;
+    private int[] positions;
+    private int size;
+
+    TransactionIdIndex() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Строит индекс по уже заполненному хранилищу.
+     */
+    TransactionIdIndex(TransactionStore store) {
+        int count = store.size();
+        allocate(capacityFor(count));
+        for (int i = 0; i < count; i++) {
+            put(store.idAt(i), i);
+        }
+    }
+
+    /**
+     * Запоминает номер транзакции (position) для её идентификатора.
+     * Повторный id перезаписывает номер.
+     */
+    void put(UUID transactionId, int position) {
+        if (transactionId == null) {
+            return;
+        }
+        if (2 * (size + 1) > positions.length) {
+            resize(positions.length * 2);
+        }
+        insert(transactionId.getMostSignificantBits(), transactionId.getLeastSignificantBits(), position);
+    }
+
+    /**
+     * Номер транзакции с указанным идентификатором или -1, если её нет в индексе.
+     */
+    int get(UUID transactionId) {
+        long high = transactionId.getMostSignificantBits();
+        long low = transactionId.getLeastSignificantBits();
+        int mask = positions.length - 1;
+        for (int slot = hash(high, low) & mask; positions[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (highs[slot] == high && lows[slot] == low) {
+                return positions[slot];
+            }
+        }
+        return EMPTY;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void insert(long high, long low, int position) {
+        int mask = positions.length - 1;
+        int slot = hash(high, low) & mask;
+        while (positions[slot] != EMPTY) {
+            if (highs[slot] == high && lows[slot] == low) {
+                positions[slot] = position;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        highs[slot] = high;
+        lows[slot] = low;
+        positions[slot] = position;
+        size++;
+    }
+
+    private void resize(int capacity) {
+        long[] oldHighs = highs;
+        long[] oldLows = lows;
+        int[] oldPositions = positions;
+        allocate(capacity);
+        for (int i = 0; i < oldPositions.length; i++) {
+            if (oldPositions[i] != EMPTY) {
+                insert(oldHighs[i], oldLows[i], oldPositions[i]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        highs = new long[capacity];
+        lows = new long[capacity];
+        positions = new int[capacity];
+        Arrays.fill(positions, EMPTY);
+        size = 0;
+    }
+
+    /**
+     * Степень двойки, при которой таблица заполнена не более чем наполовину.
+     */
+    private static int capacityFor(int count) {
+        int capacity = INITIAL_CAPACITY;
+        while (capacity < 2 * count) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static int hash(long high, long low) {
+        // Случайные UUID и так хорошо перемешаны, но id из файлов могут быть любыми
+        long h = (high ^ low) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,333 @@
+package org.test.moneytrack.domain.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Предварительно агрегированные суммы кошелька по дням и по месяцам
+ * в разрезе (тип операции, категория).
+ *
+ * Обновляются при каждом добавлении и удалении транзакции и сохраняются вместе с кошельком,
+ * поэтому сумма за любой период складывается из нескольких корзин: целые месяцы
+ * берутся из месячных, неполные месяцы на краях периода - из дневных.
+ * Операции без даты лежат в отдельной корзине и учитываются только в периодах без начала.
+ */
+public class TransactionRollups {
+
+    private final NavigableMap<LocalDate, Bucket> daily = new TreeMap<>();
+    private final NavigableMap<YearMonth, Bucket> monthly = new TreeMap<>();
+    private Bucket undated;
+    // Сколько транзакций учтено: по нему при загрузке проверяется, что сохранённые суммы
+    // соответствуют истории кошелька
+    private int transactionCount;
+
+    public TransactionRollups() {
+    }
+
+    /**
+     * Пересчитывает суммы по всей истории (когда сохранённых нет или они устарели).
+     */
+    public static TransactionRollups rebuild(TransactionStore transactions) {
+        TransactionRollups rollups = new TransactionRollups();
+        for (int i = 0; i < transactions.size(); i++) {
+            if (!transactions.isDeleted(i)) {
+                rollups.add(transactions.get(i));
+            }
+        }
+        return rollups;
+    }
+
+    /**
+     * Восстановление из сохранённого вида (строки дневных и месячных корзин).
+     */
+    @JsonCreator
+    public static TransactionRollups restore(@JsonProperty("transactionCount") int transactionCount,
+                                             @JsonProperty("monthly") List<Row> monthlyRows,
+                                             @JsonProperty("daily") List<Row> dailyRows) {
+        TransactionRollups rollups = new TransactionRollups();
+        rollups.transactionCount = transactionCount;
+        if (monthlyRows != null) {
+            for (Row row : monthlyRows) {
+                rollups.monthly.computeIfAbsent(YearMonth.parse(row.getPeriod()), k -> new Bucket()).add(row);
+            }
+        }
+        if (dailyRows != null) {
+            for (Row row : dailyRows) {
+                Bucket bucket;
+                if (row.getPeriod() == null) {
+                    if (rollups.undated == null) {
+                        rollups.undated = new Bucket();
+                    }
+                    bucket = rollups.undated;
+                } else {
+                    bucket = rollups.daily.computeIfAbsent(LocalDate.parse(row.getPeriod()), k -> new Bucket());
+                }
+                bucket.add(row);
+            }
+        }
+        return rollups;
+    }
+
+    /**
+     * Учитывает транзакцию в дневной и месячной корзине её даты.
+     */
+    public void add(Transaction transaction) {
+        transactionCount++;
+        apply(transaction, false);
+    }
+
+    /**
+     * Исключает удалённую транзакцию из корзин её даты (вычитание из двух сумм, без пересчёта).
+     */
+    public void remove(Transaction transaction) {
+        transactionCount--;
+        apply(transaction, true);
+    }
+
+    private void apply(Transaction transaction, boolean remove) {
+        Money amount = transaction.getAmount();
+        if (transaction.getType() == null || amount == null) {
+            return;
+        }
+        if (transaction.getDateTime() == null) {
+            if (undated == null) {
+                undated = new Bucket();
+            }
+            undated.apply(transaction.getType(), transaction.getCategory(), amount, remove);
+            return;
+        }
+        LocalDate date = transaction.getDateTime().toLocalDate();
+        daily.computeIfAbsent(date, k -> new Bucket())
+                .apply(transaction.getType(), transaction.getCategory(), amount, remove);
+        monthly.computeIfAbsent(YearMonth.from(date), k -> new Bucket())
+                .apply(transaction.getType(), transaction.getCategory(), amount, remove);
+    }
+
+    @JsonProperty("transactionCount")
+    public int getTransactionCount() {
+        return transactionCount;
+    }
+
+    /**
+     * Суммы транзакций заданного типа по категориям за период (даты включительно, null - без границы).
+     * Ключ null соответствует транзакциям без категории.
+     */
+    public Map<Category, Money> totalsByCategory(TransactionType type, LocalDate from, LocalDate to) {
+        CategoryMap<MoneyAccumulator> sums = new CategoryMap<>();
+        collect(from, to, bucket -> bucket.addTo(type, sums));
+        return MoneyAccumulator.toMoney(sums);
+    }
+
+    /**
+     * Сумма транзакций заданного типа за период (даты включительно, null - без границы).
+     */
+    public Money total(TransactionType type, LocalDate from, LocalDate to) {
+        MoneyAccumulator total = new MoneyAccumulator();
+        collect(from, to, bucket -> bucket.addTotalTo(type, total));
+        return total.toMoney();
+    }
+
+    /**
+     * Суммы транзакций заданного типа по месяцам периода (только месяцы с ненулевой суммой).
+     * Неполные месяцы на краях периода считаются по дневным корзинам.
+     */
+    public SortedMap<YearMonth, Money> monthlyTotals(TransactionType type, LocalDate from, LocalDate to) {
+        SortedMap<YearMonth, Money> result = new TreeMap<>();
+        YearMonth first = (from == null) ? null : YearMonth.from(from);
+        YearMonth last = (to == null) ? null : YearMonth.from(to);
+        for (YearMonth month : monthly.keySet()) {
+            if ((first != null && month.isBefore(first)) || (last != null && month.isAfter(last))) {
+                continue;
+            }
+            LocalDate start = (from != null && month.equals(first)) ? from : month.atDay(1);
+            LocalDate end = (to != null && month.equals(last)) ? to : month.atEndOfMonth();
+            Money total = total(type, start, end);
+            if (total.signum() != 0) {
+                result.put(month, total);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Передаёт в action минимальный набор корзин, покрывающий период [from, to].
+     */
+    private void collect(LocalDate from, LocalDate to, Consumer<Bucket> action) {
+        if (from == null && undated != null) {
+            action.accept(undated);
+        }
+        if (daily.isEmpty()) {
+            return;
+        }
+        LocalDate start = (from == null) ? daily.firstKey() : from;
+        LocalDate end = (to == null) ? daily.lastKey() : to;
+        if (start.isAfter(end)) {
+            return;
+        }
+        YearMonth firstFull = (start.getDayOfMonth() == 1) ? YearMonth.from(start) : YearMonth.from(start).plusMonths(1);
+        YearMonth lastFull = end.equals(YearMonth.from(end).atEndOfMonth())
+                ? YearMonth.from(end)
+                : YearMonth.from(end).minusMonths(1);
+        if (firstFull.isAfter(lastFull)) {
+            daily.subMap(start, true, end, true).values().forEach(action);
+            return;
+        }
+        daily.subMap(start, true, firstFull.atDay(1), false).values().forEach(action);
+        monthly.subMap(firstFull, true, lastFull, true).values().forEach(action);
+        daily.subMap(lastFull.atEndOfMonth(), false, end, true).values().forEach(action);
+    }
+
+    // ---------------- Сохранение ----------------
+
+    @JsonProperty("monthly")
+    public List<Row> monthlyRows() {
+        List<Row> rows = new ArrayList<>();
+        monthly.forEach((month, bucket) -> bucket.toRows(month.toString(), rows));
+        return rows;
+    }
+
+    @JsonProperty("daily")
+    public List<Row> dailyRows() {
+        List<Row> rows = new ArrayList<>();
+        if (undated != null) {
+            undated.toRows(null, rows);
+        }
+        daily.forEach((date, bucket) -> bucket.toRows(date.toString(), rows));
+        return rows;
+    }
+
+    /**
+     * Строка сохранённого вида: сумма по (период, тип, категория).
+     * period - YYYY-MM для месячных корзин, YYYY-MM-DD для дневных, null - операции без даты.
+     */
+    public static final class Row {
+        private final String period;
+        private final TransactionType type;
+        private final String category;
+        private final Money amount;
+
+        @JsonCreator
+        public Row(@JsonProperty("period") String period,
+                   @JsonProperty("type") TransactionType type,
+                   @JsonProperty("category") String category,
+                   @JsonProperty("amount") Money amount) {
+            this.period = period;
+            this.type = type;
+            this.category = category;
+            this.amount = amount;
+        }
+
+        public String getPeriod() {
+            return period;
+        }
+
+        public TransactionType getType() {
+            return type;
+        }
+
+        public String getCategory() {
+            return category;
+        }
+
+        public Money getAmount() {
+            return amount;
+        }
+    }
+
+    /**
+     * Корзина: суммы по категориям для каждого типа операции.
+     *
+     * Корзин тысячи (по одной на день и месяц), а категорий в каждой обычно несколько,
+     * поэтому карты категорий создаются с маленькой начальной ёмкостью.
+     */
+    private static final class Bucket {
+        private static final int INITIAL_CAPACITY = 4;
+
+        private final Map<TransactionType, Map<Category, MoneyAccumulator>> sums = new EnumMap<>(TransactionType.class);
+
+        /**
+         * Прибавляет сумму транзакции (или исключает её при remove).
+         */
+        void apply(TransactionType type, Category category, Money amount, boolean remove) {
+            MoneyAccumulator sum = sumFor(type, category);
+            if (remove) {
+                sum.remove(amount);
+            } else {
+                sum.add(amount);
+            }
+            dropIfZero(type, category, sum);
+        }
+
+        /**
+         * Сохранённая строка - уже сумма многих транзакций, поэтому прибавляется как готовая.
+         */
+        void add(Row row) {
+            if (row.getType() != null && row.getAmount() != null) {
+                Category category = (row.getCategory() == null) ? null : Category.of(row.getCategory());
+                MoneyAccumulator sum = sumFor(row.getType(), category);
+                sum.addPrecomputed(row.getAmount());
+                dropIfZero(row.getType(), category, sum);
+            }
+        }
+
+        private MoneyAccumulator sumFor(TransactionType type, Category category) {
+            Map<Category, MoneyAccumulator> byCategory = sums.computeIfAbsent(type, k -> new HashMap<>(INITIAL_CAPACITY));
+            MoneyAccumulator sum = byCategory.get(category);
+            if (sum == null) {
+                sum = new MoneyAccumulator();
+                byCategory.put(category, sum);
+            }
+            return sum;
+        }
+
+        private void dropIfZero(TransactionType type, Category category, MoneyAccumulator sum) {
+            if (sum.signum() == 0) {
+                // Все операции категории в корзине удалены - в отчётах её быть не должно
+                sums.get(type).remove(category);
+            }
+        }
+
+        void addTo(TransactionType type, Map<Category, MoneyAccumulator> target) {
+            Map<Category, MoneyAccumulator> byCategory = sums.get(type);
+            if (byCategory == null) {
+                return;
+            }
+            byCategory.forEach((category, sum) -> {
+                MoneyAccumulator total = target.get(category);
+                if (total == null) {
+                    total = new MoneyAccumulator();
+                    target.put(category, total);
+                }
+                total.add(sum.toMoney());
+            });
+        }
+
+        void addTotalTo(TransactionType type, MoneyAccumulator target) {
+            Map<Category, MoneyAccumulator> byCategory = sums.get(type);
+            if (byCategory != null) {
+                byCategory.values().forEach(sum -> target.add(sum.toMoney()));
+            }
+        }
+
+        /**
+         * Строки корзины в стабильном порядке (тип, затем название категории),
+         * чтобы один и тот же кошелёк всегда сохранялся одинаково.
+         */
+        void toRows(String period, List<Row> rows) {
+            Comparator<Category> byName = Comparator.nullsFirst(Comparator.comparing(Category::getName));
+            sums.forEach((type, byCategory) -> {
+                List<Category> categories = new ArrayList<>(byCategory.keySet());
+                categories.sort(byName);
+                for (Category category : categories) {
+                    rows.add(new Row(period, type, (category == null) ? null : category.getName(),
+                            byCategory.get(category).toMoney()));
+                }
+            });
+        }
+    }
+}
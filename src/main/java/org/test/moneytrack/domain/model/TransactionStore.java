@@ -0,0 +1,115 @@
+package org.test.moneytrack.domain.model;
+
+import java.io.Closeable;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Хранилище истории транзакций кошелька.
+ * Кошелёк работает с историей только через этот интерфейс, поэтому она может жить
+ * как в обычном списке в куче, так и во внешнем (например, отображённом в память) хранилище.
+ */
+public interface TransactionStore {
+
+    /**
+     * Дописывает транзакцию в конец истории.
+     */
+    void add(Transaction transaction);
+
+    /**
+     * Дописывает пачку транзакций в конец истории (в том же порядке).
+     */
+    default void addAll(List<Transaction> batch) {
+        for (Transaction transaction : batch) {
+            add(transaction);
+        }
+    }
+
+    /**
+     * Количество транзакций в истории.
+     */
+    int size();
+
+    /**
+     * Транзакция по порядковому номеру.
+     */
+    Transaction get(int index);
+
+    /**
+     * Время транзакции по порядковому номеру - ключ timeKey(dateTime).
+     * Используется для построения индекса по времени;
+     * внешнее хранилище может отдавать его без создания Transaction.
+     */
+    default long timestampAt(int index) {
+        return TransactionTimeIndex.toKey(get(index).getDateTime());
+    }
+
+    /**
+     * Ключ времени для индекса: наносекунды от эпохи (UTC), Long.MIN_VALUE - время не задано.
+     * Даты вне точного диапазона (примерно 1677-2262 годы) дают крайние ключи
+     * Long.MIN_VALUE + 1 и Long.MAX_VALUE, по которым дату уже не восстановить.
+     */
+    static long timeKey(LocalDateTime dateTime) {
+        return TransactionTimeIndex.toKey(dateTime);
+    }
+
+    /**
+     * Попадает ли дата в точный диапазон ключей времени.
+     */
+    static boolean isExactTime(LocalDateTime dateTime) {
+        return TransactionTimeIndex.isExact(dateTime);
+    }
+
+    /**
+     * Идентификатор транзакции по порядковому номеру. Используется для построения индекса по id;
+     * внешнее хранилище может отдавать его без создания Transaction.
+     */
+    default UUID idAt(int index) {
+        return get(index).getTransactionId();
+    }
+
+    /**
+     * Помечает транзакцию удалённой. Запись остаётся на своём месте,
+     * чтобы номера остальных транзакций (и индексы по ним) не сдвигались.
+     */
+    void markDeleted(int index);
+
+    /**
+     * true, если транзакция помечена удалённой.
+     */
+    boolean isDeleted(int index);
+
+    /**
+     * Количество помеченных удалёнными транзакций.
+     */
+    int deletedCount();
+
+    /**
+     * Полный проход по истории: суммы транзакций заданного типа по категориям
+     * (ключ null - транзакции без категории). Удалённые транзакции не учитываются.
+     */
+    default Map<Category, Money> totalsByCategory(TransactionType type) {
+        return MoneyAccumulator.toMoney(sumsByCategory(type));
+    }
+
+    /**
+     * То же, что totalsByCategory, но сумматорами: они помнят scale слагаемых,
+     * и из них можно потом исключать транзакции (MoneyAccumulator.remove).
+     */
+    Map<Category, MoneyAccumulator> sumsByCategory(TransactionType type);
+
+    /**
+     * Неизменяемое представление истории в виде списка (по порядковым номерам, включая удалённые).
+     */
+    List<Transaction> asList();
+
+    /**
+     * Внешние ресурсы истории (открытые файлы, отображения), которые нужно освободить,
+     * когда кошелёк больше не используется; null - хранилище целиком в куче.
+     */
+    default Closeable resources() {
+        return null;
+    }
+}
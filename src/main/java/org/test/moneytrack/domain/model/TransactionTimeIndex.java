@@ -0,0 +1,245 @@
+package org.test.moneytrack.domain.model;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Индекс истории кошелька по времени операции: номера транзакций в хранилище,
+ * упорядоченные по dateTime (при равном времени - в порядке добавления).
+ *
+ * Хранится в двух параллельных примитивных массивах (время в наносекундах от эпохи UTC
+ * и номер в TransactionStore), поэтому запрос за период - это два бинарных поиска
+ * и проход только по попавшему в период отрезку.
+ *
+ * Наносекунды от эпохи помещаются в long только примерно для 1677-2262 годов. Более ранние
+ * и поздние даты получают крайние ключи (MIN_KEY, MAX_KEY): такие операции стоят в начале или
+ * в конце индекса, между собой - в порядке добавления, а границы периода за пределами
+ * диапазона просто захватывают их все. Импорт такие даты не принимает.
+ *
+ * Операции почти всегда добавляются в хронологическом порядке и просто дописываются в конец;
+ * более ранняя операция вставляется сдвигом, пачка (импорт) сортируется и сливается с индексом.
+ */
+final class TransactionTimeIndex {
+
+    // Операции без даты: идут в начале индекса и попадают только в запросы без нижней границы
+    static final long NO_TIME = Long.MIN_VALUE;
+
+    // Ключи дат раньше и позже точного диапазона
+    static final long MIN_KEY = Long.MIN_VALUE + 1;
+    static final long MAX_KEY = Long.MAX_VALUE;
+
+    // Секунды от эпохи, для которых seconds * 10^9 + nano ещё помещается в long
+    private static final long MIN_EXACT_SECONDS = Long.MIN_VALUE / 1_000_000_000L + 1;
+    private static final long MAX_EXACT_SECONDS = Long.MAX_VALUE / 1_000_000_000L - 1;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private long[] times;
+    private int[] positions;
+    private int size;
+
+    TransactionTimeIndex() {
+        this.times = new long[INITIAL_CAPACITY];
+        this.positions = new int[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Строит индекс по уже заполненному хранилищу.
+     */
+    TransactionTimeIndex(TransactionStore store) {
+        int count = store.size();
+        this.times = new long[Math.max(count, INITIAL_CAPACITY)];
+        this.positions = new int[times.length];
+        for (int i = 0; i < count; i++) {
+            times[i] = store.timestampAt(i);
+            positions[i] = i;
+        }
+        this.size = count;
+        if (!isSorted(0, count)) {
+            sort(0, count);
+        }
+    }
+
+    /**
+     * Время операции в наносекундах от эпохи (UTC) - ключ индекса.
+     * Для дат вне точного диапазона - MIN_KEY или MAX_KEY (не переполняется).
+     */
+    static long toKey(LocalDateTime dateTime) {
+        if (dateTime == null) {
+            return NO_TIME;
+        }
+        long seconds = dateTime.toEpochSecond(ZoneOffset.UTC);
+        if (seconds < MIN_EXACT_SECONDS) {
+            return MIN_KEY;
+        }
+        if (seconds > MAX_EXACT_SECONDS) {
+            return MAX_KEY;
+        }
+        return seconds * 1_000_000_000L + dateTime.getNano();
+    }
+
+    /**
+     * Помещается ли дата в ключ точно (не насыщается до MIN_KEY/MAX_KEY).
+     */
+    static boolean isExact(LocalDateTime dateTime) {
+        long seconds = dateTime.toEpochSecond(ZoneOffset.UTC);
+        return seconds >= MIN_EXACT_SECONDS && seconds <= MAX_EXACT_SECONDS;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Добавляет одну транзакцию (position - её номер в хранилище).
+     */
+    void add(long time, int position) {
+        ensureCapacity(size + 1);
+        int at = (size == 0 || times[size - 1] <= time) ? size : upperBound(time);
+        if (at < size) {
+            System.arraycopy(times, at, times, at + 1, size - at);
+            System.arraycopy(positions, at, positions, at + 1, size - at);
+        }
+        times[at] = time;
+        positions[at] = position;
+        size++;
+    }
+
+    /**
+     * Добавляет пачку транзакций, записанных в хранилище подряд начиная с firstPosition.
+     */
+    void addAll(long[] batchTimes, int firstPosition) {
+        int start = size;
+        ensureCapacity(size + batchTimes.length);
+        for (int i = 0; i < batchTimes.length; i++) {
+            times[start + i] = batchTimes[i];
+            positions[start + i] = firstPosition + i;
+        }
+        size += batchTimes.length;
+        if (!isSorted(start, size)) {
+            sort(start, size);
+        }
+        if (start > 0 && start < size && times[start - 1] > times[start]) {
+            merge(0, start, size);
+        }
+    }
+
+    /**
+     * Обходит номера транзакций с временем в [from, to) в хронологическом порядке.
+     *
+     * @param from начало периода включительно (null - без нижней границы)
+     * @param to   конец периода не включительно (null - без верхней границы)
+     */
+    void forEachInRange(LocalDateTime from, LocalDateTime to, IntConsumer action) {
+        int begin = (from == null) ? 0 : lowerBound(toKey(from));
+        int end = (to == null) ? size : lowerBound(toKey(to));
+        for (int i = begin; i < end; i++) {
+            action.accept(positions[i]);
+        }
+    }
+
+    /**
+     * Количество транзакций с временем в [from, to).
+     */
+    int countInRange(LocalDateTime from, LocalDateTime to) {
+        int begin = (from == null) ? 0 : lowerBound(toKey(from));
+        int end = (to == null) ? size : lowerBound(toKey(to));
+        return Math.max(0, end - begin);
+    }
+
+    // ---------------- Бинарный поиск ----------------
+
+    /**
+     * Первая позиция в индексе со временем >= time.
+     */
+    private int lowerBound(long time) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (times[mid] < time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Первая позиция в индексе со временем > time.
+     */
+    private int upperBound(long time) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (times[mid] <= time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // ---------------- Сортировка параллельных массивов ----------------
+
+    private boolean isSorted(int from, int to) {
+        for (int i = from + 1; i < to; i++) {
+            if (times[i - 1] > times[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Устойчивая сортировка слиянием отрезка [from, to) по времени
+     * (операции с одинаковым временем остаются в порядке добавления).
+     */
+    private void sort(int from, int to) {
+        for (int width = 1; width < to - from; width *= 2) {
+            for (int low = from; low < to - width; low += 2 * width) {
+                merge(low, low + width, Math.min(low + 2 * width, to));
+            }
+        }
+    }
+
+    /**
+     * Сливает упорядоченные отрезки [low, mid) и [mid, high).
+     */
+    private void merge(int low, int mid, int high) {
+        if (times[mid - 1] <= times[mid]) {
+            return;
+        }
+        long[] leftTimes = Arrays.copyOfRange(times, low, mid);
+        int[] leftPositions = Arrays.copyOfRange(positions, low, mid);
+        int left = 0;
+        int right = mid;
+        int out = low;
+        while (left < leftTimes.length && right < high) {
+            if (times[right] < leftTimes[left]) {
+                times[out] = times[right];
+                positions[out++] = positions[right++];
+            } else {
+                times[out] = leftTimes[left];
+                positions[out++] = leftPositions[left++];
+            }
+        }
+        while (left < leftTimes.length) {
+            times[out] = leftTimes[left];
+            positions[out++] = leftPositions[left++];
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > times.length) {
+            int newCapacity = Math.max(capacity, times.length + (times.length >> 1));
+            times = Arrays.copyOf(times, newCapacity);
+            positions = Arrays.copyOf(positions, newCapacity);
+        }
+    }
+}
@@ -1,9 +1,14 @@
 package org.test.moneytrack.domain.model;
 
-import java.math.BigDecimal;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Consumer;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 /**
@@ -11,37 +16,232 @@ import com.fasterxml.jackson.annotation.JsonProperty;
  */
 public class Wallet {
 
-    private BigDecimal balance;
-    private final List<Transaction> transactions;
-    private final Map<Category, Budget> budgets;
+    private Money balance;
+    // Scale баланса без учёта транзакций (начального или загруженного): ниже него
+    // баланс после удаления транзакции не опускается
+    private int baseScale;
+    private final TransactionStore transactions;
+    private final CategoryMap<Budget> budgets;
 
+    // Накопительные суммы по (тип, категория) и по типу целиком.
+    // Обновляются в addTransaction, чтобы отчёты не пересчитывали всю историю.
+    // Карты по категориям хранятся в массивах, индексируемых по Category.getId()
+    // Сумматоры изменяемые: добавление транзакции не создаёт новых объектов-сумм
+    private final Map<TransactionType, CategoryMap<MoneyAccumulator>> totalsByCategory = new EnumMap<>(TransactionType.class);
+    private final Map<TransactionType, MoneyAccumulator> totals = new EnumMap<>(TransactionType.class);
+
+    // Номера транзакций, упорядоченные по времени: запросы за период не проходят всю историю
+    private final TransactionTimeIndex timeIndex;
+
+    // Суммы по дням и месяцам для отчётов за период; сохраняются вместе с кошельком
+    private final TransactionRollups rollups;
+
+    // Номер транзакции в хранилище по её идентификатору: поиск и удаление по id за O(1)
+    private final TransactionIdIndex idIndex;
+
+    // Удаления с момента загрузки кошелька (в порядке удаления), ещё не записанные в файл, - для журнала
+    // изменений. Первые discardedDeletions удалений уже записаны и отброшены (discardDeletedBefore)
+    private final List<Transaction> deletedTransactions = new ArrayList<>();
+    private int discardedDeletions;
+
+    public Wallet(Money balance, List<Transaction> transactions, Map<Category, Budget> budgets) {
+        this(balance, transactions, budgets, null);
+    }
+
+    /**
+     * @param rollups сохранённые суммы по дням и месяцам; если их нет или они не соответствуют
+     *                истории (другое число транзакций), они пересчитываются
+     */
     @JsonCreator
-    public Wallet(@JsonProperty("balance") BigDecimal balance,
+    public Wallet(@JsonProperty("balance") Money balance,
                   @JsonProperty("transactions") List<Transaction> transactions,
-                  @JsonProperty("budgets") Map<Category, Budget> budgets) {
-        this.balance = (balance != null) ? balance : BigDecimal.ZERO;
-        this.transactions = (transactions != null) ? transactions : new ArrayList<>();
-        this.budgets = (budgets != null) ? budgets : new HashMap<>();
+                  @JsonProperty("budgets") Map<Category, Budget> budgets,
+                  @JsonProperty("rollups") TransactionRollups rollups) {
+        this(balance, new HeapTransactionStore((transactions != null) ? transactions : new ArrayList<>()),
+                budgets, rollups);
+    }
+
+    /**
+     * Кошелёк поверх уже заполненного хранилища истории (например, отображённого в память).
+     */
+    public Wallet(Money balance, TransactionStore transactions, Map<Category, Budget> budgets) {
+        this(balance, transactions, budgets, null);
+    }
+
+    public Wallet(Money balance, TransactionStore transactions, Map<Category, Budget> budgets,
+                  TransactionRollups rollups) {
+        this.balance = (balance != null) ? balance : Money.ZERO;
+        this.transactions = transactions;
+        this.budgets = (budgets != null) ? new CategoryMap<>(budgets) : new CategoryMap<>();
+        // После загрузки один раз пересчитываем агрегаты и индекс по истории
+        this.timeIndex = new TransactionTimeIndex(transactions);
+        this.idIndex = new TransactionIdIndex(transactions);
+        this.rollups = (rollups != null
+                && rollups.getTransactionCount() == transactions.size() - transactions.deletedCount())
+                ? rollups
+                : TransactionRollups.rebuild(transactions);
+        rebuildAggregates();
+        this.baseScale = baseScaleOf(this.balance);
     }
 
     public Wallet() {
-        this.balance = BigDecimal.ZERO;
-        this.transactions = new ArrayList<>();
-        this.budgets = new HashMap<>();
+        this.balance = Money.ZERO;
+        this.transactions = new HeapTransactionStore();
+        this.budgets = new CategoryMap<>();
+        this.timeIndex = new TransactionTimeIndex();
+        this.idIndex = new TransactionIdIndex();
+        this.rollups = new TransactionRollups();
     }
 
-    public Wallet(BigDecimal initialBalance) {
+    public Wallet(Money initialBalance) {
         this.balance = initialBalance;
-        this.transactions = new ArrayList<>();
-        this.budgets = new HashMap<>();
+        this.baseScale = (initialBalance != null) ? initialBalance.getScale() : 0;
+        this.transactions = new HeapTransactionStore();
+        this.budgets = new CategoryMap<>();
+        this.timeIndex = new TransactionTimeIndex();
+        this.idIndex = new TransactionIdIndex();
+        this.rollups = new TransactionRollups();
     }
 
-    public BigDecimal getBalance() {
+    public Money getBalance() {
         return balance;
     }
 
+    /**
+     * Внешние ресурсы истории (см. TransactionStore.resources()); null - их нет.
+     * Их можно освободить и без самого кошелька, когда он станет недостижим.
+     */
+    @JsonIgnore
+    public Closeable getResources() {
+        return transactions.resources();
+    }
+
+    /**
+     * Освобождает внешние ресурсы истории. После этого кошелёк не используется.
+     */
+    public void close() {
+        Closeable resources = transactions.resources();
+        if (resources == null) {
+            return;
+        }
+        try {
+            resources.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ошибка освобождения истории транзакций: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * История без удалённых транзакций - представление хранилища без копирования
+     * (после удалений обход пропускает удалённые записи).
+     */
     public List<Transaction> getTransactions() {
-        return Collections.unmodifiableList(transactions);
+        if (transactions.deletedCount() == 0) {
+            return transactions.asList();
+        }
+        return new LiveTransactions(transactions);
+    }
+
+    /**
+     * Ищет транзакцию по идентификатору (по индексу id, O(1)).
+     */
+    public Optional<Transaction> findTransaction(UUID transactionId) {
+        int index = idIndex.get(transactionId);
+        return (index < 0 || transactions.isDeleted(index))
+                ? Optional.empty()
+                : Optional.of(transactions.get(index));
+    }
+
+    /**
+     * Добавлялась ли в кошелёк транзакция с таким идентификатором (в том числе удалённая потом).
+     */
+    public boolean containsTransaction(UUID transactionId) {
+        return idIndex.get(transactionId) >= 0;
+    }
+
+    /**
+     * Удаляет транзакцию по идентификатору. Баланс, накопительные суммы и суммы по дням и месяцам
+     * корректируются вычитанием её суммы (O(1)), без пересчёта истории. В хранилище запись
+     * только помечается удалённой, поэтому номера остальных транзакций не меняются.
+     *
+     * @return удалённая транзакция или пустое значение, если такой нет
+     */
+    public Optional<Transaction> deleteTransaction(UUID transactionId) {
+        int index = idIndex.get(transactionId);
+        if (index < 0 || transactions.isDeleted(index)) {
+            return Optional.empty();
+        }
+        Transaction transaction = transactions.get(index);
+        transactions.markDeleted(index);
+        deletedTransactions.add(transaction);
+        rollups.remove(transaction);
+        if (transaction.getAmount() != null) {
+            accumulate(transaction, true);
+            if (transaction.getType() == TransactionType.INCOME) {
+                balance = balance.subtract(transaction.getAmount());
+            } else if (transaction.getType() == TransactionType.EXPENSE) {
+                balance = balance.add(transaction.getAmount());
+            }
+            // Как при пересчёте: scale баланса - наибольший из scale оставшихся слагаемых
+            balance = balance.reduceScale(Math.max(baseScale,
+                    Math.max(totalScale(TransactionType.INCOME), totalScale(TransactionType.EXPENSE))));
+        }
+        return Optional.of(transaction);
+    }
+
+    /**
+     * Сколько транзакций было добавлено в хранилище, включая удалённые.
+     * Номера только растут, поэтому по нему можно найти транзакции, добавленные после некоторого момента.
+     */
+    @JsonIgnore
+    public int getAppendedCount() {
+        return transactions.size();
+    }
+
+    /**
+     * Транзакция по номеру добавления (в том числе удалённая).
+     */
+    public Transaction getAppended(int position) {
+        return transactions.get(position);
+    }
+
+    /**
+     * Сколько транзакций удалено с момента загрузки кошелька (включая уже отброшенные удаления).
+     */
+    @JsonIgnore
+    public int getDeletedCount() {
+        return discardedDeletions + deletedTransactions.size();
+    }
+
+    /**
+     * Удалённая транзакция по номеру удаления, от 0 - в порядке удаления.
+     * Доступны номера, ещё не отброшенные discardDeletedBefore.
+     */
+    public Transaction getDeleted(int number) {
+        if (number < discardedDeletions) {
+            throw new IndexOutOfBoundsException("Удаление " + number + " уже отброшено");
+        }
+        return deletedTransactions.get(number - discardedDeletions);
+    }
+
+    /**
+     * Отбрасывает удаления с номерами меньше count: они уже записаны в файл
+     * и для журнала изменений больше не нужны.
+     */
+    public void discardDeletedBefore(int count) {
+        int drop = Math.min(count - discardedDeletions, deletedTransactions.size());
+        if (drop > 0) {
+            deletedTransactions.subList(0, drop).clear();
+            discardedDeletions += drop;
+        }
+    }
+
+    /**
+     * Полный проход по истории: суммы по категориям для заданного типа,
+     * без использования накопительных агрегатов.
+     */
+    public Map<Category, Money> scanTotalsByCategory(TransactionType type) {
+        return transactions.totalsByCategory(type);
     }
 
     public Map<Category, Budget> getBudgets() {
@@ -49,13 +249,25 @@ public class Wallet {
         return Collections.unmodifiableMap(budgets);
     }
 
+    /**
+     * Бюджет по категории или null, если он не установлен.
+     */
+    public Budget getBudget(Category category) {
+        return budgets.get(category);
+    }
+
     /**
      * Add a transaction to this wallet.
      * This method does not contain domain logic yet (e.g. validations).
      * That can be handled by a domain service or inside a specialized method.
      */
     public void addTransaction(Transaction transaction) {
+        long time = TransactionTimeIndex.toKey(transaction.getDateTime());
         transactions.add(transaction);
+        timeIndex.add(time, transactions.size() - 1);
+        idIndex.put(transaction.getTransactionId(), transactions.size() - 1);
+        rollups.add(transaction);
+        accumulate(transaction, false);
 
         if (transaction.getType() == TransactionType.INCOME) {
             balance = balance.add(transaction.getAmount());
@@ -64,16 +276,192 @@ public class Wallet {
         }
     }
 
+    /**
+     * Добавляет пачку транзакций (например, при импорте): история дописывается одним вызовом,
+     * агрегаты обновляются по каждой транзакции, а баланс меняется один раз на сумму пачки.
+     */
+    public void addTransactions(List<Transaction> batch) {
+        // Ключи времени считаются до изменения истории: всё, что может не получиться, - до первой записи
+        long[] batchTimes = new long[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            batchTimes[i] = TransactionTimeIndex.toKey(batch.get(i).getDateTime());
+        }
+        int firstPosition = transactions.size();
+        transactions.addAll(batch);
+        MoneyAccumulator delta = new MoneyAccumulator();
+        for (int i = 0; i < batch.size(); i++) {
+            Transaction transaction = batch.get(i);
+            idIndex.put(transaction.getTransactionId(), firstPosition + i);
+            rollups.add(transaction);
+            accumulate(transaction, false);
+            if (transaction.getType() == TransactionType.INCOME) {
+                delta.add(transaction.getAmount());
+            } else if (transaction.getType() == TransactionType.EXPENSE) {
+                delta.subtract(transaction.getAmount());
+            }
+        }
+        balance = balance.add(delta.toMoney());
+        timeIndex.addAll(batchTimes, firstPosition);
+    }
+
     /**
      * Add or update a budget for a category.
      */
-    public void setBudget(Category category, BigDecimal limitAmount) {
+    public void setBudget(Category category, Money limitAmount) {
         Budget budget = new Budget(category, limitAmount);
         budgets.put(category, budget);
     }
 
-    public void setBalance(BigDecimal balance) {
+    public void setBalance(Money balance) {
         this.balance = balance;
+        this.baseScale = baseScaleOf(balance);
+    }
+
+    /**
+     * Сумма транзакций заданного типа по категории (из накопительных агрегатов, O(1)).
+     */
+    public Money getTotalByCategory(Category category, TransactionType type) {
+        CategoryMap<MoneyAccumulator> byCategory = totalsByCategory.get(type);
+        MoneyAccumulator total = (byCategory != null) ? byCategory.get(category) : null;
+        return (total != null) ? total.toMoney() : Money.ZERO;
+    }
+
+    /**
+     * Сумма всех транзакций заданного типа (из накопительных агрегатов, O(1)).
+     */
+    public Money getTotal(TransactionType type) {
+        MoneyAccumulator total = totals.get(type);
+        return (total != null) ? total.toMoney() : Money.ZERO;
+    }
+
+    /**
+     * Суммы транзакций заданного типа в разрезе категорий.
+     * Ключ null соответствует транзакциям без категории.
+     */
+    public Map<Category, Money> getTotalsByCategory(TransactionType type) {
+        CategoryMap<MoneyAccumulator> byCategory = totalsByCategory.get(type);
+        return (byCategory != null) ? MoneyAccumulator.toMoney(byCategory) : Collections.emptyMap();
+    }
+
+    /**
+     * Транзакции за период [from, to) в хронологическом порядке (по индексу времени), без удалённых.
+     *
+     * @param from начало периода включительно (null - с начала истории)
+     * @param to   конец периода не включительно (null - до конца истории)
+     */
+    public List<Transaction> getTransactionsBetween(LocalDateTime from, LocalDateTime to) {
+        List<Transaction> result = new ArrayList<>(timeIndex.countInRange(from, to));
+        forEachTransactionBetween(from, to, result::add);
+        return result;
+    }
+
+    /**
+     * То же, что getTransactionsBetween, но без списка: транзакции по одной передаются в action
+     * (для выгрузки истории любой длины без копирования в память).
+     */
+    public void forEachTransactionBetween(LocalDateTime from, LocalDateTime to, Consumer<Transaction> action) {
+        timeIndex.forEachInRange(from, to, position -> {
+            if (!transactions.isDeleted(position)) {
+                action.accept(transactions.get(position));
+            }
+        });
+    }
+
+    /**
+     * Суммы по дням и месяцам (для отчётов за период и помесячной динамики).
+     */
+    public TransactionRollups getRollups() {
+        return rollups;
+    }
+
+    /**
+     * Проверяет накопительные агрегаты полным проходом по истории транзакций.
+     *
+     * @return пустой список, если агрегаты согласованы, иначе описания расхождений
+     */
+    public List<String> verifyAggregates() {
+        List<String> mismatches = new ArrayList<>();
+        for (TransactionType type : TransactionType.values()) {
+            Map<Category, Money> expectedMap = transactions.totalsByCategory(type);
+            Money expected = expectedMap.values().stream().reduce(Money.ZERO, Money::add);
+            if (expected.compareTo(getTotal(type)) != 0) {
+                mismatches.add(type + ": ожидалось " + expected + ", в агрегате " + getTotal(type));
+            }
+            Set<Category> categories = new HashSet<>(getTotalsByCategory(type).keySet());
+            categories.addAll(expectedMap.keySet());
+            for (Category category : categories) {
+                Money expectedSum = expectedMap.getOrDefault(category, Money.ZERO);
+                Money actualSum = getTotalByCategory(category, type);
+                if (expectedSum.compareTo(actualSum) != 0) {
+                    mismatches.add(type + "/" + category + ": ожидалось " + expectedSum + ", в агрегате " + actualSum);
+                }
+            }
+        }
+        return mismatches;
+    }
+
+    private void rebuildAggregates() {
+        totalsByCategory.clear();
+        totals.clear();
+        // Считаем средствами хранилища: внешнее хранилище может делать это без создания Transaction
+        for (TransactionType type : TransactionType.values()) {
+            Map<Category, MoneyAccumulator> byCategory = transactions.sumsByCategory(type);
+            if (!byCategory.isEmpty()) {
+                CategoryMap<MoneyAccumulator> sums = new CategoryMap<>(byCategory);
+                MoneyAccumulator total = new MoneyAccumulator();
+                byCategory.values().forEach(total::add);
+                totalsByCategory.put(type, sums);
+                totals.put(type, total);
+            }
+        }
+    }
+
+    /**
+     * Scale загруженного баланса без вклада транзакций: баланс минус доходы плюс расходы,
+     * без нулей в конце (какие нули были у начального баланса, после загрузки уже не узнать).
+     */
+    private int baseScaleOf(Money balance) {
+        if (balance == null) {
+            return 0;
+        }
+        Money base = balance.subtract(getTotal(TransactionType.INCOME)).add(getTotal(TransactionType.EXPENSE));
+        return Math.max(0, base.toBigDecimal().stripTrailingZeros().scale());
+    }
+
+    private int totalScale(TransactionType type) {
+        MoneyAccumulator total = totals.get(type);
+        return (total != null) ? total.scale() : 0;
+    }
+
+    /**
+     * Учитывает сумму транзакции в накопительных суммах её типа и категории
+     * (или исключает её, если транзакция удалена).
+     */
+    private void accumulate(Transaction transaction, boolean remove) {
+        Money amount = transaction.getAmount();
+        if (transaction.getType() == null || amount == null) {
+            return;
+        }
+        CategoryMap<MoneyAccumulator> byCategory =
+                totalsByCategory.computeIfAbsent(transaction.getType(), k -> new CategoryMap<>());
+        MoneyAccumulator sum = byCategory.get(transaction.getCategory());
+        if (sum == null) {
+            sum = new MoneyAccumulator();
+            byCategory.put(transaction.getCategory(), sum);
+        }
+        MoneyAccumulator total = totals.computeIfAbsent(transaction.getType(), k -> new MoneyAccumulator());
+        if (remove) {
+            sum.remove(amount);
+            total.remove(amount);
+        } else {
+            sum.add(amount);
+            total.add(amount);
+        }
+        if (remove && sum.terms() == 0) {
+            // Все операции категории удалены - в отчётах её быть не должно. По нулевой сумме
+            // судить нельзя: операции на 0 или взаимно гасящие друг друга категорию оставляют
+            byCategory.remove(transaction.getCategory());
+        }
     }
 
     // equals, hashCode, toString - if needed
@@ -82,8 +470,80 @@ public class Wallet {
     public String toString() {
         return "Wallet{" +
                 "balance=" + balance +
-                ", transactions=" + transactions +
+                ", transactions=" + getTransactions() +
                 ", budgets=" + budgets +
                 '}';
     }
+
+    /**
+     * История без удалённых транзакций поверх хранилища. Номера живых транзакций
+     * в хранилище собираются при первом обращении по индексу и пересобираются,
+     * если хранилище с тех пор изменилось; обход по итератору их не требует.
+     */
+    private static final class LiveTransactions extends AbstractList<Transaction> implements RandomAccess {
+        private final TransactionStore store;
+        private int[] positions;
+        private int builtSize;
+        private int builtDeleted;
+
+        LiveTransactions(TransactionStore store) {
+            this.store = store;
+        }
+
+        @Override
+        public int size() {
+            return store.size() - store.deletedCount();
+        }
+
+        @Override
+        public Transaction get(int index) {
+            if (positions == null || builtSize != store.size() || builtDeleted != store.deletedCount()) {
+                buildPositions();
+            }
+            Objects.checkIndex(index, positions.length);
+            return store.get(positions[index]);
+        }
+
+        @Override
+        public Iterator<Transaction> iterator() {
+            return new Iterator<>() {
+                private int next = skipDeleted(0);
+
+                @Override
+                public boolean hasNext() {
+                    return next < store.size();
+                }
+
+                @Override
+                public Transaction next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    Transaction transaction = store.get(next);
+                    next = skipDeleted(next + 1);
+                    return transaction;
+                }
+            };
+        }
+
+        private int skipDeleted(int from) {
+            int position = from;
+            while (position < store.size() && store.isDeleted(position)) {
+                position++;
+            }
+            return position;
+        }
+
+        private void buildPositions() {
+            builtSize = store.size();
+            builtDeleted = store.deletedCount();
+            positions = new int[builtSize - builtDeleted];
+            int live = 0;
+            for (int i = 0; i < builtSize; i++) {
+                if (!store.isDeleted(i)) {
+                    positions[live++] = i;
+                }
+            }
+        }
+    }
 }
@@ -3,7 +3,11 @@ package org.test.moneytrack.domain.repository;
 import org.test.moneytrack.domain.model.User;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 /**
  * Интерфейс репозитория для управления пользователями.
@@ -18,9 +22,47 @@ public interface UserRepository {
     // Обновить данные пользователя (кошелёк и т.д.)
     void update(User user);
 
+    // Обновить нескольких пользователей одним шагом (например, обе стороны перевода)
+    default void updateAll(List<User> users) {
+        users.forEach(this::update);
+    }
+
     // Удалить пользователя
     void delete(User user);
 
+    /**
+     * Записывает накопленные изменения в постоянное хранилище.
+     * Нужен репозиториям с отложенной записью; остальным делать нечего.
+     */
+    default void flush() {
+    }
+
     // Все пользователи
     Collection<User> findAll();
+
+    /**
+     * Все пользователи потоком, для обработки по одному (например, общих отчётов).
+     * Реализации могут загружать пользователей лениво, не держа в памяти всех сразу.
+     * Поток нужно закрыть.
+     *
+     * @param parallel разрешить параллельную загрузку и обработку
+     */
+    default Stream<User> streamAll(boolean parallel) {
+        Collection<User> all = findAll();
+        return parallel ? all.parallelStream() : all.stream();
+    }
+
+    /**
+     * Как streamAll(parallel), но только пользователи, чьи логины проходят фильтр.
+     * Реализации с ленивой загрузкой проверяют логин до загрузки пользователя.
+     */
+    default Stream<User> streamAll(boolean parallel, Predicate<String> loginFilter) {
+        return streamAll(parallel).filter(user -> loginFilter.test(user.getLogin()));
+    }
+
+    /**
+     * Блокировка пользователя: запись - для изменений кошелька, чтение - для отчётов.
+     * Для одного логина всегда возвращается один и тот же объект.
+     */
+    ReadWriteLock lockFor(String login);
 }
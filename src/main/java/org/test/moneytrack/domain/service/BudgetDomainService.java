@@ -2,10 +2,9 @@ package org.test.moneytrack.domain.service;
 
 import org.test.moneytrack.domain.model.Budget;
 import org.test.moneytrack.domain.model.Category;
+import org.test.moneytrack.domain.model.Money;
 import org.test.moneytrack.domain.model.Wallet;
 
-import java.math.BigDecimal;
-
 /**
  * Сервис домена, отвечающий за логику работы с бюджетами по категориям.
  */
@@ -19,10 +18,10 @@ public class BudgetDomainService {
      * @param limitAmount сумма лимита
      * @return созданный или обновлённый объект Budget
      */
-    public Budget setBudget(Wallet wallet, Category category, BigDecimal limitAmount) {
+    public Budget setBudget(Wallet wallet, Category category, Money limitAmount) {
         // Вызовем метод из самого кошелька (Wallet), чтобы сохранить согласованность кода
         wallet.setBudget(category, limitAmount);
-        return wallet.getBudgets().get(category);
+        return wallet.getBudget(category);
     }
 
     /**
@@ -33,7 +32,7 @@ public class BudgetDomainService {
      * @return лимит или null, если нет бюджета для данной категории
      */
     public Budget getBudget(Wallet wallet, Category category) {
-        return wallet.getBudgets().get(category);
+        return wallet.getBudget(category);
     }
 
 }
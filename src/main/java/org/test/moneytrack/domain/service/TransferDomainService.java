@@ -1,8 +1,9 @@
 package org.test.moneytrack.domain.service;
 
+import org.test.moneytrack.domain.event.DomainEventPublisher;
+import org.test.moneytrack.domain.event.TransferCompleted;
 import org.test.moneytrack.domain.model.*;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 /**
@@ -12,43 +13,75 @@ import java.time.LocalDateTime;
 public class TransferDomainService {
 
     private final WalletDomainService walletDomainService;
+    private final DomainEventPublisher eventPublisher;
 
     public TransferDomainService(WalletDomainService walletDomainService) {
+        this(walletDomainService, DomainEventPublisher.NONE);
+    }
+
+    /**
+     * @param eventPublisher куда публиковать TransferCompleted (события самих операций
+     *                       публикует walletDomainService)
+     */
+    public TransferDomainService(WalletDomainService walletDomainService, DomainEventPublisher eventPublisher) {
         this.walletDomainService = walletDomainService;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
      * Перевод средств от одного пользователя к другому.
      *
-     * @param fromWallet кошелёк отправителя
-     * @param toWallet   кошелёк получателя
-     * @param amount     сумма перевода
+     * @param fromUser отправитель
+     * @param toUser   получатель
+     * @param amount   сумма перевода
      * @return возможное предупреждение или сообщение (если нужно)
      */
-    public String transfer(Wallet fromWallet, Wallet toWallet, BigDecimal amount) {
-        // Создадим транзакцию "расход" для отправителя
-        Transaction expenseTransaction = new Transaction(
+    public String transfer(User fromUser, User toUser, Money amount) {
+        return transfer(fromUser, toUser, newExpense(amount), newIncome(amount));
+    }
+
+    /**
+     * Перевод заранее созданной парой транзакций (например, уже записанной в журнал переводов).
+     *
+     * @param expense расход отправителя (см. newExpense)
+     * @param income  доход получателя (см. newIncome)
+     * @return возможное предупреждение или сообщение (если нужно)
+     */
+    public String transfer(User fromUser, User toUser, Transaction expense, Transaction income) {
+        // Сначала списываем у отправителя
+        String warning = walletDomainService.addTransaction(fromUser, expense);
+
+        walletDomainService.addTransaction(toUser, income);
+
+        if (eventPublisher != DomainEventPublisher.NONE) {
+            eventPublisher.publish(new TransferCompleted(fromUser.getLogin(), toUser.getLogin(), expense.getAmount()));
+        }
+        return warning;
+    }
+
+    /**
+     * Транзакция "расход" для отправителя (ещё не добавленная в кошелёк).
+     */
+    public Transaction newExpense(Money amount) {
+        return new Transaction(
                 TransactionType.EXPENSE,
-                new Category("Перевод"), // Используем специальную категорию
+                Category.of("Перевод"), // Используем специальную категорию
                 amount,
                 LocalDateTime.now(),
                 "Перевод средств"
         );
+    }
 
-        // Создадим транзакцию "доход" для получателя
-        Transaction incomeTransaction = new Transaction(
+    /**
+     * Транзакция "доход" для получателя (ещё не добавленная в кошелёк).
+     */
+    public Transaction newIncome(Money amount) {
+        return new Transaction(
                 TransactionType.INCOME,
-                new Category("Перевод"), // Аналогичная категория
+                Category.of("Перевод"), // Аналогичная категория
                 amount,
                 LocalDateTime.now(),
                 "Получение перевода"
         );
-
-        // Сначала списываем у отправителя
-        String warning = walletDomainService.addTransaction(fromWallet, expenseTransaction);
-
-        walletDomainService.addTransaction(toWallet, incomeTransaction);
-
-        return warning;
     }
 }
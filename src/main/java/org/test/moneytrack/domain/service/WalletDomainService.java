@@ -1,43 +1,114 @@
 package org.test.moneytrack.domain.service;
 
+import org.test.moneytrack.diagnostics.jfr.BudgetCheckEvent;
+import org.test.moneytrack.domain.event.BalanceWentNegative;
+import org.test.moneytrack.domain.event.BudgetThresholdCrossed;
+import org.test.moneytrack.domain.event.DomainEventPublisher;
+import org.test.moneytrack.domain.event.TransactionAdded;
 import org.test.moneytrack.domain.model.*;
 
 import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.function.Consumer;
 
 /**
  * Сервис домена, отвечающий за логику работы с кошельком (Wallet).
  * Например, добавление транзакций, проверка баланса, предупреждения о лимитах и т.д.
+ *
+ * Кроме строк-предупреждений для ответа пользователю публикует доменные события
+ * (TransactionAdded, BudgetThresholdCrossed, BalanceWentNegative). Публикация только ставит
+ * событие в очередь: оповещения и прочая обработка идут в другом потоке.
  */
 public class WalletDomainService {
 
+    /**
+     * Пороги бюджета по умолчанию, в процентах от лимита.
+     */
+    public static final int[] DEFAULT_ALERT_THRESHOLDS = {80, 100, 120};
+
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    // Режим проверки: каждый ответ из агрегатов сверяется с полным проходом по истории
+    private final boolean verifyAggregates;
+    private final DomainEventPublisher eventPublisher;
+    private final boolean publishesEvents;
+    // Пороги бюджета в процентах, по возрастанию
+    private final int[] alertThresholds;
+
+    public WalletDomainService() {
+        this(false);
+    }
+
+    /**
+     * @param verifyAggregates если true, суммы из накопительных агрегатов кошелька
+     *                         сверяются с полным пересчётом (медленно, для отладки)
+     */
+    public WalletDomainService(boolean verifyAggregates) {
+        this(verifyAggregates, DomainEventPublisher.NONE, DEFAULT_ALERT_THRESHOLDS);
+    }
+
+    /**
+     * @param eventPublisher  куда публиковать доменные события
+     * @param alertThresholds пороги бюджета в процентах от лимита, о переходе которых
+     *                        публикуется BudgetThresholdCrossed
+     */
+    public WalletDomainService(boolean verifyAggregates, DomainEventPublisher eventPublisher,
+                               int... alertThresholds) {
+        this.verifyAggregates = verifyAggregates;
+        this.eventPublisher = eventPublisher;
+        this.publishesEvents = eventPublisher != DomainEventPublisher.NONE;
+        this.alertThresholds = alertThresholds.clone();
+        Arrays.sort(this.alertThresholds);
+        if (this.alertThresholds.length > 0 && this.alertThresholds[0] <= 0) {
+            throw new IllegalArgumentException("Порог бюджета должен быть больше 0%: "
+                    + Arrays.toString(alertThresholds));
+        }
+    }
+
     /**
      * Добавляет операцию (транзакцию) в кошелёк пользователя.
      * Выполняет проверку бюджетных лимитов (если это расход).
      *
-     * @param wallet      кошелёк пользователя
+     * @param user        пользователь (его кошелёк меняется, логин попадает в события)
      * @param transaction объект транзакции (доход или расход)
      * @return сообщение-предупреждение, если бюджет превышен или баланс ушёл в минус,
      *         иначе пустая строка или null.
      */
-    public String addTransaction(Wallet wallet, Transaction transaction) {
+    public String addTransaction(User user, Transaction transaction) {
+        Wallet wallet = user.getWallet();
+        boolean wasNegative = wallet.getBalance().isNegative();
+
         // Добавляем транзакцию в кошелёк
         wallet.addTransaction(transaction);
+        // События строятся, только если их есть куда публиковать
+        if (publishesEvents) {
+            eventPublisher.publish(new TransactionAdded(user.getLogin(), List.of(transaction)));
+        }
 
         // Если это расход, проверяем лимит по категории (если категория не null)
-        if (transaction.getType() == TransactionType.EXPENSE && transaction.getCategory() != null) {
-            Budget budget = wallet.getBudgets().get(transaction.getCategory());
-            if (budget != null) {
-                BigDecimal totalSpent = calculateTotalByCategory(wallet, transaction.getCategory(), TransactionType.EXPENSE);
-                if (totalSpent.compareTo(budget.getLimitAmount()) > 0) {
-                    return String.format("Внимание! Превышен лимит по категории: %s", transaction.getCategory().getName());
-                }
-            }
+        boolean overBudget = transaction.getType() == TransactionType.EXPENSE && transaction.getCategory() != null
+                && isOverBudget(user, transaction.getCategory(), transaction.getAmount(), 1);
+        boolean negative = wallet.getBalance().isNegative();
+        if (negative && !wasNegative && publishesEvents) {
+            eventPublisher.publish(new BalanceWentNegative(user.getLogin(), wallet.getBalance()));
+        }
+
+        if (overBudget) {
+            return String.format("Внимание! Превышен лимит по категории: %s", transaction.getCategory().getName());
         }
 
         // Проверяем общий баланс на отрицательное значение
-        if (wallet.getBalance().compareTo(BigDecimal.ZERO) < 0) {
+        if (negative) {
             return "Внимание! Баланс кошелька стал отрицательным!";
         }
 
@@ -45,6 +116,114 @@ public class WalletDomainService {
         return "";
     }
 
+    /**
+     * Добавляет пачку транзакций в кошелёк (импорт истории).
+     * Лимиты проверяются один раз после добавления всей пачки, а не по каждой строке:
+     * по одному предупреждению на каждую превышенную категорию из пачки.
+     * Событие TransactionAdded публикуется одно на всю пачку.
+     *
+     * @param user  пользователь (его кошелёк меняется, логин попадает в события)
+     * @param batch транзакции в порядке добавления
+     * @return список предупреждений (пустой, если их нет)
+     */
+    public List<String> addTransactions(User user, List<Transaction> batch) {
+        Wallet wallet = user.getWallet();
+        boolean wasNegative = wallet.getBalance().isNegative();
+        wallet.addTransactions(batch);
+        if (publishesEvents) {
+            eventPublisher.publish(new TransactionAdded(user.getLogin(), batch));
+        }
+
+        // Расходы пачки по категориям (в порядке первого появления)
+        Map<Category, MoneyAccumulator> expenses = new LinkedHashMap<>();
+        for (Transaction transaction : batch) {
+            if (transaction.getType() == TransactionType.EXPENSE && transaction.getCategory() != null) {
+                MoneyAccumulator added = expenses.computeIfAbsent(transaction.getCategory(),
+                        category -> new MoneyAccumulator());
+                if (transaction.getAmount() != null) {
+                    added.add(transaction.getAmount());
+                }
+            }
+        }
+
+        List<String> warnings = new ArrayList<>();
+        for (Map.Entry<Category, MoneyAccumulator> entry : expenses.entrySet()) {
+            Category category = entry.getKey();
+            if (isOverBudget(user, category, entry.getValue().toMoney(), batch.size())) {
+                warnings.add(String.format("Внимание! Превышен лимит по категории: %s", category.getName()));
+            }
+        }
+
+        if (wallet.getBalance().isNegative()) {
+            if (!wasNegative && publishesEvents) {
+                eventPublisher.publish(new BalanceWentNegative(user.getLogin(), wallet.getBalance()));
+            }
+            warnings.add("Внимание! Баланс кошелька стал отрицательным!");
+        }
+        return warnings;
+    }
+
+    /**
+     * Превышен ли лимит бюджета по категории (false, если бюджета нет).
+     * Каждая проверка - событие JFR BudgetCheck; о каждом пройденном пороге
+     * (расходы до операции не больше порога, после - больше) публикуется BudgetThresholdCrossed.
+     *
+     * @param added сумма расходов по категории, добавленная операцией (пачкой)
+     */
+    private boolean isOverBudget(User user, Category category, Money added, int batchSize) {
+        Budget budget = user.getWallet().getBudget(category);
+        if (budget == null) {
+            return false;
+        }
+        BudgetCheckEvent event = new BudgetCheckEvent();
+        event.begin();
+        Money totalSpent = calculateTotalByCategory(user.getWallet(), category, TransactionType.EXPENSE);
+        boolean exceeded = totalSpent.compareTo(budget.getLimitAmount()) > 0;
+        event.end();
+        if (event.shouldCommit()) {
+            event.category = category.getName();
+            event.spent = totalSpent.toString();
+            event.limit = budget.getLimitAmount().toString();
+            event.exceeded = exceeded;
+            event.batchSize = batchSize;
+            event.commit();
+        }
+        if (publishesEvents && added != null && added.signum() > 0) {
+            publishCrossedThresholds(user.getLogin(), category, budget.getLimitAmount(),
+                    totalSpent.subtract(added), totalSpent);
+        }
+        return exceeded;
+    }
+
+    private void publishCrossedThresholds(String login, Category category, Money limit, Money before, Money after) {
+        BigDecimal limitValue = limit.toBigDecimal();
+        // spent > limit * percent / 100  <=>  spent * 100 > limit * percent
+        BigDecimal beforeValue = before.toBigDecimal().multiply(HUNDRED);
+        BigDecimal afterValue = after.toBigDecimal().multiply(HUNDRED);
+        for (int percent : alertThresholds) {
+            BigDecimal threshold = limitValue.multiply(BigDecimal.valueOf(percent));
+            if (afterValue.compareTo(threshold) <= 0) {
+                // Пороги по возрастанию: следующие тоже не пройдены
+                break;
+            }
+            if (beforeValue.compareTo(threshold) <= 0) {
+                eventPublisher.publish(new BudgetThresholdCrossed(login, category, percent, limit, after));
+            }
+        }
+    }
+
+    /**
+     * Удаляет транзакцию из кошелька по идентификатору.
+     * Баланс и все накопительные суммы корректируются сразу, без пересчёта истории.
+     *
+     * @param wallet        кошелёк пользователя
+     * @param transactionId идентификатор транзакции
+     * @return удалённая транзакция или пустое значение, если такой нет
+     */
+    public Optional<Transaction> deleteTransaction(Wallet wallet, java.util.UUID transactionId) {
+        return wallet.deleteTransaction(transactionId);
+    }
+
     /**
      * Подсчитывает сумму (доход или расход) по указанной категории.
      *
@@ -53,11 +232,13 @@ public class WalletDomainService {
      * @param type      тип транзакции (доход или расход)
      * @return общая сумма транзакций заданного типа по категории
      */
-    public BigDecimal calculateTotalByCategory(Wallet wallet, Category category, TransactionType type) {
-        return wallet.getTransactions().stream()
-                .filter(t -> t.getType() == type && category.equals(t.getCategory()))
-                .map(Transaction::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    public Money calculateTotalByCategory(Wallet wallet, Category category, TransactionType type) {
+        Money total = wallet.getTotalByCategory(category, type);
+        if (verifyAggregates) {
+            Money scanned = wallet.scanTotalsByCategory(type).getOrDefault(category, Money.ZERO);
+            checkConsistency(scanned, total, type + "/" + category);
+        }
+        return total;
     }
 
     /**
@@ -68,16 +249,15 @@ public class WalletDomainService {
      * @param type       тип транзакции (доход или расход)
      * @return общая сумма всех транзакций заданного типа
      */
-    public BigDecimal calculateTotalByCategories(Wallet wallet,
-                                                 List<Category> categories,
-                                                 TransactionType type) {
-        BigDecimal total = BigDecimal.ZERO;
+    public Money calculateTotalByCategories(Wallet wallet,
+                                            List<Category> categories,
+                                            TransactionType type) {
+        MoneyAccumulator total = new MoneyAccumulator();
         for (Category cat : categories) {
             // Суммируем результаты по каждому cat
-            BigDecimal catSum = calculateTotalByCategory(wallet, cat, type);
-            total = total.add(catSum);
+            total.add(calculateTotalByCategory(wallet, cat, type));
         }
-        return total;
+        return total.toMoney();
     }
 
     /**
@@ -87,11 +267,107 @@ public class WalletDomainService {
      * @param type   тип транзакции (доход или расход)
      * @return общая сумма всех транзакций заданного типа
      */
-    public BigDecimal calculateTotal(Wallet wallet, TransactionType type) {
-        return wallet.getTransactions().stream()
-                .filter(t -> t.getType() == type)
-                .map(Transaction::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    public Money calculateTotal(Wallet wallet, TransactionType type) {
+        Money total = wallet.getTotal(type);
+        if (verifyAggregates) {
+            Money scanned = wallet.scanTotalsByCategory(type).values().stream()
+                    .reduce(Money.ZERO, Money::add);
+            checkConsistency(scanned, total, type.toString());
+        }
+        return total;
+    }
+
+    /**
+     * Подсчитывает суммы транзакций заданного типа в разрезе категорий.
+     *
+     * @param wallet кошелёк пользователя
+     * @param type   тип транзакции (доход или расход)
+     * @return карта категория -> сумма (ключ null — транзакции без категории)
+     */
+    public Map<Category, Money> calculateTotalsByCategory(Wallet wallet, TransactionType type) {
+        if (verifyAggregates) {
+            List<String> mismatches = wallet.verifyAggregates();
+            if (!mismatches.isEmpty()) {
+                throw new IllegalStateException("Агрегаты кошелька не согласованы: " + mismatches);
+            }
+        }
+        return wallet.getTotalsByCategory(type);
+    }
+
+    /**
+     * Подсчитывает общий доход или расход за период.
+     * Для всей истории берётся накопительный агрегат, иначе - дневные и месячные суммы кошелька.
+     */
+    public Money calculateTotal(Wallet wallet, TransactionType type, DateRange period) {
+        if (period.isAll()) {
+            return calculateTotal(wallet, type);
+        }
+        if (verifyAggregates) {
+            MoneyAccumulator total = new MoneyAccumulator();
+            calculateTotalsByCategory(wallet, type, period).values().forEach(total::add);
+            return total.toMoney();
+        }
+        return wallet.getRollups().total(type, period.getFrom(), period.getTo());
+    }
+
+    /**
+     * Подсчитывает суммы транзакций заданного типа в разрезе категорий за период.
+     * Для ограниченного периода складываются несколько дневных и месячных корзин кошелька.
+     *
+     * @return карта категория -> сумма (ключ null — транзакции без категории)
+     */
+    public Map<Category, Money> calculateTotalsByCategory(Wallet wallet, TransactionType type, DateRange period) {
+        if (period.isAll()) {
+            return calculateTotalsByCategory(wallet, type);
+        }
+        Map<Category, Money> totals = wallet.getRollups().totalsByCategory(type, period.getFrom(), period.getTo());
+        if (verifyAggregates) {
+            // Сверяем суммы из корзин с полным проходом по истории
+            Map<Category, Money> scanned = new HashMap<>();
+            for (Transaction t : wallet.getTransactions()) {
+                if (t.getType() == type && t.getAmount() != null && period.contains(t.getDateTime())) {
+                    scanned.merge(t.getCategory(), t.getAmount(), Money::add);
+                }
+            }
+            Set<Category> categories = new HashSet<>(scanned.keySet());
+            categories.addAll(totals.keySet());
+            for (Category category : categories) {
+                checkConsistency(scanned.getOrDefault(category, Money.ZERO),
+                        totals.getOrDefault(category, Money.ZERO), type + "/" + category + " " + period);
+            }
+        }
+        return totals;
+    }
+
+    /**
+     * Суммы транзакций заданного типа по месяцам периода (для show_trends).
+     */
+    public SortedMap<YearMonth, Money> calculateMonthlyTotals(Wallet wallet, TransactionType type, DateRange period) {
+        return wallet.getRollups().monthlyTotals(type, period.getFrom(), period.getTo());
+    }
+
+    /**
+     * Передаёт в action операции периода в хронологическом порядке (без удалённых),
+     * отбирая по типу и категориям. Список операций не строится - проход по индексу времени.
+     *
+     * @param type       тип операций или null - все
+     * @param categories категории или null - все (пустое множество не отбирает ничего)
+     */
+    public void forEachTransaction(Wallet wallet, DateRange period, TransactionType type,
+                                   Set<Category> categories, Consumer<Transaction> action) {
+        wallet.forEachTransactionBetween(period.start(), period.endExclusive(), t -> {
+            if ((type == null || t.getType() == type)
+                    && (categories == null || categories.contains(t.getCategory()))) {
+                action.accept(t);
+            }
+        });
+    }
+
+    private void checkConsistency(Money scanned, Money aggregated, String key) {
+        if (scanned.compareTo(aggregated) != 0) {
+            throw new IllegalStateException("Агрегат " + key + " не согласован: полный проход = "
+                    + scanned + ", агрегат = " + aggregated);
+        }
     }
 
     /**
@@ -102,8 +378,6 @@ public class WalletDomainService {
      * @return Optional<Transaction>
      */
     public Optional<Transaction> findTransactionById(Wallet wallet, java.util.UUID transactionId) {
-        return wallet.getTransactions().stream()
-                .filter(t -> t.getTransactionId().equals(transactionId))
-                .findFirst();
+        return wallet.findTransaction(transactionId);
     }
 }
@@ -0,0 +1,65 @@
+package org.test.moneytrack.infrastructure.event;
+
+import org.test.moneytrack.domain.event.BalanceWentNegative;
+import org.test.moneytrack.domain.event.BudgetThresholdCrossed;
+import org.test.moneytrack.domain.event.DomainEvent;
+import org.test.moneytrack.domain.event.TransferCompleted;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Подписчик, дописывающий оповещения (пороги бюджета, отрицательный баланс, переводы)
+ * в текстовый файл, по строке на событие. Работает в потоке шины событий,
+ * поэтому запись в файл не задерживает команды пользователей.
+ */
+public class AlertLogSubscriber implements AutoCloseable {
+
+    private final BufferedWriter writer;
+
+    public AlertLogSubscriber(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Подписывается на оповещения шины.
+     */
+    public void subscribeTo(RingBufferEventBus bus) {
+        bus.subscribe(BudgetThresholdCrossed.class, event -> write(event,
+                "бюджет " + event.getCategory().getName() + ": пройден порог " + event.getPercent()
+                        + "% (потрачено " + event.getSpent() + " из " + event.getLimit() + ")"));
+        bus.subscribe(BalanceWentNegative.class, event -> write(event,
+                "баланс стал отрицательным: " + event.getBalance()));
+        bus.subscribe(TransferCompleted.class, event -> write(event,
+                "перевод " + event.getAmount() + " пользователю " + event.getToLogin()));
+    }
+
+    private synchronized void write(DomainEvent event, String message) {
+        try {
+            writer.write(event.getOccurredAt() + " " + event.getLogin() + " " + message);
+            writer.newLine();
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            writer.close();
+        } catch (IOException e) {
+            System.err.println("Ошибка закрытия файла оповещений: " + e.getMessage());
+        }
+    }
+}
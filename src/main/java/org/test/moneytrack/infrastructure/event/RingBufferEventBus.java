@@ -0,0 +1,199 @@
+package org.test.moneytrack.infrastructure.event;
+
+import org.test.moneytrack.diagnostics.metrics.Metrics;
+import org.test.moneytrack.diagnostics.metrics.Timer;
+import org.test.moneytrack.domain.event.DomainEvent;
+import org.test.moneytrack.domain.event.DomainEventPublisher;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Шина доменных событий на кольцевом буфере фиксированного размера.
+ *
+ * publish() вызывается из потоков команд под блокировкой пользователя и стоит одного CAS
+ * и записи в ячейку массива: без блокировок, без ожидания и без выделения памяти в самой шине.
+ * Если буфер заполнен (подписчики не успевают), событие отбрасывается и считается
+ * в getDroppedCount() - команда пользователя из-за оповещений не ждёт никогда.
+ *
+ * События раздаёт подписчикам один фоновый поток в порядке публикации.
+ * Исключение подписчика пишется в stderr и не мешает остальным подписчикам и событиям.
+ */
+public class RingBufferEventBus implements DomainEventPublisher, AutoCloseable {
+
+    private static final Timer DISPATCH_TIMER = Metrics.timer("events.dispatch");
+
+    // Сколько ждать новых событий, прежде чем ещё раз проверить буфер (на случай
+    // пропущенного пробуждения - публикатор будит поток без блокировок)
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private static final class Subscription<E extends DomainEvent> {
+        final Class<E> type;
+        final Consumer<? super E> handler;
+
+        Subscription(Class<E> type, Consumer<? super E> handler) {
+            this.type = type;
+            this.handler = handler;
+        }
+
+        void deliver(DomainEvent event) {
+            if (type.isInstance(event)) {
+                handler.accept(type.cast(event));
+            }
+        }
+    }
+
+    private final AtomicReferenceArray<DomainEvent> slots;
+    private final int mask;
+    // Следующая свободная позиция (занимают публикаторы)
+    private final AtomicLong tail = new AtomicLong();
+    // Следующая позиция для чтения (двигает только поток раздачи)
+    private final AtomicLong head = new AtomicLong();
+
+    private final List<Subscription<?>> subscriptions = new CopyOnWriteArrayList<>();
+    private final LongAdder published = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    private final Thread worker;
+    private volatile boolean idle;
+    private volatile boolean running = true;
+
+    /**
+     * @param capacity размер буфера (округляется вверх до степени двойки)
+     */
+    public RingBufferEventBus(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Размер буфера событий должен быть больше 0: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.worker = new Thread(this::runLoop, "moneytrack-events");
+        // Не мешает завершению процесса: оставшиеся события раздаёт close() из shutdown hook
+        this.worker.setDaemon(true);
+    }
+
+    public void start() {
+        worker.start();
+    }
+
+    /**
+     * Подписывает обработчик на события типа type (и его подтипов).
+     * Обработчик вызывается в потоке шины и не должен надолго его занимать.
+     */
+    public <E extends DomainEvent> void subscribe(Class<E> type, Consumer<? super E> handler) {
+        subscriptions.add(new Subscription<>(type, handler));
+    }
+
+    /**
+     * Ставит событие в буфер; при заполненном буфере или остановленной шине отбрасывает его.
+     */
+    @Override
+    public void publish(DomainEvent event) {
+        long position;
+        do {
+            position = tail.get();
+            if (!running || position - head.get() >= slots.length()) {
+                dropped.increment();
+                return;
+            }
+        } while (!tail.compareAndSet(position, position + 1));
+        slots.lazySet((int) position & mask, event);
+        published.increment();
+        if (idle) {
+            LockSupport.unpark(worker);
+        }
+    }
+
+    /**
+     * Останавливает приём событий, раздаёт уже принятые и ждёт поток шины (до 5 секунд).
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(worker);
+        try {
+            worker.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public long getPublishedCount() {
+        return published.sum();
+    }
+
+    /**
+     * Сколько событий отброшено из-за заполненного буфера.
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Сколько раз обработчик подписчика завершился исключением.
+     */
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    /**
+     * Сколько событий ждёт раздачи.
+     */
+    public long getPendingCount() {
+        return Math.max(0, tail.get() - head.get());
+    }
+
+    public int getCapacity() {
+        return slots.length();
+    }
+
+    private void runLoop() {
+        long position = head.get();
+        while (true) {
+            int index = (int) position & mask;
+            DomainEvent event = slots.get(index);
+            if (event == null) {
+                // Позиция занята, но событие ещё не записано - или событий нет совсем
+                if (position == tail.get() && !running) {
+                    return;
+                }
+                idle = true;
+                if (slots.get(index) == null && (running || position != tail.get())) {
+                    LockSupport.parkNanos(this, position == tail.get() ? IDLE_PARK_NANOS : 1_000);
+                }
+                idle = false;
+                continue;
+            }
+            // Сначала освобождаем ячейку, потом сдвигаем head: публикатор, увидевший место,
+            // пишет уже в пустую ячейку
+            slots.lazySet(index, null);
+            head.lazySet(++position);
+            dispatch(event);
+        }
+    }
+
+    private void dispatch(DomainEvent event) {
+        long start = DISPATCH_TIMER.start();
+        for (Subscription<?> subscription : subscriptions) {
+            try {
+                subscription.deliver(event);
+            } catch (RuntimeException e) {
+                failed.increment();
+                System.err.println("Ошибка обработки события " + event.getClass().getSimpleName()
+                        + ": " + e.getMessage());
+            }
+        }
+        DISPATCH_TIMER.stop(start);
+    }
+}
@@ -0,0 +1,125 @@
+package org.test.moneytrack.infrastructure.exporter;
+
+import org.test.moneytrack.application.port.TransactionExportWriter;
+import org.test.moneytrack.application.port.TransactionImportReader;
+import org.test.moneytrack.domain.model.Transaction;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Выгрузка операций в CSV или JSON Lines через FileChannel.
+ *
+ * Каждая операция кодируется одним переиспользуемым TransactionRowEncoder прямо в байты UTF-8,
+ * строки копятся в прямом (direct) буфере фиксированного размера и пишутся в канал, когда
+ * он заполнен. Память не зависит от числа операций.
+ */
+public class ChannelTransactionExportWriter implements TransactionExportWriter {
+
+    private static final int DEFAULT_BUFFER_SIZE = 256 * 1024;
+
+    private final int bufferSize;
+
+    public ChannelTransactionExportWriter() {
+        this(DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param bufferSize размер буфера записи в байтах
+     */
+    public ChannelTransactionExportWriter(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    @Override
+    public Sink open(String fileName, TransactionImportReader.Format format) throws IOException {
+        Path path = Paths.get(fileName);
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null && !Files.exists(parent)) {
+            Files.createDirectories(parent);
+        }
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        ChannelSink sink = new ChannelSink(channel, TransactionRowEncoder.forFormat(format), bufferSize);
+        try {
+            sink.writeHeader();
+        } catch (IOException e) {
+            sink.close();
+            throw e;
+        }
+        return sink;
+    }
+
+    private static final class ChannelSink implements Sink {
+        private final FileChannel channel;
+        private final TransactionRowEncoder encoder;
+        private final ByteBuffer buffer;
+        private long count;
+        private boolean closed;
+
+        ChannelSink(FileChannel channel, TransactionRowEncoder encoder, int bufferSize) {
+            this.channel = channel;
+            this.encoder = encoder;
+            this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        }
+
+        void writeHeader() throws IOException {
+            byte[] header = encoder.header();
+            put(header, header.length);
+        }
+
+        @Override
+        public void write(Transaction transaction) throws IOException {
+            encoder.encode(transaction);
+            put(encoder.array(), encoder.length());
+            count++;
+        }
+
+        @Override
+        public long getCount() {
+            return count;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                drain();
+            } finally {
+                channel.close();
+            }
+        }
+
+        private void put(byte[] bytes, int length) throws IOException {
+            if (length > buffer.remaining()) {
+                drain();
+                if (length > buffer.capacity()) {
+                    // Строка длиннее буфера (огромное описание) - пишем её напрямую
+                    writeFully(ByteBuffer.wrap(bytes, 0, length));
+                    return;
+                }
+            }
+            buffer.put(bytes, 0, length);
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            writeFully(buffer);
+            buffer.clear();
+        }
+
+        private void writeFully(ByteBuffer bytes) throws IOException {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+        }
+    }
+}
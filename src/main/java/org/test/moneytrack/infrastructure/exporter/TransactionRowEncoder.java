@@ -0,0 +1,431 @@
+package org.test.moneytrack.infrastructure.exporter;
+
+import org.test.moneytrack.application.port.TransactionImportReader;
+import org.test.moneytrack.domain.model.Category;
+import org.test.moneytrack.domain.model.Money;
+import org.test.moneytrack.domain.model.Transaction;
+import org.test.moneytrack.domain.model.TransactionType;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Кодирует транзакцию в одну строку выгрузки (байты UTF-8) в переиспользуемый буфер.
+ *
+ * Один экземпляр кодирует все строки файла: дата, сумма и id пишутся цифрами прямо в буфер,
+ * без промежуточных строк, а закодированные названия категорий запоминаются
+ * (категорий в кошельке немного, а повторяются они в каждой строке).
+ * Колонки те же, что понимает импорт: date (dateTime), type, category, amount, description, плюс id.
+ *
+ * Не потокобезопасен: один экземпляр на один файл.
+ */
+abstract class TransactionRowEncoder {
+
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] INCOME = "INCOME".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] EXPENSE = "EXPENSE".getBytes(StandardCharsets.US_ASCII);
+
+    private byte[] row = new byte[256];
+    private int length;
+    private final byte[] digits = new byte[20];
+    private final Map<Category, byte[]> categories = new HashMap<>();
+
+    static TransactionRowEncoder forFormat(TransactionImportReader.Format format) {
+        return (format == TransactionImportReader.Format.CSV) ? new Csv() : new JsonLines();
+    }
+
+    /**
+     * Первая строка файла (заголовок) или пустой массив.
+     */
+    abstract byte[] header();
+
+    /**
+     * Кодирует транзакцию вместе с переводом строки; результат - array()[0, length()).
+     */
+    final void encode(Transaction transaction) {
+        length = 0;
+        encodeRow(transaction);
+    }
+
+    final byte[] array() {
+        return row;
+    }
+
+    final int length() {
+        return length;
+    }
+
+    abstract void encodeRow(Transaction transaction);
+
+    /**
+     * Пишет название категории как поле строки (с экранированием формата).
+     */
+    abstract void putCategoryName(String name);
+
+    // ---------------- Запись полей ----------------
+
+    final void putCategory(Category category) {
+        byte[] encoded = categories.get(category);
+        if (encoded != null) {
+            put(encoded);
+            return;
+        }
+        int start = length;
+        putCategoryName(category.getName());
+        categories.put(category, Arrays.copyOfRange(row, start, length));
+    }
+
+    final void putType(TransactionType type) {
+        put(type == TransactionType.INCOME ? INCOME : EXPENSE);
+    }
+
+    /**
+     * yyyy-MM-ddTHH:mm:ss и дробная часть секунды, если она есть (как LocalDateTime.parse).
+     */
+    final void putDateTime(LocalDateTime dateTime) {
+        int year = dateTime.getYear();
+        if (year < 0 || year > 9999) {
+            putAscii(dateTime.toString());
+            return;
+        }
+        putDigits(year, 4);
+        put((byte) '-');
+        putDigits(dateTime.getMonthValue(), 2);
+        put((byte) '-');
+        putDigits(dateTime.getDayOfMonth(), 2);
+        put((byte) 'T');
+        putDigits(dateTime.getHour(), 2);
+        put((byte) ':');
+        putDigits(dateTime.getMinute(), 2);
+        put((byte) ':');
+        putDigits(dateTime.getSecond(), 2);
+        int nano = dateTime.getNano();
+        if (nano != 0) {
+            put((byte) '.');
+            if (nano % 1_000_000 == 0) {
+                putDigits(nano / 1_000_000, 3);
+            } else if (nano % 1_000 == 0) {
+                putDigits(nano / 1_000, 6);
+            } else {
+                putDigits(nano, 9);
+            }
+        }
+    }
+
+    /**
+     * Сумма без экспоненты (как BigDecimal.toPlainString).
+     */
+    final void putAmount(Money amount) {
+        long units = amount.getUnits();
+        int scale = amount.getScale();
+        if (!amount.isCompact() || units == Long.MIN_VALUE || scale < 0) {
+            putAscii(amount.toBigDecimal().toPlainString());
+            return;
+        }
+        if (units < 0) {
+            put((byte) '-');
+            units = -units;
+        }
+        int count = 0;
+        do {
+            digits[count++] = (byte) ('0' + units % 10);
+            units /= 10;
+        } while (units != 0);
+        if (count <= scale) {
+            put((byte) '0');
+            put((byte) '.');
+            for (int i = count; i < scale; i++) {
+                put((byte) '0');
+            }
+            putReversedDigits(count, 0);
+        } else {
+            putReversedDigits(count, scale);
+            if (scale > 0) {
+                put((byte) '.');
+                putReversedDigits(scale, 0);
+            }
+        }
+    }
+
+    final void putUuid(UUID id) {
+        long msb = id.getMostSignificantBits();
+        long lsb = id.getLeastSignificantBits();
+        putHex(msb >>> 32, 8);
+        put((byte) '-');
+        putHex(msb >>> 16, 4);
+        put((byte) '-');
+        putHex(msb, 4);
+        put((byte) '-');
+        putHex(lsb >>> 48, 4);
+        put((byte) '-');
+        putHex(lsb, 12);
+    }
+
+    final void putAscii(String value) {
+        ensure(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            row[length++] = (byte) value.charAt(i);
+        }
+    }
+
+    final void put(byte b) {
+        ensure(1);
+        row[length++] = b;
+    }
+
+    final void put(byte[] bytes) {
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, row, length, bytes.length);
+        length += bytes.length;
+    }
+
+    /**
+     * Символ value[index] в UTF-8; суррогатная пара занимает два символа.
+     *
+     * @return сколько символов строки использовано
+     */
+    final int putChar(String value, int index) {
+        char c = value.charAt(index);
+        ensure(4);
+        if (c < 0x80) {
+            row[length++] = (byte) c;
+        } else if (c < 0x800) {
+            row[length++] = (byte) (0xC0 | (c >> 6));
+            row[length++] = (byte) (0x80 | (c & 0x3F));
+        } else if (Character.isHighSurrogate(c) && index + 1 < value.length()
+                && Character.isLowSurrogate(value.charAt(index + 1))) {
+            int codePoint = Character.toCodePoint(c, value.charAt(index + 1));
+            row[length++] = (byte) (0xF0 | (codePoint >> 18));
+            row[length++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+            row[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+            row[length++] = (byte) (0x80 | (codePoint & 0x3F));
+            return 2;
+        } else if (Character.isSurrogate(c)) {
+            // Непарный суррогат в UTF-8 не кодируется
+            row[length++] = '?';
+        } else {
+            row[length++] = (byte) (0xE0 | (c >> 12));
+            row[length++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            row[length++] = (byte) (0x80 | (c & 0x3F));
+        }
+        return 1;
+    }
+
+    private void putDigits(int value, int width) {
+        ensure(width);
+        for (int i = length + width - 1; i >= length; i--) {
+            row[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        length += width;
+    }
+
+    private void putReversedDigits(int from, int to) {
+        ensure(from - to);
+        for (int i = from - 1; i >= to; i--) {
+            row[length++] = digits[i];
+        }
+    }
+
+    private void putHex(long value, int width) {
+        ensure(width);
+        for (int i = length + width - 1; i >= length; i--) {
+            row[i] = HEX[(int) (value & 0xF)];
+            value >>>= 4;
+        }
+        length += width;
+    }
+
+    private void ensure(int extra) {
+        if (length + extra > row.length) {
+            row = Arrays.copyOf(row, Math.max(row.length * 2, length + extra));
+        }
+    }
+
+    // ---------------- Форматы ----------------
+
+    /**
+     * CSV: id,date,type,category,amount,description; поле с запятой, кавычкой
+     * или переводом строки берётся в кавычки (кавычка внутри удваивается).
+     */
+    private static final class Csv extends TransactionRowEncoder {
+
+        private static final byte[] HEADER =
+                "id,date,type,category,amount,description\n".getBytes(StandardCharsets.US_ASCII);
+
+        @Override
+        byte[] header() {
+            return HEADER;
+        }
+
+        @Override
+        void encodeRow(Transaction transaction) {
+            if (transaction.getTransactionId() != null) {
+                putUuid(transaction.getTransactionId());
+            }
+            put((byte) ',');
+            if (transaction.getDateTime() != null) {
+                putDateTime(transaction.getDateTime());
+            }
+            put((byte) ',');
+            if (transaction.getType() != null) {
+                putType(transaction.getType());
+            }
+            put((byte) ',');
+            if (transaction.getCategory() != null) {
+                putCategory(transaction.getCategory());
+            }
+            put((byte) ',');
+            if (transaction.getAmount() != null) {
+                putAmount(transaction.getAmount());
+            }
+            put((byte) ',');
+            if (transaction.getDescription() != null) {
+                putText(transaction.getDescription());
+            }
+            put((byte) '\n');
+        }
+
+        @Override
+        void putCategoryName(String name) {
+            putText(name);
+        }
+
+        private void putText(String value) {
+            if (!needsQuotes(value)) {
+                for (int i = 0; i < value.length(); ) {
+                    i += putChar(value, i);
+                }
+                return;
+            }
+            put((byte) '"');
+            for (int i = 0; i < value.length(); ) {
+                if (value.charAt(i) == '"') {
+                    put((byte) '"');
+                }
+                i += putChar(value, i);
+            }
+            put((byte) '"');
+        }
+
+        private static boolean needsQuotes(String value) {
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * JSON Lines: {"id":..,"dateTime":..,"type":..,"category":..,"amount":..,"description":..}.
+     * Сумма - JSON-число, отсутствующие поля - null.
+     */
+    private static final class JsonLines extends TransactionRowEncoder {
+
+        private static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+        private static final byte[] ID = "{\"id\":".getBytes(StandardCharsets.US_ASCII);
+        private static final byte[] DATE_TIME = ",\"dateTime\":".getBytes(StandardCharsets.US_ASCII);
+        private static final byte[] TYPE = ",\"type\":".getBytes(StandardCharsets.US_ASCII);
+        private static final byte[] CATEGORY = ",\"category\":".getBytes(StandardCharsets.US_ASCII);
+        private static final byte[] AMOUNT = ",\"amount\":".getBytes(StandardCharsets.US_ASCII);
+        private static final byte[] DESCRIPTION = ",\"description\":".getBytes(StandardCharsets.US_ASCII);
+        private static final byte[] END = "}\n".getBytes(StandardCharsets.US_ASCII);
+
+        @Override
+        byte[] header() {
+            return new byte[0];
+        }
+
+        @Override
+        void encodeRow(Transaction transaction) {
+            put(ID);
+            if (transaction.getTransactionId() == null) {
+                put(NULL);
+            } else {
+                put((byte) '"');
+                putUuid(transaction.getTransactionId());
+                put((byte) '"');
+            }
+            put(DATE_TIME);
+            if (transaction.getDateTime() == null) {
+                put(NULL);
+            } else {
+                put((byte) '"');
+                putDateTime(transaction.getDateTime());
+                put((byte) '"');
+            }
+            put(TYPE);
+            if (transaction.getType() == null) {
+                put(NULL);
+            } else {
+                put((byte) '"');
+                putType(transaction.getType());
+                put((byte) '"');
+            }
+            put(CATEGORY);
+            if (transaction.getCategory() == null) {
+                put(NULL);
+            } else {
+                putCategory(transaction.getCategory());
+            }
+            put(AMOUNT);
+            if (transaction.getAmount() == null) {
+                put(NULL);
+            } else {
+                putAmount(transaction.getAmount());
+            }
+            put(DESCRIPTION);
+            if (transaction.getDescription() == null) {
+                put(NULL);
+            } else {
+                putString(transaction.getDescription());
+            }
+            put(END);
+        }
+
+        @Override
+        void putCategoryName(String name) {
+            putString(name);
+        }
+
+        private void putString(String value) {
+            put((byte) '"');
+            for (int i = 0; i < value.length(); ) {
+                char c = value.charAt(i);
+                if (c == '"' || c == '\\') {
+                    put((byte) '\\');
+                    put((byte) c);
+                    i++;
+                } else if (c < 0x20) {
+                    putControl(c);
+                    i++;
+                } else {
+                    i += putChar(value, i);
+                }
+            }
+            put((byte) '"');
+        }
+
+        private void putControl(char c) {
+            switch (c) {
+                case '\n' -> putAscii("\\n");
+                case '\r' -> putAscii("\\r");
+                case '\t' -> putAscii("\\t");
+                case '\b' -> putAscii("\\b");
+                case '\f' -> putAscii("\\f");
+                default -> {
+                    putAscii("\\u00");
+                    put(HEX[c >> 4]);
+                    put(HEX[c & 0xF]);
+                }
+            }
+        }
+    }
+}
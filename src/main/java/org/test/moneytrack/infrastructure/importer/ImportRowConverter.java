@@ -0,0 +1,108 @@
+package org.test.moneytrack.infrastructure.importer;
+
+import org.test.moneytrack.domain.model.Category;
+import org.test.moneytrack.domain.model.Money;
+import org.test.moneytrack.domain.model.Transaction;
+import org.test.moneytrack.domain.model.TransactionType;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Проверка и преобразование полей одной строки импорта (одинаково для CSV и JSONL) в Transaction.
+ *
+ * Правила:
+ * - дата: yyyy-MM-dd, yyyy-MM-ddTHH:mm[:ss] или yyyy-MM-dd HH:mm[:ss],
+ *   в пределах 1678-2261 годов (точный диапазон индекса по времени);
+ * - сумма: число, разделитель дробной части - точка или запятая;
+ * - тип: INCOME/EXPENSE (или доход/расход); если типа нет, он определяется по знаку суммы
+ *   (отрицательная - расход), как в банковских выписках;
+ * - для расхода категория обязательна, как и при add_expense.
+ * Ошибка в строке - IllegalArgumentException с понятным сообщением.
+ */
+final class ImportRowConverter {
+
+    // Годы, целиком попадающие в точный диапазон ключей времени (TransactionStore.timeKey)
+    private static final int MIN_YEAR = 1678;
+    private static final int MAX_YEAR = 2261;
+
+    private ImportRowConverter() {
+    }
+
+    static Transaction toTransaction(String date, String type, String category, String amount, String description) {
+        BigDecimal value = parseAmount(amount);
+        TransactionType transactionType;
+        if (isBlank(type)) {
+            if (value.signum() == 0) {
+                throw new IllegalArgumentException("сумма должна быть больше нуля");
+            }
+            transactionType = (value.signum() < 0) ? TransactionType.EXPENSE : TransactionType.INCOME;
+            value = value.abs();
+        } else {
+            transactionType = parseType(type);
+            if (value.signum() <= 0) {
+                throw new IllegalArgumentException("сумма должна быть больше нуля");
+            }
+        }
+
+        Category transactionCategory = isBlank(category) ? null : Category.of(category.trim());
+        if (transactionType == TransactionType.EXPENSE && transactionCategory == null) {
+            throw new IllegalArgumentException("для расхода необходимо указать категорию");
+        }
+
+        return new Transaction(
+                transactionType,
+                transactionCategory,
+                Money.of(value),
+                parseDate(date),
+                isBlank(description) ? null : description);
+    }
+
+    private static BigDecimal parseAmount(String amount) {
+        if (isBlank(amount)) {
+            throw new IllegalArgumentException("не указана сумма");
+        }
+        String normalized = amount.trim().replace(" ", "").replace(" ", "").replace(',', '.');
+        try {
+            return new BigDecimal(normalized);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("некорректная сумма '" + amount + "'");
+        }
+    }
+
+    private static TransactionType parseType(String type) {
+        return switch (type.trim().toLowerCase()) {
+            case "income", "доход" -> TransactionType.INCOME;
+            case "expense", "расход" -> TransactionType.EXPENSE;
+            default -> throw new IllegalArgumentException("неизвестный тип операции '" + type + "'");
+        };
+    }
+
+    private static LocalDateTime parseDate(String date) {
+        if (isBlank(date)) {
+            throw new IllegalArgumentException("не указана дата");
+        }
+        String value = date.trim();
+        LocalDateTime dateTime;
+        try {
+            if (value.length() == 10) {
+                dateTime = LocalDate.parse(value).atStartOfDay();
+            } else {
+                dateTime = LocalDateTime.parse(value.replace(' ', 'T'));
+            }
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("некорректная дата '" + date + "'");
+        }
+        if (dateTime.getYear() < MIN_YEAR || dateTime.getYear() > MAX_YEAR) {
+            throw new IllegalArgumentException("дата '" + date + "' вне поддерживаемого диапазона ("
+                    + MIN_YEAR + "-" + MAX_YEAR + " годы)");
+        }
+        return dateTime;
+    }
+
+    private static boolean isBlank(String s) {
+        return s == null || s.isBlank();
+    }
+}
@@ -0,0 +1,325 @@
+package org.test.moneytrack.infrastructure.importer;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.test.moneytrack.application.port.TransactionImportReader;
+import org.test.moneytrack.domain.model.Transaction;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Чтение файлов импорта (CSV и JSON Lines) параллельными кусками.
+ *
+ * Файл делится на куски примерно по chunkSize байт; границы сдвигаются на ближайший
+ * перевод строки, поэтому каждая строка целиком попадает в один кусок. Куски читаются
+ * позиционным чтением из общего FileChannel и разбираются параллельно (parallel stream),
+ * результаты склеиваются в исходном порядке строк.
+ *
+ * CSV: первая строка - заголовок с названиями колонок (date, type, category, amount, description
+ * или дата, тип, категория, сумма, описание), разделитель - запятая, точка с запятой или табуляция.
+ * Поля в кавычках поддерживаются, переводы строк внутри поля - нет.
+ * JSONL: по объекту на строку с полями dateTime (или date), type, category, amount, description.
+ */
+public class ParallelTransactionImportReader implements TransactionImportReader {
+
+    private static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+    private static final int BOUNDARY_PROBE = 8 * 1024;
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final int chunkSize;
+
+    public ParallelTransactionImportReader() {
+        this(DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param chunkSize примерный размер куска файла в байтах
+     */
+    public ParallelTransactionImportReader(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Разбор одной строки файла в транзакцию.
+     */
+    private interface RowParser {
+        Transaction parse(String line) throws IOException;
+    }
+
+    /**
+     * Результат разбора куска: транзакции, ошибки (с номером строки внутри куска) и число строк.
+     */
+    private static final class ChunkResult {
+        final List<Transaction> transactions = new ArrayList<>();
+        final List<String> errors = new ArrayList<>();
+        final List<Integer> errorLines = new ArrayList<>();
+        int lines;
+    }
+
+    @Override
+    public Result read(String fileName, Format format) throws IOException {
+        Path path = Paths.get(fileName);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long dataStart = 0;
+            int headerLines = 0;
+            RowParser parser;
+            if (format == Format.CSV) {
+                long headerEnd = nextLineStart(channel, 0, size);
+                String header = readString(channel, 0, headerEnd).strip();
+                if (header.startsWith("\uFEFF")) {
+                    header = header.substring(1);
+                }
+                if (header.isEmpty()) {
+                    throw new IOException("в CSV-файле нет строки заголовка");
+                }
+                parser = csvParser(header);
+                dataStart = headerEnd;
+                headerLines = 1;
+            } else {
+                parser = this::parseJsonLine;
+            }
+
+            List<long[]> chunks = split(channel, dataStart, size);
+            List<ChunkResult> results;
+            try {
+                results = chunks.parallelStream()
+                        .map(chunk -> parseChunk(channel, chunk[0], chunk[1], parser))
+                        .collect(Collectors.toList());
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            // Склеиваем куски по порядку и переводим номера строк в сквозные (с 1)
+            List<Transaction> transactions = new ArrayList<>();
+            List<String> errors = new ArrayList<>();
+            int lineOffset = headerLines;
+            for (ChunkResult result : results) {
+                transactions.addAll(result.transactions);
+                for (int i = 0; i < result.errors.size(); i++) {
+                    errors.add("строка " + (lineOffset + result.errorLines.get(i)) + ": " + result.errors.get(i));
+                }
+                lineOffset += result.lines;
+            }
+            return new Result(transactions, errors);
+        } catch (NoSuchFileException e) {
+            throw new IOException("файл не найден: " + fileName, e);
+        }
+    }
+
+    // ---------------- Деление на куски ----------------
+
+    /**
+     * Границы кусков [from, to): каждая граница стоит сразу после '\n'.
+     */
+    private List<long[]> split(FileChannel channel, long start, long size) throws IOException {
+        List<long[]> chunks = new ArrayList<>();
+        long from = start;
+        while (from < size) {
+            long to = (size - from <= chunkSize) ? size : nextLineStart(channel, from + chunkSize, size);
+            chunks.add(new long[]{from, to});
+            from = to;
+        }
+        return chunks;
+    }
+
+    /**
+     * Позиция начала строки, следующей за позицией position (или size, если строк больше нет).
+     */
+    private static long nextLineStart(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer probe = ByteBuffer.allocate(BOUNDARY_PROBE);
+        long offset = position;
+        while (offset < size) {
+            probe.clear();
+            int read = channel.read(probe, offset);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (probe.get(i) == '\n') {
+                    return offset + i + 1;
+                }
+            }
+            offset += read;
+        }
+        return size;
+    }
+
+    private static String readString(FileChannel channel, long from, long to) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) (to - from));
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, from + buffer.position()) < 0) {
+                break;
+            }
+        }
+        // Кусок начинается и заканчивается на границе строки, поэтому символы UTF-8 не разрезаются
+        return new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8);
+    }
+
+    private static ChunkResult parseChunk(FileChannel channel, long from, long to, RowParser parser) {
+        String text;
+        try {
+            text = readString(channel, from, to);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        ChunkResult result = new ChunkResult();
+        int lineStart = 0;
+        while (lineStart < text.length()) {
+            int lineEnd = text.indexOf('\n', lineStart);
+            if (lineEnd < 0) {
+                lineEnd = text.length();
+            }
+            result.lines++;
+            String line = text.substring(lineStart, lineEnd).strip();
+            lineStart = lineEnd + 1;
+            if (line.isEmpty()) {
+                continue;
+            }
+            try {
+                result.transactions.add(parser.parse(line));
+            } catch (IllegalArgumentException | IOException e) {
+                result.errors.add(e.getMessage());
+                result.errorLines.add(result.lines);
+            }
+        }
+        return result;
+    }
+
+    // ---------------- CSV ----------------
+
+    private static RowParser csvParser(String header) throws IOException {
+        char delimiter = header.indexOf(';') >= 0 ? ';' : header.indexOf('\t') >= 0 ? '\t' : ',';
+        List<String> columns = splitCsv(header, delimiter);
+        int date = -1, type = -1, category = -1, amount = -1, description = -1;
+        for (int i = 0; i < columns.size(); i++) {
+            switch (columns.get(i).trim().toLowerCase()) {
+                case "date", "datetime", "дата" -> date = i;
+                case "type", "тип" -> type = i;
+                case "category", "категория" -> category = i;
+                case "amount", "сумма" -> amount = i;
+                case "description", "описание" -> description = i;
+                default -> {
+                    // Лишние колонки выписки пропускаем
+                }
+            }
+        }
+        if (date < 0 || amount < 0) {
+            throw new IOException("в заголовке CSV нужны колонки date и amount: " + header);
+        }
+        int dateColumn = date, typeColumn = type, categoryColumn = category,
+                amountColumn = amount, descriptionColumn = description;
+        return line -> {
+            List<String> fields = splitCsv(line, delimiter);
+            return ImportRowConverter.toTransaction(
+                    field(fields, dateColumn),
+                    field(fields, typeColumn),
+                    field(fields, categoryColumn),
+                    field(fields, amountColumn),
+                    field(fields, descriptionColumn));
+        };
+    }
+
+    private static String field(List<String> fields, int index) {
+        return (index >= 0 && index < fields.size()) ? fields.get(index) : null;
+    }
+
+    /**
+     * Делит строку CSV на поля; поле в двойных кавычках может содержать разделитель,
+     * "" внутри кавычек - это сама кавычка.
+     */
+    private static List<String> splitCsv(String line, char delimiter) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == delimiter) {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+
+    // ---------------- JSON Lines ----------------
+
+    private Transaction parseJsonLine(String line) throws IOException {
+        String date = null, type = null, category = null, amount = null, description = null;
+        try (JsonParser parser = jsonFactory.createParser(line)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("ожидался JSON-объект");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                switch (name) {
+                    case "dateTime", "date" -> date = scalar(parser, value);
+                    case "type" -> type = scalar(parser, value);
+                    case "amount" -> amount = scalar(parser, value);
+                    case "description" -> description = scalar(parser, value);
+                    case "category" -> category = (value == JsonToken.START_OBJECT)
+                            ? categoryName(parser)
+                            : scalar(parser, value);
+                    default -> parser.skipChildren();
+                }
+            }
+        } catch (com.fasterxml.jackson.core.JsonProcessingException e) {
+            throw new IllegalArgumentException("некорректный JSON: " + e.getOriginalMessage());
+        }
+        return ImportRowConverter.toTransaction(date, type, category, amount, description);
+    }
+
+    private static String scalar(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (value.isStructStart()) {
+            parser.skipChildren();
+            return null;
+        }
+        return parser.getText();
+    }
+
+    /**
+     * Категория в формате файлов данных: {"name": "..."}.
+     */
+    private static String categoryName(JsonParser parser) throws IOException {
+        String name = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if ("name".equals(field)) {
+                name = scalar(parser, value);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return name;
+    }
+}
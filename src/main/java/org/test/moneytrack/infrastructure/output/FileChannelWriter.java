@@ -0,0 +1,146 @@
+package org.test.moneytrack.infrastructure.output;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writer поверх FileChannel с собственными буферами: символы копятся в CharBuffer,
+ * кодируются в UTF-8 прямо в ByteBuffer и пишутся в канал, когда буфер заполнен.
+ * Память не зависит от размера отчёта, а первые байты попадают в файл,
+ * пока остальной отчёт ещё формируется.
+ *
+ * Не потокобезопасен: один отчёт пишет один поток.
+ */
+final class FileChannelWriter extends Writer {
+
+    private static final int CHAR_BUFFER_SIZE = 8 * 1024;
+    // UTF-8: до 3 байт на символ из CharBuffer (суррогатная пара - 4 байта на 2 символа)
+    private static final int BYTE_BUFFER_SIZE = 3 * CHAR_BUFFER_SIZE;
+
+    private final FileChannel channel;
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final CharBuffer chars = CharBuffer.allocate(CHAR_BUFFER_SIZE);
+    private final ByteBuffer bytes = ByteBuffer.allocateDirect(BYTE_BUFFER_SIZE);
+    private boolean closed;
+
+    /**
+     * Создаёт (или перезаписывает) файл, как Files.writeString.
+     */
+    FileChannelWriter(Path file) throws IOException {
+        this.channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        ensureOpen();
+        if (!chars.hasRemaining()) {
+            encode(false);
+        }
+        chars.put((char) c);
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        ensureOpen();
+        while (len > 0) {
+            if (!chars.hasRemaining()) {
+                encode(false);
+            }
+            int n = Math.min(len, chars.remaining());
+            chars.put(cbuf, off, n);
+            off += n;
+            len -= n;
+        }
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        ensureOpen();
+        while (len > 0) {
+            if (!chars.hasRemaining()) {
+                encode(false);
+            }
+            int n = Math.min(len, chars.remaining());
+            chars.put(str, off, off + n);
+            off += n;
+            len -= n;
+        }
+    }
+
+    @Override
+    public Writer append(CharSequence csq) throws IOException {
+        String str = String.valueOf(csq);
+        write(str, 0, str.length());
+        return this;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        encode(false);
+        drainBytes();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            encode(true);
+            while (encoder.flush(bytes).isOverflow()) {
+                drainBytes();
+            }
+            drainBytes();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Кодирует накопленные символы в байтовый буфер, сбрасывая его в канал при переполнении.
+     * Незавершённая суррогатная пара остаётся в CharBuffer до следующей записи.
+     */
+    private void encode(boolean endOfInput) throws IOException {
+        chars.flip();
+        while (true) {
+            CoderResult result = encoder.encode(chars, bytes, endOfInput);
+            if (result.isOverflow()) {
+                drainBytes();
+                continue;
+            }
+            if (result.isError()) {
+                result.throwException();
+            }
+            break;
+        }
+        chars.compact();
+    }
+
+    private void drainBytes() throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        bytes.clear();
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Файл отчёта уже закрыт");
+        }
+    }
+}
@@ -3,26 +3,67 @@ package org.test.moneytrack.infrastructure.output;
 import org.test.moneytrack.application.port.OutputRepository;
 
 import java.io.IOException;
+import java.io.Writer;
 import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 
 /**
  * Реализация OutputRepository,
  * которая физически записывает строки в файловую систему.
+ * Потоковая запись (openWriter) идёт через буферизованный FileChannel.
+ *
+ * Имя файла - относительный путь внутри directory: абсолютные пути, ".." и всё,
+ * что после нормализации выходит за directory, отклоняются (IOException).
  */
 public class FileOutputRepository implements OutputRepository {
 
     @Override
     public void writeToFile(String directory, String filename, String content) {
         try {
-            Path dirPath = Paths.get(directory);
-            if (!Files.exists(dirPath)) {
-                Files.createDirectories(dirPath);
-            }
-            Files.writeString(dirPath.resolve(filename), content);
+            Files.writeString(resolveInside(directory, filename), content);
         } catch (IOException e) {
             System.err.println("Ошибка записи в файл " + filename + ": " + e.getMessage());
         }
     }
+
+    @Override
+    public Writer openWriter(String directory, String filename) throws IOException {
+        return new FileChannelWriter(resolveInside(directory, filename));
+    }
+
+    /**
+     * Путь к файлу filename внутри directory (папки создаются).
+     *
+     * @throws IOException если имя пустое, абсолютное, содержит ".." или выходит за directory
+     */
+    public static Path resolveInside(String directory, String filename) throws IOException {
+        Path dirPath = Paths.get(directory).toAbsolutePath().normalize();
+        Path target;
+        try {
+            Path relative = Paths.get(filename);
+            if (filename.isBlank() || relative.isAbsolute() || relative.getRoot() != null) {
+                throw invalidName(filename);
+            }
+            for (Path part : relative) {
+                if ("..".equals(part.toString())) {
+                    throw invalidName(filename);
+                }
+            }
+            target = dirPath.resolve(relative).normalize();
+        } catch (InvalidPathException e) {
+            throw invalidName(filename);
+        }
+        if (!target.startsWith(dirPath) || target.equals(dirPath)) {
+            throw invalidName(filename);
+        }
+        Files.createDirectories(target.getParent());
+        return target;
+    }
+
+    private static IOException invalidName(String filename) {
+        return new IOException("недопустимое имя файла '" + filename
+                + "' (нужен относительный путь без '..')");
+    }
 }
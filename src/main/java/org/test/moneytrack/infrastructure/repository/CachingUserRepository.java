@@ -0,0 +1,460 @@
+package org.test.moneytrack.infrastructure.repository;
+
+import org.test.moneytrack.domain.model.User;
+import org.test.moneytrack.domain.model.Wallet;
+import org.test.moneytrack.domain.repository.UserRepository;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Кэш пользователей в памяти поверх файлового репозитория (вместо неограниченного InMemoryUserRepository).
+ *
+ * - Чтение сквозное: промах загружает пользователя из backing-репозитория.
+ * - save/update только кладут пользователя в кэш и помечают его изменённым (dirty);
+ *   на диск он записывается при вытеснении (write-back) или в flush(), который пишет
+ *   только изменённых пользователей (его периодически вызывает WriteBehindFlusher).
+ *   Несколько изменений пользователя между сохранениями дают одну запись.
+ *   Если запись не удалась, пользователь остаётся изменённым (и в кэше) до следующей попытки.
+ * - Размер ограничен оценкой занимаемой памяти (вес растёт с числом транзакций),
+ *   вытесняются давно не использованные (LRU). Пользователь, с которым сейчас работают
+ *   (его блокировка занята), не вытесняется.
+ * - Вытесненный пользователь ещё какое-то время доступен по слабой ссылке: пока на объект
+ *   ссылается сессия, повторный запрос вернёт тот же экземпляр, а не вторую копию с диска,
+ *   и изменения сессии не разойдутся с кэшем. Внешние ресурсы его истории (Wallet.getResources(),
+ *   например отображённые колонки) освобождаются, когда объект собран сборщиком мусора:
+ *   закрыть их сразу при вытеснении нельзя, сессия может продолжать работать с кошельком.
+ *
+ * Сами объекты User/Wallet не потокобезопасны - их меняют и читают под lockFor(login).
+ */
+public class CachingUserRepository implements UserRepository {
+
+    // Оценка памяти: пользователь с пустым кошельком (индексы, агрегаты, бюджеты)
+    // и одна транзакция в куче (объект, UUID, сумма, дата, описание, записи индексов)
+    static final long BASE_WEIGHT = 4 * 1024;
+    static final long TRANSACTION_WEIGHT = 320;
+
+    private static final class Entry {
+        final User user;
+        long weight;
+        boolean dirty;
+
+        Entry(User user, boolean dirty) {
+            this.user = user;
+            this.weight = weightOf(user);
+            this.dirty = dirty;
+        }
+    }
+
+    private static final class UserRef extends WeakReference<User> {
+        final String login;
+        // Не ссылается на пользователя, поэтому не мешает его собрать
+        final Closeable resources;
+
+        UserRef(User user, ReferenceQueue<User> queue) {
+            super(user, queue);
+            this.login = user.getLogin();
+            this.resources = (user.getWallet() != null) ? user.getWallet().getResources() : null;
+        }
+    }
+
+    private final UserRepository backing;
+    private final long maxWeight;
+    private final UserLocks locks = new UserLocks();
+
+    // Порядок доступа: первым идёт давно не использованный пользователь
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, UserRef> evicted = new HashMap<>();
+    private final ReferenceQueue<User> collected = new ReferenceQueue<>();
+    private long weight;
+    private int dirtyCount;
+
+    // Один flush за раз: второй дождётся первого и запишет только то, что изменилось после него
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private volatile IntConsumer dirtyListener;
+    private volatile Consumer<List<String>> persistedListener;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder writeBacks = new LongAdder();
+    private final LongAdder flushedUsers = new LongAdder();
+
+    /**
+     * @param backing   репозиторий, из которого загружаются и в который записываются пользователи
+     * @param maxWeight ограничение оценки занимаемой памяти, в байтах
+     */
+    public CachingUserRepository(UserRepository backing, long maxWeight) {
+        this.backing = backing;
+        this.maxWeight = maxWeight;
+    }
+
+    @Override
+    public Optional<User> findByLogin(String login) {
+        synchronized (this) {
+            Entry entry = entries.get(login);
+            if (entry == null) {
+                entry = revive(login);
+            }
+            if (entry != null) {
+                hits.increment();
+                return Optional.of(entry.user);
+            }
+        }
+        misses.increment();
+        // Промах: загружаем под блокировкой логина, чтобы два параллельных запроса
+        // не положили в кэш два разных объекта User
+        Lock lock = lockFor(login).writeLock();
+        lock.lock();
+        try {
+            synchronized (this) {
+                Entry entry = entries.get(login);
+                if (entry != null) {
+                    return Optional.of(entry.user);
+                }
+            }
+            Optional<User> loaded = backing.findByLogin(login);
+            loaded.ifPresent(user -> put(user, false));
+            return loaded;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void save(User user) {
+        put(user, true);
+    }
+
+    @Override
+    public void update(User user) {
+        put(user, true);
+    }
+
+    @Override
+    public void delete(User user) {
+        synchronized (this) {
+            Entry entry = entries.remove(user.getLogin());
+            if (entry != null) {
+                weight -= entry.weight;
+                if (entry.dirty) {
+                    dirtyCount--;
+                }
+            }
+            evicted.remove(user.getLogin());
+        }
+        backing.delete(user);
+    }
+
+    /**
+     * Пользователи, которые сейчас в кэше (вытесненные не возвращаются).
+     */
+    @Override
+    public synchronized Collection<User> findAll() {
+        List<User> users = new ArrayList<>(entries.size());
+        entries.values().forEach(entry -> users.add(entry.user));
+        return users;
+    }
+
+    @Override
+    public ReadWriteLock lockFor(String login) {
+        return locks.lockFor(login);
+    }
+
+    /**
+     * Записывает всех изменённых пользователей одним вызовом backing.updateAll
+     * (журнальное хранилище фиксирует их одной пачкой). Пока пользователи пишутся,
+     * их блокировки чтения заняты (в порядке логинов, как при переводе),
+     * поэтому снимок каждого кошелька согласован, а изменения после записи снова пометят его.
+     *
+     * @throws RuntimeException ошибка backing-репозитория; пользователи при этом остаются
+     *                          изменёнными и будут записаны следующим flush()
+     */
+    @Override
+    public void flush() {
+        flushLock.lock();
+        try {
+            // TreeMap - чтобы блокировки брались в порядке логинов
+            Map<String, Entry> dirty = new TreeMap<>();
+            synchronized (this) {
+                entries.forEach((login, entry) -> {
+                    if (entry.dirty) {
+                        dirty.put(login, entry);
+                    }
+                });
+            }
+            if (dirty.isEmpty()) {
+                return;
+            }
+            List<Lock> acquired = new ArrayList<>(dirty.size());
+            try {
+                List<User> users = new ArrayList<>(dirty.size());
+                for (Entry entry : dirty.values()) {
+                    Lock lock = lockFor(entry.user.getLogin()).readLock();
+                    lock.lock();
+                    acquired.add(lock);
+                    users.add(entry.user);
+                }
+                backing.updateAll(users);
+                flushedUsers.add(users.size());
+                notifyPersisted(new ArrayList<>(dirty.keySet()));
+                synchronized (this) {
+                    for (Entry entry : dirty.values()) {
+                        // Вытесненный за это время уже снят со счёта при вытеснении
+                        if (entry.dirty && entries.get(entry.user.getLogin()) == entry) {
+                            dirtyCount--;
+                        }
+                        entry.dirty = false;
+                    }
+                }
+            } finally {
+                for (int i = acquired.size() - 1; i >= 0; i--) {
+                    acquired.get(i).unlock();
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Слушатель изменений: получает число изменённых пользователей после каждой пометки
+     * (по нему WriteBehindFlusher запускает запись досрочно).
+     */
+    public void setDirtyListener(IntConsumer listener) {
+        this.dirtyListener = listener;
+    }
+
+    /**
+     * Слушатель записи: получает логины пользователей, только что записанных в backing
+     * (flush или вытеснение). Вызывается, пока блокировки чтения этих пользователей ещё заняты,
+     * поэтому всё, что было сделано с пользователем до вызова, в записанном файле есть.
+     */
+    public void setPersistedListener(Consumer<List<String>> listener) {
+        this.persistedListener = listener;
+    }
+
+    public synchronized int getDirtyCount() {
+        return dirtyCount;
+    }
+
+    public long getFlushedCount() {
+        return flushedUsers.sum();
+    }
+
+    // ---------------- Счётчики ----------------
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public long getWriteBackCount() {
+        return writeBacks.sum();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+
+    /**
+     * Оценка памяти пользователя: растёт линейно с числом транзакций в истории.
+     */
+    static long weightOf(User user) {
+        Wallet wallet = user.getWallet();
+        return (wallet == null) ? BASE_WEIGHT : BASE_WEIGHT + wallet.getAppendedCount() * TRANSACTION_WEIGHT;
+    }
+
+    // ---------------- Вытеснение ----------------
+
+    /**
+     * Кладёт (или обновляет) пользователя в кэш и вытесняет лишнее.
+     */
+    private void put(User user, boolean dirty) {
+        List<Entry> victims;
+        List<Lock> victimLocks = new ArrayList<>();
+        int dirtyNow;
+        synchronized (this) {
+            expungeCollected();
+            evicted.remove(user.getLogin());
+            Entry entry = entries.get(user.getLogin());
+            if (entry != null && entry.user == user) {
+                weight -= entry.weight;
+                entry.weight = weightOf(user);
+                if (dirty && !entry.dirty) {
+                    entry.dirty = true;
+                    dirtyCount++;
+                }
+            } else {
+                entry = new Entry(user, dirty);
+                Entry previous = entries.put(user.getLogin(), entry);
+                if (previous != null) {
+                    weight -= previous.weight;
+                    if (previous.dirty) {
+                        dirtyCount--;
+                    }
+                }
+                if (dirty) {
+                    dirtyCount++;
+                }
+            }
+            weight += entry.weight;
+            victims = selectVictims(user.getLogin(), victimLocks);
+            dirtyNow = dirtyCount;
+        }
+        writeBack(victims, victimLocks);
+        IntConsumer listener = dirtyListener;
+        if (dirty && listener != null) {
+            listener.accept(dirtyNow);
+        }
+    }
+
+    /**
+     * Убирает из кэша давно не использованных пользователей, пока вес больше ограничения.
+     * Пользователь, только что положенный в кэш, и пользователи, занятые другими потоками, пропускаются.
+     * Блокировки чтения выбранных пользователей остаются захваченными до записи на диск.
+     */
+    private List<Entry> selectVictims(String keep, List<Lock> victimLocks) {
+        List<Entry> victims = new ArrayList<>();
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (weight > maxWeight && it.hasNext()) {
+            Map.Entry<String, Entry> candidate = it.next();
+            if (candidate.getKey().equals(keep)) {
+                continue;
+            }
+            Lock lock = lockFor(candidate.getKey()).readLock();
+            if (!lock.tryLock()) {
+                continue;
+            }
+            it.remove();
+            Entry entry = candidate.getValue();
+            weight -= entry.weight;
+            if (entry.dirty) {
+                dirtyCount--;
+            }
+            evicted.put(candidate.getKey(), new UserRef(entry.user, collected));
+            evictions.increment();
+            victims.add(entry);
+            victimLocks.add(lock);
+        }
+        return victims;
+    }
+
+    /**
+     * Записывает изменённых вытесненных пользователей (вне монитора кэша: запись идёт на диск).
+     * Пока пользователь пишется, его блокировка чтения занята, поэтому изменить его никто не успеет:
+     * изменение после записи снова положит его в кэш как изменённого.
+     * Пользователь, которого записать не удалось, возвращается в кэш изменённым; блокировки
+     * снимаются со всех вытесненных, что бы ни случилось.
+     */
+    private void writeBack(List<Entry> victims, List<Lock> victimLocks) {
+        try {
+            for (Entry entry : victims) {
+                if (!entry.dirty) {
+                    continue;
+                }
+                try {
+                    backing.update(entry.user);
+                    writeBacks.increment();
+                    notifyPersisted(List.of(entry.user.getLogin()));
+                } catch (RuntimeException e) {
+                    // Изменения ещё только в памяти: вытеснять пользователя нельзя
+                    System.err.println("Ошибка записи вытесняемого пользователя: " + e.getMessage());
+                    restoreDirty(entry);
+                }
+            }
+        } finally {
+            for (Lock lock : victimLocks) {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void notifyPersisted(List<String> logins) {
+        Consumer<List<String>> listener = persistedListener;
+        if (listener != null) {
+            listener.accept(logins);
+        }
+    }
+
+    /**
+     * Возвращает в кэш изменённым пользователя, которого не удалось записать при вытеснении.
+     */
+    private synchronized void restoreDirty(Entry entry) {
+        String login = entry.user.getLogin();
+        evicted.remove(login);
+        Entry current = entries.get(login);
+        if (current == null) {
+            entries.put(login, entry);
+            weight += entry.weight;
+            dirtyCount++;
+        } else if (!current.dirty) {
+            // Тот же объект уже вернули в кэш через revive() как записанный
+            current.dirty = true;
+            dirtyCount++;
+        }
+    }
+
+    /**
+     * Возвращает в кэш вытесненного пользователя, если объект ещё жив (на него ссылается сессия).
+     */
+    private Entry revive(String login) {
+        expungeCollected();
+        UserRef ref = evicted.remove(login);
+        User user = (ref != null) ? ref.get() : null;
+        if (user == null) {
+            return null;
+        }
+        // При вытеснении он уже записан на диск (или записывается сейчас под его блокировкой)
+        Entry entry = new Entry(user, false);
+        entries.put(login, entry);
+        weight += entry.weight;
+        return entry;
+    }
+
+    private void expungeCollected() {
+        UserRef ref;
+        while ((ref = (UserRef) collected.poll()) != null) {
+            evicted.remove(ref.login, ref);
+            if (ref.resources != null) {
+                try {
+                    ref.resources.close();
+                } catch (IOException e) {
+                    System.err.println("Ошибка освобождения истории " + ref.login + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -2,65 +2,237 @@ package org.test.moneytrack.infrastructure.repository;
 
 import org.test.moneytrack.domain.model.User;
 import org.test.moneytrack.domain.repository.UserRepository;
-import org.test.moneytrack.infrastructure.storage.JsonFileStorage;
+import org.test.moneytrack.infrastructure.storage.UserStorage;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
- * Репозиторий, реализующий хранение пользователей в JSON-файлах.
+ * Репозиторий, реализующий хранение пользователей в файлах.
  * Для каждого пользователя создаётся отдельный файл: data_{login}.json
+ * (формат определяется переданным UserStorage).
+ *
+ * Ошибка записи файла не проглатывается: update/updateAll/save выбрасывают UncheckedIOException,
+ * чтобы вызывающий (кэш, перевод, импорт) не считал несохранённые данные записанными.
+ * Пользователи из findAll/streamAll загружаются только для чтения (для отчётов) и не сохраняются.
  */
 public class FileUserRepository implements UserRepository {
 
-    private final JsonFileStorage jsonFileStorage;
+    private final UserStorage jsonFileStorage;
+    // Запись файла одного пользователя из двух потоков сразу испортила бы его
+    private final UserLocks locks = new UserLocks();
 
-    public FileUserRepository(JsonFileStorage jsonFileStorage) {
+    public FileUserRepository(UserStorage jsonFileStorage) {
         this.jsonFileStorage = jsonFileStorage;
     }
 
     @Override
     public Optional<User> findByLogin(String login) {
         User user = jsonFileStorage.loadUser(login);
+        if (user != null && user.getWallet() != null) {
+            // Удаления, проигранные из журнала при загрузке, уже на диске
+            user.getWallet().discardDeletedBefore(user.getWallet().getDeletedCount());
+        }
         return Optional.ofNullable(user);
     }
 
     @Override
     public void save(User user) {
-        try {
-            // Проверяем, не существует ли уже пользователь с таким логином
-            User existing = jsonFileStorage.loadUser(user.getLogin());
-            if (existing != null) {
-                // Можно выбросить ошибку или просто перезаписать
-                // Для учебного проекта - перезапишем
-            }
-            jsonFileStorage.saveUser(user);
-        } catch (IOException e) {
-            // Логируем ошибку
-            System.err.println("Ошибка сохранения пользователя: " + e.getMessage());
+        // Проверяем, не существует ли уже пользователь с таким логином
+        User existing = jsonFileStorage.loadUser(user.getLogin());
+        if (existing != null) {
+            // Можно выбросить ошибку или просто перезаписать
+            // Для учебного проекта - перезапишем
         }
+        // Запись файла - под блокировкой пользователя (см. update)
+        update(user);
     }
 
     @Override
     public void update(User user) {
+        Lock lock = lockFor(user.getLogin()).writeLock();
+        lock.lock();
         try {
             // Просто перезаписываем файл с новыми данными
+            int deleted = deletedCount(user);
             jsonFileStorage.saveUser(user);
+            discardDeleted(user, deleted);
         } catch (IOException e) {
-            System.err.println("Ошибка обновления пользователя: " + e.getMessage());
+            throw new UncheckedIOException("Ошибка записи пользователя " + user.getLogin() + ": " + e.getMessage(), e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Сохраняет пользователей одним вызовом хранилища (UserStorage.saveUsers).
+     * Файлы блокируются в порядке логинов, как и кошельки при переводе.
+     */
+    @Override
+    public void updateAll(List<User> users) {
+        // TreeMap упорядочивает по логину и убирает повторы (перевод самому себе)
+        Map<String, User> byLogin = new TreeMap<>();
+        users.forEach(user -> byLogin.put(user.getLogin(), user));
+        List<User> ordered = new ArrayList<>(byLogin.values());
+        List<Lock> acquired = new ArrayList<>();
+        try {
+            for (User user : ordered) {
+                Lock lock = lockFor(user.getLogin()).writeLock();
+                lock.lock();
+                acquired.add(lock);
+            }
+            int[] deleted = new int[ordered.size()];
+            for (int i = 0; i < deleted.length; i++) {
+                deleted[i] = deletedCount(ordered.get(i));
+            }
+            jsonFileStorage.saveUsers(ordered);
+            for (int i = 0; i < deleted.length; i++) {
+                discardDeleted(ordered.get(i), deleted[i]);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ошибка записи пользователей " + byLogin.keySet() + ": " + e.getMessage(), e);
+        } finally {
+            for (int i = acquired.size() - 1; i >= 0; i--) {
+                acquired.get(i).unlock();
+            }
         }
     }
 
     @Override
     public void delete(User user) {
-        jsonFileStorage.deleteUser(user.getLogin());
+        Lock lock = lockFor(user.getLogin()).writeLock();
+        lock.lock();
+        try {
+            jsonFileStorage.deleteUser(user.getLogin());
+        } finally {
+            lock.unlock();
+        }
     }
 
+    private static int deletedCount(User user) {
+        return (user.getWallet() != null) ? user.getWallet().getDeletedCount() : 0;
+    }
+
+    /**
+     * Записанные удаления кошельку больше не нужно помнить (см. Wallet.discardDeletedBefore).
+     */
+    private static void discardDeleted(User user, int deleted) {
+        if (user.getWallet() != null) {
+            user.getWallet().discardDeletedBefore(deleted);
+        }
+    }
+
+    /**
+     * Все пользователи с диска. Коллекция ленивая: список логинов читается из папки сразу,
+     * а каждый пользователь загружается только при переходе к нему в итераторе,
+     * поэтому в памяти одновременно нет всех кошельков. size() - число найденных файлов
+     * (пользователи с нечитаемыми файлами при обходе пропускаются).
+     */
     @Override
     public Collection<User> findAll() {
-        return Collections.emptyList();
+        List<String> logins = listLogins();
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<User> iterator() {
+                Iterator<String> names = logins.iterator();
+                return new Iterator<>() {
+                    private User next;
+
+                    @Override
+                    public boolean hasNext() {
+                        while (next == null && names.hasNext()) {
+                            next = load(names.next());
+                        }
+                        return next != null;
+                    }
+
+                    @Override
+                    public User next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        User user = next;
+                        next = null;
+                        return user;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return logins.size();
+            }
+        };
+    }
+
+    /**
+     * Последовательно: папка читается и пользователи загружаются по мере обхода потока.
+     * Параллельно: логины сначала собираются в список (он хорошо делится на части),
+     * затем пользователи загружаются и обрабатываются в общем ForkJoinPool.
+     * В обоих случаях в памяти только те пользователи, которые обрабатываются сейчас.
+     */
+    @Override
+    public Stream<User> streamAll(boolean parallel) {
+        return streamAll(parallel, login -> true);
+    }
+
+    /**
+     * Логины проверяются до загрузки: отфильтрованные пользователи с диска не читаются.
+     */
+    @Override
+    public Stream<User> streamAll(boolean parallel, Predicate<String> loginFilter) {
+        Stream<String> logins;
+        if (parallel) {
+            logins = listLogins().parallelStream();
+        } else {
+            try {
+                logins = jsonFileStorage.logins();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Ошибка чтения папки с данными", e);
+            }
+        }
+        return logins.filter(loginFilter).map(this::load).filter(Objects::nonNull);
+    }
+
+    private List<String> listLogins() {
+        try (Stream<String> logins = jsonFileStorage.logins()) {
+            return logins.collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ошибка чтения папки с данными", e);
+        }
+    }
+
+    /**
+     * Читает пользователя для отчёта под блокировкой чтения, чтобы не застать файл в момент перезаписи.
+     */
+    private User load(String login) {
+        Lock lock = lockFor(login).readLock();
+        lock.lock();
+        try {
+            return jsonFileStorage.loadUserForReading(login);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public ReadWriteLock lockFor(String login) {
+        return locks.lockFor(login);
     }
 
 }
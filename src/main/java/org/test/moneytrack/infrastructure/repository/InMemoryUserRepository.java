@@ -4,18 +4,21 @@ import org.test.moneytrack.domain.model.User;
 import org.test.moneytrack.domain.repository.UserRepository;
 
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
 
 /**
  * Простая реализация репозитория пользователей в памяти (InMemory).
- * Использует Map<login, User>.
+ * Использует ConcurrentHashMap<login, User>: поиск и сохранение безопасны из разных потоков.
+ * Сами объекты User/Wallet не потокобезопасны - их меняют и читают под lockFor(login).
  */
 public class InMemoryUserRepository implements UserRepository {
 
     // Хранилище пользователей в памяти
-    private final Map<String, User> users = new HashMap<>();
+    private final Map<String, User> users = new ConcurrentHashMap<>();
+    private final UserLocks locks = new UserLocks();
 
     @Override
     public Optional<User> findByLogin(String login) {
@@ -42,4 +45,9 @@ public class InMemoryUserRepository implements UserRepository {
     public Collection<User> findAll() {
         return users.values();
     }
+
+    @Override
+    public ReadWriteLock lockFor(String login) {
+        return locks.lockFor(login);
+    }
 }
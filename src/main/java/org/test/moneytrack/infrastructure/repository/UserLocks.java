@@ -0,0 +1,21 @@
+package org.test.moneytrack.infrastructure.repository;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Блокировки по логину: у каждого пользователя свой ReentrantReadWriteLock,
+ * поэтому операции разных пользователей друг друга не ждут.
+ * Блокировка создаётся при первом обращении и живёт, пока жив процесс
+ * (на пользователя - один небольшой объект).
+ */
+class UserLocks {
+
+    private final ConcurrentHashMap<String, ReadWriteLock> locks = new ConcurrentHashMap<>();
+
+    ReadWriteLock lockFor(String login) {
+        ReadWriteLock lock = locks.get(login);
+        return (lock != null) ? lock : locks.computeIfAbsent(login, k -> new ReentrantReadWriteLock());
+    }
+}
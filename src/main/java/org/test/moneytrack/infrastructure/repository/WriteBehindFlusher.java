@@ -0,0 +1,100 @@
+package org.test.moneytrack.infrastructure.repository;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Фоновая запись изменённых пользователей из кэша (write-behind).
+ *
+ * Раз в interval - и досрочно, как только изменённых пользователей набралось dirtyThreshold, -
+ * вызывает CachingUserRepository.flush(). Изменения, сделанные между запусками, сливаются:
+ * пользователь пишется один раз, сколько бы операций у него ни было.
+ * Досрочные запросы, пришедшие, пока запись уже запланирована, не добавляют новых запусков.
+ * Неудачная запись считается в getFailedCount(); пользователи остаются изменёнными в кэше,
+ * и следующий запуск пишет их снова.
+ */
+public class WriteBehindFlusher implements AutoCloseable {
+
+    private final CachingUserRepository cache;
+    private final Duration interval;
+    private final int dirtyThreshold;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final LongAdder failed = new LongAdder();
+
+    /**
+     * @param cache          кэш, изменения которого записываются
+     * @param interval       период записи
+     * @param dirtyThreshold при скольких изменённых пользователях записывать не дожидаясь периода
+     */
+    public WriteBehindFlusher(CachingUserRepository cache, Duration interval, int dirtyThreshold) {
+        this.cache = cache;
+        this.interval = interval;
+        this.dirtyThreshold = dirtyThreshold;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "moneytrack-flusher");
+            // Не мешает завершению процесса: последнюю запись делает close() из shutdown hook
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void start() {
+        long millis = interval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::flush, millis, millis, TimeUnit.MILLISECONDS);
+        cache.setDirtyListener(dirty -> {
+            if (dirty >= dirtyThreshold && flushRequested.compareAndSet(false, true)) {
+                try {
+                    scheduler.execute(this::flush);
+                } catch (RejectedExecutionException e) {
+                    // Уже остановлен: оставшееся запишет close()
+                }
+            }
+        });
+    }
+
+    /**
+     * Останавливает фоновую запись и записывает оставшиеся изменения в вызывающем потоке.
+     */
+    @Override
+    public void close() {
+        cache.setDirtyListener(null);
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            cache.flush();
+        } catch (RuntimeException e) {
+            // Остановка продолжается (закрыть журнал переводов, раздать события); данные не записаны
+            failed.increment();
+            System.err.println("Ошибка записи данных при остановке: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Сколько запусков записи завершились ошибкой.
+     */
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    private void flush() {
+        flushRequested.set(false);
+        try {
+            cache.flush();
+        } catch (RuntimeException e) {
+            // Фоновый поток не должен умирать: пользователи остались изменёнными,
+            // следующая попытка будет через interval (или досрочно, по dirtyThreshold)
+            failed.increment();
+            System.err.println("Ошибка фоновой записи данных: " + e.getMessage());
+        }
+    }
+}
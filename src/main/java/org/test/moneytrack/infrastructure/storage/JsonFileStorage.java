@@ -1,35 +1,50 @@
 package org.test.moneytrack.infrastructure.storage;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.core.JsonFactory;
+import org.test.moneytrack.diagnostics.jfr.StorageLoadEvent;
+import org.test.moneytrack.diagnostics.jfr.StorageSaveEvent;
+import org.test.moneytrack.diagnostics.metrics.Metrics;
+import org.test.moneytrack.diagnostics.metrics.Timer;
+import org.test.moneytrack.domain.model.Transaction;
 import org.test.moneytrack.domain.model.User;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Вспомогательный класс для сохранения и загрузки объекта User в/из JSON-файла.
- * Использует Jackson.
+ * Использует потоковый Jackson (JsonParser/JsonGenerator) без привязки данных:
+ * поля читает StreamingUserReader и пишет StreamingUserWriter.
  */
-public class JsonFileStorage {
+public class JsonFileStorage implements UserStorage {
 
-    private final ObjectMapper objectMapper;
+    // Время чтения и записи файлов пользователей (команда stats, JMX)
+    private static final Timer LOAD_TIMER = Metrics.timer("storage.json.load");
+    private static final Timer SAVE_TIMER = Metrics.timer("storage.json.save");
+    private static final Timer SAVE_BATCH_TIMER = Metrics.timer("storage.json.save_batch");
+
+    // Фабрика парсеров и генераторов не имеет состояния и общая для всех хранилищ
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final StreamingUserReader streamingReader;
+    private final StreamingUserWriter streamingWriter;
     private final String dataDirectory; // Папка, где храним файлы JSON
 
     /**
      * @param dataDirectory Путь к директории, где будут лежать файлы JSON
      */
     public JsonFileStorage(String dataDirectory) {
-        this.objectMapper = new ObjectMapper();
-
-        // Регистрируем поддержку Java 8 Time API
-        this.objectMapper.registerModule(new JavaTimeModule());
-        // Чтобы даты писались в человеко-читаемом формате, а не как таймстэмпы:
-        this.objectMapper.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
-
-        // Включаем функцию "pretty print"
-        this.objectMapper.enable(SerializationFeature.INDENT_OUTPUT);
+        // Загрузка и запись идут потоково, без построения промежуточного дерева объектов;
+        // файл - тот же "pretty print" с датами в ISO-формате, что писал ObjectMapper
+        this.streamingReader = new StreamingUserReader(JSON_FACTORY);
+        this.streamingWriter = new StreamingUserWriter(JSON_FACTORY);
 
         this.dataDirectory = dataDirectory;
 
@@ -44,34 +59,238 @@ public class JsonFileStorage {
      * Сохраняет пользователя в JSON-файл.
      * Файл будет называться data_{login}.json
      */
+    @Override
     public void saveUser(User user) throws IOException {
         String fileName = "data_" + user.getLogin() + ".json";
         File file = new File(dataDirectory, fileName);
-        objectMapper.writeValue(file, user);
+        long start = SAVE_TIMER.start();
+        StorageSaveEvent event = new StorageSaveEvent();
+        event.begin();
+        try {
+            streamingWriter.write(user, file);
+        } finally {
+            SAVE_TIMER.stop(start);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            commitSave(event, user, file.length(), false);
+        }
+    }
+
+    /**
+     * Сохраняет пользователя так, чтобы файл не мог остаться записанным наполовину:
+     * данные пишутся во временный файл, сбрасываются на диск (fsync)
+     * и атомарно подменяют data_{login}.json.
+     */
+    public void saveUserDurably(User user) throws IOException {
+        saveUserDurably(user, 0);
+    }
+
+    /**
+     * Надёжное сохранение снимка для журналируемого хранилища: вместе с пользователем
+     * записывается номер последней записи журнала, которая уже учтена в снимке.
+     */
+    public void saveUserDurably(User user, long journalSequence) throws IOException {
+        long start = SAVE_TIMER.start();
+        try {
+            File tmp = writeTemporary(user, journalSequence);
+            Files.move(tmp.toPath(), dataFile(user.getLogin()).toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            SAVE_TIMER.stop(start);
+        }
+    }
+
+    /**
+     * Сохраняет нескольких пользователей надёжно: сначала все временные файлы
+     * пишутся и сбрасываются на диск, и только потом подменяются основные файлы.
+     * Ошибка записи любого пользователя не трогает ни один основной файл.
+     */
+    @Override
+    public void saveUsers(List<User> users) throws IOException {
+        long start = SAVE_BATCH_TIMER.start();
+        try {
+            List<File> written = new ArrayList<>();
+            try {
+                for (User user : users) {
+                    written.add(writeTemporary(user));
+                }
+            } catch (IOException e) {
+                written.forEach(File::delete);
+                throw e;
+            }
+            for (int i = 0; i < users.size(); i++) {
+                Files.move(written.get(i).toPath(), dataFile(users.get(i).getLogin()).toPath(),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+        } finally {
+            SAVE_BATCH_TIMER.stop(start);
+        }
+    }
+
+    /**
+     * Пишет пользователя во временный файл со сбросом на диск (событие JFR StorageSave -
+     * сериализация и fsync, без подмены основного файла).
+     */
+    private File writeTemporary(User user) throws IOException {
+        return writeTemporary(user, 0);
+    }
+
+    private File writeTemporary(User user, long journalSequence) throws IOException {
+        File tmp = new File(dataDirectory, dataFile(user.getLogin()).getName() + ".tmp");
+        StorageSaveEvent event = new StorageSaveEvent();
+        event.begin();
+        long bytes;
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            // JSON пишется прямо в файл, без промежуточного массива размером с файл
+            streamingWriter.write(user, out, journalSequence);
+            out.getFD().sync();
+            bytes = out.getChannel().position();
+        } catch (IOException e) {
+            tmp.delete();
+            throw e;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            commitSave(event, user, bytes, true);
+        }
+        return tmp;
+    }
+
+    private static void commitSave(StorageSaveEvent event, User user, long bytes, boolean durable) {
+        event.login = user.getLogin();
+        event.bytes = bytes;
+        event.transactions = (user.getWallet() == null) ? 0 : user.getWallet().getAppendedCount();
+        event.durable = durable;
+        event.commit();
+    }
+
+    private File dataFile(String login) {
+        return new File(dataDirectory, "data_" + login + ".json");
     }
 
     /**
      * Загружает пользователя (User) из JSON-файла по логину.
      * Если файл не найден или данные некорректны — возвращаем null.
      */
+    @Override
     public User loadUser(String login) {
+        Snapshot snapshot = loadSnapshot(login);
+        return (snapshot == null) ? null : snapshot.getUser();
+    }
+
+    /**
+     * Пользователь и номер последней записи журнала, вошедшей в его файл.
+     */
+    public static final class Snapshot {
+        private final User user;
+        private final long journalSequence;
+
+        Snapshot(User user, long journalSequence) {
+            this.user = user;
+            this.journalSequence = journalSequence;
+        }
+
+        public User getUser() {
+            return user;
+        }
+
+        public long getJournalSequence() {
+            return journalSequence;
+        }
+    }
+
+    /**
+     * Загружает пользователя вместе с номером записи журнала из снимка.
+     * Если файл не найден или данные некорректны — возвращаем null.
+     */
+    public Snapshot loadSnapshot(String login) {
         String fileName = "data_" + login + ".json";
         File file = new File(dataDirectory, fileName);
         if (!file.exists()) {
             return null; // Нет такого файла - пользователь не найден
         }
+        long start = LOAD_TIMER.start();
+        StorageLoadEvent event = new StorageLoadEvent();
+        event.begin();
+        User user = null;
         try {
-            return objectMapper.readValue(file, User.class);
-        } catch (IOException e) {
+            List<Transaction> transactions = new ArrayList<>();
+            StreamingUserReader.UserHeader header = streamingReader.read(file, transactions::add);
+            user = StreamingUserReader.toUser(header, transactions);
+            return new Snapshot(user, header.getJournalSequence());
+        } catch (IOException | RuntimeException e) {
             // Логируем ошибку (упрощённо)
             System.err.println("Ошибка чтения файла: " + file.getName());
             return null;
+        } finally {
+            LOAD_TIMER.stop(start);
+            event.end();
+            if (event.shouldCommit()) {
+                int transactions = (user == null || user.getWallet() == null) ? 0 : user.getWallet().getAppendedCount();
+                commitLoad(event, login, file, transactions, user != null);
+            }
         }
     }
 
+    /**
+     * Потоково читает файл пользователя, отдавая транзакции в consumer по одной,
+     * без накопления их в списке.
+     *
+     * @return остальные поля пользователя или null, если файл не найден или некорректен
+     */
+    public StreamingUserReader.UserHeader loadUser(String login, Consumer<Transaction> consumer) {
+        File file = new File(dataDirectory, "data_" + login + ".json");
+        if (!file.exists()) {
+            return null;
+        }
+        long start = LOAD_TIMER.start();
+        StorageLoadEvent event = new StorageLoadEvent();
+        event.begin();
+        // Транзакции считаются, только пока идёт запись JFR
+        int[] transactions = new int[1];
+        Consumer<Transaction> counted = event.isEnabled()
+                ? transaction -> {
+                    transactions[0]++;
+                    consumer.accept(transaction);
+                }
+                : consumer;
+        StreamingUserReader.UserHeader header = null;
+        try {
+            header = streamingReader.read(file, counted);
+            return header;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Ошибка чтения файла: " + file.getName());
+            return null;
+        } finally {
+            LOAD_TIMER.stop(start);
+            event.end();
+            if (event.shouldCommit()) {
+                commitLoad(event, login, file, transactions[0], header != null);
+            }
+        }
+    }
+
+    private static void commitLoad(StorageLoadEvent event, String login, File file, int transactions, boolean success) {
+        event.login = login;
+        event.bytes = file.length();
+        event.transactions = transactions;
+        event.success = success;
+        event.commit();
+    }
+
+    /**
+     * Логины всех пользователей, у которых есть файл data_{login}.json.
+     */
+    @Override
+    public Stream<String> logins() throws IOException {
+        return UserStorage.loginsByFileName(dataDirectory, ".json");
+    }
+
     /**
      * Удаляет файл, соответствующий пользователю (при необходимости).
      */
+    @Override
     public void deleteUser(String login) {
         String fileName = "data_" + login + ".json";
         File file = new File(dataDirectory, fileName);
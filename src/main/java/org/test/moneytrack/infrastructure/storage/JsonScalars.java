@@ -0,0 +1,259 @@
+package org.test.moneytrack.infrastructure.storage;
+
+import org.test.moneytrack.domain.model.Money;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Разбор и запись скалярных значений файла пользователя (дата-время, UUID, сумма)
+ * прямо в массивах символов, без промежуточных строк и DateTimeFormatter.
+ *
+ * Запись совпадает символ в символ с тем, что писал Jackson (JavaTimeModule,
+ * UUID.toString(), BigDecimal.toString()), разбор понимает всё, что пишет запись.
+ * Значения вне быстрого формата методы не обрабатывают (возвращают -1 или null),
+ * и вызывающий код идёт прежним медленным путём.
+ */
+final class JsonScalars {
+
+    // Достаточно для любой суммы, которая пишется без экспоненты (long - 19 цифр)
+    static final int BUFFER_SIZE = 48;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private JsonScalars() {
+    }
+
+    // ---------------- Дата-время ----------------
+
+    /**
+     * Пишет дату-время в формате ISO_LOCAL_DATE_TIME: yyyy-MM-ddTHH:mm:ss и дробная часть
+     * без хвостовых нулей (если наносекунды не 0).
+     *
+     * @return число символов или -1, если год вне 0..9999 (нужен DateTimeFormatter)
+     */
+    static int formatDateTime(LocalDateTime dateTime, char[] buf) {
+        int year = dateTime.getYear();
+        if (year < 0 || year > 9999) {
+            return -1;
+        }
+        writeDigits(buf, 0, year, 4);
+        buf[4] = '-';
+        writeDigits(buf, 5, dateTime.getMonthValue(), 2);
+        buf[7] = '-';
+        writeDigits(buf, 8, dateTime.getDayOfMonth(), 2);
+        buf[10] = 'T';
+        writeDigits(buf, 11, dateTime.getHour(), 2);
+        buf[13] = ':';
+        writeDigits(buf, 14, dateTime.getMinute(), 2);
+        buf[16] = ':';
+        writeDigits(buf, 17, dateTime.getSecond(), 2);
+        int nano = dateTime.getNano();
+        if (nano == 0) {
+            return 19;
+        }
+        buf[19] = '.';
+        writeDigits(buf, 20, nano, 9);
+        int end = 29;
+        while (buf[end - 1] == '0') {
+            end--;
+        }
+        return end;
+    }
+
+    /**
+     * Разбирает yyyy-MM-ddTHH:mm[:ss[.f..f]] (до 9 цифр дробной части).
+     *
+     * @return дата-время или null, если текст не в этом формате (тогда - LocalDateTime.parse)
+     * @throws java.time.DateTimeException если формат верный, но значения вне диапазона
+     */
+    static LocalDateTime parseDateTime(char[] text, int offset, int length) {
+        if (length < 16 || length == 17 || length == 18 || length == 20 || length > 29) {
+            return null;
+        }
+        int p = offset;
+        if (text[p + 4] != '-' || text[p + 7] != '-' || text[p + 10] != 'T' || text[p + 13] != ':') {
+            return null;
+        }
+        int year = readDigits(text, p, 4);
+        int month = readDigits(text, p + 5, 2);
+        int day = readDigits(text, p + 8, 2);
+        int hour = readDigits(text, p + 11, 2);
+        int minute = readDigits(text, p + 14, 2);
+        int second = 0;
+        int nano = 0;
+        if (length > 16) {
+            if (text[p + 16] != ':') {
+                return null;
+            }
+            second = readDigits(text, p + 17, 2);
+            if (length > 19) {
+                if (text[p + 19] != '.') {
+                    return null;
+                }
+                int fraction = length - 20;
+                nano = readDigits(text, p + 20, fraction);
+                for (int i = fraction; i < 9 && nano >= 0; i++) {
+                    nano *= 10;
+                }
+            }
+        }
+        if ((year | month | day | hour | minute | second | nano) < 0) {
+            return null;
+        }
+        return LocalDateTime.of(year, month, day, hour, minute, second, nano);
+    }
+
+    // ---------------- UUID ----------------
+
+    /**
+     * Пишет UUID так же, как UUID.toString(): 36 символов, строчные hex-цифры.
+     */
+    static int formatUuid(UUID uuid, char[] buf) {
+        long high = uuid.getMostSignificantBits();
+        long low = uuid.getLeastSignificantBits();
+        writeHex(buf, 0, high >>> 32, 8);
+        buf[8] = '-';
+        writeHex(buf, 9, high >>> 16, 4);
+        buf[13] = '-';
+        writeHex(buf, 14, high, 4);
+        buf[18] = '-';
+        writeHex(buf, 19, low >>> 48, 4);
+        buf[23] = '-';
+        writeHex(buf, 24, low, 12);
+        return 36;
+    }
+
+    /**
+     * Разбирает UUID в каноническом виде (36 символов, дефисы на своих местах).
+     *
+     * @return UUID или null для любого другого текста (тогда - UUID.fromString)
+     */
+    static UUID parseUuid(char[] text, int offset, int length) {
+        if (length != 36 || text[offset + 8] != '-' || text[offset + 13] != '-'
+                || text[offset + 18] != '-' || text[offset + 23] != '-') {
+            return null;
+        }
+        long high = 0;
+        long low = 0;
+        int digits = 0;
+        for (int i = 0; i < 36; i++) {
+            char c = text[offset + i];
+            if (c == '-' && (i == 8 || i == 13 || i == 18 || i == 23)) {
+                continue;
+            }
+            int value = Character.digit(c, 16);
+            if (value < 0) {
+                return null;
+            }
+            if (digits++ < 16) {
+                high = (high << 4) | value;
+            } else {
+                low = (low << 4) | value;
+            }
+        }
+        return new UUID(high, low);
+    }
+
+    // ---------------- Сумма ----------------
+
+    /**
+     * Пишет сумму так же, как BigDecimal.toString(), если она пишется без экспоненты:
+     * целое число или дробь с не более чем 6 ведущими нулями после точки.
+     *
+     * @return число символов или -1 (сумма вне long, отрицательный scale или экспонента -
+     *         тогда пишется через toBigDecimal())
+     */
+    static int formatMoney(Money money, char[] buf) {
+        if (!money.isCompact() || money.getScale() < 0 || money.getUnits() == Long.MIN_VALUE) {
+            return -1;
+        }
+        long units = money.getUnits();
+        int scale = money.getScale();
+        long abs = Math.abs(units);
+        int precision = digitCount(abs);
+        // Правило BigDecimal.toString(): без экспоненты, если scale >= 0 и порядок не меньше -6
+        if (precision - 1 - scale < -6) {
+            return -1;
+        }
+        int pos = 0;
+        if (units < 0) {
+            buf[pos++] = '-';
+        }
+        if (scale == 0) {
+            return writeLong(buf, pos, abs, precision);
+        }
+        if (precision > scale) {
+            int integerDigits = precision - scale;
+            long divisor = pow10(scale);
+            pos = writeLong(buf, pos, abs / divisor, integerDigits);
+            buf[pos++] = '.';
+            return writeLong(buf, pos, abs % divisor, scale);
+        }
+        buf[pos++] = '0';
+        buf[pos++] = '.';
+        for (int i = precision; i < scale; i++) {
+            buf[pos++] = '0';
+        }
+        return writeLong(buf, pos, abs, precision);
+    }
+
+    // ---------------- Цифры ----------------
+
+    private static void writeDigits(char[] buf, int pos, int value, int width) {
+        for (int i = pos + width - 1; i >= pos; i--) {
+            buf[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    /**
+     * Пишет value ровно в width цифр (с ведущими нулями) и возвращает позицию после них.
+     */
+    private static int writeLong(char[] buf, int pos, long value, int width) {
+        for (int i = pos + width - 1; i >= pos; i--) {
+            buf[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return pos + width;
+    }
+
+    /**
+     * Читает count десятичных цифр; -1, если встретилось что-то другое.
+     */
+    private static int readDigits(char[] text, int pos, int count) {
+        int value = 0;
+        for (int i = pos; i < pos + count; i++) {
+            int digit = text[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static void writeHex(char[] buf, int pos, long value, int width) {
+        for (int i = pos + width - 1; i >= pos; i--) {
+            buf[i] = HEX[(int) (value & 0xF)];
+            value >>>= 4;
+        }
+    }
+
+    private static int digitCount(long value) {
+        int count = 1;
+        while (value >= 10) {
+            value /= 10;
+            count++;
+        }
+        return count;
+    }
+
+    private static long pow10(int exponent) {
+        long result = 1;
+        for (int i = 0; i < exponent; i++) {
+            result *= 10;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,302 @@
+package org.test.moneytrack.infrastructure.storage;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.test.moneytrack.domain.model.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Потоковое (token by token) чтение файла data_{login}.json через JsonParser.
+ *
+ * В отличие от objectMapper.readValue(file, User.class) не строит промежуточное дерево:
+ * каждая транзакция собирается прямо из токенов и сразу отдаётся потребителю.
+ * Категории берутся из общего словаря (Category.of), одинаковые описания
+ * внутри файла разделяют один экземпляр строки.
+ */
+public class StreamingUserReader {
+
+    // Ограничение на число различных описаний, которые имеет смысл переиспользовать
+    private static final int MAX_INTERNED_DESCRIPTIONS = 1024;
+
+    /**
+     * Заголовок пользователя: всё, кроме списка транзакций.
+     */
+    public static final class UserHeader {
+        private String login;
+        private String password;
+        private Money balance;
+        private final Map<Category, Budget> budgets = new LinkedHashMap<>();
+        private TransactionRollups rollups;
+        private long journalSequence;
+
+        public String getLogin() {
+            return login;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+
+        public Money getBalance() {
+            return balance;
+        }
+
+        public Map<Category, Budget> getBudgets() {
+            return budgets;
+        }
+
+        /**
+         * Сохранённые суммы по дням и месяцам или null, если их в файле нет.
+         */
+        public TransactionRollups getRollups() {
+            return rollups;
+        }
+
+        /**
+         * Номер последней записи журнала, вошедшей в снимок (0 - снимок без журнала).
+         */
+        public long getJournalSequence() {
+            return journalSequence;
+        }
+    }
+
+    private final JsonFactory jsonFactory;
+
+    public StreamingUserReader(JsonFactory jsonFactory) {
+        this.jsonFactory = jsonFactory;
+    }
+
+    /**
+     * Читает пользователя целиком.
+     */
+    public User read(File file) throws IOException {
+        List<Transaction> transactions = new ArrayList<>();
+        UserHeader header = read(file, transactions::add);
+        return toUser(header, transactions);
+    }
+
+    /**
+     * Собирает пользователя из заголовка и прочитанных транзакций.
+     */
+    public static User toUser(UserHeader header, List<Transaction> transactions) {
+        Wallet wallet = new Wallet(header.getBalance(), transactions, header.getBudgets(), header.getRollups());
+        return new User(header.getLogin(), header.getPassword(), wallet);
+    }
+
+    /**
+     * Читает файл, передавая каждую транзакцию в consumer по мере разбора
+     * (например, сразу в компактное хранилище), и возвращает остальные поля пользователя.
+     */
+    public UserHeader read(File file, Consumer<Transaction> consumer) throws IOException {
+        Interner interner = new Interner();
+        UserHeader header = new UserHeader();
+        try (JsonParser parser = jsonFactory.createParser(file)) {
+            expect(parser.nextToken(), JsonToken.START_OBJECT, parser);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                switch (field) {
+                    case "login" -> header.login = parser.getValueAsString();
+                    case "password" -> header.password = parser.getValueAsString();
+                    case "wallet" -> readWallet(parser, header, consumer, interner);
+                    case "journalSequence" -> header.journalSequence = parser.getLongValue();
+                    default -> parser.skipChildren();
+                }
+            }
+        }
+        return header;
+    }
+
+    private void readWallet(JsonParser parser, UserHeader header,
+                            Consumer<Transaction> consumer, Interner interner) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return;
+        }
+        expect(parser.currentToken(), JsonToken.START_OBJECT, parser);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "balance" -> header.balance = (value == JsonToken.VALUE_NULL) ? null : Money.of(parser.getDecimalValue());
+                case "transactions" -> {
+                    if (value == JsonToken.START_ARRAY) {
+                        while (parser.nextToken() == JsonToken.START_OBJECT) {
+                            consumer.accept(readTransaction(parser, interner));
+                        }
+                    }
+                }
+                case "budgets" -> readBudgets(parser, header.budgets, interner);
+                case "rollups" -> header.rollups = readRollups(parser);
+                default -> parser.skipChildren();
+            }
+        }
+    }
+
+    private TransactionRollups readRollups(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return null;
+        }
+        int transactionCount = -1;
+        List<TransactionRollups.Row> monthly = new ArrayList<>();
+        List<TransactionRollups.Row> daily = new ArrayList<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "transactionCount" -> transactionCount = parser.getIntValue();
+                case "monthly" -> readRollupRows(parser, value, monthly);
+                case "daily" -> readRollupRows(parser, value, daily);
+                default -> parser.skipChildren();
+            }
+        }
+        // Без счётчика нельзя проверить, что суммы соответствуют истории, - кошелёк их пересчитает
+        return (transactionCount < 0) ? null : TransactionRollups.restore(transactionCount, monthly, daily);
+    }
+
+    private void readRollupRows(JsonParser parser, JsonToken value, List<TransactionRollups.Row> rows)
+            throws IOException {
+        if (value != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            String period = null;
+            TransactionType type = null;
+            String category = null;
+            Money amount = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken fieldValue = parser.nextToken();
+                if (fieldValue == JsonToken.VALUE_NULL) {
+                    continue;
+                }
+                switch (field) {
+                    case "period" -> period = parser.getText();
+                    case "type" -> type = TransactionType.valueOf(parser.getText());
+                    case "category" -> category = parser.getText();
+                    case "amount" -> amount = Money.of(parser.getDecimalValue());
+                    default -> parser.skipChildren();
+                }
+            }
+            rows.add(new TransactionRollups.Row(period, type, category, amount));
+        }
+    }
+
+    private Transaction readTransaction(JsonParser parser, Interner interner) throws IOException {
+        UUID id = null;
+        TransactionType type = null;
+        Category category = null;
+        Money amount = null;
+        LocalDateTime dateTime = null;
+        String description = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if (value == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            switch (field) {
+                case "transactionId" -> id = readUuid(parser);
+                case "type" -> type = TransactionType.valueOf(parser.getText());
+                case "category" -> category = readCategory(parser, interner);
+                case "amount" -> amount = Money.of(parser.getDecimalValue());
+                case "dateTime" -> dateTime = readDateTime(parser);
+                case "description" -> description = interner.description(parser.getText());
+                default -> parser.skipChildren();
+            }
+        }
+        return new Transaction(id, type, category, amount, dateTime, description);
+    }
+
+    /**
+     * UUID разбирается прямо из буфера парсера; не канонический вид - через UUID.fromString.
+     */
+    private static UUID readUuid(JsonParser parser) throws IOException {
+        UUID id = JsonScalars.parseUuid(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+        return (id != null) ? id : UUID.fromString(parser.getText());
+    }
+
+    /**
+     * Дата-время фиксированного формата разбирается прямо из буфера парсера;
+     * всё остальное - через LocalDateTime.parse.
+     */
+    private static LocalDateTime readDateTime(JsonParser parser) throws IOException {
+        LocalDateTime dateTime = JsonScalars.parseDateTime(
+                parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+        return (dateTime != null) ? dateTime : LocalDateTime.parse(parser.getText());
+    }
+
+    private Category readCategory(JsonParser parser, Interner interner) throws IOException {
+        String name = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            if ("name".equals(field)) {
+                name = parser.getValueAsString();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return interner.category(name);
+    }
+
+    private void readBudgets(JsonParser parser, Map<Category, Budget> budgets, Interner interner) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            Category category = interner.category(parser.getCurrentName());
+            Money limit = null;
+            expect(parser.nextToken(), JsonToken.START_OBJECT, parser);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if ("limitAmount".equals(field) && value != JsonToken.VALUE_NULL) {
+                    limit = Money.of(parser.getDecimalValue());
+                } else {
+                    // category внутри бюджета совпадает с ключом карты
+                    parser.skipChildren();
+                }
+            }
+            budgets.put(category, new Budget(category, limit));
+        }
+    }
+
+    private static void expect(JsonToken actual, JsonToken expected, JsonParser parser) throws IOException {
+        if (actual != expected) {
+            throw new IOException("Ожидался " + expected + ", получен " + actual
+                    + " в позиции " + parser.getCurrentLocation());
+        }
+    }
+
+    /**
+     * Переиспользование одинаковых объектов в пределах одного файла.
+     */
+    private static final class Interner {
+        private final Map<String, String> descriptions = new HashMap<>();
+
+        Category category(String name) {
+            return Category.of(name);
+        }
+
+        String description(String text) {
+            String known = descriptions.get(text);
+            if (known != null) {
+                return known;
+            }
+            if (descriptions.size() < MAX_INTERNED_DESCRIPTIONS) {
+                descriptions.put(text, text);
+            }
+            return text;
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package org.test.moneytrack.infrastructure.storage;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerationException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
+import org.test.moneytrack.domain.model.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Потоковая запись файла data_{login}.json через JsonGenerator, поле за полем.
+ *
+ * Пара к StreamingUserReader: вместо objectMapper.writeValue(file, user) не использует
+ * ни рефлексию, ни сериализаторы JavaTimeModule. Порядок полей, отступы (DefaultPrettyPrinter)
+ * и запись значений те же, что у Jackson, поэтому файл получается байт в байт прежним.
+ * Даты, UUID и суммы пишутся из общего буфера символов, без промежуточных строк.
+ */
+public class StreamingUserWriter {
+
+    private final JsonFactory jsonFactory;
+
+    public StreamingUserWriter(JsonFactory jsonFactory) {
+        this.jsonFactory = jsonFactory;
+    }
+
+    /**
+     * Записывает пользователя в файл (файл перезаписывается).
+     */
+    public void write(User user, File file) throws IOException {
+        try (JsonGenerator generator = jsonFactory.createGenerator(file, JsonEncoding.UTF8)) {
+            write(user, generator);
+        }
+    }
+
+    /**
+     * Записывает пользователя в поток (UTF-8) без промежуточного массива байт.
+     * Поток не закрывается: например, после записи файл ещё сбрасывается на диск.
+     */
+    public void write(User user, OutputStream out) throws IOException {
+        write(user, out, 0);
+    }
+
+    /**
+     * То же, что write(user, out), плюс поле journalSequence - номер последней записи журнала,
+     * вошедшей в этот снимок (пишется, только если больше 0).
+     */
+    public void write(User user, OutputStream out, long journalSequence) throws IOException {
+        try (JsonGenerator generator = jsonFactory.createGenerator(out, JsonEncoding.UTF8)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            write(user, generator, journalSequence);
+        }
+    }
+
+    private void write(User user, JsonGenerator generator) throws IOException {
+        write(user, generator, 0);
+    }
+
+    private void write(User user, JsonGenerator generator, long journalSequence) throws IOException {
+        generator.setPrettyPrinter(new DefaultPrettyPrinter());
+        char[] buf = new char[JsonScalars.BUFFER_SIZE];
+
+        generator.writeStartObject();
+        generator.writeStringField("login", user.getLogin());
+        generator.writeStringField("password", user.getPassword());
+        generator.writeFieldName("wallet");
+        writeWallet(generator, user.getWallet(), buf);
+        if (journalSequence > 0) {
+            generator.writeNumberField("journalSequence", journalSequence);
+        }
+        generator.writeEndObject();
+    }
+
+    private void writeWallet(JsonGenerator generator, Wallet wallet, char[] buf) throws IOException {
+        if (wallet == null) {
+            generator.writeNull();
+            return;
+        }
+        generator.writeStartObject();
+        generator.writeFieldName("balance");
+        writeMoney(generator, wallet.getBalance(), buf);
+
+        generator.writeArrayFieldStart("transactions");
+        for (Transaction transaction : wallet.getTransactions()) {
+            writeTransaction(generator, transaction, buf);
+        }
+        generator.writeEndArray();
+
+        generator.writeObjectFieldStart("budgets");
+        for (Map.Entry<Category, Budget> entry : wallet.getBudgets().entrySet()) {
+            if (entry.getKey() == null) {
+                // Jackson тоже не пишет карту с ключом null
+                throw new JsonGenerationException("Бюджет без категории", generator);
+            }
+            generator.writeFieldName(entry.getKey().toString());
+            writeBudget(generator, entry.getValue(), buf);
+        }
+        generator.writeEndObject();
+
+        generator.writeFieldName("rollups");
+        writeRollups(generator, wallet.getRollups(), buf);
+        generator.writeEndObject();
+    }
+
+    private void writeTransaction(JsonGenerator generator, Transaction transaction, char[] buf) throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName("transactionId");
+        writeUuid(generator, transaction.getTransactionId(), buf);
+        generator.writeFieldName("type");
+        writeType(generator, transaction.getType());
+        generator.writeFieldName("category");
+        writeCategory(generator, transaction.getCategory());
+        generator.writeFieldName("amount");
+        writeMoney(generator, transaction.getAmount(), buf);
+        generator.writeFieldName("dateTime");
+        writeDateTime(generator, transaction.getDateTime(), buf);
+        generator.writeStringField("description", transaction.getDescription());
+        generator.writeEndObject();
+    }
+
+    private void writeBudget(JsonGenerator generator, Budget budget, char[] buf) throws IOException {
+        if (budget == null) {
+            generator.writeNull();
+            return;
+        }
+        generator.writeStartObject();
+        generator.writeFieldName("category");
+        writeCategory(generator, budget.getCategory());
+        generator.writeFieldName("limitAmount");
+        writeMoney(generator, budget.getLimitAmount(), buf);
+        generator.writeEndObject();
+    }
+
+    private void writeRollups(JsonGenerator generator, TransactionRollups rollups, char[] buf) throws IOException {
+        if (rollups == null) {
+            generator.writeNull();
+            return;
+        }
+        generator.writeStartObject();
+        generator.writeNumberField("transactionCount", rollups.getTransactionCount());
+        generator.writeFieldName("monthly");
+        writeRollupRows(generator, rollups.monthlyRows(), buf);
+        generator.writeFieldName("daily");
+        writeRollupRows(generator, rollups.dailyRows(), buf);
+        generator.writeEndObject();
+    }
+
+    private void writeRollupRows(JsonGenerator generator, List<TransactionRollups.Row> rows, char[] buf)
+            throws IOException {
+        generator.writeStartArray();
+        for (TransactionRollups.Row row : rows) {
+            generator.writeStartObject();
+            generator.writeStringField("period", row.getPeriod());
+            generator.writeFieldName("type");
+            writeType(generator, row.getType());
+            generator.writeStringField("category", row.getCategory());
+            generator.writeFieldName("amount");
+            writeMoney(generator, row.getAmount(), buf);
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+    }
+
+    private static void writeCategory(JsonGenerator generator, Category category) throws IOException {
+        if (category == null) {
+            generator.writeNull();
+            return;
+        }
+        generator.writeStartObject();
+        generator.writeStringField("name", category.getName());
+        generator.writeEndObject();
+    }
+
+    private static void writeType(JsonGenerator generator, TransactionType type) throws IOException {
+        if (type == null) {
+            generator.writeNull();
+        } else {
+            generator.writeString(type.name());
+        }
+    }
+
+    private static void writeUuid(JsonGenerator generator, UUID uuid, char[] buf) throws IOException {
+        if (uuid == null) {
+            generator.writeNull();
+        } else {
+            generator.writeString(buf, 0, JsonScalars.formatUuid(uuid, buf));
+        }
+    }
+
+    private static void writeDateTime(JsonGenerator generator, LocalDateTime dateTime, char[] buf)
+            throws IOException {
+        if (dateTime == null) {
+            generator.writeNull();
+            return;
+        }
+        int length = JsonScalars.formatDateTime(dateTime, buf);
+        if (length < 0) {
+            generator.writeString(dateTime.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+        } else {
+            generator.writeString(buf, 0, length);
+        }
+    }
+
+    /**
+     * Сумма - JSON-числом, как BigDecimal (@JsonValue у Money).
+     */
+    private static void writeMoney(JsonGenerator generator, Money money, char[] buf) throws IOException {
+        if (money == null) {
+            generator.writeNull();
+            return;
+        }
+        int length = JsonScalars.formatMoney(money, buf);
+        if (length < 0) {
+            generator.writeNumber(money.toBigDecimal());
+        } else {
+            generator.writeNumber(buf, 0, length);
+        }
+    }
+}
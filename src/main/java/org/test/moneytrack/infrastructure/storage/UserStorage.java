@@ -0,0 +1,73 @@
+package org.test.moneytrack.infrastructure.storage;
+
+import org.test.moneytrack.domain.model.User;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Абстракция файлового хранилища пользователей.
+ * Позволяет подменять формат хранения (обычный JSON, журнал и т.д.) в ApplicationConfig.
+ */
+public interface UserStorage {
+
+    /**
+     * Сохраняет пользователя (со всем кошельком).
+     */
+    void saveUser(User user) throws IOException;
+
+    /**
+     * Сохраняет несколько пользователей одним шагом (например, обе стороны перевода).
+     * Реализации могут делать это одной записью на диск; по умолчанию - по очереди.
+     */
+    default void saveUsers(List<User> users) throws IOException {
+        for (User user : users) {
+            saveUser(user);
+        }
+    }
+
+    /**
+     * Загружает пользователя по логину.
+     * Если данных нет или они некорректны — возвращает null.
+     */
+    User loadUser(String login);
+
+    /**
+     * Загружает пользователя только для чтения (например, для общего отчёта): его не будут
+     * сохранять, поэтому хранилище не должно запоминать его как сохранённое состояние.
+     * По умолчанию - то же, что loadUser.
+     */
+    default User loadUserForReading(String login) {
+        return loadUser(login);
+    }
+
+    /**
+     * Удаляет данные пользователя.
+     */
+    void deleteUser(String login);
+
+    /**
+     * Логины всех пользователей, чьи данные лежат в хранилище.
+     * Папка читается лениво, по мере обхода; поток нужно закрыть.
+     */
+    Stream<String> logins() throws IOException;
+
+    /**
+     * Логины по именам файлов data_{login}{extension} в папке (общая часть реализаций logins()).
+     */
+    static Stream<String> loginsByFileName(String dataDirectory, String extension) throws IOException {
+        Path directory = Paths.get(dataDirectory);
+        if (!Files.isDirectory(directory)) {
+            return Stream.empty();
+        }
+        return Files.list(directory)
+                .map(path -> path.getFileName().toString())
+                .filter(name -> name.startsWith("data_") && name.endsWith(extension)
+                        && name.length() > "data_".length() + extension.length())
+                .map(name -> name.substring("data_".length(), name.length() - extension.length()));
+    }
+}
@@ -0,0 +1,110 @@
+package org.test.moneytrack.infrastructure.storage.binary;
+
+import org.test.moneytrack.domain.model.User;
+import org.test.moneytrack.infrastructure.storage.JsonFileStorage;
+import org.test.moneytrack.infrastructure.storage.UserStorage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.Stream;
+
+/**
+ * Хранилище пользователей в компактном двоичном формате: data_{login}.mtb
+ * (см. BinaryWalletCodec).
+ *
+ * Старые файлы data_{login}.json читаются, если двоичного файла ещё нет.
+ * После первого сохранения в двоичном формате JSON-файл удаляется,
+ * чтобы не осталось двух расходящихся копий данных.
+ *
+ * Файл пишется во временный, сбрасывается на диск и атомарно подменяет data_{login}.mtb;
+ * затем на диск сбрасывается и папка, чтобы переименование пережило сбой питания.
+ * JSON-копия удаляется только после этого: до того она - единственная надёжная копия.
+ */
+public class BinaryFileStorage implements UserStorage {
+
+    private final BinaryWalletCodec codec = new BinaryWalletCodec();
+    private final JsonFileStorage legacyStorage;
+    private final String dataDirectory;
+
+    public BinaryFileStorage(JsonFileStorage legacyStorage, String dataDirectory) {
+        this.legacyStorage = legacyStorage;
+        this.dataDirectory = dataDirectory;
+    }
+
+    @Override
+    public void saveUser(User user) throws IOException {
+        Path file = binaryPath(user.getLogin());
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(codec.encode(user));
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            out.force(false);
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory(file.toAbsolutePath().getParent());
+        // Миграция: JSON-копия больше не актуальна
+        legacyStorage.deleteUser(user.getLogin());
+    }
+
+    /**
+     * Сбрасывает на диск запись папки (результат переименования файла в ней).
+     */
+    private static void syncDirectory(Path directory) throws IOException {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (AccessDeniedException e) {
+            // Windows не открывает папки как файлы; там переименование фиксирует сама ФС
+        }
+    }
+
+    @Override
+    public User loadUser(String login) {
+        Path file = binaryPath(login);
+        if (!Files.exists(file)) {
+            return legacyStorage.loadUser(login);
+        }
+        try {
+            return codec.decode(ByteBuffer.wrap(Files.readAllBytes(file)));
+        } catch (IOException e) {
+            System.err.println("Ошибка чтения файла: " + file.getFileName() + " (" + e.getMessage() + ")");
+            return null;
+        }
+    }
+
+    @Override
+    public void deleteUser(String login) {
+        try {
+            Files.deleteIfExists(binaryPath(login));
+        } catch (IOException e) {
+            System.err.println("Ошибка удаления файла пользователя " + login + ": " + e.getMessage());
+        }
+        legacyStorage.deleteUser(login);
+    }
+
+    /**
+     * Двоичные файлы и ещё не перенесённые JSON-файлы.
+     */
+    @Override
+    public Stream<String> logins() throws IOException {
+        Stream<String> binary = UserStorage.loginsByFileName(dataDirectory, ".mtb");
+        Stream<String> legacy = legacyStorage.logins();
+        return Stream.concat(binary, legacy).distinct();
+    }
+
+    private Path binaryPath(String login) {
+        return Paths.get(dataDirectory, "data_" + login + ".mtb");
+    }
+}
@@ -0,0 +1,329 @@
+package org.test.moneytrack.infrastructure.storage.binary;
+
+import org.test.moneytrack.domain.model.*;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+
+/**
+ * Кодирование пользователя с кошельком в компактный двоичный формат.
+ *
+ * Формат (версия 1):
+ * <pre>
+ * magic "MTWB", version (1 байт)
+ * login, password            - строки (varint длина + 1, 0 - null; затем UTF-8)
+ * balance                    - число
+ * словарь строк              - varint количество + строки (названия категорий и описания)
+ * транзакции                 - varint количество, для каждой:
+ *     id                     - два long (старшие и младшие биты UUID)
+ *     type                   - 1 байт (0 - нет, 1 - INCOME, 2 - EXPENSE)
+ *     category, description  - varint ссылка в словарь (0 - null, иначе индекс + 1)
+ *     amount                 - число
+ *     dateTime               - varint (наносекунды + 1), 0 - null; затем zigzag varint секунд от эпохи (UTC)
+ * бюджеты                    - varint количество, для каждого: ссылка на категорию + лимит
+ * </pre>
+ * Число записывается как varint заголовка ((zigzag(scale) << 1 | big) + 1, 0 - null),
+ * затем немасштабированное значение (количество минимальных единиц): zigzag varint,
+ * если оно помещается в long, иначе varint длина + байты BigInteger.
+ * Суммы по дням и месяцам (rollups) в формат не входят: кошелёк пересчитывает их при загрузке.
+ */
+public class BinaryWalletCodec {
+
+    static final byte[] MAGIC = {'M', 'T', 'W', 'B'};
+    static final int VERSION = 1;
+
+    // ---------------- Запись ----------------
+
+    public byte[] encode(User user) {
+        Wallet wallet = user.getWallet();
+        List<Transaction> transactions = wallet.getTransactions();
+
+        // Словарь строк: категории и описания повторяются от транзакции к транзакции
+        Map<String, Integer> dictionary = new LinkedHashMap<>();
+        for (Transaction t : transactions) {
+            intern(dictionary, categoryName(t.getCategory()));
+            intern(dictionary, t.getDescription());
+        }
+        for (Category category : wallet.getBudgets().keySet()) {
+            intern(dictionary, categoryName(category));
+        }
+
+        Output out = new Output(64 + transactions.size() * 40);
+        out.bytes(MAGIC);
+        out.u8(VERSION);
+        out.string(user.getLogin());
+        out.string(user.getPassword());
+        out.money(wallet.getBalance());
+
+        out.varint(dictionary.size());
+        for (String s : dictionary.keySet()) {
+            out.string(s);
+        }
+
+        out.varint(transactions.size());
+        for (Transaction t : transactions) {
+            out.fixedLong(t.getTransactionId().getMostSignificantBits());
+            out.fixedLong(t.getTransactionId().getLeastSignificantBits());
+            out.u8(t.getType() == null ? 0 : t.getType().ordinal() + 1);
+            out.varint(ref(dictionary, categoryName(t.getCategory())));
+            out.varint(ref(dictionary, t.getDescription()));
+            out.money(t.getAmount());
+            if (t.getDateTime() == null) {
+                out.varint(0);
+            } else {
+                out.varint(t.getDateTime().getNano() + 1L);
+                out.zigzag(t.getDateTime().toEpochSecond(ZoneOffset.UTC));
+            }
+        }
+
+        Map<Category, Budget> budgets = wallet.getBudgets();
+        out.varint(budgets.size());
+        for (Budget budget : budgets.values()) {
+            out.varint(ref(dictionary, categoryName(budget.getCategory())));
+            out.money(budget.getLimitAmount());
+        }
+        return out.toByteArray();
+    }
+
+    private static String categoryName(Category category) {
+        return (category != null) ? category.getName() : null;
+    }
+
+    private static void intern(Map<String, Integer> dictionary, String s) {
+        if (s != null) {
+            dictionary.putIfAbsent(s, dictionary.size());
+        }
+    }
+
+    private static long ref(Map<String, Integer> dictionary, String s) {
+        return (s == null) ? 0 : dictionary.get(s) + 1L;
+    }
+
+    // ---------------- Чтение ----------------
+
+    public User decode(ByteBuffer in) throws IOException {
+        try {
+            byte[] magic = new byte[MAGIC.length];
+            in.get(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("Не двоичный файл кошелька");
+            }
+            int version = in.get() & 0xFF;
+            if (version != VERSION) {
+                throw new IOException("Неподдерживаемая версия формата: " + version);
+            }
+            String login = readString(in);
+            String password = readString(in);
+            Money balance = readMoney(in);
+
+            int dictionarySize = readCount(in);
+            String[] dictionary = new String[dictionarySize];
+            Category[] categories = new Category[dictionarySize];
+            for (int i = 0; i < dictionarySize; i++) {
+                dictionary[i] = readString(in);
+            }
+
+            int count = readCount(in);
+            List<Transaction> transactions = new ArrayList<>(count);
+            TransactionType[] types = TransactionType.values();
+            for (int i = 0; i < count; i++) {
+                UUID id = new UUID(in.getLong(), in.getLong());
+                int type = in.get() & 0xFF;
+                Category category = category(dictionary, categories, (int) readVarint(in));
+                int descriptionRef = (int) readVarint(in);
+                String description = (descriptionRef == 0) ? null : dictionary[descriptionRef - 1];
+                Money amount = readMoney(in);
+                long nanoPlusOne = readVarint(in);
+                LocalDateTime dateTime = null;
+                if (nanoPlusOne != 0) {
+                    long epochSecond = readZigzag(in);
+                    dateTime = LocalDateTime.ofEpochSecond(epochSecond, (int) (nanoPlusOne - 1), ZoneOffset.UTC);
+                }
+                transactions.add(new Transaction(id, (type == 0) ? null : types[type - 1],
+                        category, amount, dateTime, description));
+            }
+
+            int budgetCount = readCount(in);
+            Map<Category, Budget> budgets = new LinkedHashMap<>();
+            for (int i = 0; i < budgetCount; i++) {
+                Category category = category(dictionary, categories, (int) readVarint(in));
+                budgets.put(category, new Budget(category, readMoney(in)));
+            }
+
+            return new User(login, password, new Wallet(balance, transactions, budgets));
+        } catch (RuntimeException e) {
+            // BufferUnderflowException, выход за границы словаря и т.п. - файл повреждён
+            throw new IOException("Повреждённый двоичный файл кошелька", e);
+        }
+    }
+
+    private static Category category(String[] dictionary, Category[] categories, int ref) {
+        if (ref == 0) {
+            return null;
+        }
+        Category category = categories[ref - 1];
+        if (category == null) {
+            category = Category.of(dictionary[ref - 1]);
+            categories[ref - 1] = category;
+        }
+        return category;
+    }
+
+    private static String readString(ByteBuffer in) {
+        long length = readVarint(in);
+        if (length == 0) {
+            return null;
+        }
+        return new String(readBytes(in, length - 1), StandardCharsets.UTF_8);
+    }
+
+    private static Money readMoney(ByteBuffer in) {
+        long header = readVarint(in);
+        if (header == 0) {
+            return null;
+        }
+        header--;
+        boolean big = (header & 1) != 0;
+        int scale = (int) unzigzag(header >>> 1);
+        if (!big) {
+            return Money.ofUnits(readZigzag(in), scale);
+        }
+        return Money.of(new BigDecimal(new BigInteger(readBytes(in, readVarint(in))), scale));
+    }
+
+    /**
+     * Читает length байт, сначала сверив длину с остатком буфера: в повреждённом файле
+     * она может быть любой, и массив под неё выделять нельзя.
+     */
+    private static byte[] readBytes(ByteBuffer in, long length) {
+        if (length < 0 || length > in.remaining()) {
+            throw new IllegalStateException("Длина " + length + " больше остатка файла (" + in.remaining() + " байт)");
+        }
+        byte[] bytes = new byte[(int) length];
+        in.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Число элементов: каждый занимает хотя бы байт, поэтому оно не может быть больше остатка буфера
+     * (иначе файл повреждён, а список под такое число не выделяется).
+     */
+    private static int readCount(ByteBuffer in) {
+        long count = readVarint(in);
+        if (count < 0 || count > in.remaining()) {
+            throw new IllegalStateException("Число элементов " + count + " больше остатка файла");
+        }
+        return (int) count;
+    }
+
+    private static long readVarint(ByteBuffer in) {
+        long result = 0;
+        int shift = 0;
+        while (true) {
+            byte b = in.get();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+            shift += 7;
+            if (shift > 63) {
+                throw new IllegalStateException("Слишком длинный varint");
+            }
+        }
+    }
+
+    private static long readZigzag(ByteBuffer in) {
+        return unzigzag(readVarint(in));
+    }
+
+    private static long unzigzag(long v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    /**
+     * Растущий буфер записи с varint-кодированием.
+     */
+    private static final class Output {
+        private byte[] buf;
+        private int size;
+
+        Output(int capacity) {
+            this.buf = new byte[capacity];
+        }
+
+        void ensure(int extra) {
+            if (size + extra > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, size + extra));
+            }
+        }
+
+        void u8(int v) {
+            ensure(1);
+            buf[size++] = (byte) v;
+        }
+
+        void bytes(byte[] b) {
+            ensure(b.length);
+            System.arraycopy(b, 0, buf, size, b.length);
+            size += b.length;
+        }
+
+        void fixedLong(long v) {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buf[size++] = (byte) (v >>> shift);
+            }
+        }
+
+        void varint(long v) {
+            ensure(10);
+            while ((v & ~0x7FL) != 0) {
+                buf[size++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            buf[size++] = (byte) v;
+        }
+
+        void zigzag(long v) {
+            varint((v << 1) ^ (v >> 63));
+        }
+
+        void string(String s) {
+            if (s == null) {
+                varint(0);
+                return;
+            }
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            varint(bytes.length + 1L);
+            bytes(bytes);
+        }
+
+        void money(Money m) {
+            if (m == null) {
+                varint(0);
+                return;
+            }
+            long scale = ((long) m.getScale() << 1) ^ ((long) m.getScale() >> 63);
+            if (m.isCompact()) {
+                varint((scale << 1) + 1);
+                zigzag(m.getUnits());
+            } else {
+                BigInteger unscaled = m.toBigDecimal().unscaledValue();
+                varint((scale << 1 | 1) + 1);
+                byte[] bytes = unscaled.toByteArray();
+                varint(bytes.length);
+                bytes(bytes);
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buf, size);
+        }
+    }
+}
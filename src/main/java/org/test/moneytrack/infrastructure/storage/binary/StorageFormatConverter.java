@@ -0,0 +1,91 @@
+package org.test.moneytrack.infrastructure.storage.binary;
+
+import org.test.moneytrack.domain.model.User;
+import org.test.moneytrack.infrastructure.storage.JsonFileStorage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Конвертация файлов пользователей между JSON и двоичным форматом.
+ *
+ * Запуск:
+ * <pre>
+ * java -cp moneytrack.jar org.test.moneytrack.infrastructure.storage.binary.StorageFormatConverter to-binary [data]
+ * java -cp moneytrack.jar org.test.moneytrack.infrastructure.storage.binary.StorageFormatConverter to-json [data]
+ * </pre>
+ */
+public class StorageFormatConverter {
+
+    private final JsonFileStorage jsonStorage;
+    private final BinaryFileStorage binaryStorage;
+    private final String dataDirectory;
+
+    public StorageFormatConverter(String dataDirectory) {
+        this.dataDirectory = dataDirectory;
+        this.jsonStorage = new JsonFileStorage(dataDirectory);
+        this.binaryStorage = new BinaryFileStorage(jsonStorage, dataDirectory);
+    }
+
+    /**
+     * Переводит все data_*.json в data_*.mtb (JSON-файлы удаляются).
+     *
+     * @return количество сконвертированных пользователей
+     */
+    public int toBinary() throws IOException {
+        int converted = 0;
+        for (String login : logins(".json")) {
+            User user = jsonStorage.loadUser(login);
+            if (user != null) {
+                binaryStorage.saveUser(user);
+                converted++;
+            }
+        }
+        return converted;
+    }
+
+    /**
+     * Переводит все data_*.mtb обратно в data_*.json (двоичные файлы удаляются).
+     *
+     * @return количество сконвертированных пользователей
+     */
+    public int toJson() throws IOException {
+        BinaryWalletCodec codec = new BinaryWalletCodec();
+        int converted = 0;
+        for (String login : logins(".mtb")) {
+            Path file = Paths.get(dataDirectory, "data_" + login + ".mtb");
+            User user = codec.decode(ByteBuffer.wrap(Files.readAllBytes(file)));
+            jsonStorage.saveUserDurably(user);
+            Files.delete(file);
+            converted++;
+        }
+        return converted;
+    }
+
+    private List<String> logins(String extension) throws IOException {
+        List<String> logins = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(Paths.get(dataDirectory), "data_*" + extension)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                logins.add(name.substring("data_".length(), name.length() - extension.length()));
+            }
+        }
+        return logins;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || !(args[0].equals("to-binary") || args[0].equals("to-json"))) {
+            System.out.println("Использование: StorageFormatConverter to-binary|to-json [папка с данными]");
+            return;
+        }
+        StorageFormatConverter converter = new StorageFormatConverter(args.length > 1 ? args[1] : "data");
+        int converted = args[0].equals("to-binary") ? converter.toBinary() : converter.toJson();
+        System.out.println("Сконвертировано пользователей: " + converted);
+    }
+}
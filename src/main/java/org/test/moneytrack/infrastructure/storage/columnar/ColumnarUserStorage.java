@@ -0,0 +1,78 @@
+package org.test.moneytrack.infrastructure.storage.columnar;
+
+import org.test.moneytrack.domain.model.User;
+import org.test.moneytrack.domain.model.Wallet;
+import org.test.moneytrack.infrastructure.storage.JsonFileStorage;
+import org.test.moneytrack.infrastructure.storage.StreamingUserReader;
+import org.test.moneytrack.infrastructure.storage.UserStorage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Хранилище, которое при загрузке больших файлов держит историю транзакций
+ * не в куче, а в отображённых в память колонках (MappedColumnarTransactionStore).
+ *
+ * Файл пользователя по-прежнему data_{login}.json: транзакции читаются потоково
+ * и сразу складываются во временные колонки в data/columns/. Колонки - рабочая копия,
+ * они создаются заново при каждой загрузке. Небольшие файлы загружаются как обычно.
+ * Каналы и отображения колонок освобождает Wallet.close() (кэш - когда вытесненный
+ * пользователь собран сборщиком мусора, общий отчёт - сразу после подсчёта).
+ */
+public class ColumnarUserStorage implements UserStorage {
+
+    private final JsonFileStorage jsonStorage;
+    private final String dataDirectory;
+    private final long minFileSize;
+
+    /**
+     * @param jsonStorage   основное JSON-хранилище
+     * @param dataDirectory папка с данными
+     * @param minFileSize   с какого размера файла (в байтах) переходить на колонки
+     */
+    public ColumnarUserStorage(JsonFileStorage jsonStorage, String dataDirectory, long minFileSize) {
+        this.jsonStorage = jsonStorage;
+        this.dataDirectory = dataDirectory;
+        this.minFileSize = minFileSize;
+    }
+
+    @Override
+    public void saveUser(User user) throws IOException {
+        jsonStorage.saveUser(user);
+    }
+
+    @Override
+    public void saveUsers(List<User> users) throws IOException {
+        jsonStorage.saveUsers(users);
+    }
+
+    @Override
+    public User loadUser(String login) {
+        File file = new File(dataDirectory, "data_" + login + ".json");
+        if (!file.exists() || file.length() < minFileSize) {
+            return jsonStorage.loadUser(login);
+        }
+        Path columns = Paths.get(dataDirectory, "columns");
+        MappedColumnarTransactionStore store = MappedColumnarTransactionStore.createTemporary(columns, login + "-");
+        StreamingUserReader.UserHeader header = jsonStorage.loadUser(login, store::add);
+        if (header == null) {
+            return null;
+        }
+        return new User(header.getLogin(), header.getPassword(),
+                new Wallet(header.getBalance(), store, header.getBudgets(), header.getRollups()));
+    }
+
+    @Override
+    public void deleteUser(String login) {
+        jsonStorage.deleteUser(login);
+    }
+
+    @Override
+    public Stream<String> logins() throws IOException {
+        return jsonStorage.logins();
+    }
+}
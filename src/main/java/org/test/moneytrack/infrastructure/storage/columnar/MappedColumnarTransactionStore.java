@@ -0,0 +1,369 @@
+package org.test.moneytrack.infrastructure.storage.columnar;
+
+import org.test.moneytrack.domain.model.Category;
+import org.test.moneytrack.domain.model.CategoryMap;
+import org.test.moneytrack.domain.model.CategoryRegistry;
+import org.test.moneytrack.domain.model.Money;
+import org.test.moneytrack.domain.model.MoneyAccumulator;
+import org.test.moneytrack.domain.model.Transaction;
+import org.test.moneytrack.domain.model.TransactionStore;
+import org.test.moneytrack.domain.model.TransactionType;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+
+/**
+ * Хранилище истории транзакций в отображённых в память (memory-mapped) файлах по колонкам.
+ *
+ * Каждое поле транзакции лежит в своём файле фиксированной ширины:
+ * id (два long), amount (long, минимальные единицы) + scale (byte),
+ * timestamp (long, ключ TransactionStore.timeKey - наносекунды от эпохи UTC), category (int, Category.getId()),
+ * type (byte) и description (long, смещение в отдельной куче строк).
+ * В куче Java остаются только редкие суммы, не помещающиеся в long, и даты вне точного
+ * диапазона ключа времени (примерно 1677-2262 годы): в колонке у них крайний ключ.
+ *
+ * Суммы по категориям и индекс по id строятся прямо по колонкам,
+ * объект Transaction создаётся только при явном обращении к get().
+ */
+public class MappedColumnarTransactionStore implements TransactionStore, Closeable {
+
+    private static final int INITIAL_ROWS = 1024;
+    private static final long NULL_TIME = Long.MIN_VALUE;
+    private static final long NULL_OFFSET = -1L;
+    // Значение scale, означающее "сумма лежит в overflowAmounts"
+    private static final byte OVERFLOW_SCALE = Byte.MIN_VALUE;
+    private static final TransactionType[] TYPES = TransactionType.values();
+
+    private final Column idHigh;
+    private final Column idLow;
+    private final Column amount;
+    private final Column scale;
+    private final Column time;
+    private final Column category;
+    private final Column type;
+    private final Column description;
+    private final Column strings;
+
+    private final Map<Integer, Money> overflowAmounts = new HashMap<>();
+    private final Map<Integer, LocalDateTime> overflowTimes = new HashMap<>();
+    // Отметки удаления: колонки - рабочая копия истории на время сессии,
+    // на диск (в JSON) удалённые транзакции не попадают
+    private final BitSet deleted = new BitSet();
+    private int deletedCount;
+
+    private int size;
+    private long stringsSize;
+
+    /**
+     * Создаёт пустое хранилище в указанной папке (существующие файлы колонок перезаписываются).
+     */
+    public MappedColumnarTransactionStore(Path directory) {
+        try {
+            Files.createDirectories(directory);
+            this.idHigh = new Column(directory.resolve("id_high.col"), Long.BYTES);
+            this.idLow = new Column(directory.resolve("id_low.col"), Long.BYTES);
+            this.amount = new Column(directory.resolve("amount.col"), Long.BYTES);
+            this.scale = new Column(directory.resolve("scale.col"), 1);
+            this.time = new Column(directory.resolve("time.col"), Long.BYTES);
+            this.category = new Column(directory.resolve("category.col"), Integer.BYTES);
+            this.type = new Column(directory.resolve("type.col"), 1);
+            this.description = new Column(directory.resolve("description.col"), Long.BYTES);
+            this.strings = new Column(directory.resolve("strings.heap"), 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось создать колонки в " + directory, e);
+        }
+    }
+
+    /**
+     * Создаёт хранилище в новой временной папке внутри parent.
+     * Файлы колонок сразу удаляются из каталога (там, где ОС это позволяет):
+     * отображение и открытые каналы продолжают работать, а после завершения
+     * процесса на диске ничего не остаётся. Несколько загрузок одного пользователя
+     * не мешают друг другу.
+     */
+    public static MappedColumnarTransactionStore createTemporary(Path parent, String prefix) {
+        try {
+            Files.createDirectories(parent);
+            Path directory = Files.createTempDirectory(parent, prefix);
+            MappedColumnarTransactionStore store = new MappedColumnarTransactionStore(directory);
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+                for (Path file : files) {
+                    deleteOrDeferDeletion(file);
+                }
+            }
+            deleteOrDeferDeletion(directory);
+            return store;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось создать временные колонки в " + parent, e);
+        }
+    }
+
+    private static void deleteOrDeferDeletion(Path path) {
+        try {
+            Files.delete(path);
+        } catch (IOException e) {
+            path.toFile().deleteOnExit();
+        }
+    }
+
+    @Override
+    public synchronized void add(Transaction t) {
+        int row = size;
+        ensureRows(row + 1);
+
+        idHigh.buffer.putLong(row * Long.BYTES, t.getTransactionId().getMostSignificantBits());
+        idLow.buffer.putLong(row * Long.BYTES, t.getTransactionId().getLeastSignificantBits());
+        putAmount(row, t.getAmount());
+        putTime(row, t.getDateTime());
+        category.buffer.putInt(row * Integer.BYTES, categoryId(t.getCategory()));
+        type.buffer.put(row, (byte) (t.getType() == null ? -1 : t.getType().ordinal()));
+        description.buffer.putLong(row * Long.BYTES, putString(t.getDescription()));
+        size++;
+    }
+
+    @Override
+    public synchronized int size() {
+        return size;
+    }
+
+    @Override
+    public synchronized Transaction get(int index) {
+        Objects.checkIndex(index, size);
+        UUID id = new UUID(idHigh.buffer.getLong(index * Long.BYTES), idLow.buffer.getLong(index * Long.BYTES));
+        int typeOrdinal = type.buffer.get(index);
+        int categoryId = category.buffer.getInt(index * Integer.BYTES);
+        return new Transaction(
+                id,
+                (typeOrdinal < 0) ? null : TYPES[typeOrdinal],
+                categoryOf(categoryId),
+                getAmount(index),
+                getTime(index),
+                getString(description.buffer.getLong(index * Long.BYTES)));
+    }
+
+    @Override
+    public synchronized long timestampAt(int index) {
+        Objects.checkIndex(index, size);
+        return time.buffer.getLong(index * Long.BYTES);
+    }
+
+    @Override
+    public synchronized UUID idAt(int index) {
+        Objects.checkIndex(index, size);
+        return new UUID(idHigh.buffer.getLong(index * Long.BYTES), idLow.buffer.getLong(index * Long.BYTES));
+    }
+
+    @Override
+    public synchronized void markDeleted(int index) {
+        Objects.checkIndex(index, size);
+        if (!deleted.get(index)) {
+            deleted.set(index);
+            deletedCount++;
+        }
+    }
+
+    @Override
+    public synchronized boolean isDeleted(int index) {
+        return deleted.get(index);
+    }
+
+    @Override
+    public synchronized int deletedCount() {
+        return deletedCount;
+    }
+
+    @Override
+    public synchronized Map<Category, MoneyAccumulator> sumsByCategory(TransactionType transactionType) {
+        // Суммируем прямо из колонок amount/scale в изменяемые сумматоры, без создания объектов на строку
+        byte wanted = (byte) transactionType.ordinal();
+        CategoryMap<MoneyAccumulator> sums = new CategoryMap<>();
+        for (int i = 0; i < size; i++) {
+            if (type.buffer.get(i) != wanted || deleted.get(i)) {
+                continue;
+            }
+            Category rowCategory = categoryOf(category.buffer.getInt(i * Integer.BYTES));
+            MoneyAccumulator sum = sums.get(rowCategory);
+            if (sum == null) {
+                sum = new MoneyAccumulator();
+                sums.put(rowCategory, sum);
+            }
+            byte rowScale = scale.buffer.get(i);
+            if (rowScale == OVERFLOW_SCALE) {
+                sum.add(overflowAmounts.get(i));
+            } else {
+                sum.add(amount.buffer.getLong(i * Long.BYTES), rowScale);
+            }
+        }
+        return sums;
+    }
+
+    @Override
+    public List<Transaction> asList() {
+        return new AbstractList<>() {
+            @Override
+            public Transaction get(int index) {
+                return MappedColumnarTransactionStore.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return MappedColumnarTransactionStore.this.size();
+            }
+        };
+    }
+
+    @Override
+    public Closeable resources() {
+        return this;
+    }
+
+    /**
+     * Закрывает каналы колонок и отпускает их отображения (память и место удалённых файлов
+     * освобождаются, когда сборщик мусора доберётся до отображений). Повторный вызов ничего не делает.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        IOException failure = null;
+        for (Column column : List.of(idHigh, idLow, amount, scale, time, category, type, description, strings)) {
+            try {
+                column.close();
+            } catch (IOException e) {
+                failure = (failure == null) ? e : failure;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    // ---------------- Вспомогательные методы ----------------
+
+    private void ensureRows(int rows) {
+        for (Column column : List.of(idHigh, idLow, amount, scale, time, category, type, description)) {
+            column.ensureCapacity((long) rows * column.width);
+        }
+    }
+
+    private void putAmount(int row, Money value) {
+        if (value != null && value.isCompact() && value.getScale() > Byte.MIN_VALUE && value.getScale() <= Byte.MAX_VALUE) {
+            amount.buffer.putLong(row * Long.BYTES, value.getUnits());
+            scale.buffer.put(row, (byte) value.getScale());
+        } else {
+            amount.buffer.putLong(row * Long.BYTES, 0L);
+            scale.buffer.put(row, OVERFLOW_SCALE);
+            overflowAmounts.put(row, value);
+        }
+    }
+
+    private Money getAmount(int row) {
+        byte rowScale = scale.buffer.get(row);
+        if (rowScale == OVERFLOW_SCALE) {
+            return overflowAmounts.get(row);
+        }
+        return Money.ofUnits(amount.buffer.getLong(row * Long.BYTES), rowScale);
+    }
+
+    private static int categoryId(Category c) {
+        return (c == null) ? -1 : c.getId();
+    }
+
+    private static Category categoryOf(int id) {
+        return (id < 0) ? null : CategoryRegistry.getInstance().byId(id);
+    }
+
+    private long putString(String s) {
+        if (s == null) {
+            return NULL_OFFSET;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        long offset = stringsSize;
+        strings.ensureCapacity(offset + Integer.BYTES + bytes.length);
+        strings.buffer.putInt((int) offset, bytes.length);
+        strings.buffer.put((int) offset + Integer.BYTES, bytes);
+        stringsSize = offset + Integer.BYTES + bytes.length;
+        return offset;
+    }
+
+    private String getString(long offset) {
+        if (offset == NULL_OFFSET) {
+            return null;
+        }
+        int length = strings.buffer.getInt((int) offset);
+        byte[] bytes = new byte[length];
+        strings.buffer.get((int) offset + Integer.BYTES, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void putTime(int row, LocalDateTime dateTime) {
+        // В колонке - тот же ключ, что в индексе по времени (timestampAt отдаёт его как есть)
+        time.buffer.putLong(row * Long.BYTES, TransactionStore.timeKey(dateTime));
+        if (dateTime != null && !TransactionStore.isExactTime(dateTime)) {
+            overflowTimes.put(row, dateTime);
+        }
+    }
+
+    private LocalDateTime getTime(int row) {
+        long nanos = time.buffer.getLong(row * Long.BYTES);
+        if (nanos == NULL_TIME) {
+            return null;
+        }
+        if (!overflowTimes.isEmpty()) {
+            LocalDateTime overflow = overflowTimes.get(row);
+            if (overflow != null) {
+                return overflow;
+            }
+        }
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(nanos, 1_000_000_000L),
+                (int) Math.floorMod(nanos, 1_000_000_000L), ZoneOffset.UTC);
+    }
+
+    /**
+     * Один файл колонки, отображённый в память целиком. При нехватке места
+     * файл увеличивается вдвое и отображается заново.
+     */
+    private static final class Column {
+        final FileChannel channel;
+        final int width;
+        MappedByteBuffer buffer;
+
+        Column(Path file, int width) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            this.width = width;
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) INITIAL_ROWS * width);
+        }
+
+        void ensureCapacity(long bytes) {
+            if (bytes <= buffer.capacity()) {
+                return;
+            }
+            long newCapacity = Math.max(bytes, (long) buffer.capacity() * 2);
+            if (newCapacity > Integer.MAX_VALUE) {
+                // Один MappedByteBuffer адресует не более 2 ГБ
+                throw new IllegalStateException("Колонка превысила 2 ГБ");
+            }
+            try {
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, newCapacity);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void close() throws IOException {
+            // Без ссылки на отображение его может собрать GC, даже если хранилище ещё достижимо
+            buffer = null;
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package org.test.moneytrack.infrastructure.storage.journal;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.test.moneytrack.application.port.TransferLog;
+import org.test.moneytrack.domain.model.Transaction;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Журнал переводов в одном файле (transfers.log), по строке JSON на событие:
+ * запись о переводе и отметка о его завершении с ответом клиенту.
+ * Строки пишет GroupCommitWriter: переводы из разных потоков, пришедшие почти одновременно,
+ * сбрасываются на диск одним fsync. begin() ждёт сброса своей строки, complete() - нет
+ * (потерянная при сбое отметка только заставит recover() проверить перевод ещё раз).
+ *
+ * Файл растёт только до REWRITE_EVERY завершённых переводов, после чего переписывается
+ * через временный файл: в нём остаются незавершённые переводы и последние KEPT_KEYS
+ * переводов с ключами идемпотентности.
+ */
+public class FileTransferLog implements TransferLog, AutoCloseable {
+
+    // После скольких завершённых переводов переписывать файл
+    private static final int REWRITE_EVERY = 10_000;
+    // Сколько последних ключей идемпотентности хранить
+    private static final int KEPT_KEYS = 10_000;
+
+    /**
+     * Строка файла: перевод (id, from, to, expense, income, key, fingerprint)
+     * или отметка done об его завершении (с result).
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private static final class Line {
+        @JsonProperty("id")
+        final UUID id;
+        @JsonProperty("from")
+        final String from;
+        @JsonProperty("to")
+        final String to;
+        @JsonProperty("expense")
+        final Transaction expense;
+        @JsonProperty("income")
+        final Transaction income;
+        @JsonProperty("key")
+        final String key;
+        @JsonProperty("fingerprint")
+        final String fingerprint;
+        @JsonProperty("done")
+        final UUID done;
+        @JsonProperty("result")
+        final String result;
+
+        @JsonCreator
+        Line(@JsonProperty("id") UUID id,
+             @JsonProperty("from") String from,
+             @JsonProperty("to") String to,
+             @JsonProperty("expense") Transaction expense,
+             @JsonProperty("income") Transaction income,
+             @JsonProperty("key") String key,
+             @JsonProperty("fingerprint") String fingerprint,
+             @JsonProperty("done") UUID done,
+             @JsonProperty("result") String result) {
+            this.id = id;
+            this.from = from;
+            this.to = to;
+            this.expense = expense;
+            this.income = income;
+            this.key = key;
+            this.fingerprint = fingerprint;
+            this.done = done;
+            this.result = result;
+        }
+
+        static Line of(Entry entry) {
+            return new Line(entry.getId(), entry.getFromLogin(), entry.getToLogin(), entry.getExpense(),
+                    entry.getIncome(), entry.getIdempotencyKey(), entry.getFingerprint(), null, null);
+        }
+
+        static Line done(UUID id, String result) {
+            return new Line(null, null, null, null, null, null, null, id, result);
+        }
+
+        Entry toEntry() {
+            return new Entry(id, from, to, expense, income, key, fingerprint, null);
+        }
+    }
+
+    private final Path file;
+    private final ObjectReader lineReader;
+    private final ObjectWriter lineWriter;
+    private final GroupCommitWriter writer = new GroupCommitWriter();
+
+    // Всё ниже - под this
+    private final Map<UUID, Entry> inFlight = new LinkedHashMap<>();
+    private final Map<String, Entry> recentKeys = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > KEPT_KEYS;
+        }
+    };
+    private boolean directoryCreated;
+    private int completedSinceRewrite;
+
+    public FileTransferLog(Path file) {
+        this.file = file;
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+        mapper.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
+        this.lineReader = mapper.readerFor(Line.class);
+        this.lineWriter = mapper.writerFor(Line.class);
+    }
+
+    /**
+     * Ставит запись о переводе в очередь и ждёт её сброса на диск (вне монитора журнала:
+     * пока идёт fsync, другие переводы встают в ту же пачку).
+     */
+    @Override
+    public void begin(Entry entry) throws IOException {
+        byte[] line = bytes(Line.of(entry));
+        CompletableFuture<Void> written;
+        synchronized (this) {
+            createDirectory();
+            inFlight.put(entry.getId(), entry);
+            written = writer.append(file, line);
+        }
+        try {
+            await(written);
+        } catch (IOException e) {
+            synchronized (this) {
+                inFlight.remove(entry.getId());
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void complete(Entry entry, String result) throws IOException {
+        byte[] line = bytes(Line.done(entry.getId(), result));
+        synchronized (this) {
+            inFlight.remove(entry.getId());
+            remember(entry.withResult(result));
+            writer.append(file, line).exceptionally(e -> {
+                System.err.println("Ошибка записи отметки в журнал переводов: " + e.getMessage());
+                return null;
+            });
+            if (++completedSinceRewrite >= REWRITE_EVERY) {
+                rewrite();
+            }
+        }
+    }
+
+    /**
+     * Читает файл целиком; найденные незавершённые переводы сохраняются при переписывании файла,
+     * пока их не отметят завершёнными.
+     */
+    @Override
+    public synchronized List<Entry> pending() throws IOException {
+        Map<UUID, Entry> pending = new LinkedHashMap<>();
+        if (Files.exists(file)) {
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String text;
+                while ((text = reader.readLine()) != null) {
+                    if (text.isBlank()) {
+                        continue;
+                    }
+                    Line line;
+                    try {
+                        line = lineReader.readValue(text);
+                    } catch (IOException e) {
+                        // Недописанная при сбое последняя строка - дальше читать нечего
+                        System.err.println("Журнал переводов " + file.getFileName() + " обрезан: " + e.getMessage());
+                        break;
+                    }
+                    if (line.done != null) {
+                        Entry done = pending.remove(line.done);
+                        if (done != null) {
+                            remember(done.withResult(line.result));
+                        }
+                    } else if (line.id != null) {
+                        pending.put(line.id, line.toEntry());
+                    }
+                }
+            }
+        }
+        pending.forEach(inFlight::putIfAbsent);
+        return new ArrayList<>(pending.values());
+    }
+
+    @Override
+    public synchronized List<Entry> completedWithKeys() {
+        return new ArrayList<>(recentKeys.values());
+    }
+
+    /**
+     * Дописывает стоящие в очереди строки и останавливает поток записи.
+     */
+    @Override
+    public void close() {
+        writer.close();
+    }
+
+    private void createDirectory() throws IOException {
+        if (!directoryCreated) {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            directoryCreated = true;
+        }
+    }
+
+    private static void await(CompletableFuture<Void> future) throws IOException {
+        try {
+            future.join();
+        } catch (CompletionException e) {
+            throw (e.getCause() instanceof IOException)
+                    ? (IOException) e.getCause()
+                    : new IOException(e.getCause());
+        }
+    }
+
+    private void remember(Entry entry) {
+        if (entry.getIdempotencyKey() != null) {
+            // Повторная вставка переносит ключ в конец - как в IdempotencyCache
+            recentKeys.remove(entry.getIdempotencyKey());
+            recentKeys.put(entry.getIdempotencyKey(), entry);
+        }
+    }
+
+    /**
+     * Переписывает файл, оставляя незавершённые переводы и последние ключи идемпотентности.
+     * Вызывается под монитором журнала, поэтому новые строки в очередь не встают;
+     * уже поставленные сначала дописываются в старый файл (пустая дозапись ждёт их сброса).
+     */
+    private void rewrite() throws IOException {
+        await(writer.append(file, new byte[0]));
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (Entry entry : recentKeys.values()) {
+                ByteBuffer buffer = ByteBuffer.wrap(bytes(Line.of(entry)));
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+                buffer = ByteBuffer.wrap(bytes(Line.done(entry.getId(), entry.getResult())));
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+            }
+            for (Entry entry : inFlight.values()) {
+                ByteBuffer buffer = ByteBuffer.wrap(bytes(Line.of(entry)));
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+            }
+            out.force(false);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        completedSinceRewrite = 0;
+    }
+
+    private byte[] bytes(Line line) throws IOException {
+        byte[] json = lineWriter.writeValueAsBytes(line);
+        byte[] result = new byte[json.length + 1];
+        System.arraycopy(json, 0, result, 0, json.length);
+        result[json.length] = '\n';
+        return result;
+    }
+}
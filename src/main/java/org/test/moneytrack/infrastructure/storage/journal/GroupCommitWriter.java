@@ -0,0 +1,133 @@
+package org.test.moneytrack.infrastructure.storage.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Фоновый писатель журналов с групповой фиксацией (group commit).
+ * Все дозаписи, накопившиеся в очереди к моменту очередного прохода,
+ * пишутся одной пачкой, и на каждый затронутый файл делается один fsync.
+ *
+ * После close() дозаписи отклоняются сразу (future с IOException), а не повисают в очереди.
+ */
+public class GroupCommitWriter implements AutoCloseable {
+
+    private static final class Append {
+        final Path file;
+        final byte[] data;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        Append(Path file, byte[] data) {
+            this.file = file;
+            this.data = data;
+        }
+    }
+
+    private static final Append SHUTDOWN = new Append(null, new byte[0]);
+
+    private final BlockingQueue<Append> queue = new LinkedBlockingQueue<>();
+    private final Thread worker;
+    // Меняется и проверяется под this: дозапись не может встать в очередь после маркера остановки
+    private boolean running = true;
+
+    public GroupCommitWriter() {
+        this.worker = new Thread(this::runLoop, "moneytrack-journal-writer");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Ставит данные в очередь на дозапись в конец файла.
+     *
+     * @return future, завершающийся после того, как данные сброшены на диск
+     */
+    public CompletableFuture<Void> append(Path file, byte[] data) {
+        Append append = new Append(file, data);
+        synchronized (this) {
+            if (running) {
+                queue.add(append);
+                return append.done;
+            }
+        }
+        append.done.completeExceptionally(new IOException("Журнал закрыт"));
+        return append.done;
+    }
+
+    private void runLoop() {
+        List<Append> batch = new ArrayList<>();
+        boolean stop = false;
+        try {
+            while (!stop) {
+                try {
+                    batch.add(queue.take());
+                } catch (InterruptedException e) {
+                    continue;
+                }
+                queue.drainTo(batch);
+                // Маркер остановки: дописываем всё, что успели поставить в очередь, и выходим
+                stop = batch.remove(SHUTDOWN);
+                commit(batch);
+                batch.clear();
+            }
+        } finally {
+            // Поток завершился (в том числе из-за ошибки): никто больше не ждёт вечно
+            synchronized (this) {
+                running = false;
+            }
+            IOException closed = new IOException("Журнал закрыт");
+            batch.forEach(a -> a.done.completeExceptionally(closed));
+            batch.clear();
+            queue.drainTo(batch);
+            batch.forEach(a -> a.done.completeExceptionally(closed));
+        }
+    }
+
+    private void commit(List<Append> batch) {
+        // Группируем по файлам, сохраняя порядок дозаписей внутри файла
+        Map<Path, List<Append>> byFile = new LinkedHashMap<>();
+        for (Append append : batch) {
+            byFile.computeIfAbsent(append.file, k -> new ArrayList<>()).add(append);
+        }
+        for (Map.Entry<Path, List<Append>> entry : byFile.entrySet()) {
+            List<Append> appends = entry.getValue();
+            try (FileChannel channel = FileChannel.open(entry.getKey(),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                for (Append append : appends) {
+                    ByteBuffer buffer = ByteBuffer.wrap(append.data);
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                }
+                channel.force(false);
+                appends.forEach(a -> a.done.complete(null));
+            } catch (IOException e) {
+                appends.forEach(a -> a.done.completeExceptionally(e));
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (running) {
+                running = false;
+                queue.add(SHUTDOWN);
+            }
+        }
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package org.test.moneytrack.infrastructure.storage.journal;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.test.moneytrack.domain.model.Category;
+import org.test.moneytrack.domain.model.Money;
+import org.test.moneytrack.domain.model.Transaction;
+
+
+/**
+ * Одна запись журнала изменений кошелька (одна строка JSON в journal_{login}.log).
+ *
+ * Записи нумеруются по возрастанию (seq). Повторно применять их к снимку нельзя:
+ * старые BUDGET и BALANCE вернули бы прежние значения. Поэтому снимок хранит номер
+ * последней учтённой записи, и при загрузке записи с номером не больше него пропускаются.
+ * У записей из журналов старого формата номера нет (null).
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class JournalRecord {
+
+    public enum Op {
+        TX,      // добавлена транзакция
+        DELETE,  // транзакция удалена
+        BUDGET,  // установлен или изменён бюджет
+        BALANCE  // баланс изменён не через транзакцию
+    }
+
+    private final Long seq;
+    private final Op op;
+    private final Transaction transaction;
+    private final Category category;
+    private final Money amount;
+
+    @JsonCreator
+    public JournalRecord(@JsonProperty("seq") Long seq,
+                         @JsonProperty("op") Op op,
+                         @JsonProperty("transaction") Transaction transaction,
+                         @JsonProperty("category") Category category,
+                         @JsonProperty("amount") Money amount) {
+        this.seq = seq;
+        this.op = op;
+        this.transaction = transaction;
+        this.category = category;
+        this.amount = amount;
+    }
+
+    public static JournalRecord transaction(Transaction transaction) {
+        return new JournalRecord(null, Op.TX, transaction, null, null);
+    }
+
+    public static JournalRecord delete(Transaction transaction) {
+        return new JournalRecord(null, Op.DELETE, transaction, null, null);
+    }
+
+    public static JournalRecord budget(Category category, Money limitAmount) {
+        return new JournalRecord(null, Op.BUDGET, null, category, limitAmount);
+    }
+
+    public static JournalRecord balance(Money balance) {
+        return new JournalRecord(null, Op.BALANCE, null, null, balance);
+    }
+
+    /**
+     * Та же запись с номером seq.
+     */
+    public JournalRecord withSeq(long seq) {
+        return new JournalRecord(seq, op, transaction, category, amount);
+    }
+
+    public Long getSeq() {
+        return seq;
+    }
+
+    public Op getOp() {
+        return op;
+    }
+
+    public Transaction getTransaction() {
+        return transaction;
+    }
+
+    public Category getCategory() {
+        return category;
+    }
+
+    public Money getAmount() {
+        return amount;
+    }
+}
@@ -0,0 +1,414 @@
+package org.test.moneytrack.infrastructure.storage.journal;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.test.moneytrack.domain.model.*;
+import org.test.moneytrack.infrastructure.storage.JsonFileStorage;
+import org.test.moneytrack.infrastructure.storage.UserStorage;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Журналируемое хранилище пользователей.
+ *
+ * Снимок (snapshot) хранится в обычном data_{login}.json (через JsonFileStorage),
+ * а изменения после снимка дописываются маленькими записями в journal_{login}.log:
+ * новые и удалённые транзакции, изменения бюджетов и баланса.
+ * Когда журнал вырастает до порога, состояние сжимается (compaction) в новый снимок,
+ * а журнал удаляется. Загрузка = снимок + проигрывание хвоста журнала.
+ *
+ * Записи журнала нумеруются сквозным для пользователя номером, снимок хранит номер
+ * последней вошедшей в него записи (journalSequence); при проигрывании записи
+ * с номером не больше этого пропускаются.
+ */
+public class JournaledFileStorage implements UserStorage {
+
+    /**
+     * Что уже лежит на диске (снимок + журнал) для пользователя.
+     * По нему вычисляется разница, которую нужно дописать при следующем сохранении.
+     */
+    private static final class PersistedState {
+        int transactionCount;
+        int deletedCount;
+        Money balance;
+        Map<Category, Money> budgets;
+        int journalRecords;
+        // Номер последней записи на диске (в журнале или в снимке)
+        long sequence;
+
+        PersistedState(Wallet wallet, int journalRecords, long sequence) {
+            capture(wallet);
+            this.journalRecords = journalRecords;
+            this.sequence = sequence;
+        }
+
+        void capture(Wallet wallet) {
+            this.transactionCount = wallet.getAppendedCount();
+            this.deletedCount = wallet.getDeletedCount();
+            this.balance = wallet.getBalance();
+            this.budgets = new HashMap<>();
+            wallet.getBudgets().forEach((category, budget) -> budgets.put(category, budget.getLimitAmount()));
+        }
+    }
+
+    private final JsonFileStorage snapshotStorage;
+    private final String dataDirectory;
+    private final int compactionThreshold;
+    private final GroupCommitWriter writer;
+    private final ObjectReader recordReader;
+    private final ObjectWriter recordWriter;
+    private final Map<String, PersistedState> states = new ConcurrentHashMap<>();
+
+    /**
+     * @param snapshotStorage     хранилище снимков (обычные JSON-файлы)
+     * @param dataDirectory       папка с данными (та же, что у snapshotStorage)
+     * @param compactionThreshold после скольких записей журнала делать новый снимок
+     * @param writer              писатель журналов с групповой фиксацией
+     */
+    public JournaledFileStorage(JsonFileStorage snapshotStorage,
+                                String dataDirectory,
+                                int compactionThreshold,
+                                GroupCommitWriter writer) {
+        this.snapshotStorage = snapshotStorage;
+        this.dataDirectory = dataDirectory;
+        this.compactionThreshold = compactionThreshold;
+        this.writer = writer;
+
+        // Записи журнала пишем компактно, по одной на строку. Reader и writer для JournalRecord
+        // создаются один раз: сериализаторы находятся при первом вызове и дальше переиспользуются
+        ObjectMapper recordMapper = new ObjectMapper();
+        recordMapper.registerModule(new JavaTimeModule());
+        recordMapper.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
+        this.recordReader = recordMapper.readerFor(JournalRecord.class);
+        this.recordWriter = recordMapper.writerFor(JournalRecord.class);
+    }
+
+    @Override
+    public void saveUser(User user) throws IOException {
+        PersistedState state = states.get(user.getLogin());
+        if (state == null) {
+            // Пользователь ещё не проходил через журнал - начинаем с полного снимка
+            compact(user);
+            return;
+        }
+        synchronized (state) {
+            List<JournalRecord> records = diff(state, user.getWallet());
+            if (records.isEmpty()) {
+                return;
+            }
+            if (state.journalRecords + records.size() > compactionThreshold) {
+                compact(user);
+                return;
+            }
+            append(user.getLogin(), number(state, records));
+            state.journalRecords += records.size();
+            state.capture(user.getWallet());
+        }
+    }
+
+    /**
+     * Записи всех пользователей отдаются писателю сразу и ожидаются вместе,
+     * поэтому попадают в одну пачку групповой фиксации (один fsync на файл).
+     */
+    @Override
+    public void saveUsers(List<User> users) throws IOException {
+        List<User> appended = new ArrayList<>();
+        List<Integer> recordCounts = new ArrayList<>();
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        for (User user : users) {
+            PersistedState state = states.get(user.getLogin());
+            if (state == null) {
+                compact(user);
+                continue;
+            }
+            synchronized (state) {
+                List<JournalRecord> records = diff(state, user.getWallet());
+                if (records.isEmpty()) {
+                    continue;
+                }
+                if (state.journalRecords + records.size() > compactionThreshold) {
+                    compact(user);
+                    continue;
+                }
+                pending.add(appendAsync(user.getLogin(), number(state, records)));
+                appended.add(user);
+                recordCounts.add(records.size());
+            }
+        }
+        for (CompletableFuture<Void> future : pending) {
+            await(future);
+        }
+        for (int i = 0; i < appended.size(); i++) {
+            User user = appended.get(i);
+            PersistedState state = states.get(user.getLogin());
+            synchronized (state) {
+                state.journalRecords += recordCounts.get(i);
+                state.capture(user.getWallet());
+            }
+        }
+    }
+
+    /**
+     * Загружает пользователя и запоминает, что лежит на диске: следующее сохранение
+     * этого объекта допишет в журнал только разницу.
+     */
+    @Override
+    public User loadUser(String login) {
+        return load(login, true);
+    }
+
+    /**
+     * Снимок и журнал читаются так же, но состояние на диске не запоминается: иначе отчёт
+     * подменил бы его для пользователя, который сейчас в памяти и сохраняется своим объектом.
+     */
+    @Override
+    public User loadUserForReading(String login) {
+        return load(login, false);
+    }
+
+    private User load(String login, boolean track) {
+        JsonFileStorage.Snapshot snapshot = snapshotStorage.loadSnapshot(login);
+        if (snapshot == null) {
+            return null;
+        }
+        User user = snapshot.getUser();
+        long[] sequence = {snapshot.getJournalSequence()};
+        int replayed = replay(login, user.getWallet(), sequence);
+        if (track) {
+            states.put(login, new PersistedState(user.getWallet(), replayed, sequence[0]));
+        }
+        return user;
+    }
+
+    @Override
+    public void deleteUser(String login) {
+        states.remove(login);
+        snapshotStorage.deleteUser(login);
+        try {
+            Files.deleteIfExists(journalPath(login));
+        } catch (IOException e) {
+            System.err.println("Ошибка удаления журнала " + login + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Пользователь есть, только если есть его снимок (журнал без снимка не загружается).
+     */
+    @Override
+    public Stream<String> logins() throws IOException {
+        return snapshotStorage.logins();
+    }
+
+    /**
+     * Вычисляет записи журнала, которых не хватает на диске до текущего состояния кошелька.
+     */
+    private List<JournalRecord> diff(PersistedState state, Wallet wallet) {
+        List<JournalRecord> records = new ArrayList<>();
+
+        // Транзакции только дописываются (удалённые остаются на своих местах),
+        // поэтому новые - это хвост по номерам добавления
+        Money expectedBalance = state.balance;
+        for (int i = state.transactionCount; i < wallet.getAppendedCount(); i++) {
+            Transaction t = wallet.getAppended(i);
+            records.add(JournalRecord.transaction(t));
+            if (t.getType() == TransactionType.INCOME) {
+                expectedBalance = expectedBalance.add(t.getAmount());
+            } else if (t.getType() == TransactionType.EXPENSE) {
+                expectedBalance = expectedBalance.subtract(t.getAmount());
+            }
+        }
+        for (JournalRecord deletion : deletions(state, wallet)) {
+            Transaction t = deletion.getTransaction();
+            records.add(deletion);
+            if (t.getType() == TransactionType.INCOME) {
+                expectedBalance = expectedBalance.subtract(t.getAmount());
+            } else if (t.getType() == TransactionType.EXPENSE) {
+                expectedBalance = expectedBalance.add(t.getAmount());
+            }
+        }
+
+        for (Budget budget : wallet.getBudgets().values()) {
+            Money persisted = state.budgets.get(budget.getCategory());
+            if (persisted == null || persisted.compareTo(budget.getLimitAmount()) != 0) {
+                records.add(JournalRecord.budget(budget.getCategory(), budget.getLimitAmount()));
+            }
+        }
+
+        // Баланс пишем, только если он разошёлся с тем, что получится при проигрывании транзакций
+        if (expectedBalance.compareTo(wallet.getBalance()) != 0) {
+            records.add(JournalRecord.balance(wallet.getBalance()));
+        }
+        return records;
+    }
+
+    /**
+     * Записи об удалениях, которых ещё нет на диске.
+     */
+    private static List<JournalRecord> deletions(PersistedState state, Wallet wallet) {
+        int deleted = wallet.getDeletedCount();
+        List<JournalRecord> records = new ArrayList<>(Math.max(0, deleted - state.deletedCount));
+        for (int i = state.deletedCount; i < deleted; i++) {
+            records.add(JournalRecord.delete(wallet.getDeleted(i)));
+        }
+        return records;
+    }
+
+    /**
+     * Присваивает записям следующие номера пользователя.
+     * Номер, пропавший из-за ошибки записи, просто не встретится в журнале.
+     */
+    private static List<JournalRecord> number(PersistedState state, List<JournalRecord> records) {
+        List<JournalRecord> numbered = new ArrayList<>(records.size());
+        for (JournalRecord record : records) {
+            numbered.add(record.withSeq(++state.sequence));
+        }
+        return numbered;
+    }
+
+    private void append(String login, List<JournalRecord> records) throws IOException {
+        // Ждём, пока пачка, в которую попала запись, будет сброшена на диск
+        await(appendAsync(login, records));
+    }
+
+    private CompletableFuture<Void> appendAsync(String login, List<JournalRecord> records) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (JournalRecord record : records) {
+            out.write(recordWriter.writeValueAsBytes(record));
+            out.write('\n');
+        }
+        return writer.append(journalPath(login), out.toByteArray());
+    }
+
+    private static void await(CompletableFuture<Void> future) throws IOException {
+        try {
+            future.join();
+        } catch (CompletionException e) {
+            throw (e.getCause() instanceof IOException)
+                    ? (IOException) e.getCause()
+                    : new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Пишет новый снимок и удаляет журнал.
+     * Порядок важен: сначала атомарно подменяется снимок, потом удаляется журнал.
+     * Если процесс упадёт между этими шагами, старый журнал останется рядом с новым снимком.
+     * Его записи не идемпотентны (BUDGET и BALANCE вернули бы старые значения), поэтому
+     * снимок хранит номер последней записи журнала, и при загрузке они все пропускаются.
+     * Номера после сжатия продолжаются, а не начинаются заново.
+     */
+    private void compact(User user) throws IOException {
+        PersistedState state = states.get(user.getLogin());
+        // Пользователь, которого этот процесс ещё не загружал: номера продолжают его журнал на диске.
+        // Номер снимка не меньше 1: записи без номера (старый формат журнала) старше любого такого снимка
+        long sequence = Math.max(1, (state != null) ? state.sequence : lastSequence(user.getLogin()));
+        snapshotStorage.saveUserDurably(user, sequence);
+        Files.deleteIfExists(journalPath(user.getLogin()));
+        states.put(user.getLogin(), new PersistedState(user.getWallet(), 0, sequence));
+    }
+
+    /**
+     * Наибольший номер записи в журнале пользователя (0, если журнала нет).
+     */
+    private long lastSequence(String login) {
+        long[] sequence = {0};
+        forEachRecord(journalPath(login), record -> {
+            if (record.getSeq() != null) {
+                sequence[0] = Math.max(sequence[0], record.getSeq());
+            }
+        });
+        return sequence[0];
+    }
+
+    /**
+     * Проигрывает журнал поверх загруженного снимка, пропуская записи, уже вошедшие в снимок.
+     *
+     * @param sequence [0] - номер из снимка; после вызова - наибольший номер на диске
+     * @return количество прочитанных записей
+     */
+    private int replay(String login, Wallet wallet, long[] sequence) {
+        Path journal = journalPath(login);
+        if (!Files.exists(journal)) {
+            return 0;
+        }
+        Set<UUID> knownIds = new HashSet<>();
+        for (Transaction t : wallet.getTransactions()) {
+            knownIds.add(t.getTransactionId());
+        }
+        long snapshotSequence = sequence[0];
+        int[] count = {0};
+        forEachRecord(journal, record -> {
+            count[0]++;
+            Long seq = record.getSeq();
+            boolean inSnapshot = (seq == null) ? snapshotSequence > 0 : seq <= snapshotSequence;
+            if (inSnapshot) {
+                return;
+            }
+            apply(record, wallet, knownIds);
+            if (seq != null) {
+                sequence[0] = Math.max(sequence[0], seq);
+            }
+        });
+        return count[0];
+    }
+
+    /**
+     * Читает записи журнала по порядку до конца файла или до обрезанной при сбое строки.
+     */
+    private void forEachRecord(Path journal, Consumer<JournalRecord> action) {
+        if (!Files.exists(journal)) {
+            return;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(journal, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                JournalRecord record;
+                try {
+                    record = recordReader.readValue(line);
+                } catch (IOException e) {
+                    // Недописанная при сбое последняя строка - дальше читать нечего
+                    System.err.println("Журнал " + journal.getFileName() + " обрезан: " + e.getMessage());
+                    break;
+                }
+                action.accept(record);
+            }
+        } catch (IOException e) {
+            System.err.println("Ошибка чтения журнала: " + journal.getFileName());
+        }
+    }
+
+    private void apply(JournalRecord record, Wallet wallet, Set<UUID> knownIds) {
+        switch (record.getOp()) {
+            case TX -> {
+                if (knownIds.add(record.getTransaction().getTransactionId())) {
+                    wallet.addTransaction(record.getTransaction());
+                }
+            }
+            case DELETE -> wallet.deleteTransaction(record.getTransaction().getTransactionId());
+            case BUDGET -> wallet.setBudget(record.getCategory(), record.getAmount());
+            case BALANCE -> wallet.setBalance(record.getAmount());
+        }
+    }
+
+    private Path journalPath(String login) {
+        return Paths.get(dataDirectory, "journal_" + login + ".log");
+    }
+}
@@ -0,0 +1,283 @@
+package org.test.moneytrack.interfaces.cli;
+
+import org.test.moneytrack.interfaces.controller.MoneyTrackController;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Разбор и выполнение одной строки команды CLI. Общий для интерактивного режима
+ * и пакетного (--script): ничего не печатает сам, а возвращает текст ответа.
+ */
+class CommandDispatcher {
+
+    static final String HELP = """
+            Доступные команды:
+              register {login} {password}
+              login {login} {password}
+              whoami
+              logout
+              add_income {amount} [category]
+              add_expense {amount} {category}
+              set_category {category} {budget}
+              show_summary [--from=YYYY-MM-DD] [--to=YYYY-MM-DD] [--output=<filename>]
+              show_budget [--from=YYYY-MM-DD] [--to=YYYY-MM-DD] [--output=<filename>]
+              show_expenses {cat1} {cat2} ... [--from=YYYY-MM-DD] [--to=YYYY-MM-DD] [--output=<filename>]
+              show_trends [--from=YYYY-MM-DD] [--to=YYYY-MM-DD] [--output=<filename>]
+              transfer {loginTo} {amount} [key]
+              import {file} [--format=csv|jsonl]
+              export {file} [--format=csv|jsonl] [--category=<cat>]... [--type=income|expense] [--from=YYYY-MM-DD] [--to=YYYY-MM-DD]
+              show_transaction {id}
+              delete_transaction {id}
+              admin_report [--output=<filename>]
+              cache_stats
+              stats
+              exit
+            """;
+
+    /**
+     * Ответ на команду.
+     */
+    static final class Result {
+        private final String command;
+        private final String output;
+        private final boolean error;
+        private final boolean exit;
+
+        private Result(String command, String output, boolean error, boolean exit) {
+            this.command = command;
+            this.output = output;
+            this.error = error;
+            this.exit = exit;
+        }
+
+        /**
+         * Команда завершилась исключением (в пакетном режиме это не останавливает скрипт).
+         */
+        static Result failed(String input, RuntimeException e) {
+            String command = input.split("\\s+", 2)[0].toLowerCase();
+            return new Result(command, "Ошибка: " + e, true, false);
+        }
+
+        /**
+         * Имя команды (в нижнем регистре), как оно было введено.
+         */
+        String getCommand() {
+            return command;
+        }
+
+        String getOutput() {
+            return output;
+        }
+
+        /**
+         * Команда не выполнена: неверные аргументы, неизвестная команда или ответ "Ошибка..." от контроллера.
+         */
+        boolean isError() {
+            return error;
+        }
+
+        /**
+         * Была команда exit: дальше команды не читаются.
+         */
+        boolean isExit() {
+            return exit;
+        }
+    }
+
+    private final MoneyTrackController controller;
+
+    CommandDispatcher(MoneyTrackController controller) {
+        this.controller = controller;
+    }
+
+    /**
+     * Выполняет строку команды (непустую, без ведущих и хвостовых пробелов).
+     */
+    Result execute(String input) {
+        String[] tokens = input.split("\\s+");
+        String command = tokens[0].toLowerCase();
+
+        switch (command) {
+            case "help" -> {
+                return ok(command, HELP);
+            }
+            case "register" -> {
+                if (tokens.length < 3) {
+                    return usage(command, "register {login} {password}");
+                }
+                return answer(command, controller.register(tokens[1], tokens[2]));
+            }
+            case "login" -> {
+                if (tokens.length < 3) {
+                    return usage(command, "login {login} {password}");
+                }
+                return answer(command, controller.login(tokens[1], tokens[2]));
+            }
+            case "whoami" -> {
+                return ok(command, controller.getCurrentUserLogin());
+            }
+            case "logout" -> {
+                return answer(command, controller.logout());
+            }
+            case "add_income" -> {
+                String amount = (tokens.length > 1) ? tokens[1] : "";
+                String category = (tokens.length > 2) ? tokens[2] : null;
+                return answer(command, controller.addIncome(amount, category));
+            }
+            case "add_expense" -> {
+                if (tokens.length < 3) {
+                    return usage(command, "add_expense {amount} {category}");
+                }
+                return answer(command, controller.addExpense(tokens[1], tokens[2]));
+            }
+            case "set_category" -> {
+                if (tokens.length < 3) {
+                    return usage(command, "set_category {category} {budget}");
+                }
+                return answer(command, controller.addCategory(tokens[1], tokens[2]));
+            }
+            case "transfer" -> {
+                if (tokens.length < 3) {
+                    return usage(command, "transfer {loginTo} {amount} [key]");
+                }
+                String key = (tokens.length > 3) ? tokens[3] : null;
+                return answer(command, controller.transfer(tokens[1], tokens[2], key));
+            }
+            case "import" -> {
+                if (tokens.length < 2) {
+                    return usage(command, "import {file} [--format=csv|jsonl]");
+                }
+                String format = null;
+                for (int i = 2; i < tokens.length; i++) {
+                    if (tokens[i].startsWith("--format=")) {
+                        format = tokens[i].substring("--format=".length());
+                    }
+                }
+                return answer(command, controller.importTransactions(tokens[1], format));
+            }
+            case "export" -> {
+                if (tokens.length < 2) {
+                    return usage(command, "export {file} [--format=csv|jsonl] [--category=<cat>]... [--type=income|expense] [--from=YYYY-MM-DD] [--to=YYYY-MM-DD]");
+                }
+                List<String> categoryNames = new ArrayList<>();
+                for (int i = 2; i < tokens.length; i++) {
+                    if (tokens[i].startsWith("--category=")) {
+                        categoryNames.add(tokens[i].substring("--category=".length()));
+                    }
+                }
+                return answer(command, controller.exportTransactions(tokens[1], extractOption(tokens, "--format="),
+                        categoryNames, extractOption(tokens, "--type="),
+                        extractOption(tokens, "--from="), extractOption(tokens, "--to=")));
+            }
+            case "show_transaction" -> {
+                if (tokens.length < 2) {
+                    return usage(command, "show_transaction {id}");
+                }
+                return answer(command, controller.showTransaction(tokens[1]));
+            }
+            case "delete_transaction" -> {
+                if (tokens.length < 2) {
+                    return usage(command, "delete_transaction {id}");
+                }
+                return answer(command, controller.deleteTransaction(tokens[1]));
+            }
+
+            case "show_summary" -> {
+                String outputFile = extractOutputFile(tokens);
+                return answer(command, controller.showSummary(outputFile,
+                        extractOption(tokens, "--from="), extractOption(tokens, "--to=")));
+            }
+
+            case "show_budget" -> {
+                String outputFile = extractOutputFile(tokens);
+                return answer(command, controller.showBudget(outputFile,
+                        extractOption(tokens, "--from="), extractOption(tokens, "--to=")));
+            }
+
+            case "cache_stats" -> {
+                return ok(command, controller.cacheStats());
+            }
+            case "stats" -> {
+                return ok(command, controller.stats());
+            }
+            case "admin_report" -> {
+                return answer(command, controller.adminReport(extractOutputFile(tokens)));
+            }
+
+            case "show_trends" -> {
+                String outputFile = extractOutputFile(tokens);
+                return answer(command, controller.showTrends(outputFile,
+                        extractOption(tokens, "--from="), extractOption(tokens, "--to=")));
+            }
+
+            case "show_expenses" -> {
+                if (tokens.length < 2) {
+                    return usage(command, "show_expenses {cat1} {cat2} ... [--from=YYYY-MM-DD] [--to=YYYY-MM-DD] [--output=filename]");
+                }
+                String outputFile = null;
+                List<String> categoryNames = new ArrayList<>();
+
+                // Пройдём по всем аргументам, начиная со второго
+                for (int i = 1; i < tokens.length; i++) {
+                    if (tokens[i].startsWith("--output=")) {
+                        outputFile = tokens[i].substring("--output=".length());
+                    } else if (tokens[i].startsWith("--from=") || tokens[i].startsWith("--to=")) {
+                        // период разбирается ниже
+                    } else {
+                        // название категории
+                        categoryNames.add(tokens[i]);
+                    }
+                }
+                return answer(command, controller.showExpenses(categoryNames, outputFile,
+                        extractOption(tokens, "--from="), extractOption(tokens, "--to=")));
+            }
+
+            case "exit" -> {
+                String output = "Завершение работы...";
+                if (!Objects.equals(controller.getCurrentUserLogin(), "")) {
+                    output = controller.logout() + "\n" + output;
+                }
+                return new Result(command, output, false, true);
+            }
+            default -> {
+                return new Result(command, "Неизвестная команда. 'help' для списка команд.", true, false);
+            }
+        }
+    }
+
+    private static Result ok(String command, String output) {
+        return new Result(command, output, false, false);
+    }
+
+    private static Result usage(String command, String syntax) {
+        return new Result(command, "Использование: " + syntax, true, false);
+    }
+
+    /**
+     * Ответ контроллера: ошибки он возвращает текстом, начинающимся с "Ошибка"
+     * (или просьбой сначала авторизоваться).
+     */
+    private static Result answer(String command, String output) {
+        boolean error = output != null
+                && (output.startsWith("Ошибка") || output.startsWith("Сначала авторизуйтесь"));
+        return new Result(command, output, error, false);
+    }
+
+    private String extractOutputFile(String[] tokens) {
+        return extractOption(tokens, "--output=");
+    }
+
+    /**
+     * Значение опции вида --name=value или null, если её нет.
+     */
+    private String extractOption(String[] tokens, String prefix) {
+        for (int i = 1; i < tokens.length; i++) {
+            if (tokens[i].startsWith(prefix)) {
+                return tokens[i].substring(prefix.length());
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,142 @@
+package org.test.moneytrack.interfaces.cli;
+
+import org.test.moneytrack.diagnostics.metrics.LatencyHistogram;
+import org.test.moneytrack.interfaces.controller.MoneyTrackController;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Пакетный режим CLI (--script): команды читаются из потока по одной на строку, без приглашений.
+ *
+ * - Пустые строки и строки, начинающиеся с #, пропускаются.
+ * - Ответы копятся в буфере и печатаются кусками, а не println на каждую команду.
+ *   Ответ с ошибкой помечается номером строки скрипта.
+ * - Исключение в команде считается ошибкой и не останавливает скрипт.
+ * - logout не сохраняет данные: изменения записываются один раз после всех команд
+ *   (или раньше - фоновым flusher'ом, если изменённых пользователей много).
+ * - В конце печатается сводка: число команд и ошибок, время по каждой команде.
+ */
+class ScriptRunner {
+
+    // Сколько символов ответов копить перед выводом
+    private static final int FLUSH_CHARS = 64 * 1024;
+
+    /**
+     * Время и ошибки одной команды (register, add_expense, ...).
+     */
+    private static final class CommandStats {
+        final LatencyHistogram latency = new LatencyHistogram();
+        int errors;
+    }
+
+    private final MoneyTrackController controller;
+    private final CommandDispatcher dispatcher;
+    private final PrintStream out;
+
+    ScriptRunner(MoneyTrackController controller, CommandDispatcher dispatcher, PrintStream out) {
+        this.controller = controller;
+        this.dispatcher = dispatcher;
+        this.out = out;
+    }
+
+    /**
+     * Выполняет все команды из input (до конца потока или до exit) и сохраняет изменения.
+     *
+     * @return число команд, завершившихся ошибкой
+     */
+    int run(BufferedReader input) throws IOException {
+        StringBuilder buffer = new StringBuilder(FLUSH_CHARS + 4096);
+        Map<String, CommandStats> stats = new TreeMap<>();
+        long started = System.nanoTime();
+        int lineNumber = 0;
+        int commands = 0;
+        int errors = 0;
+
+        controller.setSaveOnLogout(false);
+        try {
+            String line;
+            while ((line = input.readLine()) != null) {
+                lineNumber++;
+                String trimmed = line.trim();
+                if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                    continue;
+                }
+                long start = System.nanoTime();
+                CommandDispatcher.Result result;
+                try {
+                    result = dispatcher.execute(trimmed);
+                } catch (RuntimeException e) {
+                    result = CommandDispatcher.Result.failed(trimmed, e);
+                }
+                long elapsed = System.nanoTime() - start;
+
+                commands++;
+                CommandStats commandStats = stats.computeIfAbsent(result.getCommand(), name -> new CommandStats());
+                commandStats.latency.record(elapsed);
+                if (result.isError()) {
+                    errors++;
+                    commandStats.errors++;
+                    buffer.append("Строка ").append(lineNumber).append(": ");
+                }
+                buffer.append(result.getOutput()).append('\n');
+                if (buffer.length() >= FLUSH_CHARS) {
+                    out.print(buffer);
+                    buffer.setLength(0);
+                }
+                if (result.isExit()) {
+                    break;
+                }
+            }
+
+            // Скрипт без exit: сессия последнего пользователя тоже закрывается
+            if (!controller.getCurrentUserLogin().isEmpty()) {
+                buffer.append(controller.logout()).append('\n');
+            }
+        } finally {
+            controller.setSaveOnLogout(true);
+        }
+
+        long saveStart = System.nanoTime();
+        try {
+            controller.saveChanges();
+        } catch (UncheckedIOException e) {
+            // Изменения остаются в памяти: их ещё раз попробует записать shutdown hook
+            errors++;
+            buffer.append("Ошибка сохранения данных: ").append(e.getMessage()).append('\n');
+        }
+        long saveNanos = System.nanoTime() - saveStart;
+
+        out.print(buffer);
+        out.println(report(stats, commands, errors, System.nanoTime() - started, saveNanos));
+        out.flush();
+        return errors;
+    }
+
+    private static String report(Map<String, CommandStats> stats, int commands, int errors,
+                                 long totalNanos, long saveNanos) {
+        double seconds = totalNanos / 1e9;
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT,
+                "Скрипт выполнен: команд %d, ошибок %d, за %.2f с (%.0f команд/с), сохранение %.1f мс%n",
+                commands, errors, seconds, (seconds > 0) ? commands / seconds : 0.0, saveNanos / 1e6));
+        sb.append(String.format(Locale.ROOT, "%-20s %9s %7s %10s %10s %10s %10s %10s%n",
+                "команда", "вызовов", "ошибок", "всего мс", "сред.мкс", "p50 мкс", "p99 мкс", "макс мкс"));
+        stats.forEach((command, commandStats) -> {
+            LatencyHistogram.Snapshot s = commandStats.latency.snapshot();
+            sb.append(String.format(Locale.ROOT, "%-20s %9d %7d %10.1f %10.1f %10.1f %10.1f %10.1f%n",
+                    command, s.getCount(), commandStats.errors,
+                    s.getMeanNanos() * s.getCount() / 1e6,
+                    s.getMeanNanos() / 1e3,
+                    s.getPercentileNanos(0.50) / 1e3,
+                    s.getPercentileNanos(0.99) / 1e3,
+                    s.getMaxNanos() / 1e3));
+        });
+        return sb.toString().trim();
+    }
+}
@@ -1,11 +1,24 @@
 package org.test.moneytrack.interfaces.controller;
 
+import org.test.moneytrack.application.port.TransactionImportReader;
 import org.test.moneytrack.config.ApplicationConfig;
+import org.test.moneytrack.diagnostics.metrics.Metrics;
 import org.test.moneytrack.domain.model.Category;
+import org.test.moneytrack.domain.model.CategoryRegistry;
+import org.test.moneytrack.domain.model.DateRange;
+import org.test.moneytrack.domain.model.TransactionType;
 import org.test.moneytrack.domain.model.User;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.regex.Pattern;
 
 
 /**
@@ -16,11 +29,16 @@ import java.util.List;
  */
 public class MoneyTrackController {
 
+    private static final Pattern VALID_LOGIN = Pattern.compile("[\\p{L}\\p{N}_-][\\p{L}\\p{N}_.-]{0,63}");
+
     private final ApplicationConfig config;
 
     // Текущий залогиненный пользователь
     private User currentUser;
 
+    // В пакетном режиме (--script) изменения записываются один раз в конце, а не при каждом logout
+    private boolean saveOnLogout = true;
+
     public MoneyTrackController(ApplicationConfig config) {
         this.config = config;
     }
@@ -31,6 +49,10 @@ public class MoneyTrackController {
         if (login.length() < 3 || password.length() < 3) {
             return "Ошибка: логин и пароль должны быть не короче 3 символов.";
         }
+        // Логин входит в имена файлов и папок (data_{login}.json, reports/{login})
+        if (!VALID_LOGIN.matcher(login).matches()) {
+            return "Ошибка: логин может содержать только буквы, цифры, '_', '-' и '.' (не в начале), до 64 символов.";
+        }
         return config.getRegisterUserUseCase().register(login, password);
     }
 
@@ -54,15 +76,39 @@ public class MoneyTrackController {
         if (currentUser == null) {
             return "Ошибка: никто не залогинен.";
         }
-        // Сохраняем всех пользователей в памяти; //TODO: перенести всю бизнес-логику в юз кейсы
-        for (User u : config.getInMemoryRepository().findAll()) {
-            config.getSaveUserDataUseCase().saveUserToFile(u);
-        }
         String loggedOut = currentUser.getLogin();
+        if (!saveOnLogout) {
+            currentUser = null;
+            return "Пользователь " + loggedOut + " разлогинен.";
+        }
+        // Сохраняем только изменённых пользователей (остальное уже записал фоновый flusher)
+        try {
+            config.getSaveUserDataUseCase().saveChanges();
+        } catch (UncheckedIOException e) {
+            // Изменения остаются в памяти, фоновый flusher повторит запись
+            currentUser = null;
+            return "Пользователь " + loggedOut + " разлогинен, но данные пока не сохранены: " + e.getMessage()
+                    + " (запись будет повторена).";
+        }
         currentUser = null;
         return "Пользователь " + loggedOut + " разлогинен, данные сохранены.";
     }
 
+    /**
+     * Сохранять ли изменения при каждом logout (по умолчанию да). Пакетный режим отключает это
+     * и вызывает saveChanges() один раз после всех команд.
+     */
+    public void setSaveOnLogout(boolean saveOnLogout) {
+        this.saveOnLogout = saveOnLogout;
+    }
+
+    /**
+     * Записывает изменения всех пользователей, загруженных в память.
+     */
+    public void saveChanges() {
+        config.getSaveUserDataUseCase().saveChanges();
+    }
+
     // ---------------- Прочие методы ----------------
 
     public String addIncome(String amountStr, String categoryStr) {
@@ -70,7 +116,7 @@ public class MoneyTrackController {
 
         try {
             BigDecimal amount = new BigDecimal(amountStr);
-            Category category = (categoryStr != null) ? new Category(categoryStr) : null;
+            Category category = (categoryStr != null) ? Category.of(categoryStr) : null;
 
             String result = config.getAddIncomeUseCase().addIncome(
                     currentUser, amount, category, "доход по CLI");
@@ -89,7 +135,7 @@ public class MoneyTrackController {
         try {
             BigDecimal amount = new BigDecimal(amountStr);
             String result = config.getAddExpenseUseCase().addExpense(
-                    currentUser, amount, new Category(categoryStr), "расход по CLI");
+                    currentUser, amount, Category.of(categoryStr), "расход по CLI");
             return result;
         } catch (NumberFormatException e) {
             return "Ошибка: некорректная сумма.";
@@ -101,7 +147,7 @@ public class MoneyTrackController {
 
         try {
             BigDecimal limit = new BigDecimal(limitStr);
-            Category category = new Category(categoryName);
+            Category category = Category.of(categoryName);
             String result = config.getSetBudgetUseCase().setBudget(
                     currentUser, category, limit);
             return result;
@@ -111,24 +157,116 @@ public class MoneyTrackController {
     }
 
     public String showSummary(String outputFile) {
+        return showSummary(outputFile, null, null);
+    }
+
+    /**
+     * @param fromStr первый день периода (YYYY-MM-DD) или null
+     * @param toStr   последний день периода включительно (YYYY-MM-DD) или null
+     */
+    public String showSummary(String outputFile, String fromStr, String toStr) {
         if (!isUserLoggedIn()) return "Сначала авторизуйтесь.";
-        return config.getGetSummaryUseCase().getSummary(currentUser, outputFile);
+        DateRange period;
+        try {
+            period = parsePeriod(fromStr, toStr);
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            return periodError(e);
+        }
+        return config.getGetSummaryUseCase().getSummary(currentUser, period, outputFile);
     }
 
     public String showBudget(String outputFile) {
+        return showBudget(outputFile, null, null);
+    }
+
+    public String showBudget(String outputFile, String fromStr, String toStr) {
         if (!isUserLoggedIn()) return "Сначала авторизуйтесь.";
-        return config.getGetBudgetStatusUseCase().getBudgetStatus(currentUser, outputFile);
+        DateRange period;
+        try {
+            period = parsePeriod(fromStr, toStr);
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            return periodError(e);
+        }
+        return config.getGetBudgetStatusUseCase().getBudgetStatus(currentUser, period, outputFile);
     }
 
     public String showExpenses(List<String> categoryNames, String outputFile) {
+        return showExpenses(categoryNames, outputFile, null, null);
+    }
+
+    public String showExpenses(List<String> categoryNames, String outputFile, String fromStr, String toStr) {
         if (currentUser == null) {
             return "Ошибка: никто не залогинен.";
         }
+        DateRange period;
+        try {
+            period = parsePeriod(fromStr, toStr);
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            return periodError(e);
+        }
         // Вызываем Use Case
-        return config.getGetShowExpensesUseCase().execute(currentUser, categoryNames, outputFile);
+        return config.getGetShowExpensesUseCase().execute(currentUser, categoryNames, period, outputFile);
+    }
+
+    public String showTrends(String outputFile, String fromStr, String toStr) {
+        if (!isUserLoggedIn()) return "Сначала авторизуйтесь.";
+        DateRange period;
+        try {
+            period = parsePeriod(fromStr, toStr);
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            return periodError(e);
+        }
+        return config.getGetTrendsUseCase().getTrends(currentUser, period, outputFile);
+    }
+
+    /**
+     * Общий отчёт по всем пользователям (сохранённым на диске и авторизованным сейчас).
+     * Доступен только логинам из -Dmoneytrack.admins.
+     */
+    public String adminReport(String outputFile) {
+        if (!isUserLoggedIn()) return "Сначала авторизуйтесь.";
+        if (!config.isAdmin(currentUser.getLogin())) {
+            return "Ошибка: общий отчёт доступен только администраторам (moneytrack.admins).";
+        }
+        return config.getAdminReportUseCase().getReport(currentUser.getLogin(), outputFile);
+    }
+
+    /**
+     * Счётчики кэша пользователей в памяти.
+     */
+    public String cacheStats() {
+        var cache = config.getInMemoryRepository();
+        return "Кэш пользователей: " + cache.size() + " польз., вес ~" + cache.getWeight() / 1024
+                + " КБ из " + cache.getMaxWeight() / 1024 + " КБ\n"
+                + "Попадания: " + cache.getHitCount()
+                + ", промахи: " + cache.getMissCount()
+                + ", вытеснения: " + cache.getEvictionCount()
+                + ", записи при вытеснении: " + cache.getWriteBackCount() + "\n"
+                + "Не записано изменённых: " + cache.getDirtyCount()
+                + ", записано в фоне: " + cache.getFlushedCount()
+                + ", ошибок фоновой записи: " + config.getFlusher().getFailedCount();
+    }
+
+    /**
+     * Время выполнения сценариев и работы с файлами, плюс счётчики кэша пользователей и шины событий.
+     */
+    public String stats() {
+        var events = config.getEventBus();
+        return Metrics.report() + "\n\n" + cacheStats() + "\n\n"
+                + "События: опубликовано " + events.getPublishedCount()
+                + ", отброшено (буфер полон) " + events.getDroppedCount()
+                + ", ждут раздачи " + events.getPendingCount() + " из " + events.getCapacity()
+                + ", ошибок подписчиков " + events.getFailedCount();
     }
 
     public String transfer(String loginTo, String amountStr) {
+        return transfer(loginTo, amountStr, null);
+    }
+
+    /**
+     * @param idempotencyKey ключ клиента: повтор перевода с тем же ключом не списывает деньги повторно
+     */
+    public String transfer(String loginTo, String amountStr, String idempotencyKey) {
         if (!isUserLoggedIn()) return "Сначала авторизуйтесь.";
 
         try {
@@ -144,7 +282,7 @@ public class MoneyTrackController {
             }
             var toUser = toUserOpt.get();
 
-            String warning = config.getTransferFundsUseCase().transfer(currentUser, toUser, amount);
+            String warning = config.getTransferFundsUseCase().transfer(currentUser, toUser, amount, idempotencyKey);
             if (warning.isEmpty()) {
                 return "Перевод успешно выполнен.";
             } else {
@@ -153,11 +291,125 @@ public class MoneyTrackController {
 
         } catch (NumberFormatException e) {
             return "Ошибка: некорректная сумма.";
+        } catch (UncheckedIOException e) {
+            // Деньги не списаны, повтор (в том числе с тем же ключом) выполнит перевод заново
+            return "Ошибка: перевод не выполнен, " + e.getMessage();
         }
     }
 
+    /**
+     * @param formatStr csv или jsonl; если null - определяется по расширению файла
+     */
+    public String importTransactions(String fileName, String formatStr) {
+        if (!isUserLoggedIn()) return "Сначала авторизуйтесь.";
+
+        TransactionImportReader.Format format = TransactionImportReader.Format.detect(formatStr, fileName);
+        if (format == null) {
+            return "Ошибка: неизвестный формат файла, укажите --format=csv или --format=jsonl.";
+        }
+        try {
+            return config.getImportTransactionsUseCase().importTransactions(currentUser, fileName, format);
+        } catch (IOException e) {
+            return "Ошибка импорта: " + e.getMessage();
+        }
+    }
+
+    /**
+     * Выгрузка истории текущего пользователя в файл.
+     *
+     * @param formatStr     csv|jsonl или null - по расширению файла
+     * @param categoryNames категории для отбора (пустой список - все)
+     * @param typeStr       income|expense (доход|расход) или null - все операции
+     */
+    public String exportTransactions(String fileName, String formatStr, List<String> categoryNames,
+                                     String typeStr, String fromStr, String toStr) {
+        if (!isUserLoggedIn()) return "Сначала авторизуйтесь.";
+
+        TransactionImportReader.Format format = TransactionImportReader.Format.detect(formatStr, fileName);
+        if (format == null) {
+            return "Ошибка: неизвестный формат файла, укажите --format=csv или --format=jsonl.";
+        }
+        DateRange period;
+        TransactionType type;
+        try {
+            period = parsePeriod(fromStr, toStr);
+            type = parseType(typeStr);
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            return periodError(e);
+        }
+        // Категории только ищутся: неизвестное название ни с чем не совпадёт, а словарь не пополнится
+        Set<Category> categories = null;
+        if (!categoryNames.isEmpty()) {
+            categories = new LinkedHashSet<>();
+            for (String name : categoryNames) {
+                Category category = CategoryRegistry.getInstance().find(name);
+                if (category != null) {
+                    categories.add(category);
+                }
+            }
+        }
+        try {
+            return config.getExportTransactionsUseCase()
+                    .exportTransactions(currentUser, fileName, format, period, type, categories);
+        } catch (IOException e) {
+            return "Ошибка экспорта: " + e.getMessage();
+        }
+    }
+
+    public String showTransaction(String idStr) {
+        if (!isUserLoggedIn()) return "Сначала авторизуйтесь.";
+        UUID transactionId = parseTransactionId(idStr);
+        if (transactionId == null) {
+            return "Ошибка: некорректный идентификатор операции.";
+        }
+        return config.getShowTransactionUseCase().showTransaction(currentUser, transactionId);
+    }
+
+    public String deleteTransaction(String idStr) {
+        if (!isUserLoggedIn()) return "Сначала авторизуйтесь.";
+        UUID transactionId = parseTransactionId(idStr);
+        if (transactionId == null) {
+            return "Ошибка: некорректный идентификатор операции.";
+        }
+        return config.getDeleteTransactionUseCase().deleteTransaction(currentUser, transactionId);
+    }
+
     // ---------------- Вспомогательные методы ----------------
 
+    private static DateRange parsePeriod(String fromStr, String toStr) {
+        LocalDate from = (fromStr == null) ? null : LocalDate.parse(fromStr);
+        LocalDate to = (toStr == null) ? null : LocalDate.parse(toStr);
+        return DateRange.of(from, to);
+    }
+
+    private static TransactionType parseType(String typeStr) {
+        if (typeStr == null) {
+            return null;
+        }
+        return switch (typeStr.toLowerCase()) {
+            case "income", "доход" -> TransactionType.INCOME;
+            case "expense", "расход" -> TransactionType.EXPENSE;
+            default -> throw new IllegalArgumentException("неизвестный тип операции, используйте income или expense.");
+        };
+    }
+
+    private static String periodError(RuntimeException e) {
+        return (e instanceof DateTimeParseException)
+                ? "Ошибка: некорректная дата, используйте формат YYYY-MM-DD."
+                : "Ошибка: " + e.getMessage();
+    }
+
+    private static UUID parseTransactionId(String idStr) {
+        if (idStr == null) {
+            return null;
+        }
+        try {
+            return UUID.fromString(idStr.trim());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
     private boolean isUserLoggedIn() {
         return currentUser != null;
     }
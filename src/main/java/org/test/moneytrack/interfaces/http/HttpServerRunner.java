@@ -0,0 +1,400 @@
+package org.test.moneytrack.interfaces.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.test.moneytrack.config.ApplicationConfig;
+import org.test.moneytrack.infrastructure.output.FileOutputRepository;
+import org.test.moneytrack.interfaces.controller.MoneyTrackController;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * HTTP-интерфейс к тем же командам, что и CLI (аналог CliRunner для сервера).
+ *
+ * Запрос: GET или POST /api/{команда}, параметры - в строке запроса или в теле
+ * (application/x-www-form-urlencoded). Ответ - текст, как в консоли.
+ * login возвращает токен сессии (в теле и в заголовке X-Session-Token);
+ * остальные команды требуют этот заголовок.
+ *
+ * Файлы сервера клиент выбирать не может: import принимает содержимое файла телом POST-запроса
+ * (любой Content-Type, кроме формы) или имя файла в папке загрузок пользователя uploads/{login};
+ * export отдаёт выгрузку в теле ответа (file - только имя для сохранения у клиента).
+ *
+ * Каждый запрос обрабатывается в отдельном потоке: виртуальном, если JVM их поддерживает,
+ * иначе в обычном из кэширующего пула.
+ */
+public class HttpServerRunner {
+
+    public static final String TOKEN_HEADER = "X-Session-Token";
+    private static final String API_PREFIX = "/api/";
+    private static final String UPLOADS_DIRECTORY = "uploads";
+    private static final String EXPORTS_DIRECTORY = "exports";
+    private static final String FORM_CONTENT_TYPE = "application/x-www-form-urlencoded";
+
+    private final SessionRegistry sessions;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    public HttpServerRunner(ApplicationConfig config, InetSocketAddress address, Duration sessionIdleTimeout)
+            throws IOException {
+        this.sessions = new SessionRegistry(config, sessionIdleTimeout);
+        this.executor = newPerRequestExecutor();
+        this.server = HttpServer.create(address, 0);
+        this.server.createContext(API_PREFIX, this::handle);
+        this.server.setExecutor(executor);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Останавливает приём запросов и сохраняет данные всех открытых сессий.
+     */
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+        sessions.closeAll();
+    }
+
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    // ---------------- Обработка запросов ----------------
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+            if (!"GET".equals(method) && !"POST".equals(method)) {
+                send(exchange, 405, "Поддерживаются только GET и POST.");
+                return;
+            }
+            String command = exchange.getRequestURI().getPath().substring(API_PREFIX.length()).toLowerCase();
+            Map<String, List<String>> params = readParams(exchange);
+            dispatch(exchange, command, params);
+        } catch (RuntimeException e) {
+            send(exchange, 500, "Ошибка сервера: " + e.getMessage());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void dispatch(HttpExchange exchange, String command, Map<String, List<String>> params) throws IOException {
+        switch (command) {
+            case "register" -> {
+                String login = first(params, "login");
+                String password = first(params, "password");
+                if (login == null || password == null) {
+                    send(exchange, 400, "Использование: register?login={login}&password={password}");
+                    return;
+                }
+                MoneyTrackController controller = sessions.newController();
+                send(exchange, 200, sessions.execute(controller, c -> c.register(login, password)));
+            }
+            case "login" -> {
+                String login = first(params, "login");
+                String password = first(params, "password");
+                if (login == null || password == null) {
+                    send(exchange, 400, "Использование: login?login={login}&password={password}");
+                    return;
+                }
+                MoneyTrackController controller = sessions.newController();
+                String result = sessions.execute(controller, c -> c.login(login, password));
+                if (controller.getCurrentUserLogin().isEmpty()) {
+                    send(exchange, 401, result);
+                    return;
+                }
+                String token = sessions.open(controller);
+                exchange.getResponseHeaders().set(TOKEN_HEADER, token);
+                send(exchange, 200, result + "\nТокен сессии: " + token);
+            }
+            default -> dispatchSessionCommand(exchange, command, params);
+        }
+    }
+
+    /**
+     * Команды, которым нужен залогиненный пользователь (сессия по токену).
+     */
+    private void dispatchSessionCommand(HttpExchange exchange, String command, Map<String, List<String>> params)
+            throws IOException {
+        String token = exchange.getRequestHeaders().getFirst(TOKEN_HEADER);
+        SessionRegistry.Session session = sessions.find(token);
+        if (session == null) {
+            send(exchange, 401, "Сначала авторизуйтесь (заголовок " + TOKEN_HEADER + ").");
+            return;
+        }
+        MoneyTrackController controller = session.getController();
+        String output = first(params, "output");
+        // Период отчётов show_*: from и to - даты YYYY-MM-DD включительно
+        String periodFrom = first(params, "from");
+        String periodTo = first(params, "to");
+
+        String result;
+        switch (command) {
+            case "whoami" -> result = sessions.execute(controller, MoneyTrackController::getCurrentUserLogin);
+            case "logout" -> {
+                result = sessions.execute(controller, MoneyTrackController::logout);
+                sessions.close(token);
+            }
+            case "add_income" -> {
+                String amount = Objects.requireNonNullElse(first(params, "amount"), "");
+                String category = first(params, "category");
+                result = sessions.execute(controller, c -> c.addIncome(amount, category));
+            }
+            case "add_expense" -> {
+                String amount = first(params, "amount");
+                String category = first(params, "category");
+                if (amount == null || category == null) {
+                    send(exchange, 400, "Использование: add_expense?amount={amount}&category={category}");
+                    return;
+                }
+                result = sessions.execute(controller, c -> c.addExpense(amount, category));
+            }
+            case "set_category" -> {
+                String category = first(params, "category");
+                String budget = first(params, "budget");
+                if (category == null || budget == null) {
+                    send(exchange, 400, "Использование: set_category?category={category}&budget={budget}");
+                    return;
+                }
+                result = sessions.execute(controller, c -> c.addCategory(category, budget));
+            }
+            case "show_summary" -> result = sessions.execute(controller, c -> c.showSummary(output, periodFrom, periodTo));
+            case "show_budget" -> result = sessions.execute(controller, c -> c.showBudget(output, periodFrom, periodTo));
+            case "show_trends" -> result = sessions.execute(controller, c -> c.showTrends(output, periodFrom, periodTo));
+            case "cache_stats" -> result = sessions.execute(controller, MoneyTrackController::cacheStats);
+            case "stats" -> result = sessions.execute(controller, MoneyTrackController::stats);
+            case "show_expenses" -> {
+                List<String> categories = params.getOrDefault("category", List.of());
+                if (categories.isEmpty()) {
+                    send(exchange, 400, "Использование: show_expenses?category={cat1}&category={cat2}...[&from=YYYY-MM-DD][&to=YYYY-MM-DD][&output=filename]");
+                    return;
+                }
+                result = sessions.execute(controller, c -> c.showExpenses(categories, output, periodFrom, periodTo));
+            }
+            case "transfer" -> {
+                String to = first(params, "to");
+                String amount = first(params, "amount");
+                String key = first(params, "key");
+                if (to == null || amount == null) {
+                    send(exchange, 400, "Использование: transfer?to={loginTo}&amount={amount}[&key={key}]");
+                    return;
+                }
+                result = sessions.execute(controller, c -> c.transfer(to, amount, key));
+            }
+            case "import" -> {
+                String file = first(params, "file");
+                String format = first(params, "format");
+                result = importTransactions(exchange, controller, file, format);
+                if (result == null) {
+                    send(exchange, 400, "Использование: POST import[?format=csv|jsonl] с содержимым файла в теле"
+                            + " или import?file={имя файла в uploads/{login}}[&format=csv|jsonl]");
+                    return;
+                }
+            }
+            case "export" -> {
+                String file = first(params, "file");
+                String format = first(params, "format");
+                String type = first(params, "type");
+                List<String> categories = params.getOrDefault("category", List.of());
+                exportTransactions(exchange, controller, file, format, categories, type, periodFrom, periodTo);
+                return;
+            }
+            case "show_transaction" -> {
+                String id = first(params, "id");
+                if (id == null) {
+                    send(exchange, 400, "Использование: show_transaction?id={id}");
+                    return;
+                }
+                result = sessions.execute(controller, c -> c.showTransaction(id));
+            }
+            case "delete_transaction" -> {
+                String id = first(params, "id");
+                if (id == null) {
+                    send(exchange, 400, "Использование: delete_transaction?id={id}");
+                    return;
+                }
+                result = sessions.execute(controller, c -> c.deleteTransaction(id));
+            }
+            default -> {
+                send(exchange, 404, "Неизвестная команда: " + command);
+                return;
+            }
+        }
+        send(exchange, 200, result);
+    }
+
+    /**
+     * Импорт по HTTP: тело запроса (не форма) сохраняется во временный файл папки загрузок
+     * пользователя, иначе file - имя файла внутри этой папки.
+     *
+     * @return ответ контроллера или null, если нет ни тела, ни file
+     */
+    private String importTransactions(HttpExchange exchange, MoneyTrackController controller,
+                                      String file, String format) throws IOException {
+        String login = sessions.execute(controller, MoneyTrackController::getCurrentUserLogin);
+        String directory = UPLOADS_DIRECTORY + "/" + login;
+        if (hasFileBody(exchange)) {
+            // format попадает в имя временного файла, поэтому берём только буквы
+            String extension = (format != null && format.matches("[A-Za-z]{1,10}")) ? format : extensionFor(exchange);
+            Path upload = FileOutputRepository.resolveInside(directory,
+                    "upload-" + UUID.randomUUID() + "." + extension);
+            try {
+                try (InputStream body = exchange.getRequestBody()) {
+                    Files.copy(body, upload, StandardCopyOption.REPLACE_EXISTING);
+                }
+                String path = upload.toString();
+                return sessions.execute(controller, c -> c.importTransactions(path, format));
+            } finally {
+                Files.deleteIfExists(upload);
+            }
+        }
+        if (file == null) {
+            return null;
+        }
+        Path path;
+        try {
+            path = FileOutputRepository.resolveInside(directory, file);
+        } catch (IOException e) {
+            return "Ошибка импорта: " + e.getMessage();
+        }
+        return sessions.execute(controller, c -> c.importTransactions(path.toString(), format));
+    }
+
+    /**
+     * Экспорт по HTTP: выгрузка пишется во временный файл папки exports/{login} и отдаётся
+     * в теле ответа, после чего файл удаляется. Блокировка пользователя держится только
+     * на время записи файла, а не пока медленный клиент читает ответ.
+     *
+     * @param file имя для сохранения у клиента (Content-Disposition) и для определения формата
+     */
+    private void exportTransactions(HttpExchange exchange, MoneyTrackController controller, String file,
+                                    String format, List<String> categories, String type,
+                                    String periodFrom, String periodTo) throws IOException {
+        String login = sessions.execute(controller, MoneyTrackController::getCurrentUserLogin);
+        String extension = (format != null) ? format : extensionOf(file);
+        if (extension == null || !extension.matches("[A-Za-z]{1,10}")) {
+            extension = "csv";
+        }
+        // В заголовок ответа идёт только безопасное ASCII-имя без каталогов
+        String downloadName = (file != null && file.matches("[\\w.-]{1,128}"))
+                ? file : "transactions." + extension;
+        Path export = FileOutputRepository.resolveInside(EXPORTS_DIRECTORY + "/" + login,
+                "export-" + UUID.randomUUID() + "." + extension);
+        try {
+            String path = export.toString();
+            String result = sessions.execute(controller,
+                    c -> c.exportTransactions(path, format, categories, type, periodFrom, periodTo));
+            if (!Files.exists(export) || result.startsWith("Ошибка")) {
+                send(exchange, 400, result);
+                return;
+            }
+            boolean jsonl = !"csv".equalsIgnoreCase(extension);
+            exchange.getResponseHeaders().set("Content-Type",
+                    jsonl ? "application/x-ndjson; charset=utf-8" : "text/csv; charset=utf-8");
+            exchange.getResponseHeaders().set("Content-Disposition", "attachment; filename=\"" + downloadName + "\"");
+            exchange.sendResponseHeaders(200, Files.size(export));
+            try (OutputStream out = exchange.getResponseBody()) {
+                Files.copy(export, out);
+            }
+        } finally {
+            Files.deleteIfExists(export);
+        }
+    }
+
+    // ---------------- Вспомогательные методы ----------------
+
+    private static String extensionOf(String fileName) {
+        if (fileName == null) {
+            return null;
+        }
+        int dot = fileName.lastIndexOf('.');
+        return (dot < 0) ? null : fileName.substring(dot + 1);
+    }
+
+    private static Map<String, List<String>> readParams(HttpExchange exchange) throws IOException {
+        Map<String, List<String>> params = new HashMap<>();
+        parseQuery(exchange.getRequestURI().getRawQuery(), params);
+        // Тело с файлом (import) не разбирается как параметры: его читает сама команда
+        if ("POST".equals(exchange.getRequestMethod()) && !hasFileBody(exchange)) {
+            try (InputStream body = exchange.getRequestBody()) {
+                parseQuery(new String(body.readAllBytes(), StandardCharsets.UTF_8), params);
+            }
+        }
+        return params;
+    }
+
+    /**
+     * POST с телом не в виде формы (text/csv, application/x-ndjson и т.п.) - содержимое файла.
+     */
+    private static boolean hasFileBody(HttpExchange exchange) {
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        return "POST".equals(exchange.getRequestMethod())
+                && contentType != null && !contentType.toLowerCase().startsWith(FORM_CONTENT_TYPE);
+    }
+
+    private static String extensionFor(HttpExchange exchange) {
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type").toLowerCase();
+        return (contentType.contains("ndjson") || contentType.contains("jsonl")) ? "jsonl" : "csv";
+    }
+
+    private static void parseQuery(String query, Map<String, List<String>> params) {
+        if (query == null || query.isEmpty()) {
+            return;
+        }
+        for (String pair : query.split("&")) {
+            if (pair.isEmpty()) {
+                continue;
+            }
+            int eq = pair.indexOf('=');
+            String key = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            String value = URLDecoder.decode(eq < 0 ? "" : pair.substring(eq + 1), StandardCharsets.UTF_8);
+            params.computeIfAbsent(key, k -> new ArrayList<>()).add(value);
+        }
+    }
+
+    private static String first(Map<String, List<String>> params, String name) {
+        List<String> values = params.get(name);
+        return (values == null || values.isEmpty()) ? null : values.get(0);
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Поток на запрос: Executors.newVirtualThreadPerTaskExecutor(), если он есть в JVM (Java 21+),
+     * иначе кэширующий пул обычных потоков. Ищется через reflection, так как проект собирается под Java 17.
+     */
+    private static ExecutorService newPerRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger counter = new AtomicInteger();
+            return Executors.newCachedThreadPool(task -> {
+                Thread thread = new Thread(task, "moneytrack-http-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
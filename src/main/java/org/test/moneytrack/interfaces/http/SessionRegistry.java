@@ -0,0 +1,144 @@
+package org.test.moneytrack.interfaces.http;
+
+import org.test.moneytrack.config.ApplicationConfig;
+import org.test.moneytrack.interfaces.controller.MoneyTrackController;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Сессии HTTP-сервера: токен -> свой MoneyTrackController.
+ *
+ * У контроллера одно поле currentUser, поэтому на каждую сессию создаётся отдельный
+ * контроллер, а пользователи различаются по токену, а не по состоянию общего объекта.
+ * Сессии, к которым долго не обращались, удаляются (с сохранением данных, как при logout).
+ */
+public class SessionRegistry {
+
+    /**
+     * Сессия одного клиента.
+     */
+    public static final class Session {
+        private final MoneyTrackController controller;
+        private volatile long lastAccessNanos;
+
+        private Session(MoneyTrackController controller) {
+            this.controller = controller;
+            touch();
+        }
+
+        public MoneyTrackController getController() {
+            return controller;
+        }
+
+        private void touch() {
+            lastAccessNanos = System.nanoTime();
+        }
+    }
+
+    private static final int TOKEN_BYTES = 24;
+
+    private final ApplicationConfig config;
+    private final long idleTimeoutNanos;
+    private final SecureRandom random = new SecureRandom();
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * @param config      общая конфигурация (репозитории и use cases на всех одни)
+     * @param idleTimeout через сколько без запросов сессия считается брошенной
+     */
+    public SessionRegistry(ApplicationConfig config, Duration idleTimeout) {
+        this.config = config;
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+    }
+
+    /**
+     * Новый контроллер для ещё не созданной сессии (для login).
+     */
+    public MoneyTrackController newController() {
+        return new MoneyTrackController(config);
+    }
+
+    /**
+     * Выполняет команду на контроллере сессии: команды одной сессии идут по очереди
+     * (у контроллера есть состояние - currentUser). Разные сессии выполняются параллельно,
+     * данные пользователей защищают блокировки по логину в use cases.
+     */
+    public <T> T execute(MoneyTrackController controller, Function<MoneyTrackController, T> command) {
+        synchronized (controller) {
+            return command.apply(controller);
+        }
+    }
+
+    /**
+     * Регистрирует сессию для контроллера с уже выполненным login и возвращает её токен.
+     */
+    public String open(MoneyTrackController controller) {
+        expireIdle();
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        sessions.put(token, new Session(controller));
+        return token;
+    }
+
+    /**
+     * @return сессия по токену или null, если токен неизвестен или сессия истекла
+     */
+    public Session find(String token) {
+        if (token == null) {
+            return null;
+        }
+        Session session = sessions.get(token);
+        if (session == null) {
+            return null;
+        }
+        if (isIdle(session, System.nanoTime())) {
+            // Брошенная сессия могла ещё не попасть под expireIdle (он идёт только при open)
+            logoutAndRemove(token);
+            return null;
+        }
+        session.touch();
+        return session;
+    }
+
+    /**
+     * Удаляет сессию (после logout).
+     */
+    public void close(String token) {
+        sessions.remove(token);
+    }
+
+    /**
+     * Закрывает все сессии с сохранением данных (при остановке сервера).
+     */
+    public void closeAll() {
+        for (String token : sessions.keySet()) {
+            logoutAndRemove(token);
+        }
+    }
+
+    private void expireIdle() {
+        long now = System.nanoTime();
+        for (Map.Entry<String, Session> entry : sessions.entrySet()) {
+            if (isIdle(entry.getValue(), now)) {
+                logoutAndRemove(entry.getKey());
+            }
+        }
+    }
+
+    private boolean isIdle(Session session, long now) {
+        return now - session.lastAccessNanos > idleTimeoutNanos;
+    }
+
+    private void logoutAndRemove(String token) {
+        Session session = sessions.remove(token);
+        if (session != null) {
+            execute(session.controller, MoneyTrackController::logout);
+        }
+    }
+}
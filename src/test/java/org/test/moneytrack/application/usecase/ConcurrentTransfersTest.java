@@ -0,0 +1,161 @@
+package org.test.moneytrack.application.usecase;
+
+import org.junit.jupiter.api.Test;
+import org.test.moneytrack.domain.model.Category;
+import org.test.moneytrack.domain.model.Transaction;
+import org.test.moneytrack.domain.model.TransactionType;
+import org.test.moneytrack.domain.model.User;
+import org.test.moneytrack.domain.model.Wallet;
+import org.test.moneytrack.domain.service.TransferDomainService;
+import org.test.moneytrack.domain.service.WalletDomainService;
+import org.test.moneytrack.infrastructure.repository.InMemoryUserRepository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Встречные переводы вместе с добавлением и удалением операций из разных потоков
+ * под блокировками по логину: деньги не появляются и не пропадают, а накопительные
+ * суммы каждого кошелька совпадают с пересчётом его истории.
+ */
+class ConcurrentTransfersTest {
+
+    private static final int USERS = 4;
+    private static final int THREADS = 8;
+    private static final int OPERATIONS = 2_000;
+    private static final BigDecimal INITIAL = BigDecimal.valueOf(1_000);
+    private static final Category TRANSFER = Category.of("Перевод");
+
+    private final InMemoryUserRepository repository = new InMemoryUserRepository();
+    private final WalletDomainService walletDomainService = new WalletDomainService();
+    private final TransferFundsUseCase transfer = new TransferFundsUseCase(repository,
+            new TransferDomainService(walletDomainService));
+    private final AddIncomeUseCase addIncome = new AddIncomeUseCase(repository, walletDomainService);
+    private final AddExpenseUseCase addExpense = new AddExpenseUseCase(repository, walletDomainService);
+    private final DeleteTransactionUseCase delete = new DeleteTransactionUseCase(repository, walletDomainService);
+
+    // Чистая сумма операций, которые остались в кошельках (доходы минус расходы)
+    private final AtomicLong keptNet = new AtomicLong();
+    private final AtomicLong transfers = new AtomicLong();
+
+    @Test
+    void totalsAreConservedUnderConcurrentTransfersAndEdits() throws Exception {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            User user = new User("user" + i, "secret");
+            repository.save(user);
+            addIncome.addIncome(user, INITIAL, Category.of("Зарплата"), null);
+            users.add(user);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < OPERATIONS; i++) {
+                    step(users);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            // Исключение из потока (например, ConcurrentModificationException) провалит тест здесь
+            future.get(2, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        BigDecimal total = BigDecimal.ZERO;
+        BigDecimal transferIncome = BigDecimal.ZERO;
+        BigDecimal transferExpense = BigDecimal.ZERO;
+        for (User user : users) {
+            Wallet wallet = user.getWallet();
+            assertTrue(wallet.verifyAggregates().isEmpty(), user.getLogin() + ": " + wallet.verifyAggregates());
+            assertEquals(0, recomputedBalance(wallet).compareTo(wallet.getBalance().toBigDecimal()),
+                    user.getLogin() + ": баланс не совпадает с историей");
+            total = total.add(wallet.getBalance().toBigDecimal());
+            transferIncome = transferIncome.add(
+                    wallet.getTotalByCategory(TRANSFER, TransactionType.INCOME).toBigDecimal());
+            transferExpense = transferExpense.add(
+                    wallet.getTotalByCategory(TRANSFER, TransactionType.EXPENSE).toBigDecimal());
+        }
+        BigDecimal expected = INITIAL.multiply(BigDecimal.valueOf(USERS)).add(BigDecimal.valueOf(keptNet.get()));
+        assertEquals(0, expected.compareTo(total), "сумма балансов " + total + ", ожидалось " + expected);
+        assertEquals(0, transferIncome.compareTo(transferExpense), "переводы: получено " + transferIncome
+                + ", отправлено " + transferExpense);
+        assertTrue(transfers.get() > 0);
+    }
+
+    private void step(List<User> users) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        User user = users.get(random.nextInt(USERS));
+        long amount = 1 + random.nextInt(50);
+        switch (random.nextInt(3)) {
+            case 0 -> {
+                User recipient = users.get(random.nextInt(USERS));
+                transfer.transfer(user, recipient, BigDecimal.valueOf(amount));
+                transfers.incrementAndGet();
+            }
+            case 1 -> {
+                // Операция, которую сразу удаляют: на балансе не должно остаться следа
+                boolean income = random.nextBoolean();
+                String description = UUID.randomUUID().toString();
+                add(user, income, amount, description);
+                UUID id = findByDescription(user, description);
+                delete.deleteTransaction(user, id);
+            }
+            default -> {
+                boolean income = random.nextBoolean();
+                add(user, income, amount, null);
+                keptNet.addAndGet(income ? amount : -amount);
+            }
+        }
+    }
+
+    private void add(User user, boolean income, long amount, String description) {
+        if (income) {
+            addIncome.addIncome(user, BigDecimal.valueOf(amount), Category.of("Подработка"), description);
+        } else {
+            addExpense.addExpense(user, BigDecimal.valueOf(amount), Category.of("Еда"), description);
+        }
+    }
+
+    private UUID findByDescription(User user, String description) {
+        Lock lock = repository.lockFor(user.getLogin()).readLock();
+        lock.lock();
+        try {
+            for (Transaction transaction : user.getWallet().getTransactions()) {
+                if (description.equals(transaction.getDescription())) {
+                    return transaction.getTransactionId();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        throw new AssertionError("операция " + description + " не найдена у " + user.getLogin());
+    }
+
+    private static BigDecimal recomputedBalance(Wallet wallet) {
+        BigDecimal balance = BigDecimal.ZERO;
+        for (Transaction transaction : wallet.getTransactions()) {
+            BigDecimal amount = transaction.getAmount().toBigDecimal();
+            balance = (transaction.getType() == TransactionType.INCOME) ? balance.add(amount) : balance.subtract(amount);
+        }
+        return balance;
+    }
+}
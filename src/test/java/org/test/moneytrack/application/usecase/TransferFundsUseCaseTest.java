@@ -0,0 +1,100 @@
+package org.test.moneytrack.application.usecase;
+
+import org.junit.jupiter.api.Test;
+import org.test.moneytrack.application.port.TransferLog;
+import org.test.moneytrack.domain.model.User;
+import org.test.moneytrack.domain.service.TransferDomainService;
+import org.test.moneytrack.domain.service.WalletDomainService;
+import org.test.moneytrack.infrastructure.repository.InMemoryUserRepository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TransferFundsUseCaseTest {
+
+    /**
+     * Журнал в памяти; запись в него не удаётся, пока выставлен failNext (один раз).
+     */
+    private static final class RecordingLog implements TransferLog {
+        boolean failNext;
+        final List<Entry> begun = new ArrayList<>();
+        final List<Entry> completed = new ArrayList<>();
+
+        @Override
+        public void begin(Entry entry) throws IOException {
+            if (failNext) {
+                failNext = false;
+                throw new IOException("диск недоступен");
+            }
+            begun.add(entry);
+        }
+
+        @Override
+        public void complete(Entry entry, String result) {
+            completed.add(entry.withResult(result));
+        }
+
+        @Override
+        public List<Entry> pending() {
+            return List.of();
+        }
+
+        @Override
+        public List<Entry> completedWithKeys() {
+            return List.of();
+        }
+    }
+
+    @Test
+    void failedLogWriteIsNotRememberedUnderKey() {
+        InMemoryUserRepository repository = new InMemoryUserRepository();
+        User alice = new User("alice", "secret");
+        User bob = new User("bob", "secret");
+        repository.save(alice);
+        repository.save(bob);
+        RecordingLog log = new RecordingLog();
+        log.failNext = true;
+        TransferFundsUseCase useCase = new TransferFundsUseCase(repository, new InMemoryUserRepository(),
+                new TransferDomainService(new WalletDomainService()), log);
+
+        assertThrows(UncheckedIOException.class,
+                () -> useCase.transfer(alice, bob, BigDecimal.TEN, "k1"));
+        assertEquals(0, bob.getWallet().getBalance().signum());
+
+        // Повтор с тем же ключом выполняет перевод, а не возвращает прошлую ошибку
+        useCase.transfer(alice, bob, BigDecimal.TEN, "k1");
+        useCase.transfer(alice, bob, BigDecimal.TEN, "k1");
+        assertEquals("10", bob.getWallet().getBalance().toString());
+        assertEquals(1, log.begun.size());
+    }
+
+    @Test
+    void transferIsCompletedOnlyAfterBothPartiesArePersisted() {
+        InMemoryUserRepository repository = new InMemoryUserRepository();
+        User alice = new User("alice", "secret");
+        User bob = new User("bob", "secret");
+        repository.save(alice);
+        repository.save(bob);
+        RecordingLog log = new RecordingLog();
+        TransferFundsUseCase useCase = new TransferFundsUseCase(repository, new InMemoryUserRepository(),
+                new TransferDomainService(new WalletDomainService()), log);
+
+        String result = useCase.transfer(alice, bob, BigDecimal.TEN, "k1");
+        useCase.usersPersisted(List.of("alice"));
+        assertEquals(0, log.completed.size());
+
+        useCase.usersPersisted(List.of("bob"));
+        assertEquals(1, log.completed.size());
+        assertEquals(result, log.completed.get(0).getResult());
+
+        // Повторная запись тех же пользователей перевод второй раз не отмечает
+        useCase.usersPersisted(List.of("alice", "bob"));
+        assertEquals(1, log.completed.size());
+    }
+}
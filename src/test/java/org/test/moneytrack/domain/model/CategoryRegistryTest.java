@@ -0,0 +1,31 @@
+package org.test.moneytrack.domain.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Поиск категории для фильтров не пополняет общий словарь, в отличие от Category.of.
+ */
+class CategoryRegistryTest {
+
+    private final CategoryRegistry registry = CategoryRegistry.getInstance();
+
+    @Test
+    void findDoesNotInternUnknownNames() {
+        String name = "нет такой " + UUID.randomUUID();
+        int size = registry.size();
+
+        assertNull(registry.find(name));
+        assertNull(registry.find(name));
+        assertEquals(size, registry.size());
+
+        Category category = Category.of(name);
+        assertSame(category, registry.find(name));
+        assertEquals(size + 1, registry.size());
+    }
+}
@@ -0,0 +1,223 @@
+package org.test.moneytrack.domain.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Накопительные суммы кошелька (баланс, итоги по типу и категории, суммы по периодам)
+ * сверяются с пересчётом по оставшимся транзакциям после добавления, удаления и импорта.
+ * Сравниваются строки, то есть и значение, и scale.
+ */
+class WalletAggregatesTest {
+
+    private static final String[] AMOUNTS = {"1", "2.5", "3.25", "0.125", "10", "7.10", "99999999999999999999.99"};
+    private static final String[] CATEGORIES = {"Еда", "Транспорт", "Зарплата"};
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+
+    private final Random random = new Random(42);
+
+    @Test
+    void addedTransactionsMatchRecomputation() {
+        Wallet wallet = new Wallet();
+        List<Transaction> live = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Transaction transaction = randomTransaction();
+            wallet.addTransaction(transaction);
+            live.add(transaction);
+        }
+        assertMatchesRecomputation(wallet, Money.ZERO, live);
+    }
+
+    @Test
+    void deletedTransactionsMatchRecomputation() {
+        for (int round = 0; round < 200; round++) {
+            Wallet wallet = new Wallet();
+            List<Transaction> live = new ArrayList<>();
+            for (int i = 0; i < 30; i++) {
+                if (!live.isEmpty() && random.nextInt(3) == 0) {
+                    Transaction deleted = live.remove(random.nextInt(live.size()));
+                    assertTrue(wallet.deleteTransaction(deleted.getTransactionId()).isPresent());
+                } else {
+                    Transaction transaction = randomTransaction();
+                    wallet.addTransaction(transaction);
+                    live.add(transaction);
+                }
+            }
+            assertMatchesRecomputation(wallet, Money.ZERO, live);
+        }
+    }
+
+    @Test
+    void deleteRestoresPreviousValues() {
+        Wallet wallet = new Wallet(Money.of("100"));
+        wallet.addTransaction(transaction(TransactionType.EXPENSE, "Еда", "30"));
+        Transaction added = transaction(TransactionType.EXPENSE, "Еда", "5.25");
+        wallet.addTransaction(added);
+
+        wallet.deleteTransaction(added.getTransactionId());
+
+        assertEquals("70", wallet.getBalance().toString());
+        assertEquals("30", wallet.getTotal(TransactionType.EXPENSE).toString());
+        assertEquals("30", wallet.getTotalByCategory(Category.of("Еда"), TransactionType.EXPENSE).toString());
+    }
+
+    @Test
+    void importedBatchMatchesRecomputation() {
+        Wallet wallet = new Wallet(Money.of("500.00"));
+        List<Transaction> live = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Transaction transaction = randomTransaction();
+            wallet.addTransaction(transaction);
+            live.add(transaction);
+        }
+        List<Transaction> batch = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            batch.add(randomTransaction());
+        }
+        wallet.addTransactions(batch);
+        live.addAll(batch);
+        assertMatchesRecomputation(wallet, Money.of("500.00"), live);
+
+        // Удаление импортированных операций
+        for (int i = 0; i < 100; i++) {
+            Transaction deleted = live.remove(20 + random.nextInt(live.size() - 20));
+            wallet.deleteTransaction(deleted.getTransactionId());
+        }
+        assertMatchesRecomputation(wallet, Money.of("500.00"), live);
+    }
+
+    @Test
+    void reloadedWalletMatchesRecomputation() {
+        Wallet wallet = new Wallet();
+        List<Transaction> live = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Transaction transaction = randomTransaction();
+            wallet.addTransaction(transaction);
+            live.add(transaction);
+        }
+        for (int i = 0; i < 30; i++) {
+            Transaction deleted = live.remove(random.nextInt(live.size()));
+            wallet.deleteTransaction(deleted.getTransactionId());
+        }
+
+        // Как при загрузке из файла: агрегаты строятся заново по сохранённой истории
+        Wallet reloaded = new Wallet(wallet.getBalance(), new ArrayList<>(wallet.getTransactions()), null);
+        assertMatchesRecomputation(reloaded, Money.ZERO, live);
+        assertTrue(reloaded.verifyAggregates().isEmpty(), reloaded.verifyAggregates().toString());
+
+        for (int i = 0; i < 30; i++) {
+            Transaction deleted = live.remove(random.nextInt(live.size()));
+            reloaded.deleteTransaction(deleted.getTransactionId());
+        }
+        assertMatchesRecomputation(reloaded, Money.ZERO, live);
+    }
+
+    @Test
+    void categoryWithZeroSumStaysWhileItHasTransactions() {
+        Wallet wallet = new Wallet();
+        wallet.addTransaction(transaction(TransactionType.EXPENSE, "Еда", "0"));
+        wallet.addTransactions(List.of(transaction(TransactionType.EXPENSE, "Транспорт", "0.00")));
+        Transaction refund = transaction(TransactionType.EXPENSE, "Еда", "5");
+        wallet.addTransaction(refund);
+
+        wallet.deleteTransaction(refund.getTransactionId());
+
+        Map<Category, Money> expenses = wallet.getTotalsByCategory(TransactionType.EXPENSE);
+        assertEquals("0", expenses.get(Category.of("Еда")).toString());
+        assertEquals("0.00", expenses.get(Category.of("Транспорт")).toString());
+        assertTrue(wallet.verifyAggregates().isEmpty(), wallet.verifyAggregates().toString());
+    }
+
+    @Test
+    void liveViewFollowsDeletionsAndDiscardKeepsNumbering() {
+        Wallet wallet = new Wallet();
+        List<Transaction> live = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Transaction transaction = randomTransaction();
+            wallet.addTransaction(transaction);
+            live.add(transaction);
+        }
+        Transaction first = live.remove(3);
+        wallet.deleteTransaction(first.getTransactionId());
+        List<Transaction> view = wallet.getTransactions();
+        assertEquals(live, view);
+
+        Transaction second = live.remove(0);
+        wallet.deleteTransaction(second.getTransactionId());
+        Transaction added = randomTransaction();
+        wallet.addTransaction(added);
+        live.add(added);
+        assertEquals(live, view);
+        assertEquals(live, new ArrayList<>(view));
+
+        assertEquals(2, wallet.getDeletedCount());
+        wallet.discardDeletedBefore(1);
+        assertEquals(2, wallet.getDeletedCount());
+        assertEquals(second, wallet.getDeleted(1));
+    }
+
+    private void assertMatchesRecomputation(Wallet wallet, Money initialBalance, List<Transaction> live) {
+        BigDecimal balance = initialBalance.toBigDecimal();
+        Map<TransactionType, BigDecimal> totals = new HashMap<>();
+        Map<TransactionType, Map<Category, BigDecimal>> byCategory = new HashMap<>();
+        Map<TransactionType, Map<Category, BigDecimal>> january = new HashMap<>();
+        LocalDate januaryEnd = START.plusDays(30);
+        for (Transaction transaction : live) {
+            BigDecimal amount = transaction.getAmount().toBigDecimal();
+            TransactionType type = transaction.getType();
+            balance = (type == TransactionType.INCOME) ? balance.add(amount) : balance.subtract(amount);
+            totals.merge(type, amount, BigDecimal::add);
+            byCategory.computeIfAbsent(type, k -> new HashMap<>()).merge(transaction.getCategory(), amount, BigDecimal::add);
+            if (!transaction.getDateTime().toLocalDate().isAfter(januaryEnd)) {
+                january.computeIfAbsent(type, k -> new HashMap<>()).merge(transaction.getCategory(), amount, BigDecimal::add);
+            }
+        }
+
+        assertEquals(balance.toString(), wallet.getBalance().toString(), "баланс");
+        for (TransactionType type : TransactionType.values()) {
+            assertEquals(totals.getOrDefault(type, BigDecimal.ZERO).toString(), wallet.getTotal(type).toString(),
+                    "итог " + type);
+            assertEquals(asStrings(byCategory.get(type)), asStrings(wallet.getTotalsByCategory(type)),
+                    "по категориям " + type);
+            assertEquals(asStrings(byCategory.get(type)), asStrings(wallet.getRollups().totalsByCategory(type, null, null)),
+                    "суммы по периодам " + type);
+            assertEquals(asStrings(january.get(type)),
+                    asStrings(wallet.getRollups().totalsByCategory(type, START, januaryEnd)),
+                    "суммы за январь " + type);
+        }
+    }
+
+    private static Map<Category, String> asStrings(Map<Category, ?> sums) {
+        Map<Category, String> result = new HashMap<>();
+        if (sums != null) {
+            sums.forEach((category, sum) -> result.put(category, sum.toString()));
+        }
+        return result;
+    }
+
+    private Transaction randomTransaction() {
+        TransactionType type = random.nextBoolean() ? TransactionType.INCOME : TransactionType.EXPENSE;
+        Transaction transaction = transaction(type, CATEGORIES[random.nextInt(CATEGORIES.length)],
+                AMOUNTS[random.nextInt(AMOUNTS.length)]);
+        LocalDateTime dateTime = START.plusDays(random.nextInt(90)).atTime(random.nextInt(24), 0);
+        return new Transaction(transaction.getTransactionId(), type, transaction.getCategory(),
+                transaction.getAmount(), dateTime, null);
+    }
+
+    private static Transaction transaction(TransactionType type, String category, String amount) {
+        return new Transaction(UUID.randomUUID(), type, Category.of(category), Money.of(amount),
+                START.atStartOfDay(), null);
+    }
+}
@@ -0,0 +1,249 @@
+package org.test.moneytrack.infrastructure.storage.journal;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.test.moneytrack.domain.model.Category;
+import org.test.moneytrack.domain.model.Money;
+import org.test.moneytrack.domain.model.Transaction;
+import org.test.moneytrack.domain.model.TransactionType;
+import org.test.moneytrack.domain.model.User;
+import org.test.moneytrack.infrastructure.storage.JsonFileStorage;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Журнал поверх снимков: нумерация записей, пропуск записей, вошедших в снимок,
+ * удаления, сжатие и состояние после повторной загрузки.
+ */
+class JournaledFileStorageTest {
+
+    private static final String LOGIN = "alice";
+    private static final Category FOOD = Category.of("Еда");
+
+    @TempDir
+    Path directory;
+
+    private final List<GroupCommitWriter> writers = new ArrayList<>();
+    private final ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @AfterEach
+    void closeWriters() {
+        writers.forEach(GroupCommitWriter::close);
+    }
+
+    @Test
+    void recordsAreNumberedAfterSnapshotSequence() throws IOException {
+        JournaledFileStorage storage = storage(100);
+        User user = new User(LOGIN, "secret");
+        storage.saveUser(user);
+        long snapshotSequence = snapshotSequence();
+        assertFalse(Files.exists(journal()));
+
+        user.getWallet().addTransaction(expense("10"));
+        storage.saveUser(user);
+        user.getWallet().addTransaction(expense("5"));
+        user.getWallet().setBudget(FOOD, Money.of("100"));
+        storage.saveUser(user);
+
+        List<JournalRecord> records = journalRecords();
+        assertEquals(3, records.size());
+        for (int i = 0; i < records.size(); i++) {
+            assertEquals(snapshotSequence + 1 + i, records.get(i).getSeq());
+        }
+        assertEquals(JournalRecord.Op.TX, records.get(0).getOp());
+        assertEquals(JournalRecord.Op.BUDGET, records.get(2).getOp());
+    }
+
+    @Test
+    void unchangedWalletWritesNothing() throws IOException {
+        JournaledFileStorage storage = storage(100);
+        User user = new User(LOGIN, "secret");
+        storage.saveUser(user);
+        user.getWallet().addTransaction(expense("10"));
+        storage.saveUser(user);
+
+        storage.saveUser(user);
+
+        assertEquals(1, journalRecords().size());
+    }
+
+    @Test
+    void deletionIsJournaledAndReplayed() throws IOException {
+        JournaledFileStorage storage = storage(100);
+        User user = new User(LOGIN, "secret");
+        storage.saveUser(user);
+        Transaction kept = expense("10");
+        Transaction deleted = expense("2.50");
+        user.getWallet().addTransaction(kept);
+        user.getWallet().addTransaction(deleted);
+        storage.saveUser(user);
+
+        user.getWallet().deleteTransaction(deleted.getTransactionId());
+        storage.saveUser(user);
+
+        List<JournalRecord> records = journalRecords();
+        JournalRecord last = records.get(records.size() - 1);
+        assertEquals(JournalRecord.Op.DELETE, last.getOp());
+        assertEquals(deleted.getTransactionId(), last.getTransaction().getTransactionId());
+        // Баланс сходится с проигрыванием, отдельная запись BALANCE не нужна
+        assertEquals(3, records.size());
+
+        User reloaded = storage(100).loadUser(LOGIN);
+        assertEquals(List.of(kept.getTransactionId()), ids(reloaded));
+        assertEquals(0, reloaded.getWallet().getBalance().compareTo(Money.of("-10")));
+    }
+
+    @Test
+    void compactionReplacesJournalWithSnapshotAndKeepsNumbering() throws IOException {
+        JournaledFileStorage storage = storage(3);
+        User user = new User(LOGIN, "secret");
+        storage.saveUser(user);
+        for (int i = 0; i < 3; i++) {
+            user.getWallet().addTransaction(expense("1"));
+            storage.saveUser(user);
+        }
+        long lastJournaled = journalRecords().get(2).getSeq();
+
+        // Четвёртая запись превысила бы порог - вместо неё пишется снимок
+        user.getWallet().addTransaction(expense("1"));
+        storage.saveUser(user);
+
+        assertFalse(Files.exists(journal()));
+        assertEquals(lastJournaled, snapshotSequence());
+
+        user.getWallet().addTransaction(expense("1"));
+        storage.saveUser(user);
+        assertEquals(lastJournaled + 1, journalRecords().get(0).getSeq());
+
+        User reloaded = storage(3).loadUser(LOGIN);
+        assertEquals(ids(user), ids(reloaded));
+        assertEquals(0, reloaded.getWallet().getBalance().compareTo(Money.of("-5")));
+    }
+
+    @Test
+    void reloadedStateContinuesJournal() throws IOException {
+        JournaledFileStorage storage = storage(100);
+        User user = new User(LOGIN, "secret");
+        storage.saveUser(user);
+        user.getWallet().addTransaction(expense("10"));
+        user.getWallet().setBudget(FOOD, Money.of("50"));
+        storage.saveUser(user);
+
+        JournaledFileStorage restarted = storage(100);
+        User reloaded = restarted.loadUser(LOGIN);
+        assertEquals(0, reloaded.getWallet().getBudget(FOOD).getLimitAmount().compareTo(Money.of("50")));
+
+        // Проигранные записи уже на диске: сохранение без изменений ничего не дописывает
+        restarted.saveUser(reloaded);
+        assertEquals(2, journalRecords().size());
+
+        reloaded.getWallet().addTransaction(expense("1"));
+        restarted.saveUser(reloaded);
+        List<JournalRecord> records = journalRecords();
+        assertEquals(3, records.size());
+        assertEquals(records.get(1).getSeq() + 1, records.get(2).getSeq());
+        assertEquals(JournalRecord.Op.TX, records.get(2).getOp());
+    }
+
+    @Test
+    void crashBetweenSnapshotSwapAndJournalDeleteIsNotReplayedTwice() throws IOException {
+        JournaledFileStorage storage = storage(2);
+        User user = new User(LOGIN, "secret");
+        storage.saveUser(user);
+        user.getWallet().setBudget(FOOD, Money.of("100"));
+        user.getWallet().addTransaction(expense("10"));
+        storage.saveUser(user);
+        byte[] oldJournal = Files.readAllBytes(journal());
+
+        user.getWallet().setBudget(FOOD, Money.of("200"));
+        user.getWallet().addTransaction(expense("1"));
+        storage.saveUser(user);
+        assertFalse(Files.exists(journal()));
+
+        // Как если бы процесс упал после подмены снимка, но до удаления журнала
+        Files.write(journal(), oldJournal);
+
+        User reloaded = storage(2).loadUser(LOGIN);
+        assertEquals(ids(user), ids(reloaded));
+        assertEquals(0, reloaded.getWallet().getBudget(FOOD).getLimitAmount().compareTo(Money.of("200")));
+        assertEquals(0, reloaded.getWallet().getBalance().compareTo(Money.of("-11")));
+    }
+
+    @Test
+    void saveAfterSecondLoadWritesOnlyItsChanges() throws IOException {
+        JournaledFileStorage storage = storage(100);
+        User user = new User(LOGIN, "secret");
+        storage.saveUser(user);
+        user.getWallet().addTransaction(expense("10"));
+        storage.saveUser(user);
+
+        User first = storage.loadUser(LOGIN);
+        User second = storage.loadUser(LOGIN);
+        second.getWallet().addTransaction(expense("3"));
+        storage.saveUser(second);
+        assertEquals(2, journalRecords().size());
+
+        // Загрузка только для чтения не подменяет то, что хранилище помнит о диске
+        User report = storage.loadUserForReading(LOGIN);
+        assertNotNull(report);
+        second.getWallet().addTransaction(expense("4"));
+        storage.saveUser(second);
+
+        List<JournalRecord> records = journalRecords();
+        assertEquals(3, records.size());
+        assertTrue(records.get(1).getSeq() < records.get(2).getSeq());
+        assertEquals(1, ids(first).size());
+        assertEquals(ids(second), ids(storage(100).loadUser(LOGIN)));
+    }
+
+    private JournaledFileStorage storage(int compactionThreshold) {
+        GroupCommitWriter writer = new GroupCommitWriter();
+        writers.add(writer);
+        return new JournaledFileStorage(new JsonFileStorage(directory.toString()), directory.toString(),
+                compactionThreshold, writer);
+    }
+
+    private long snapshotSequence() {
+        return new JsonFileStorage(directory.toString()).loadSnapshot(LOGIN).getJournalSequence();
+    }
+
+    private Path journal() {
+        return directory.resolve("journal_" + LOGIN + ".log");
+    }
+
+    private List<JournalRecord> journalRecords() throws IOException {
+        List<JournalRecord> records = new ArrayList<>();
+        for (String line : Files.readAllLines(journal(), StandardCharsets.UTF_8)) {
+            if (!line.isBlank()) {
+                records.add(mapper.readValue(line, JournalRecord.class));
+            }
+        }
+        return records;
+    }
+
+    private static List<Object> ids(User user) {
+        List<Object> ids = new ArrayList<>();
+        for (Transaction transaction : user.getWallet().getTransactions()) {
+            ids.add(transaction.getTransactionId());
+        }
+        return ids;
+    }
+
+    private static Transaction expense(String amount) {
+        return new Transaction(TransactionType.EXPENSE, FOOD, Money.of(amount), LocalDateTime.now(), null);
+    }
+}